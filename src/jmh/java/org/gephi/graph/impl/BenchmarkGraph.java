@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import java.util.Arrays;
+import java.util.Random;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphFactory;
+import org.gephi.graph.api.Node;
+
+/**
+ * Random graph shared by the benchmarks.
+ * <p>
+ * Graphs are generated with a fixed seed so runs are comparable. Node positions are spread uniformly in a square of
+ * side {@link #BOUNDS} centered on the origin so the spatial index benchmarks have a non-trivial quadtree.
+ */
+public class BenchmarkGraph {
+
+    public static final int AVERAGE_DEGREE = 8;
+    public static final float BOUNDS = 10000f;
+    public static final long SEED = 42L;
+
+    public final GraphModelImpl graphModel;
+    public final GraphStore store;
+    public final NodeImpl[] nodes;
+    public final EdgeImpl[] edges;
+
+    public BenchmarkGraph(int edgeCount) {
+        this(Configuration.builder().build(), edgeCount);
+    }
+
+    public BenchmarkGraph(Configuration configuration, int edgeCount) {
+        graphModel = new GraphModelImpl(configuration);
+        store = graphModel.getStore();
+        nodes = createNodes(graphModel, nodeCount(edgeCount));
+        store.addAllNodes(Arrays.asList(nodes));
+        edges = createEdges(graphModel, nodes, edgeCount);
+        store.addAllEdges(Arrays.asList(edges));
+    }
+
+    public static int nodeCount(int edgeCount) {
+        return Math.max(2, edgeCount / AVERAGE_DEGREE);
+    }
+
+    public static NodeImpl[] createNodes(GraphModelImpl graphModel, int nodeCount) {
+        Random random = new Random(SEED);
+        GraphFactory factory = graphModel.factory();
+        NodeImpl[] nodes = new NodeImpl[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = factory.newNode(String.valueOf(i));
+            node.setX((random.nextFloat() - 0.5f) * BOUNDS);
+            node.setY((random.nextFloat() - 0.5f) * BOUNDS);
+            node.setSize(1f);
+            nodes[i] = (NodeImpl) node;
+        }
+        return nodes;
+    }
+
+    public static EdgeImpl[] createEdges(GraphModelImpl graphModel, NodeImpl[] nodes, int edgeCount) {
+        Random random = new Random(SEED);
+        GraphFactory factory = graphModel.factory();
+        LongOpenHashSet pairs = new LongOpenHashSet(edgeCount);
+        EdgeImpl[] edges = new EdgeImpl[edgeCount];
+        int count = 0;
+        while (count < edgeCount) {
+            int source = random.nextInt(nodes.length);
+            int target = random.nextInt(nodes.length);
+            if (source != target && pairs.add(((long) source << 32) | target)) {
+                Edge edge = factory.newEdge(nodes[source], nodes[target], 0, true);
+                edges[count++] = (EdgeImpl) edge;
+            }
+        }
+        return edges;
+    }
+}
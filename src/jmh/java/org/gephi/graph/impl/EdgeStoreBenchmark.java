@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of edge lookups and adjacency reads on the main view.
+ * <p>
+ * Each invocation performs {@link #OPERATIONS} lookups on randomly sampled elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EdgeStoreBenchmark {
+
+    public static final int OPERATIONS = 1024;
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int edges;
+
+    private BenchmarkGraph graph;
+    private NodeImpl[] sampleNodes;
+    private NodeImpl[] sampleSources;
+    private NodeImpl[] sampleTargets;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        graph = new BenchmarkGraph(edges);
+        Random random = new Random(BenchmarkGraph.SEED);
+        sampleNodes = new NodeImpl[OPERATIONS];
+        sampleSources = new NodeImpl[OPERATIONS];
+        sampleTargets = new NodeImpl[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            sampleNodes[i] = graph.nodes[random.nextInt(graph.nodes.length)];
+            // Half existing edges, half random pairs that most likely miss
+            if (i % 2 == 0) {
+                EdgeImpl edge = graph.edges[random.nextInt(graph.edges.length)];
+                sampleSources[i] = edge.source;
+                sampleTargets[i] = edge.target;
+            } else {
+                sampleSources[i] = graph.nodes[random.nextInt(graph.nodes.length)];
+                sampleTargets[i] = graph.nodes[random.nextInt(graph.nodes.length)];
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void getEdge(Blackhole bh) {
+        EdgeStore edgeStore = graph.store.edgeStore;
+        for (int i = 0; i < OPERATIONS; i++) {
+            bh.consume(edgeStore.get(sampleSources[i], sampleTargets[i], 0, false));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void getNeighbors(Blackhole bh) {
+        GraphStore store = graph.store;
+        for (int i = 0; i < OPERATIONS; i++) {
+            for (Node n : store.getNeighbors(sampleNodes[i])) {
+                bh.consume(n);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void getEdges(Blackhole bh) {
+        GraphStore store = graph.store;
+        for (int i = 0; i < OPERATIONS; i++) {
+            for (Edge e : store.getEdges(sampleNodes[i])) {
+                bh.consume(e);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void getDegree(Blackhole bh) {
+        GraphStore store = graph.store;
+        for (int i = 0; i < OPERATIONS; i++) {
+            bh.consume(store.getDegree(sampleNodes[i]));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of node and edge insertion into an empty store.
+ * <p>
+ * Elements are created ahead of each iteration so only the store insertion is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GraphStoreBenchmark {
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int edges;
+
+    private GraphModelImpl graphModel;
+    private NodeImpl[] nodeArray;
+    private EdgeImpl[] edgeArray;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        graphModel = new GraphModelImpl();
+        nodeArray = BenchmarkGraph.createNodes(graphModel, BenchmarkGraph.nodeCount(edges));
+        edgeArray = BenchmarkGraph.createEdges(graphModel, nodeArray, edges);
+    }
+
+    @Benchmark
+    public void addNodeAndEdge(Blackhole bh) {
+        GraphStore store = graphModel.getStore();
+        for (NodeImpl n : nodeArray) {
+            bh.consume(store.addNode(n));
+        }
+        for (EdgeImpl e : edgeArray) {
+            bh.consume(store.addEdge(e));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.DirectedSubgraph;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of reads through a {@link GraphViewDecorator}.
+ * <p>
+ * The view keeps nodes with an even store id and every edge between them, which is about a quarter of the edges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphViewBenchmark {
+
+    public static final int OPERATIONS = 1024;
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int edges;
+
+    private BenchmarkGraph graph;
+    private DirectedSubgraph subgraph;
+    private NodeImpl[] sampleNodes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        graph = new BenchmarkGraph(edges);
+        GraphView view = graph.graphModel.createView(n -> n.getStoreId() % 2 == 0, e -> true);
+        subgraph = graph.graphModel.getDirectedGraph(view);
+
+        Random random = new Random(BenchmarkGraph.SEED);
+        sampleNodes = new NodeImpl[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            NodeImpl node = graph.nodes[random.nextInt(graph.nodes.length)];
+            while (!subgraph.contains(node)) {
+                node = graph.nodes[random.nextInt(graph.nodes.length)];
+            }
+            sampleNodes[i] = node;
+        }
+    }
+
+    @Benchmark
+    public void iterateNodes(Blackhole bh) {
+        for (Node n : subgraph.getNodes()) {
+            bh.consume(n);
+        }
+    }
+
+    @Benchmark
+    public void iterateEdges(Blackhole bh) {
+        for (Edge e : subgraph.getEdges()) {
+            bh.consume(e);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void getNeighbors(Blackhole bh) {
+        for (int i = 0; i < OPERATIONS; i++) {
+            for (Node n : subgraph.getNeighbors(sampleNodes[i])) {
+                bh.consume(n);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void getDegree(Blackhole bh) {
+        for (int i = 0; i < OPERATIONS; i++) {
+            bh.consume(subgraph.getDegree(sampleNodes[i]));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.impl.utils.DataInputOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the graph model serialization round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int edges;
+
+    private BenchmarkGraph graph;
+    private byte[] bytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        graph = new BenchmarkGraph(edges);
+        DataInputOutput dio = new DataInputOutput();
+        new Serialization(graph.graphModel).serializeGraphModel(dio, graph.graphModel);
+        bytes = dio.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serializeGraphModel() throws IOException {
+        DataInputOutput dio = new DataInputOutput();
+        new Serialization(graph.graphModel).serializeGraphModel(dio, graph.graphModel);
+        return dio.toByteArray();
+    }
+
+    @Benchmark
+    public GraphModelImpl deserializeGraphModel() throws IOException, ClassNotFoundException {
+        return new Serialization().deserializeGraphModel(new DataInputOutput(bytes));
+    }
+}
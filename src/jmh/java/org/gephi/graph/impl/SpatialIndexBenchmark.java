@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of area queries on the nodes quadtree.
+ * <p>
+ * Query rectangles cover {@link #areaRatio} of the graph bounds on each axis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpatialIndexBenchmark {
+
+    public static final int OPERATIONS = 256;
+
+    @Param({ "10000", "100000", "1000000", "10000000" })
+    public int edges;
+
+    @Param({ "0.01", "0.1" })
+    public float areaRatio;
+
+    private BenchmarkGraph graph;
+    private Rect2D[] rects;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        graph = new BenchmarkGraph(Configuration.builder().enableSpatialIndex(true).build(), edges);
+        Random random = new Random(BenchmarkGraph.SEED);
+        float side = BenchmarkGraph.BOUNDS * areaRatio;
+        rects = new Rect2D[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            float minX = (random.nextFloat() - 0.5f) * (BenchmarkGraph.BOUNDS - side);
+            float minY = (random.nextFloat() - 0.5f) * (BenchmarkGraph.BOUNDS - side);
+            rects[i] = new Rect2D(minX, minY, minX + side, minY + side);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void getNodes(Blackhole bh) {
+        NodesQuadTree tree = graph.store.spatialIndex.nodesTree;
+        for (int i = 0; i < OPERATIONS; i++) {
+            for (Node n : tree.getNodes(rects[i])) {
+                bh.consume(n);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void getApproximateNodes(Blackhole bh) {
+        NodesQuadTree tree = graph.store.spatialIndex.nodesTree;
+        for (int i = 0; i < OPERATIONS; i++) {
+            for (Node n : tree.getNodes(rects[i], true)) {
+                bh.consume(n);
+            }
+        }
+    }
+}
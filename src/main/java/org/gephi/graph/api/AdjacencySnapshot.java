@@ -0,0 +1,202 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Immutable compressed sparse row (CSR) snapshot of a graph's adjacency.
+ * <p>
+ * Nodes are assigned a dense index between <code>0</code> and {@link #getNodeCount()} (excluded), in store id order.
+ * The outgoing neighbors of the node at index <code>i</code> are the values of {@link #getOutTargets()} between
+ * <code>getOutOffsets()[i]</code> (included) and <code>getOutOffsets()[i + 1]</code> (excluded). Incoming neighbors are
+ * stored the same way in {@link #getInSources()}.
+ * <p>
+ * Within a node's row, edges are partitioned by edge type. The range of a given type is obtained with
+ * {@link #getOutStart(int, int)} and {@link #getOutEnd(int, int)}.
+ * <p>
+ * Undirected edges appear in the outgoing and incoming rows of both their endpoints. Self-loops appear once in each
+ * row.
+ * <p>
+ * The snapshot is a copy and doesn't reflect changes made to the graph after it was created. The returned arrays are
+ * shared and shouldn't be modified.
+ *
+ * @see GraphModel#createAdjacencySnapshot(GraphView, boolean)
+ */
+public interface AdjacencySnapshot {
+
+    /**
+     * Returns the view this snapshot was created from.
+     *
+     * @return view
+     */
+    GraphView getView();
+
+    /**
+     * Returns the number of nodes in this snapshot.
+     *
+     * @return node count
+     */
+    int getNodeCount();
+
+    /**
+     * Returns the number of edges in this snapshot.
+     *
+     * @return edge count
+     */
+    int getEdgeCount();
+
+    /**
+     * Returns the number of edge type partitions in each row.
+     * <p>
+     * Partitions are indexed by edge type id, between <code>0</code> and this value (excluded).
+     *
+     * @return type partition count
+     */
+    int getTypeCount();
+
+    /**
+     * Returns true if this snapshot contains edge weights.
+     *
+     * @return true if weights are available, false otherwise
+     */
+    boolean hasWeights();
+
+    /**
+     * Returns the node store id of the node at the given index.
+     *
+     * @param index node index
+     * @return node store id
+     * @see Node#getStoreId()
+     */
+    int getStoreId(int index);
+
+    /**
+     * Returns the index of the node with the given store id, or <code>-1</code> if this node isn't in the snapshot.
+     *
+     * @param storeId node store id
+     * @return node index or -1 if not found
+     */
+    int getIndex(int storeId);
+
+    /**
+     * Returns the outgoing row offsets, of length <code>getNodeCount() + 1</code>.
+     *
+     * @return outgoing offsets
+     */
+    int[] getOutOffsets();
+
+    /**
+     * Returns the outgoing neighbor indices, of length <code>getOutOffsets()[getNodeCount()]</code>.
+     *
+     * @return outgoing neighbor indices
+     */
+    int[] getOutTargets();
+
+    /**
+     * Returns the edge store ids parallel to {@link #getOutTargets()}.
+     *
+     * @return outgoing edge store ids
+     * @see Edge#getStoreId()
+     */
+    int[] getOutEdgeStoreIds();
+
+    /**
+     * Returns the edge weights parallel to {@link #getOutTargets()}, or null if this snapshot has no weights.
+     *
+     * @return outgoing edge weights or null
+     */
+    double[] getOutWeights();
+
+    /**
+     * Returns the start offset (included) of the given type in the outgoing row of the node at the given index.
+     *
+     * @param index node index
+     * @param type edge type
+     * @return start offset
+     */
+    int getOutStart(int index, int type);
+
+    /**
+     * Returns the end offset (excluded) of the given type in the outgoing row of the node at the given index.
+     *
+     * @param index node index
+     * @param type edge type
+     * @return end offset
+     */
+    int getOutEnd(int index, int type);
+
+    /**
+     * Returns the number of outgoing edges of the node at the given index.
+     *
+     * @param index node index
+     * @return outgoing degree
+     */
+    int getOutDegree(int index);
+
+    /**
+     * Returns the incoming row offsets, of length <code>getNodeCount() + 1</code>.
+     *
+     * @return incoming offsets
+     */
+    int[] getInOffsets();
+
+    /**
+     * Returns the incoming neighbor indices, of length <code>getInOffsets()[getNodeCount()]</code>.
+     *
+     * @return incoming neighbor indices
+     */
+    int[] getInSources();
+
+    /**
+     * Returns the edge store ids parallel to {@link #getInSources()}.
+     *
+     * @return incoming edge store ids
+     * @see Edge#getStoreId()
+     */
+    int[] getInEdgeStoreIds();
+
+    /**
+     * Returns the edge weights parallel to {@link #getInSources()}, or null if this snapshot has no weights.
+     *
+     * @return incoming edge weights or null
+     */
+    double[] getInWeights();
+
+    /**
+     * Returns the start offset (included) of the given type in the incoming row of the node at the given index.
+     *
+     * @param index node index
+     * @param type edge type
+     * @return start offset
+     */
+    int getInStart(int index, int type);
+
+    /**
+     * Returns the end offset (excluded) of the given type in the incoming row of the node at the given index.
+     *
+     * @param index node index
+     * @param type edge type
+     * @return end offset
+     */
+    int getInEnd(int index, int type);
+
+    /**
+     * Returns the number of incoming edges of the node at the given index.
+     *
+     * @param index node index
+     * @return incoming degree
+     */
+    int getInDegree(int index);
+}
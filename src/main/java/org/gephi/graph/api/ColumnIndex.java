@@ -66,8 +66,8 @@ public interface ColumnIndex<K, T extends Element> extends Iterable<Map.Entry<K,
     int countElements();
 
     /**
-     * Returns whether the column index is numeric and sortable, and therefore methods {@link #getMinValue()} and
-     * {@link #getMaxValue()} are available.
+     * Returns whether the column index is numeric and sortable, and therefore methods {@link #getMinValue()},
+     * {@link #getMaxValue()} and range methods are available.
      *
      * @return true if sortable, false otherwise
      */
@@ -91,6 +91,65 @@ public interface ColumnIndex<K, T extends Element> extends Iterable<Map.Entry<K,
      */
     Number getMaxValue();
 
+    /**
+     * Gets an Iterable of all elements with a value between <em>from</em> and <em>to</em>, by ascending value.
+     * <p>
+     * Only applies for sortable indices. A null bound leaves the range open on that side and elements with a null value
+     * are never included.
+     *
+     * @param from the lower bound, or null
+     * @param to the upper bound, or null
+     * @param inclusive true to include elements equal to either bound, false to exclude them
+     * @return an iterable with elements with a value in the range
+     */
+    Iterable<T> get(K from, K to, boolean inclusive);
+
+    /**
+     * Counts the elements with a value between <em>from</em> and <em>to</em>.
+     * <p>
+     * Only applies for sortable indices. A null bound leaves the range open on that side and elements with a null value
+     * are never counted.
+     *
+     * @param from the lower bound, or null
+     * @param to the upper bound, or null
+     * @param inclusive true to count elements equal to either bound, false to exclude them
+     * @return the number of elements with a value in the range
+     */
+    int countRange(K from, K to, boolean inclusive);
+
+    /**
+     * Gets the <em>k</em> elements with the highest values, by descending value.
+     * <p>
+     * Only applies for sortable indices. Elements with a null value are ignored and ties are returned in no particular
+     * order.
+     *
+     * @param k the number of elements
+     * @return an iterable with at most <em>k</em> elements
+     */
+    Iterable<T> getTop(int k);
+
+    /**
+     * Gets the <em>k</em> elements with the lowest values, by ascending value.
+     * <p>
+     * Only applies for sortable indices. Elements with a null value are ignored and ties are returned in no particular
+     * order.
+     *
+     * @param k the number of elements
+     * @return an iterable with at most <em>k</em> elements
+     */
+    Iterable<T> getBottom(int k);
+
+    /**
+     * Returns the value at the given quantile, using the nearest-rank method.
+     * <p>
+     * Only applies for sortable indices. Elements with a null value are ignored. For instance, a quantile of
+     * <code>0.5</code> returns the median value and <code>0</code> the minimum value.
+     *
+     * @param quantile the quantile, between 0 and 1
+     * @return the value at the quantile, or null if there are no values
+     */
+    Number getQuantile(double quantile);
+
     /**
      * Returns the column for which this column index belongs to.
      *
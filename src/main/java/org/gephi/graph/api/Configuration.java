@@ -96,6 +96,9 @@ public class Configuration {
             if (!configuration.isEnableNodeProperties() && configuration.isEnableSpatialIndex()) {
                 throw new IllegalStateException("Spatial index can't be enabled if node properties are disabled");
             }
+            if (!configuration.isEnableNodeProperties() && configuration.isEnableColumnarPositions()) {
+                throw new IllegalStateException("Columnar positions can't be enabled if node properties are disabled");
+            }
 
             return new Configuration(configuration);
         }
@@ -446,6 +449,187 @@ public class Configuration {
             return this;
         }
 
+        /**
+         * Sets whether to store primitive attribute columns in columnar arrays.
+         * <p>
+         * If enabled, static columns of type <code>Double</code>, <code>Integer</code>, <code>Float</code>,
+         * <code>Long</code> and <code>Boolean</code>, including the edge weight, are stored in dense primitive arrays
+         * indexed by the element's store id instead of boxed in each element's attributes. This reduces memory and GC
+         * pressure on large graphs.
+         * <p>
+         * Default is <code>false</code>.
+         *
+         * @param enableColumnarAttributes enable columnar storage of primitive attributes
+         * @return this builder
+         */
+        public Builder enableColumnarAttributes(final boolean enableColumnarAttributes) {
+            this.configuration = new ConfigurationImpl(new Configuration(this.configuration) {
+                @Override
+                public boolean isEnableColumnarAttributes() {
+                    return enableColumnarAttributes;
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Sets whether indexed columns use bitmap indexes.
+         * <p>
+         * If enabled, indexed columns of non-array static types keep, for each distinct value, a compressed bitmap of
+         * element store ids instead of a hash set of elements. This is compact and fast for low-cardinality columns
+         * (e.g. booleans, categories or small integers) and allows combining predicates with {@link Index#getAll} and
+         * {@link Index#getAny} by bitmap intersection and union.
+         * <p>
+         * Default is <code>false</code>.
+         *
+         * @param enableBitmapIndex enable bitmap indexes for indexed columns
+         * @return this builder
+         */
+        public Builder enableBitmapIndex(final boolean enableBitmapIndex) {
+            this.configuration = new ConfigurationImpl(new Configuration(this.configuration) {
+                @Override
+                public boolean isEnableBitmapIndex() {
+                    return enableBitmapIndex;
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Sets whether short read operations use optimistic locking.
+         * <p>
+         * If enabled, short reads such as <code>getNode</code>, <code>getEdge</code>, <code>isAdjacent</code> and
+         * <code>contains</code> run without acquiring the read lock and are validated afterwards, falling back to the
+         * read lock only if a write happened concurrently. This removes contention on the read lock with many reader
+         * threads. Only applies when auto locking is enabled.
+         * <p>
+         * Default is <code>false</code>.
+         *
+         * @param enableOptimisticLocking enable optimistic locking for short reads
+         * @return this builder
+         */
+        public Builder enableOptimisticLocking(final boolean enableOptimisticLocking) {
+            this.configuration = new ConfigurationImpl(new Configuration(this.configuration) {
+                @Override
+                public boolean isEnableOptimisticLocking() {
+                    return enableOptimisticLocking;
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Sets whether lock wait and hold times are recorded.
+         * <p>
+         * If enabled, the graph lock, the table locks and the spatial index lock record acquisition wait times, hold
+         * times and their holders, available from {@link GraphModel#getLockMetrics()}, and emit JFR events. Disabled
+         * locks don't record anything.
+         * <p>
+         * Default is <code>false</code>.
+         *
+         * @param enableLockMetrics enable lock metrics
+         * @return this builder
+         */
+        public Builder enableLockMetrics(final boolean enableLockMetrics) {
+            this.configuration = new ConfigurationImpl(new Configuration(this.configuration) {
+                @Override
+                public boolean isEnableLockMetrics() {
+                    return enableLockMetrics;
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Sets whether attribute indexes support concurrent updates.
+         * <p>
+         * If enabled, column indexes let multiple threads update different values of the same column in parallel, for
+         * instance when attributes are written from a parallel stream. Updates of the same value are still serialized.
+         * Array columns and bitmap indexed columns keep their regular index.
+         * <p>
+         * Default is <code>false</code>.
+         *
+         * @param enableConcurrentIndex enable concurrent attribute indexes
+         * @return this builder
+         */
+        public Builder enableConcurrentIndex(final boolean enableConcurrentIndex) {
+            this.configuration = new ConfigurationImpl(new Configuration(this.configuration) {
+                @Override
+                public boolean isEnableConcurrentIndex() {
+                    return enableConcurrentIndex;
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Sets whether sorted neighbor arrays are cached per node.
+         * <p>
+         * If enabled, common neighbor queries reuse a sorted array of neighbor store ids per node, built lazily and
+         * discarded when edges change. Otherwise the arrays are rebuilt on every query.
+         * <p>
+         * Default is <code>false</code>.
+         *
+         * @param enableNeighborIndex enable the neighbor index cache
+         * @return this builder
+         */
+        public Builder enableNeighborIndex(final boolean enableNeighborIndex) {
+            this.configuration = new ConfigurationImpl(new Configuration(this.configuration) {
+                @Override
+                public boolean isEnableNeighborIndex() {
+                    return enableNeighborIndex;
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Sets whether strings are stored in a shared pool.
+         * <p>
+         * If enabled, string ids, labels and static string column values are stored once as Latin-1 or UTF-8 bytes in a
+         * pool shared by nodes and edges, and materialized as <code>String</code> when read. This saves memory when
+         * values repeat or are mostly ASCII, at the cost of an allocation on every read.
+         * <p>
+         * Default is <code>false</code>.
+         *
+         * @param enableStringPool enable the string pool
+         * @return this builder
+         */
+        public Builder enableStringPool(final boolean enableStringPool) {
+            this.configuration = new ConfigurationImpl(new Configuration(this.configuration) {
+                @Override
+                public boolean isEnableStringPool() {
+                    return enableStringPool;
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Sets whether node positions and sizes are stored in arrays indexed by store id.
+         * <p>
+         * If enabled, the x, y, z and size of the nodes in the store are kept in contiguous <code>float</code> arrays
+         * instead of each node's {@link NodeProperties}. Layout algorithms reading or writing the positions of all
+         * nodes can then use {@link GraphModel#getNodePositions(float[], float[])} and
+         * {@link GraphModel#setNodePositions(float[], float[])} which copy the arrays directly.
+         * <p>
+         * Node properties should be enabled.
+         * <p>
+         * Default is <code>false</code>.
+         *
+         * @param enableColumnarPositions enable columnar positions
+         * @return this builder
+         */
+        public Builder enableColumnarPositions(final boolean enableColumnarPositions) {
+            this.configuration = new ConfigurationImpl(new Configuration(this.configuration) {
+                @Override
+                public boolean isEnableColumnarPositions() {
+                    return enableColumnarPositions;
+                }
+            });
+            return this;
+        }
+
         private static void checkSimpleType(Class type) {
             if (!AttributeUtils.isSimpleType(type)) {
                 throw new IllegalArgumentException("Unsupported type " + type.getCanonicalName());
@@ -628,6 +812,38 @@ public class Configuration {
         return delegate.isEnableParallelEdgesSameType();
     }
 
+    public boolean isEnableColumnarAttributes() {
+        return delegate.isEnableColumnarAttributes();
+    }
+
+    public boolean isEnableBitmapIndex() {
+        return delegate.isEnableBitmapIndex();
+    }
+
+    public boolean isEnableOptimisticLocking() {
+        return delegate.isEnableOptimisticLocking();
+    }
+
+    public boolean isEnableLockMetrics() {
+        return delegate.isEnableLockMetrics();
+    }
+
+    public boolean isEnableConcurrentIndex() {
+        return delegate.isEnableConcurrentIndex();
+    }
+
+    public boolean isEnableNeighborIndex() {
+        return delegate.isEnableNeighborIndex();
+    }
+
+    public boolean isEnableStringPool() {
+        return delegate.isEnableStringPool();
+    }
+
+    public boolean isEnableColumnarPositions() {
+        return delegate.isEnableColumnarPositions();
+    }
+
     /**
      * Copy this configuration.
      *
@@ -15,6 +15,9 @@
  */
 package org.gephi.graph.api;
 
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
 /**
  * Directed graph.
  * <p>
@@ -141,6 +144,80 @@ public interface DirectedGraph extends Graph {
      */
     public EdgeIterable getOutEdges(Node node, int type);
 
+    /**
+     * Visits the store ids of the node's successors.
+     *
+     * @param node the node to get successors
+     * @param consumer the consumer receiving the successors' store ids
+     */
+    public default void forEachSuccessor(Node node, IntConsumer consumer) {
+        for (Node successor : getSuccessors(node)) {
+            consumer.accept(successor.getStoreId());
+        }
+    }
+
+    /**
+     * Visits the store ids of the node's predecessors.
+     *
+     * @param node the node to get predecessors
+     * @param consumer the consumer receiving the predecessors' store ids
+     */
+    public default void forEachPredecessor(Node node, IntConsumer consumer) {
+        for (Node predecessor : getPredecessors(node)) {
+            consumer.accept(predecessor.getStoreId());
+        }
+    }
+
+    /**
+     * Visits the node's outgoing edges.
+     *
+     * @param node the node to get outgoing edges
+     * @param consumer the consumer receiving the edges
+     */
+    public default void forEachOutEdge(Node node, Consumer<? super Edge> consumer) {
+        for (Edge edge : getOutEdges(node)) {
+            consumer.accept(edge);
+        }
+    }
+
+    /**
+     * Visits the node's outgoing edges for the given type.
+     *
+     * @param node the node to get outgoing edges
+     * @param type the edge type
+     * @param consumer the consumer receiving the edges
+     */
+    public default void forEachOutEdge(Node node, int type, Consumer<? super Edge> consumer) {
+        for (Edge edge : getOutEdges(node, type)) {
+            consumer.accept(edge);
+        }
+    }
+
+    /**
+     * Visits the node's incoming edges.
+     *
+     * @param node the node to get incoming edges
+     * @param consumer the consumer receiving the edges
+     */
+    public default void forEachInEdge(Node node, Consumer<? super Edge> consumer) {
+        for (Edge edge : getInEdges(node)) {
+            consumer.accept(edge);
+        }
+    }
+
+    /**
+     * Visits the node's incoming edges for the given type.
+     *
+     * @param node the node to get incoming edges
+     * @param type the edge type
+     * @param consumer the consumer receiving the edges
+     */
+    public default void forEachInEdge(Node node, int type, Consumer<? super Edge> consumer) {
+        for (Edge edge : getInEdges(node, type)) {
+            consumer.accept(edge);
+        }
+    }
+
     /**
      * Gets the edge in the other direction of the given edge.
      * <p>
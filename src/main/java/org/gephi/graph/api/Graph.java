@@ -15,8 +15,16 @@
  */
 package org.gephi.graph.api;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
  * Graph interface.
@@ -123,12 +131,37 @@ public interface Graph {
 
     /**
      * Gets a node given its identifier.
+     * <p>
+     * The id should have the same class as the node ids, an <code>Integer</code> doesn't match a <code>Long</code> id.
+     * Note that a call with an <code>int</code> or <code>long</code> primitive like <code>getNode(1)</code> resolves to
+     * {@link #getNode(long)} instead.
      *
      * @param id the node id
      * @return the node, or null if not found
      */
     public Node getNode(Object id);
 
+    /**
+     * Gets a node given its numeric identifier.
+     * <p>
+     * For graphs configured with <code>Integer</code> or <code>Long</code> node ids, the lookup doesn't box the id.
+     * <p>
+     * Both <code>Integer</code> and <code>Long</code> ids match, so <code>getNode(1)</code> finds a node with the
+     * <code>Long</code> id <code>1L</code>, unlike <code>getNode((Object) 1)</code>.
+     *
+     * @param id the node id
+     * @return the node, or null if not found
+     */
+    public default Node getNode(long id) {
+        if (id >= Integer.MIN_VALUE && id <= Integer.MAX_VALUE) {
+            Node node = getNode((Object) (int) id);
+            if (node != null) {
+                return node;
+            }
+        }
+        return getNode((Object) id);
+    }
+
     /**
      * Gets a node given its store id.
      *
@@ -153,6 +186,26 @@ public interface Graph {
      */
     public Edge getEdge(Object id);
 
+    /**
+     * Gets an edge given its numeric identifier.
+     * <p>
+     * For graphs configured with <code>Integer</code> or <code>Long</code> edge ids, the lookup doesn't box the id.
+     * <p>
+     * Both <code>Integer</code> and <code>Long</code> ids match, see {@link #getNode(long)}.
+     *
+     * @param id the edge id
+     * @return the edge, or null if not found
+     */
+    public default Edge getEdge(long id) {
+        if (id >= Integer.MIN_VALUE && id <= Integer.MAX_VALUE) {
+            Edge edge = getEdge((Object) (int) id);
+            if (edge != null) {
+                return edge;
+            }
+        }
+        return getEdge((Object) id);
+    }
+
     /**
      * Gets an edge given its store id.
      *
@@ -278,6 +331,190 @@ public interface Graph {
      */
     public EdgeIterable getEdges(Node node, int type);
 
+    /**
+     * Visits the store ids of all neighbors of a given node.
+     * <p>
+     * Neighbors are visited in the same order and with the same multiplicity as
+     * {@link #getNeighbors(org.gephi.graph.api.Node)} but without allocating an iterator. The read lock is held during
+     * the traversal so the consumer must not modify the graph.
+     * <p>
+     * The default implementation iterates over {@link #getNeighbors(org.gephi.graph.api.Node)}.
+     *
+     * @param node the node to get neighbors
+     * @param consumer the consumer receiving the neighbors' store ids
+     */
+    public default void forEachNeighbor(Node node, IntConsumer consumer) {
+        for (Node neighbor : getNeighbors(node)) {
+            consumer.accept(neighbor.getStoreId());
+        }
+    }
+
+    /**
+     * Visits the store ids of all neighbors of a given node connected through the given edge type.
+     *
+     * @param node the node to get neighbors
+     * @param type the edge type
+     * @param consumer the consumer receiving the neighbors' store ids
+     */
+    public default void forEachNeighbor(Node node, int type, IntConsumer consumer) {
+        for (Node neighbor : getNeighbors(node, type)) {
+            consumer.accept(neighbor.getStoreId());
+        }
+    }
+
+    /**
+     * Visits all edges incident to a given node.
+     * <p>
+     * Edges are visited in the same order as {@link #getEdges(org.gephi.graph.api.Node)} but without allocating an
+     * iterator. The read lock is held during the traversal so the consumer must not modify the graph.
+     * <p>
+     * The default implementation iterates over {@link #getEdges(org.gephi.graph.api.Node)}.
+     *
+     * @param node the node to get edges from
+     * @param consumer the consumer receiving the edges
+     */
+    public default void forEachEdge(Node node, Consumer<? super Edge> consumer) {
+        for (Edge edge : getEdges(node)) {
+            consumer.accept(edge);
+        }
+    }
+
+    /**
+     * Visits all edges incident to a given node with the given edge type.
+     *
+     * @param node the node to get edges from
+     * @param type the edge type
+     * @param consumer the consumer receiving the edges
+     */
+    public default void forEachEdge(Node node, int type, Consumer<? super Edge> consumer) {
+        for (Edge edge : getEdges(node, type)) {
+            consumer.accept(edge);
+        }
+    }
+
+    /**
+     * Copies the store ids of all neighbors of a given node into the buffer.
+     * <p>
+     * The returned count may be larger than the buffer length, in which case only the first neighbors have been copied.
+     * A buffer as large as the node's degree is always sufficient.
+     *
+     * @param node the node to get neighbors
+     * @param buffer the buffer to fill
+     * @return the number of neighbors
+     */
+    public default int neighborStoreIds(Node node, int[] buffer) {
+        int count = 0;
+        for (Node neighbor : getNeighbors(node)) {
+            if (count < buffer.length) {
+                buffer[count] = neighbor.getStoreId();
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the nodes that are neighbors of both given nodes.
+     * <p>
+     * Edge types and directions are ignored and each common neighbor is returned once, in ascending store id order. The
+     * given nodes are never their own neighbors, even with self-loops.
+     *
+     * @param node1 the first node
+     * @param node2 the second node
+     * @return a node iterable over the common neighbors
+     */
+    public default NodeIterable getCommonNeighbors(Node node1, Node node2) {
+        final Node[] neighbors = commonNeighbors(node1, node2);
+        return new NodeIterable() {
+            @Override
+            public Iterator<Node> iterator() {
+                return Arrays.asList(neighbors).iterator();
+            }
+
+            @Override
+            public Node[] toArray() {
+                return neighbors.clone();
+            }
+
+            @Override
+            public Collection<Node> toCollection() {
+                return new ArrayList<>(Arrays.asList(neighbors));
+            }
+
+            @Override
+            public Set<Node> toSet() {
+                return new LinkedHashSet<>(Arrays.asList(neighbors));
+            }
+
+            @Override
+            public void doBreak() {
+            }
+        };
+    }
+
+    /**
+     * Counts the nodes that are neighbors of both given nodes.
+     *
+     * @param node1 the first node
+     * @param node2 the second node
+     * @return the number of common neighbors
+     * @see #getCommonNeighbors(org.gephi.graph.api.Node, org.gephi.graph.api.Node)
+     */
+    public default int countCommonNeighbors(Node node1, Node node2) {
+        return commonNeighbors(node1, node2).length;
+    }
+
+    /**
+     * Copies the store ids of the nodes that are neighbors of both given nodes into the buffer, in ascending order.
+     * <p>
+     * The returned count may be larger than the buffer length, in which case only the smallest store ids have been
+     * copied.
+     *
+     * @param node1 the first node
+     * @param node2 the second node
+     * @param buffer the buffer to fill
+     * @return the number of common neighbors
+     * @see #getCommonNeighbors(org.gephi.graph.api.Node, org.gephi.graph.api.Node)
+     */
+    public default int commonNeighborStoreIds(Node node1, Node node2, int[] buffer) {
+        final Node[] neighbors = commonNeighbors(node1, node2);
+        for (int i = 0; i < neighbors.length && i < buffer.length; i++) {
+            buffer[i] = neighbors[i].getStoreId();
+        }
+        return neighbors.length;
+    }
+
+    // Intersects the neighbors of both nodes sorted by store id
+    private Node[] commonNeighbors(Node node1, Node node2) {
+        final Node[] neighbors1 = getNeighbors(node1).toArray();
+        final Node[] neighbors2 = getNeighbors(node2).toArray();
+        final Comparator<Node> comparator = Comparator.comparingInt(Node::getStoreId);
+        Arrays.sort(neighbors1, comparator);
+        Arrays.sort(neighbors2, comparator);
+
+        final List<Node> common = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < neighbors1.length && j < neighbors2.length) {
+            final int id1 = neighbors1[i].getStoreId();
+            final int id2 = neighbors2[j].getStoreId();
+            if (id1 < id2) {
+                i++;
+            } else if (id1 > id2) {
+                j++;
+            } else {
+                final Node neighbor = neighbors1[i];
+                if (neighbor != node1 && neighbor != node2 && (common
+                        .isEmpty() || common.get(common.size() - 1) != neighbor)) {
+                    common.add(neighbor);
+                }
+                i++;
+                j++;
+            }
+        }
+        return common.toArray(new Node[0]);
+    }
+
     /**
      * Gets the number of nodes in the graph.
      *
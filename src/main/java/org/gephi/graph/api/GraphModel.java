@@ -15,12 +15,26 @@
  */
 package org.gephi.graph.api;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.time.ZoneId;
 import java.util.function.Predicate;
 import org.gephi.graph.impl.GraphModelImpl;
+import org.gephi.graph.impl.GraphStoreConfiguration;
+import org.gephi.graph.impl.SnapshotSerialization;
+import org.gephi.graph.impl.utils.ChunkedInputStream;
+import org.gephi.graph.impl.utils.ChunkedOutputStream;
 
 /**
  * Graph API's entry point.
@@ -178,6 +192,119 @@ public interface GraphModel {
             org.gephi.graph.impl.Serialization s = new org.gephi.graph.impl.Serialization();
             s.serializeGraphModel(output, (GraphModelImpl) graphModel);
         }
+
+        /**
+         * Read the graph model from <code>channel</code>, starting at its current position.
+         * <p>
+         * Both formats are supported and detected from the header.
+         *
+         * @param channel file channel to read from
+         * @return new graph model
+         * @throws IOException if an io error occurs
+         */
+        public static GraphModel read(FileChannel channel) throws IOException {
+            try {
+                if (SnapshotSerialization.isSnapshot(channel)) {
+                    return new SnapshotSerialization().read(channel);
+                }
+                DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+                return new org.gephi.graph.impl.Serialization().deserializeGraphModel(input);
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+        }
+
+        /**
+         * Write <code>graphModel</code> to <code>channel</code> in the given format, starting at its current position.
+         *
+         * @param channel file channel to write to
+         * @param graphModel graph model to write
+         * @param format serialization format
+         * @throws IOException if an io error occurs
+         */
+        public static void write(FileChannel channel, GraphModel graphModel, Format format) throws IOException {
+            if (format == Format.SNAPSHOT) {
+                new SnapshotSerialization().write(channel, (GraphModelImpl) graphModel);
+            } else {
+                DataOutputStream output = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel)));
+                write(output, graphModel);
+                output.flush();
+            }
+        }
+
+        /**
+         * Write <code>graphModel</code> to <code>output</code> as a stream of fixed-size chunks.
+         * <p>
+         * The content is the same as {@link #write(DataOutput, GraphModel)} but it is flushed chunk by chunk, so the
+         * memory used while saving doesn't depend on the size of the graph. Chunks can be compressed and carry a
+         * checksum verified when reading. Read back with {@link #readChunked(InputStream)}.
+         *
+         * @param output output stream to write to
+         * @param graphModel graph model to write
+         * @param compress true to compress chunks
+         * @param checksum true to add a checksum to chunks
+         * @throws IOException if an io error occurs
+         */
+        public static void writeChunked(OutputStream output, GraphModel graphModel, boolean compress, boolean checksum) throws IOException {
+            writeChunked(Channels.newChannel(output), graphModel, compress, checksum);
+        }
+
+        /**
+         * Write <code>graphModel</code> to <code>channel</code> as a stream of fixed-size chunks.
+         *
+         * @param channel channel to write to
+         * @param graphModel graph model to write
+         * @param compress true to compress chunks
+         * @param checksum true to add a checksum to chunks
+         * @throws IOException if an io error occurs
+         * @see #writeChunked(OutputStream, GraphModel, boolean, boolean)
+         */
+        public static void writeChunked(WritableByteChannel channel, GraphModel graphModel, boolean compress, boolean checksum) throws IOException {
+            ChunkedOutputStream chunked = new ChunkedOutputStream(channel,
+                    GraphStoreConfiguration.SERIALIZATION_CHUNK_SIZE, compress, checksum);
+            write(new DataOutputStream(chunked), graphModel);
+            chunked.close();
+        }
+
+        /**
+         * Read a graph model written with {@link #writeChunked(OutputStream, GraphModel, boolean, boolean)}.
+         *
+         * @param input input stream to read from
+         * @return new graph model
+         * @throws IOException if an io error occurs or a chunk checksum doesn't match
+         */
+        public static GraphModel readChunked(InputStream input) throws IOException {
+            return readChunked(Channels.newChannel(input));
+        }
+
+        /**
+         * Read a graph model written with {@link #writeChunked(WritableByteChannel, GraphModel, boolean, boolean)}.
+         *
+         * @param channel channel to read from
+         * @return new graph model
+         * @throws IOException if an io error occurs or a chunk checksum doesn't match
+         */
+        public static GraphModel readChunked(ReadableByteChannel channel) throws IOException {
+            try (ChunkedInputStream chunked = new ChunkedInputStream(channel)) {
+                return read(new DataInputStream(chunked));
+            }
+        }
+
+        /**
+         * Serialization formats.
+         */
+        public enum Format {
+            /**
+             * Stream of tagged objects, same as {@link #write(DataOutput, GraphModel)}.
+             */
+            STREAM,
+            /**
+             * Binary snapshot with contiguous sections for the graph structure and primitive columns, read back through
+             * memory mapping. Faster to load for large graphs.
+             */
+            SNAPSHOT
+        }
     }
 
     /**
@@ -747,4 +874,114 @@ public interface GraphModel {
      * @return maximum edge store id
      */
     public int getMaxEdgeStoreId();
+
+    /**
+     * Copies the position of every node into the given arrays, indexed by node store id.
+     * <p>
+     * The arrays should be at least {@link #getMaxNodeStoreId()} long. Values at store ids not assigned to a node are
+     * unspecified. This is much faster than reading each node when columnar positions are enabled in the configuration.
+     *
+     * @param xs array to fill with the x positions
+     * @param ys array to fill with the y positions
+     * @throws IllegalArgumentException if an array is shorter than the max node store id
+     * @throws UnsupportedOperationException if node properties are disabled
+     */
+    public void getNodePositions(float[] xs, float[] ys);
+
+    /**
+     * Sets the position of every node from the given arrays, indexed by node store id.
+     * <p>
+     * The arrays should be at least {@link #getMaxNodeStoreId()} long and contain no <code>NaN</code> value below that
+     * length. This is much faster than setting each node's position when columnar positions are enabled in the
+     * configuration.
+     *
+     * @param xs x positions
+     * @param ys y positions
+     * @throws IllegalArgumentException if an array is shorter than the max node store id or contains <code>NaN</code>
+     * @throws UnsupportedOperationException if node properties are disabled
+     */
+    public void setNodePositions(float[] xs, float[] ys);
+
+    /**
+     * Copies the size of every node into the given array, indexed by node store id.
+     * <p>
+     * The array should be at least {@link #getMaxNodeStoreId()} long. Values at store ids not assigned to a node are
+     * unspecified.
+     *
+     * @param sizes array to fill with the sizes
+     * @throws IllegalArgumentException if the array is shorter than the max node store id
+     * @throws UnsupportedOperationException if node properties are disabled
+     */
+    public void getNodeSizes(float[] sizes);
+
+    /**
+     * Creates an immutable compressed sparse row snapshot of the main view's adjacency, without weights.
+     *
+     * @return adjacency snapshot
+     * @see AdjacencySnapshot
+     */
+    public AdjacencySnapshot createAdjacencySnapshot();
+
+    /**
+     * Creates an immutable compressed sparse row snapshot of the given view's adjacency.
+     * <p>
+     * The snapshot is built in parallel and is best suited for algorithms that walk the adjacency many times. It
+     * doesn't reflect changes made to the graph afterwards.
+     *
+     * @param view view to snapshot
+     * @param withWeights true to include edge weights
+     * @return adjacency snapshot
+     * @see AdjacencySnapshot
+     */
+    public AdjacencySnapshot createAdjacencySnapshot(GraphView view, boolean withWeights);
+
+    /**
+     * Opens a read-only snapshot of the main view.
+     * <p>
+     * The snapshot is pinned to the current version of the graph and can be read without locking while the graph
+     * continues to be modified. Opening a snapshot is cheap, store blocks and attribute values are only copied when
+     * they are modified while the snapshot is open. The snapshot should be closed once done.
+     *
+     * @return graph snapshot
+     * @see GraphSnapshot
+     */
+    public GraphSnapshot snapshot();
+
+    /**
+     * Begins a write transaction.
+     * <p>
+     * The write lock is acquired by the calling thread and held until the transaction is committed. Version increments,
+     * attribute index maintenance and column versions are deferred and applied once at commit time, which is much
+     * cheaper when a large number of elements are modified at once.
+     *
+     * @return transaction
+     * @see GraphTransaction
+     */
+    public GraphTransaction beginTransaction();
+
+    /**
+     * Returns the lock contention and hold time metrics.
+     * <p>
+     * Lock metrics should be enabled in the configuration.
+     *
+     * @return lock metrics
+     * @throws UnsupportedOperationException if lock metrics are disabled
+     * @see LockMetrics
+     */
+    public LockMetrics getLockMetrics();
+
+    /**
+     * Compacts the node and edge stores.
+     * <p>
+     * Elements are renumbered densely in their current order so that store ids range from zero to the number of
+     * elements and the memory left by removed elements is released. The graph itself is unchanged and observers won't
+     * report any difference, but store ids held by the caller should be rewritten using the returned mapping.
+     * <p>
+     * Compaction isn't possible while a snapshot is open.
+     *
+     * @return mapping from old to new store ids
+     * @throws IllegalStateException if a snapshot is open
+     * @see StoreIdRemapping
+     */
+    public StoreIdRemapping compact();
 }
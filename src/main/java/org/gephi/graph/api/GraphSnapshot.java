@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Read-only graph pinned to the state of the main view at the time it was opened.
+ * <p>
+ * Snapshots are obtained from {@link GraphModel#snapshot()} and let long-running reads proceed without holding the
+ * graph read lock, so writers aren't blocked. Nodes, edges, adjacency, edge types and element attribute values are kept
+ * as they were when the snapshot was opened, even if the graph is modified afterwards.
+ * <p>
+ * Elements returned by a snapshot are the live graph elements, so their own getters reflect the current state. Use
+ * {@link #getAttribute(Element, Column)}, {@link #getWeight(Edge)} and {@link #getType(Edge)} to read the pinned
+ * values. Time-based values (timestamp and interval maps and sets) are shared with the graph and are only pinned when
+ * replaced. Graph attributes and the other element properties (position, color...) aren't pinned.
+ * <p>
+ * All methods that modify the graph throw an {@link UnsupportedOperationException}. Read locking isn't needed and
+ * {@link #readLock()} does nothing.
+ * <p>
+ * A snapshot holds on to the data the graph replaced since it was opened and should be closed when no longer needed.
+ *
+ * @see GraphModel#snapshot()
+ */
+public interface GraphSnapshot extends DirectedGraph, AutoCloseable {
+
+    /**
+     * Returns the value of the given column for the given element, as it was when the snapshot was opened.
+     *
+     * @param element element, node or edge
+     * @param column column
+     * @return attribute value, or null
+     * @throws IllegalArgumentException if the element isn't in this snapshot
+     */
+    Object getAttribute(Element element, Column column);
+
+    /**
+     * Returns the weight of the given edge, as it was when the snapshot was opened.
+     * <p>
+     * Dynamic weights aren't pinned and are read from the edge.
+     *
+     * @param edge edge
+     * @return edge weight
+     * @throws IllegalArgumentException if the edge isn't in this snapshot
+     */
+    double getWeight(Edge edge);
+
+    /**
+     * Returns the type of the given edge, as it was when the snapshot was opened.
+     *
+     * @param edge edge
+     * @return edge type
+     * @throws IllegalArgumentException if the edge isn't in this snapshot
+     */
+    int getType(Edge edge);
+
+    /**
+     * Returns true if this snapshot has been closed.
+     *
+     * @return true if closed, false otherwise
+     */
+    boolean isClosed();
+
+    /**
+     * Closes this snapshot and releases the data it pinned.
+     * <p>
+     * Any further read throws an {@link IllegalStateException}. Closing a snapshot more than once has no effect.
+     */
+    @Override
+    void close();
+}
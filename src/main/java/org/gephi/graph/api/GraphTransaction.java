@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Write transaction grouping many graph changes into a single update.
+ * <p>
+ * Transactions are obtained from {@link GraphModel#beginTransaction()}. The write lock is held from the beginning of
+ * the transaction until it's committed. While it's active, graph and view version increments, attribute index updates
+ * and column version increments are deferred and applied once when the transaction is committed. Observers and readers
+ * therefore see a single version change per transaction.
+ * <p>
+ * Attribute indexes aren't updated until the commit, so index queries made from within a transaction may not reflect
+ * its changes. Changes can't be rolled back, closing a transaction commits it.
+ * <p>
+ * Transactions can be nested in the same thread, only the outermost commit applies the deferred updates.
+ *
+ * @see GraphModel#beginTransaction()
+ */
+public interface GraphTransaction extends AutoCloseable {
+
+    /**
+     * Commits this transaction, applies the deferred updates and releases the write lock.
+     *
+     * @throws IllegalStateException if the transaction was already committed
+     */
+    void commit();
+
+    /**
+     * Returns true if this transaction hasn't been committed yet.
+     *
+     * @return true if active, false otherwise
+     */
+    boolean isActive();
+
+    /**
+     * Commits this transaction if it's still active.
+     */
+    @Override
+    void close();
+}
@@ -44,6 +44,56 @@ public interface Index<T extends Element> {
      */
     public Iterable<T> get(Column column, Object value);
 
+    /**
+     * Gets an Iterable of all elements in the index having, in each of the given <em>columns</em>, the value at the
+     * same position in <em>values</em>.
+     * <p>
+     * Predicates on bitmap-indexed columns are combined by bitmap intersection, see
+     * {@link Configuration.Builder#enableBitmapIndex(boolean)}.
+     *
+     * @param columns the columns
+     * @param values the values, one per column
+     * @return an iterable with the elements matching all the predicates
+     * @throws IllegalArgumentException if <em>columns</em> and <em>values</em> have different lengths
+     */
+    public Iterable<T> getAll(Column[] columns, Object[] values);
+
+    /**
+     * Counts the elements in the index having, in each of the given <em>columns</em>, the value at the same position in
+     * <em>values</em>.
+     *
+     * @param columns the columns
+     * @param values the values, one per column
+     * @return the number of elements matching all the predicates
+     * @throws IllegalArgumentException if <em>columns</em> and <em>values</em> have different lengths
+     */
+    public int countAll(Column[] columns, Object[] values);
+
+    /**
+     * Gets an Iterable of all elements in the index having, in at least one of the given <em>columns</em>, the value at
+     * the same position in <em>values</em>.
+     * <p>
+     * Predicates on bitmap-indexed columns are combined by bitmap union, see
+     * {@link Configuration.Builder#enableBitmapIndex(boolean)}.
+     *
+     * @param columns the columns
+     * @param values the values, one per column
+     * @return an iterable with the elements matching any of the predicates
+     * @throws IllegalArgumentException if <em>columns</em> and <em>values</em> have different lengths
+     */
+    public Iterable<T> getAny(Column[] columns, Object[] values);
+
+    /**
+     * Counts the elements in the index having, in at least one of the given <em>columns</em>, the value at the same
+     * position in <em>values</em>.
+     *
+     * @param columns the columns
+     * @param values the values, one per column
+     * @return the number of elements matching any of the predicates
+     * @throws IllegalArgumentException if <em>columns</em> and <em>values</em> have different lengths
+     */
+    public int countAny(Column[] columns, Object[] values);
+
     /**
      * Returns all unique values in the given column.
      *
@@ -98,6 +148,66 @@ public interface Index<T extends Element> {
      */
     public Number getMaxValue(Column column);
 
+    /**
+     * Gets an Iterable of all elements in the index with a value in the given <em>column</em> between <em>from</em> and
+     * <em>to</em>, by ascending value.
+     * <p>
+     * Only applies for sortable columns. A null bound leaves the range open on that side.
+     *
+     * @param column the column
+     * @param from the lower bound, or null
+     * @param to the upper bound, or null
+     * @param inclusive true to include elements equal to either bound, false to exclude them
+     * @return an iterable with elements with a value in the range
+     */
+    public Iterable<T> get(Column column, Object from, Object to, boolean inclusive);
+
+    /**
+     * Counts the elements in the index with a value in the given <em>column</em> between <em>from</em> and <em>to</em>.
+     * <p>
+     * Only applies for sortable columns. A null bound leaves the range open on that side.
+     *
+     * @param column the column
+     * @param from the lower bound, or null
+     * @param to the upper bound, or null
+     * @param inclusive true to count elements equal to either bound, false to exclude them
+     * @return the number of elements with a value in the range
+     */
+    public int countRange(Column column, Object from, Object to, boolean inclusive);
+
+    /**
+     * Gets the <em>k</em> elements with the highest values in the given column, by descending value.
+     * <p>
+     * Only applies for sortable columns.
+     *
+     * @param column the column
+     * @param k the number of elements
+     * @return an iterable with at most <em>k</em> elements
+     */
+    public Iterable<T> getTop(Column column, int k);
+
+    /**
+     * Gets the <em>k</em> elements with the lowest values in the given column, by ascending value.
+     * <p>
+     * Only applies for sortable columns.
+     *
+     * @param column the column
+     * @param k the number of elements
+     * @return an iterable with at most <em>k</em> elements
+     */
+    public Iterable<T> getBottom(Column column, int k);
+
+    /**
+     * Returns the value at the given quantile in the given column, using the nearest-rank method.
+     * <p>
+     * Only applies for sortable columns.
+     *
+     * @param column the column
+     * @param quantile the quantile, between 0 and 1
+     * @return the value at the quantile, or null if there are no values
+     */
+    public Number getQuantile(Column column, double quantile);
+
     /**
      * Returns the element type of this index.
      *
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Lock contention and hold time metrics.
+ * <p>
+ * Only available if lock metrics are enabled in the {@link Configuration}. Metrics are collected per kind of lock,
+ * table locks of all tables and indexes being aggregated together. Read and write acquisitions of the graph and spatial
+ * index locks are reported separately.
+ * <p>
+ * Each lock release also emits a <code>org.gephi.graph.Lock</code> JFR event when a flight recording is active.
+ *
+ * @see GraphModel#getLockMetrics()
+ */
+public interface LockMetrics {
+
+    /**
+     * Returns the statistics of the graph read lock.
+     *
+     * @return graph read lock statistics
+     */
+    LockStatistics getGraphReadLockStatistics();
+
+    /**
+     * Returns the statistics of the graph write lock.
+     *
+     * @return graph write lock statistics
+     */
+    LockStatistics getGraphWriteLockStatistics();
+
+    /**
+     * Returns the statistics of the table locks, which protect column stores and attribute indexes.
+     *
+     * @return table lock statistics
+     */
+    LockStatistics getTableLockStatistics();
+
+    /**
+     * Returns the statistics of the spatial index read lock.
+     *
+     * @return spatial index read lock statistics
+     */
+    LockStatistics getSpatialIndexReadLockStatistics();
+
+    /**
+     * Returns the statistics of the spatial index write lock.
+     *
+     * @return spatial index write lock statistics
+     */
+    LockStatistics getSpatialIndexWriteLockStatistics();
+
+    /**
+     * Resets all statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+import java.util.Map;
+
+/**
+ * Wait and hold time statistics of a lock.
+ * <p>
+ * Only outermost acquisitions are recorded, reentrant acquisitions by a thread already holding the lock are not. All
+ * times are in nanoseconds.
+ * <p>
+ * Histograms have 64 buckets with power of two boundaries: bucket <code>0</code> counts zero durations and bucket
+ * <code>i</code> counts durations <code>d</code> with <code>2^(i-1) &lt;= d &lt; 2^i</code>.
+ */
+public interface LockStatistics {
+
+    /**
+     * Returns the name of the lock.
+     *
+     * @return lock name
+     */
+    String getName();
+
+    /**
+     * Returns the number of acquisitions.
+     *
+     * @return acquisition count
+     */
+    long getAcquisitionCount();
+
+    /**
+     * Returns the number of acquisitions that had to wait because the lock was held by another thread.
+     *
+     * @return contended acquisition count
+     */
+    long getContendedAcquisitionCount();
+
+    /**
+     * Returns the number of write lock acquisitions that failed because the thread was holding a read lock.
+     *
+     * @return failed upgrade count, always zero for read and table locks
+     */
+    long getFailedUpgradeCount();
+
+    /**
+     * Returns the total time spent waiting to acquire the lock.
+     *
+     * @return total wait time, in nanoseconds
+     */
+    long getTotalWaitTime();
+
+    /**
+     * Returns the longest time spent waiting to acquire the lock.
+     *
+     * @return maximum wait time, in nanoseconds
+     */
+    long getMaxWaitTime();
+
+    /**
+     * Returns the total time the lock was held.
+     *
+     * @return total hold time, in nanoseconds
+     */
+    long getTotalHoldTime();
+
+    /**
+     * Returns the longest time the lock was held.
+     *
+     * @return maximum hold time, in nanoseconds
+     */
+    long getMaxHoldTime();
+
+    /**
+     * Returns the wait time histogram.
+     *
+     * @return copy of the wait time histogram buckets
+     */
+    long[] getWaitTimeHistogram();
+
+    /**
+     * Returns the hold time histogram.
+     *
+     * @return copy of the hold time histogram buckets
+     */
+    long[] getHoldTimeHistogram();
+
+    /**
+     * Returns the threads that held the lock the longest, by thread name.
+     *
+     * @param count maximum number of threads to return
+     * @return map from thread name to total hold time in nanoseconds, in descending order of hold time
+     */
+    Map<String, Long> getTopHolders(int count);
+}
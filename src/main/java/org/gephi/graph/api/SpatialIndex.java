@@ -133,4 +133,32 @@ public interface SpatialIndex {
      * Releases a read lock on the spatial index. This must be called after a call to {@link #spatialIndexReadLock()}.
      */
     void spatialIndexReadUnlock();
+
+    /**
+     * Starts a batch of position updates.
+     * <p>
+     * Inside a batch, nodes can be moved or resized freely without updating the spatial index. Queries keep returning
+     * results based on the positions the nodes had when the batch started, until {@link #commitBatch()} updates the
+     * index all at once. This is much faster than updating the index after every move, for instance in layout
+     * algorithms. Added and removed nodes are still indexed immediately.
+     * <p>
+     * Batches can be nested, every call to this method must be matched with a call to {@link #commitBatch()}.
+     */
+    void beginBatch();
+
+    /**
+     * Commits a batch of position updates started with {@link #beginBatch()}.
+     * <p>
+     * When the outermost batch is committed the index is rebuilt from the current node positions and sizes.
+     *
+     * @throws IllegalStateException if no batch is in progress
+     */
+    void commitBatch();
+
+    /**
+     * Returns true if a batch of position updates is in progress.
+     *
+     * @return true if in a batch, false otherwise
+     */
+    boolean isBatch();
 }
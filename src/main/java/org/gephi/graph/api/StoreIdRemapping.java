@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.api;
+
+/**
+ * Mapping from the store ids before a compaction to the store ids after it.
+ * <p>
+ * Store ids are reused when elements are added after others have been removed but are never renumbered otherwise, which
+ * leaves holes in the store after a large number of removals. Compacting the store renumbers the elements densely in
+ * their current order. Callers keeping arrays indexed by store id can use this mapping to rewrite them.
+ *
+ * @see GraphModel#compact()
+ * @see Element#getStoreId()
+ */
+public interface StoreIdRemapping {
+
+    /**
+     * Returns true if at least one node store id changed.
+     *
+     * @return true if node store ids changed, false otherwise
+     */
+    public boolean hasNodeChanges();
+
+    /**
+     * Returns true if at least one edge store id changed.
+     *
+     * @return true if edge store ids changed, false otherwise
+     */
+    public boolean hasEdgeChanges();
+
+    /**
+     * Returns the new store id of the node which had the given store id before the compaction.
+     *
+     * @param oldStoreId store id before the compaction
+     * @return store id after the compaction or -1 if no node had this store id
+     */
+    public int getNodeStoreId(int oldStoreId);
+
+    /**
+     * Returns the new store id of the edge which had the given store id before the compaction.
+     *
+     * @param oldStoreId store id before the compaction
+     * @return store id after the compaction or -1 if no edge had this store id
+     */
+    public int getEdgeStoreId(int oldStoreId);
+}
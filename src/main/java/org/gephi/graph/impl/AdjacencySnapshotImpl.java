@@ -0,0 +1,436 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import org.gephi.graph.api.AdjacencySnapshot;
+import org.gephi.graph.api.GraphView;
+
+/**
+ * Compressed sparse row implementation of {@link AdjacencySnapshot}.
+ * <p>
+ * The snapshot is built in two passes over the node store blocks, each run in parallel per block. The first pass counts
+ * the edges of each node per type and the second fills the rows. Each node's row is only written by the task handling
+ * its block so no synchronization is needed beyond the caller's read lock.
+ */
+public class AdjacencySnapshotImpl implements AdjacencySnapshot {
+
+    // View
+    protected final GraphView view;
+    // Counts
+    protected final int nodeCount;
+    protected final int edgeCount;
+    protected final int typeCount;
+    // Node mapping
+    protected final int[] storeIds;
+    protected final int[] indices;
+    // Out
+    protected final int[] outTypeOffsets;
+    protected final int[] outOffsets;
+    protected final int[] outTargets;
+    protected final int[] outEdgeStoreIds;
+    protected final double[] outWeights;
+    // In
+    protected final int[] inTypeOffsets;
+    protected final int[] inOffsets;
+    protected final int[] inSources;
+    protected final int[] inEdgeStoreIds;
+    protected final double[] inWeights;
+
+    private AdjacencySnapshotImpl(Builder builder) {
+        this.view = builder.graphView;
+        this.nodeCount = builder.nodeCount;
+        this.edgeCount = builder.edgeCount;
+        this.typeCount = builder.typeCount;
+        this.storeIds = builder.storeIds;
+        this.indices = builder.indices;
+        this.outTypeOffsets = builder.outTypeOffsets;
+        this.outOffsets = rowOffsets(outTypeOffsets, nodeCount, typeCount);
+        this.outTargets = builder.outTargets;
+        this.outEdgeStoreIds = builder.outEdgeStoreIds;
+        this.outWeights = builder.outWeights;
+        this.inTypeOffsets = builder.inTypeOffsets;
+        this.inOffsets = rowOffsets(inTypeOffsets, nodeCount, typeCount);
+        this.inSources = builder.inSources;
+        this.inEdgeStoreIds = builder.inEdgeStoreIds;
+        this.inWeights = builder.inWeights;
+    }
+
+    protected static AdjacencySnapshotImpl build(GraphStore graphStore, GraphView view, boolean withWeights) {
+        Builder builder = new Builder(graphStore, view, withWeights);
+        builder.build();
+        return new AdjacencySnapshotImpl(builder);
+    }
+
+    @Override
+    public GraphView getView() {
+        return view;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public int getTypeCount() {
+        return typeCount;
+    }
+
+    @Override
+    public boolean hasWeights() {
+        return outWeights != null;
+    }
+
+    @Override
+    public int getStoreId(int index) {
+        checkIndex(index);
+        return storeIds[index];
+    }
+
+    @Override
+    public int getIndex(int storeId) {
+        if (storeId < 0 || storeId >= indices.length) {
+            return NodeStore.NULL_ID;
+        }
+        return indices[storeId];
+    }
+
+    @Override
+    public int[] getOutOffsets() {
+        return outOffsets;
+    }
+
+    @Override
+    public int[] getOutTargets() {
+        return outTargets;
+    }
+
+    @Override
+    public int[] getOutEdgeStoreIds() {
+        return outEdgeStoreIds;
+    }
+
+    @Override
+    public double[] getOutWeights() {
+        return outWeights;
+    }
+
+    @Override
+    public int getOutStart(int index, int type) {
+        checkIndex(index);
+        checkType(type);
+        return outTypeOffsets[index * typeCount + type];
+    }
+
+    @Override
+    public int getOutEnd(int index, int type) {
+        checkIndex(index);
+        checkType(type);
+        return outTypeOffsets[index * typeCount + type + 1];
+    }
+
+    @Override
+    public int getOutDegree(int index) {
+        checkIndex(index);
+        return outOffsets[index + 1] - outOffsets[index];
+    }
+
+    @Override
+    public int[] getInOffsets() {
+        return inOffsets;
+    }
+
+    @Override
+    public int[] getInSources() {
+        return inSources;
+    }
+
+    @Override
+    public int[] getInEdgeStoreIds() {
+        return inEdgeStoreIds;
+    }
+
+    @Override
+    public double[] getInWeights() {
+        return inWeights;
+    }
+
+    @Override
+    public int getInStart(int index, int type) {
+        checkIndex(index);
+        checkType(type);
+        return inTypeOffsets[index * typeCount + type];
+    }
+
+    @Override
+    public int getInEnd(int index, int type) {
+        checkIndex(index);
+        checkType(type);
+        return inTypeOffsets[index * typeCount + type + 1];
+    }
+
+    @Override
+    public int getInDegree(int index) {
+        checkIndex(index);
+        return inOffsets[index + 1] - inOffsets[index];
+    }
+
+    private static int[] rowOffsets(int[] typeOffsets, int nodeCount, int typeCount) {
+        if (typeCount == 1) {
+            return typeOffsets;
+        }
+        int[] offsets = new int[nodeCount + 1];
+        for (int i = 0; i <= nodeCount; i++) {
+            offsets[i] = typeOffsets[i * typeCount];
+        }
+        return offsets;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= nodeCount) {
+            throw new IllegalArgumentException("The index " + index + " is out of bounds");
+        }
+    }
+
+    private void checkType(int type) {
+        if (type < 0 || type >= typeCount) {
+            throw new IllegalArgumentException("The type " + type + " is out of bounds");
+        }
+    }
+
+    private static final class Builder {
+
+        // Store
+        private final NodeStore nodeStore;
+        private final EdgeStore edgeStore;
+        private final GraphView graphView;
+        // Null for the main view
+        private final GraphViewImpl view;
+        private final boolean withWeights;
+        // Result
+        private int nodeCount;
+        private int edgeCount;
+        private final int typeCount;
+        private int[] storeIds;
+        private int[] indices;
+        private int[] outTypeOffsets;
+        private int[] outTargets;
+        private int[] outEdgeStoreIds;
+        private double[] outWeights;
+        private int[] inTypeOffsets;
+        private int[] inSources;
+        private int[] inEdgeStoreIds;
+        private double[] inWeights;
+
+        private Builder(GraphStore graphStore, GraphView view, boolean withWeights) {
+            this.nodeStore = graphStore.nodeStore;
+            this.edgeStore = graphStore.edgeStore;
+            this.graphView = view;
+            this.view = view.isMainView() ? null : (GraphViewImpl) view;
+            this.withWeights = withWeights;
+            this.typeCount = Math.max(1, graphStore.edgeTypeStore.length);
+        }
+
+        private void build() {
+            indexNodes();
+
+            outTypeOffsets = new int[nodeCount * typeCount + 1];
+            inTypeOffsets = new int[nodeCount * typeCount + 1];
+            IntStream.range(0, nodeStore.blocksCount).parallel().forEach(this::countBlock);
+
+            int outLength = prefixSum(outTypeOffsets);
+            int inLength = prefixSum(inTypeOffsets);
+            outTargets = new int[outLength];
+            outEdgeStoreIds = new int[outLength];
+            inSources = new int[inLength];
+            inEdgeStoreIds = new int[inLength];
+            if (withWeights) {
+                outWeights = new double[outLength];
+                inWeights = new double[inLength];
+            }
+            IntStream.range(0, nodeStore.blocksCount).parallel().forEach(this::fillBlock);
+        }
+
+        private void indexNodes() {
+            indices = new int[nodeStore.maxStoreId()];
+            Arrays.fill(indices, NodeStore.NULL_ID);
+            storeIds = new int[nodeStore.size()];
+            int index = 0;
+            for (int b = 0; b < nodeStore.blocksCount; b++) {
+                NodeStore.NodeBlock block = nodeStore.blocks[b];
+                for (int i = 0; i < block.nodeLength; i++) {
+                    NodeImpl node = block.backingArray[i];
+                    if (node != null && containsNode(node)) {
+                        indices[node.storeId] = index;
+                        storeIds[index++] = node.storeId;
+                    }
+                }
+            }
+            nodeCount = index;
+            if (nodeCount < storeIds.length) {
+                storeIds = Arrays.copyOf(storeIds, nodeCount);
+            }
+        }
+
+        // First pass, counts edges per node and type. Counts are stored at the
+        // next partition slot so the prefix sum gives start offsets
+        private void countBlock(int blockIndex) {
+            NodeStore.NodeBlock block = nodeStore.blocks[blockIndex];
+            int blockEdgeCount = 0;
+            for (int i = 0; i < block.nodeLength; i++) {
+                NodeImpl node = block.backingArray[i];
+                if (node == null || !containsNode(node)) {
+                    continue;
+                }
+                int rowOffset = indices[node.storeId] * typeCount + 1;
+                EdgeImpl[] headOut = node.headOut;
+                for (int t = 0; t < headOut.length && t < typeCount; t++) {
+                    for (EdgeImpl edge = headOut[t]; edge != null; edge = nextOut(edge)) {
+                        if (containsEdge(edge)) {
+                            outTypeOffsets[rowOffset + t]++;
+                            if (isBothWays(edge)) {
+                                inTypeOffsets[rowOffset + t]++;
+                            }
+                            blockEdgeCount++;
+                        }
+                    }
+                }
+                EdgeImpl[] headIn = node.headIn;
+                for (int t = 0; t < headIn.length && t < typeCount; t++) {
+                    for (EdgeImpl edge = headIn[t]; edge != null; edge = nextIn(edge)) {
+                        if (containsEdge(edge)) {
+                            inTypeOffsets[rowOffset + t]++;
+                            if (isBothWays(edge)) {
+                                outTypeOffsets[rowOffset + t]++;
+                            }
+                        }
+                    }
+                }
+            }
+            addEdgeCount(blockEdgeCount);
+        }
+
+        // Second pass, fills the rows. Out-list edges come first in each
+        // partition, followed by undirected edges from the in-list
+        private void fillBlock(int blockIndex) {
+            NodeStore.NodeBlock block = nodeStore.blocks[blockIndex];
+            for (int i = 0; i < block.nodeLength; i++) {
+                NodeImpl node = block.backingArray[i];
+                if (node == null || !containsNode(node)) {
+                    continue;
+                }
+                int rowOffset = indices[node.storeId] * typeCount;
+                EdgeImpl[] headOut = node.headOut;
+                EdgeImpl[] headIn = node.headIn;
+                for (int t = 0; t < typeCount; t++) {
+                    int outCursor = outTypeOffsets[rowOffset + t];
+                    int inCursor = inTypeOffsets[rowOffset + t];
+                    if (t < headOut.length) {
+                        for (EdgeImpl edge = headOut[t]; edge != null; edge = nextOut(edge)) {
+                            if (containsEdge(edge)) {
+                                int neighbor = indices[edge.target.storeId];
+                                double weight = withWeights ? getWeight(edge) : 0.0;
+                                setOut(outCursor++, neighbor, edge, weight);
+                                if (isBothWays(edge)) {
+                                    setIn(inCursor++, neighbor, edge, weight);
+                                }
+                            }
+                        }
+                    }
+                    if (t < headIn.length) {
+                        for (EdgeImpl edge = headIn[t]; edge != null; edge = nextIn(edge)) {
+                            if (containsEdge(edge)) {
+                                int neighbor = indices[edge.source.storeId];
+                                double weight = withWeights ? getWeight(edge) : 0.0;
+                                setIn(inCursor++, neighbor, edge, weight);
+                                if (isBothWays(edge)) {
+                                    setOut(outCursor++, neighbor, edge, weight);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private void setOut(int cursor, int neighbor, EdgeImpl edge, double weight) {
+            outTargets[cursor] = neighbor;
+            outEdgeStoreIds[cursor] = edge.storeId;
+            if (withWeights) {
+                outWeights[cursor] = weight;
+            }
+        }
+
+        private void setIn(int cursor, int neighbor, EdgeImpl edge, double weight) {
+            inSources[cursor] = neighbor;
+            inEdgeStoreIds[cursor] = edge.storeId;
+            if (withWeights) {
+                inWeights[cursor] = weight;
+            }
+        }
+
+        private synchronized void addEdgeCount(int count) {
+            edgeCount += count;
+        }
+
+        private double getWeight(EdgeImpl edge) {
+            if (view != null && edge.hasDynamicWeight()) {
+                return edge.getWeight(view);
+            }
+            return edge.getWeight();
+        }
+
+        private boolean isBothWays(EdgeImpl edge) {
+            return !edge.isDirected() && !edge.isSelfLoop();
+        }
+
+        private boolean containsNode(NodeImpl node) {
+            return view == null || view.containsNode(node);
+        }
+
+        private boolean containsEdge(EdgeImpl edge) {
+            return view == null || view.containsEdge(edge);
+        }
+
+        private EdgeImpl nextOut(EdgeImpl edge) {
+            int id = edge.nextOutEdge;
+            return id == EdgeStore.NULL_ID ? null
+                    : edgeStore.blocks[id / GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE].get(id);
+        }
+
+        private EdgeImpl nextIn(EdgeImpl edge) {
+            int id = edge.nextInEdge;
+            return id == EdgeStore.NULL_ID ? null
+                    : edgeStore.blocks[id / GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE].get(id);
+        }
+
+        private static int prefixSum(int[] offsets) {
+            int sum = 0;
+            for (int i = 0; i < offsets.length; i++) {
+                sum += offsets[i];
+                offsets[i] = sum;
+            }
+            return sum;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.gephi.graph.impl;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
 import java.util.Map;
 import org.gephi.graph.api.Column;
 import org.gephi.graph.api.Estimator;
@@ -31,8 +32,12 @@ public class AttributesImpl {
 
     // Attributes
     protected Object[] attributes;
+    // Columnar storage (optional)
+    protected final ColumnarStore columnarStore;
+    protected int columnarId = ColumnarStore.NULL_ID;
 
     public AttributesImpl(ColumnStore columnStore) {
+        this.columnarStore = columnStore != null ? columnStore.columnarStore : null;
         if (columnStore != null) {
             int length = columnStore.length;
             final ColumnImpl[] cols = columnStore.columns;
@@ -49,16 +54,47 @@ public class AttributesImpl {
     }
 
     public Object getId() {
+        final int id = columnarId;
+        if (id != ColumnarStore.NULL_ID) {
+            ColumnarStore.ColumnarColumn column = columnarStore.getColumn(GraphStoreConfiguration.ELEMENT_ID_INDEX);
+            if (column != null) {
+                return column.get(id);
+            }
+        }
         return attributes[GraphStoreConfiguration.ELEMENT_ID_INDEX];
     }
 
+    /**
+     * Returns the pool handle of the id, or {@link StringPool#NULL_HANDLE} if the id isn't pooled.
+     */
+    protected int getIdHandle() {
+        final int id = columnarId;
+        if (id != ColumnarStore.NULL_ID) {
+            ColumnarStore.ColumnarColumn column = columnarStore.getColumn(GraphStoreConfiguration.ELEMENT_ID_INDEX);
+            if (column instanceof ColumnarStore.StringColumn) {
+                return ((ColumnarStore.StringColumn) column).getHandle(id);
+            }
+        }
+        return StringPool.NULL_HANDLE;
+    }
+
     public void setId(Object id) {
         attributes[GraphStoreConfiguration.ELEMENT_ID_INDEX] = id;
     }
 
     public String getLabel() {
-        if (GraphStoreConfiguration.ENABLE_ELEMENT_LABEL && attributes.length > GraphStoreConfiguration.ELEMENT_LABEL_INDEX) {
-            return (String) attributes[GraphStoreConfiguration.ELEMENT_LABEL_INDEX];
+        if (GraphStoreConfiguration.ENABLE_ELEMENT_LABEL) {
+            final int id = columnarId;
+            if (id != ColumnarStore.NULL_ID) {
+                ColumnarStore.ColumnarColumn column = columnarStore
+                        .getColumn(GraphStoreConfiguration.ELEMENT_LABEL_INDEX);
+                if (column != null) {
+                    return (String) column.get(id);
+                }
+            }
+            if (attributes.length > GraphStoreConfiguration.ELEMENT_LABEL_INDEX) {
+                return (String) attributes[GraphStoreConfiguration.ELEMENT_LABEL_INDEX];
+            }
         }
         return null;
     }
@@ -68,6 +104,13 @@ public class AttributesImpl {
     }
 
     public Object getAttribute(int index) {
+        final int id = columnarId;
+        if (id != ColumnarStore.NULL_ID) {
+            ColumnarStore.ColumnarColumn column = columnarStore.getColumn(index);
+            if (column != null) {
+                return column.get(id);
+            }
+        }
         Object res = null;
         synchronized (this) {
             if (index < attributes.length) {
@@ -124,6 +167,12 @@ public class AttributesImpl {
     public Object setAttribute(int index, Object value) {
         Object oldValue = null;
         synchronized (this) {
+            if (columnarId != ColumnarStore.NULL_ID) {
+                ColumnarStore.ColumnarColumn column = columnarStore.getColumn(index);
+                if (column != null) {
+                    return column.set(columnarId, value);
+                }
+            }
             if (index >= attributes.length) {
                 Object[] newArray = new Object[index + 1];
                 System.arraycopy(attributes, 0, newArray, 0, attributes.length);
@@ -252,8 +301,108 @@ public class AttributesImpl {
         return null;
     }
 
+    protected boolean hasColumnarDouble(int index) {
+        final int id = columnarId;
+        if (id != ColumnarStore.NULL_ID) {
+            ColumnarStore.ColumnarColumn column = columnarStore.getColumn(index);
+            return column instanceof ColumnarStore.DoubleColumn && column.has(id);
+        }
+        return false;
+    }
+
+    protected double getColumnarDouble(int index) {
+        return ((ColumnarStore.DoubleColumn) columnarStore.getColumn(index)).getDouble(columnarId);
+    }
+
+    // Called when the element is added to the store
+    protected void attach(int storeId) {
+        if (columnarStore == null) {
+            return;
+        }
+        synchronized (this) {
+            columnarStore.ensureCapacity(storeId);
+            final int length = columnarStore.length;
+            for (int i = 0; i < length; i++) {
+                ColumnarStore.ColumnarColumn column = columnarStore.getColumn(i);
+                if (column != null) {
+                    Object value = null;
+                    if (i < attributes.length) {
+                        value = attributes[i];
+                        attributes[i] = null;
+                    }
+                    column.set(storeId, value);
+                }
+            }
+            columnarId = storeId;
+        }
+    }
+
+    // Called when the element is removed from the store
+    protected void detach() {
+        if (columnarId == ColumnarStore.NULL_ID) {
+            return;
+        }
+        synchronized (this) {
+            final int length = columnarStore.length;
+            for (int i = 0; i < length; i++) {
+                ColumnarStore.ColumnarColumn column = columnarStore.getColumn(i);
+                if (column != null) {
+                    Object value = column.get(columnarId);
+                    column.remove(columnarId);
+                    if (value != null) {
+                        ensureSize(i);
+                        attributes[i] = value;
+                    }
+                }
+            }
+            columnarId = ColumnarStore.NULL_ID;
+        }
+    }
+
+    // Called when the store renumbers the element, values are moved in ascending store id order
+    protected void move(int storeId) {
+        if (columnarId == ColumnarStore.NULL_ID || columnarId == storeId) {
+            return;
+        }
+        synchronized (this) {
+            final int length = columnarStore.length;
+            for (int i = 0; i < length; i++) {
+                ColumnarStore.ColumnarColumn column = columnarStore.getColumn(i);
+                if (column != null) {
+                    Object value = column.get(columnarId);
+                    column.remove(columnarId);
+                    column.set(storeId, value);
+                }
+            }
+            columnarId = storeId;
+        }
+    }
+
     public Object[] getBackingArray() {
-        return attributes;
+        if (columnarId == ColumnarStore.NULL_ID) {
+            return attributes;
+        }
+        synchronized (this) {
+            final int length = columnarStore.length;
+            Object[] res = Arrays.copyOf(attributes, Math.max(attributes.length, length));
+            for (int i = 0; i < length; i++) {
+                ColumnarStore.ColumnarColumn column = columnarStore.getColumn(i);
+                if (column != null) {
+                    res[i] = column.get(columnarId);
+                }
+            }
+            return res;
+        }
+    }
+
+    // Used by snapshots to keep the values before they are overwritten
+    protected Object[] copyBackingArray() {
+        if (columnarId != ColumnarStore.NULL_ID) {
+            return getBackingArray();
+        }
+        synchronized (this) {
+            return attributes.clone();
+        }
     }
 
     // Used by serialization
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.BitSet;
+
+/**
+ * Bounded append-only log of the store ids touched by node or edge additions and removals.
+ * <p>
+ * Each entry records the version at which the change became visible. Observers replay the entries newer than their last
+ * seen version instead of rescanning the whole graph. When the journal is full the oldest entries are dropped and
+ * {@link #replay(int, IntArrayList)} refuses versions older than the dropped ones, so callers fall back to a full scan.
+ */
+public class ChangeJournal {
+
+    // Config
+    protected final int maxSize;
+    // Data
+    protected int[] versions;
+    protected int[] storeIds;
+    protected int head;
+    protected int size;
+    // Version below which entries may be missing
+    protected int lostVersion;
+
+    public ChangeJournal(int version) {
+        this(version, GraphStoreConfiguration.JOURNAL_MAX_SIZE);
+    }
+
+    public ChangeJournal(int version, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The journal size should be positive");
+        }
+        int initialSize = Math.min(maxSize, GraphStoreConfiguration.JOURNAL_DEFAULT_SIZE);
+        this.maxSize = maxSize;
+        this.versions = new int[initialSize];
+        this.storeIds = new int[initialSize];
+        this.lostVersion = version;
+    }
+
+    public void add(int version, int storeId) {
+        if (size == versions.length) {
+            if (size < maxSize) {
+                grow();
+            } else {
+                lostVersion = versions[head];
+                head = (head + 1) % versions.length;
+                size--;
+            }
+        }
+        int index = (head + size) % versions.length;
+        versions[index] = version;
+        storeIds[index] = storeId;
+        size++;
+    }
+
+    public void addAll(int version, BitSet storeIdSet) {
+        if (storeIdSet.cardinality() > maxSize) {
+            invalidate(version);
+            return;
+        }
+        for (int i = storeIdSet.nextSetBit(0); i >= 0; i = storeIdSet.nextSetBit(i + 1)) {
+            add(version, i);
+        }
+    }
+
+    public void invalidate(int version) {
+        head = 0;
+        size = 0;
+        lostVersion = version;
+    }
+
+    public boolean covers(int fromVersion) {
+        return fromVersion >= lostVersion;
+    }
+
+    /**
+     * Appends to <code>result</code> the store ids of every entry newer than <code>fromVersion</code>, in journal order
+     * and possibly with duplicates.
+     *
+     * @param fromVersion last version seen by the caller
+     * @param result list to append store ids to
+     * @return false if entries newer than <code>fromVersion</code> were dropped, true otherwise
+     */
+    public boolean replay(int fromVersion, IntArrayList result) {
+        if (!covers(fromVersion)) {
+            return false;
+        }
+        // Versions are non-decreasing, binary search the first newer entry
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (versions[(head + mid) % versions.length] <= fromVersion) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < size; i++) {
+            result.add(storeIds[(head + i) % versions.length]);
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        int newLength = (int) Math.min(maxSize, Math.max(versions.length + 1, versions.length * 2L));
+        int[] newVersions = new int[newLength];
+        int[] newStoreIds = new int[newLength];
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) % versions.length;
+            newVersions[i] = versions[index];
+            newStoreIds[i] = storeIds[index];
+        }
+        versions = newVersions;
+        storeIds = newStoreIds;
+        head = 0;
+    }
+}
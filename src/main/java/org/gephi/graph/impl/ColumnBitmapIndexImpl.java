@@ -0,0 +1,570 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.bytes.Byte2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.chars.Char2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.doubles.Double2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.floats.Float2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.longs.Long2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectAVLTreeMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.shorts.Short2ObjectAVLTreeMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.impl.utils.IntBitmap;
+
+/**
+ * Column index keeping, for each distinct value, a compressed bitmap of the element store ids.
+ * <p>
+ * Best suited for low-cardinality columns. Elements are resolved back from the node or edge store so they must belong
+ * to the graph store when indexed.
+ *
+ * @param <K> value type
+ * @param <T> element type
+ */
+public class ColumnBitmapIndexImpl<K, T extends Element> implements ColumnIndexImpl<K, T> {
+
+    // Lock (optional)
+    protected final TableLockImpl lock;
+    // Data
+    protected final ColumnImpl column;
+    protected final ColumnStore<T> columnStore;
+    protected final ValueBitmap nullBitmap;
+    protected Map<K, ValueBitmap> map;
+    // Variable
+    protected int elements;
+    // Version
+    protected final AtomicInteger version = new AtomicInteger(Integer.MIN_VALUE);
+
+    public ColumnBitmapIndexImpl(ColumnImpl column, ColumnStore<T> columnStore) {
+        this.column = column;
+        this.columnStore = columnStore;
+        this.nullBitmap = new ValueBitmap(null);
+        this.map = createMap(column.getTypeClass());
+        this.lock = column.table != null && column.table.configuration.isEnableAutoLocking()
+                ? new TableLockImpl(LockMetricsImpl.getTableLockStatistics(column.table.store.graphStore)) : null;
+    }
+
+    protected static boolean isSupportedType(ColumnImpl col) {
+        return !col.isDynamicAttribute() && !col.isArray();
+    }
+
+    @Override
+    public K putValue(T element, K value) {
+        int storeId = checkElementInStore(element);
+        lock();
+        try {
+            ValueBitmap bitmap;
+            if (value == null) {
+                bitmap = nullBitmap;
+            } else {
+                bitmap = map.get(value);
+                if (bitmap == null) {
+                    bitmap = new ValueBitmap(value);
+                    map.put(value, bitmap);
+                }
+                value = bitmap.value;
+            }
+            if (bitmap.bitmap.add(storeId)) {
+                elements++;
+                version.incrementAndGet();
+            }
+        } finally {
+            unlock();
+        }
+        return value;
+    }
+
+    @Override
+    public void removeValue(T element, K value) {
+        int storeId = element.getStoreId();
+        lock();
+        try {
+            ValueBitmap bitmap = value == null ? nullBitmap : map.get(value);
+            if (bitmap != null && bitmap.bitmap.remove(storeId)) {
+                elements--;
+                version.incrementAndGet();
+                if (value != null && bitmap.bitmap.isEmpty()) {
+                    map.remove(value);
+                }
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public K replaceValue(T element, K oldValue, K newValue) {
+        removeValue(element, oldValue);
+        return putValue(element, newValue);
+    }
+
+    // Called after the store is compacted
+    protected void remap(int[] remap) {
+        lock();
+        try {
+            remap(nullBitmap.bitmap, remap);
+            for (ValueBitmap valueBitmap : map.values()) {
+                remap(valueBitmap.bitmap, remap);
+            }
+            version.incrementAndGet();
+        } finally {
+            unlock();
+        }
+    }
+
+    private static void remap(IntBitmap bitmap, int[] remap) {
+        int[] storeIds = bitmap.toArray();
+        bitmap.clear();
+        for (int storeId : storeIds) {
+            if (storeId < remap.length && remap[storeId] != ColumnStore.NULL_ID) {
+                bitmap.add(remap[storeId]);
+            }
+        }
+    }
+
+    @Override
+    public int count(K value) {
+        lock();
+        try {
+            ValueBitmap bitmap = getValueBitmap(value);
+            return bitmap != null ? bitmap.bitmap.cardinality() : 0;
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> get(K value) {
+        lock();
+        try {
+            ValueBitmap bitmap = getValueBitmap(value);
+            if (bitmap == null || bitmap.bitmap.isEmpty()) {
+                return Collections.emptyList();
+            }
+            return new ElementIterable<>(bitmap.bitmap.copy(), columnStore);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Collection<K> values() {
+        lock();
+        try {
+            List<K> values = new ArrayList<>(countValues());
+            if (!nullBitmap.bitmap.isEmpty()) {
+                values.add(null);
+            }
+            values.addAll(map.keySet());
+            return values;
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public int countValues() {
+        return (nullBitmap.bitmap.isEmpty() ? 0 : 1) + map.size();
+    }
+
+    @Override
+    public int countElements() {
+        return elements;
+    }
+
+    @Override
+    public Number getMinValue() {
+        lock();
+        try {
+            checkSortable();
+            return map.isEmpty() ? null : (Number) ((SortedMap) map).firstKey();
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Number getMaxValue() {
+        lock();
+        try {
+            checkSortable();
+            return map.isEmpty() ? null : (Number) ((SortedMap) map).lastKey();
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public boolean isSortable() {
+        return Number.class.isAssignableFrom(column.getTypeClass()) && map instanceof SortedMap;
+    }
+
+    @Override
+    public ColumnImpl getColumn() {
+        return column;
+    }
+
+    @Override
+    public int getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public void destroy() {
+        lock();
+        try {
+            map = null;
+            nullBitmap.bitmap.clear();
+            elements = 0;
+            version.incrementAndGet();
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock();
+        try {
+            map.clear();
+            nullBitmap.bitmap.clear();
+            elements = 0;
+            version.incrementAndGet();
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, ? extends Set<T>>> iterator() {
+        lock();
+        try {
+            List<Map.Entry<K, ? extends Set<T>>> entries = new ArrayList<>(countValues());
+            if (!nullBitmap.bitmap.isEmpty()) {
+                entries.add(nullBitmap);
+            }
+            entries.addAll(map.values());
+            return entries.iterator();
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> get(K from, K to, boolean inclusive) {
+        checkSortable();
+        lock();
+        try {
+            IntBitmap result = new IntBitmap();
+            for (ValueBitmap valueBitmap : ColumnStandardIndexImpl
+                    .getRangeValues((SortedMap<K, ValueBitmap>) map, from, to, inclusive)) {
+                result.addAll(valueBitmap.bitmap);
+            }
+            return new ElementIterable<>(result, columnStore);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public int countRange(K from, K to, boolean inclusive) {
+        checkSortable();
+        lock();
+        try {
+            int count = 0;
+            for (ValueBitmap valueBitmap : ColumnStandardIndexImpl
+                    .getRangeValues((SortedMap<K, ValueBitmap>) map, from, to, inclusive)) {
+                count += valueBitmap.bitmap.cardinality();
+            }
+            return count;
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> getTop(int k) {
+        checkSortable();
+        ColumnStandardIndexImpl.checkK(k);
+        lock();
+        try {
+            return collect(new ColumnStandardIndexImpl.DescendingValueIterator<>((SortedMap<K, ValueBitmap>) map), k);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> getBottom(int k) {
+        checkSortable();
+        ColumnStandardIndexImpl.checkK(k);
+        lock();
+        try {
+            return collect(map.values().iterator(), k);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Number getQuantile(double quantile) {
+        checkSortable();
+        ColumnStandardIndexImpl.checkQuantile(quantile);
+        lock();
+        try {
+            int count = elements - nullBitmap.bitmap.cardinality();
+            if (count == 0) {
+                return null;
+            }
+            // Nearest rank, walking from the closest end
+            int rank = Math.max(1, (int) Math.ceil(quantile * count));
+            Iterator<ValueBitmap> itr;
+            if (rank > count / 2) {
+                rank = count - rank + 1;
+                itr = new ColumnStandardIndexImpl.DescendingValueIterator<>((SortedMap<K, ValueBitmap>) map);
+            } else {
+                itr = map.values().iterator();
+            }
+            while (true) {
+                ValueBitmap valueBitmap = itr.next();
+                rank -= valueBitmap.bitmap.cardinality();
+                if (rank <= 0) {
+                    return (Number) valueBitmap.value;
+                }
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Returns the intersection of <code>bitmap</code> with the store ids of the elements having <code>value</code>, or
+     * a copy of the latter if <code>bitmap</code> is null.
+     *
+     * @param bitmap bitmap to intersect, or null
+     * @param value value
+     * @return new bitmap
+     */
+    protected IntBitmap and(IntBitmap bitmap, K value) {
+        lock();
+        try {
+            ValueBitmap valueBitmap = getValueBitmap(value);
+            if (valueBitmap == null) {
+                return new IntBitmap();
+            }
+            return bitmap == null ? valueBitmap.bitmap.copy() : IntBitmap.and(bitmap, valueBitmap.bitmap);
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Returns the union of <code>bitmap</code> with the store ids of the elements having <code>value</code>, or a copy
+     * of the latter if <code>bitmap</code> is null.
+     *
+     * @param bitmap bitmap to merge, or null
+     * @param value value
+     * @return new bitmap
+     */
+    protected IntBitmap or(IntBitmap bitmap, K value) {
+        lock();
+        try {
+            ValueBitmap valueBitmap = getValueBitmap(value);
+            if (valueBitmap == null) {
+                return bitmap == null ? new IntBitmap() : bitmap;
+            }
+            return bitmap == null ? valueBitmap.bitmap.copy() : IntBitmap.or(bitmap, valueBitmap.bitmap);
+        } finally {
+            unlock();
+        }
+    }
+
+    private List<T> collect(Iterator<ValueBitmap> itr, int k) {
+        List<T> result = new ArrayList<>(Math.min(k, elements));
+        while (result.size() < k && itr.hasNext()) {
+            IntIterator storeIds = itr.next().bitmap.iterator();
+            while (result.size() < k && storeIds.hasNext()) {
+                result.add(getElement(columnStore, storeIds.nextInt()));
+            }
+        }
+        return result;
+    }
+
+    protected ValueBitmap getValueBitmap(K value) {
+        if (value == null) {
+            return nullBitmap;
+        }
+        return map.get(value);
+    }
+
+    static <T extends Element> T getElement(ColumnStore<T> columnStore, int storeId) {
+        GraphStore graphStore = columnStore.graphStore;
+        if (columnStore.elementType.equals(Node.class)) {
+            return (T) graphStore.nodeStore.getForGetByStoreId(storeId);
+        }
+        return (T) graphStore.edgeStore.getForGetByStoreId(storeId);
+    }
+
+    private static Map createMap(Class typeClass) {
+        if (typeClass.equals(Byte.class)) {
+            return new Byte2ObjectAVLTreeMap<>();
+        } else if (typeClass.equals(Short.class)) {
+            return new Short2ObjectAVLTreeMap<>();
+        } else if (typeClass.equals(Integer.class)) {
+            return new Int2ObjectAVLTreeMap<>();
+        } else if (typeClass.equals(Long.class)) {
+            return new Long2ObjectAVLTreeMap<>();
+        } else if (typeClass.equals(Float.class)) {
+            return new Float2ObjectAVLTreeMap<>();
+        } else if (typeClass.equals(Double.class)) {
+            return new Double2ObjectAVLTreeMap<>();
+        } else if (Number.class.isAssignableFrom(typeClass)) {
+            return new Object2ObjectAVLTreeMap<>();
+        } else if (typeClass.equals(Character.class)) {
+            return new Char2ObjectAVLTreeMap<>();
+        }
+        return new Object2ObjectOpenHashMap<>();
+    }
+
+    private int checkElementInStore(T element) {
+        int storeId = element.getStoreId();
+        if (storeId == ColumnStore.NULL_ID) {
+            throw new IllegalArgumentException("The element should belong to the graph store");
+        }
+        return storeId;
+    }
+
+    private void checkSortable() {
+        if (!isSortable()) {
+            throw new UnsupportedOperationException("'" + column.getId() + "' is not a sortable column (" + column
+                    .getTypeClass().getSimpleName() + ").");
+        }
+    }
+
+    void lock() {
+        if (lock != null) {
+            lock.lock();
+        }
+    }
+
+    void unlock() {
+        if (lock != null) {
+            lock.unlock();
+        }
+    }
+
+    protected final class ValueBitmap extends AbstractSet<T> implements Map.Entry<K, Set<T>> {
+
+        protected final K value;
+        protected final IntBitmap bitmap;
+
+        public ValueBitmap(K value) {
+            this.value = value;
+            this.bitmap = new IntBitmap();
+        }
+
+        @Override
+        public K getKey() {
+            return value;
+        }
+
+        @Override
+        public Set<T> getValue() {
+            return this;
+        }
+
+        @Override
+        public Set<T> setValue(Set<T> v) {
+            throw new UnsupportedOperationException("Not supported operation.");
+        }
+
+        @Override
+        public int size() {
+            return bitmap.cardinality();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Element) {
+                int storeId = ((Element) o).getStoreId();
+                return bitmap.contains(storeId) && getElement(columnStore, storeId) == o;
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new ElementIterator<>(bitmap.iterator(), columnStore);
+        }
+    }
+
+    protected static final class ElementIterable<T extends Element> implements Iterable<T> {
+
+        private final IntBitmap bitmap;
+        private final ColumnStore<T> columnStore;
+
+        public ElementIterable(IntBitmap bitmap, ColumnStore<T> columnStore) {
+            this.bitmap = bitmap;
+            this.columnStore = columnStore;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new ElementIterator<>(bitmap.iterator(), columnStore);
+        }
+    }
+
+    private static final class ElementIterator<T extends Element> implements Iterator<T> {
+
+        private final IntIterator itr;
+        private final ColumnStore<T> columnStore;
+
+        public ElementIterator(IntIterator itr, ColumnStore<T> columnStore) {
+            this.itr = itr;
+            this.columnStore = columnStore;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return itr.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return getElement(columnStore, itr.nextInt());
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported operation.");
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.gephi.graph.api.Element;
+
+/**
+ * Column index supporting concurrent updates.
+ * <p>
+ * Values are kept in a concurrent map, sorted for number columns, and the elements of each value in a concurrent set.
+ * Updates lock one of {@link GraphStoreConfiguration#CONCURRENT_INDEX_STRIPES} stripes chosen from the value's hash, so
+ * that threads updating different values of the same column rarely wait for each other. Reads don't lock and are weakly
+ * consistent while updates are in progress.
+ * <p>
+ * The version is incremented after each update, so a reader that observed a version also observes the counts of all
+ * updates up to this version.
+ *
+ * @param <K> value type
+ * @param <T> element type
+ */
+public class ColumnConcurrentIndexImpl<K, T extends Element> implements ColumnIndexImpl<K, T> {
+
+    // Stripes
+    protected final ReentrantLock[] stripes;
+    protected final ReentrantLock nullStripe;
+    // Data
+    protected final ColumnImpl column;
+    protected final ValueSet<K, T> nullSet;
+    protected final ConcurrentMap<K, ValueSet<K, T>> map;
+    // Variable
+    protected final AtomicInteger elements = new AtomicInteger();
+    // Distinct non-null values, as the skip list size is linear
+    protected final AtomicInteger valuesCount = new AtomicInteger();
+    // Version
+    protected final AtomicInteger version = new AtomicInteger(Integer.MIN_VALUE);
+
+    public ColumnConcurrentIndexImpl(ColumnImpl column) {
+        this.column = column;
+        this.nullSet = new ValueSet<>(null);
+        this.map = Number.class.isAssignableFrom(column.getTypeClass()) ? new ConcurrentSkipListMap<>()
+                : new ConcurrentHashMap<>();
+        this.stripes = new ReentrantLock[GraphStoreConfiguration.CONCURRENT_INDEX_STRIPES];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.nullStripe = new ReentrantLock();
+    }
+
+    protected static boolean isSupportedType(ColumnImpl col) {
+        return !col.isDynamicAttribute() && !col.isArray();
+    }
+
+    @Override
+    public K putValue(T element, K value) {
+        ReentrantLock stripe = getStripe(value);
+        stripe.lock();
+        try {
+            ValueSet<K, T> set;
+            if (value == null) {
+                set = nullSet;
+            } else {
+                set = map.get(value);
+                if (set == null) {
+                    set = new ValueSet<>(value);
+                    map.put(value, set);
+                    valuesCount.incrementAndGet();
+                }
+                value = set.value;
+            }
+            if (set.add(element)) {
+                elements.incrementAndGet();
+                version.incrementAndGet();
+            }
+        } finally {
+            stripe.unlock();
+        }
+        return value;
+    }
+
+    @Override
+    public void removeValue(T element, K value) {
+        ReentrantLock stripe = getStripe(value);
+        stripe.lock();
+        try {
+            ValueSet<K, T> set = value == null ? nullSet : map.get(value);
+            if (set != null) {
+                if (set.remove(element)) {
+                    elements.decrementAndGet();
+                    version.incrementAndGet();
+                }
+                if (value != null && set.isEmpty()) {
+                    map.remove(value);
+                    valuesCount.decrementAndGet();
+                }
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public K replaceValue(T element, K oldValue, K newValue) {
+        removeValue(element, oldValue);
+        return putValue(element, newValue);
+    }
+
+    @Override
+    public int count(K value) {
+        ValueSet<K, T> set = getValueSet(value);
+        return set != null ? set.size() : 0;
+    }
+
+    @Override
+    public Iterable<T> get(K value) {
+        ValueSet<K, T> set = getValueSet(value);
+        return set != null ? set : Collections.emptySet();
+    }
+
+    @Override
+    public Collection<K> values() {
+        List<K> res = new ArrayList<>(valuesCount.get() + 1);
+        if (!nullSet.isEmpty()) {
+            res.add(null);
+        }
+        res.addAll(map.keySet());
+        return res;
+    }
+
+    @Override
+    public int countValues() {
+        return (nullSet.isEmpty() ? 0 : 1) + valuesCount.get();
+    }
+
+    @Override
+    public int countElements() {
+        return elements.get();
+    }
+
+    @Override
+    public boolean isSortable() {
+        return map instanceof NavigableMap;
+    }
+
+    @Override
+    public Number getMinValue() {
+        checkSortable();
+        Map.Entry<K, ValueSet<K, T>> entry = getSortedMap().firstEntry();
+        return entry != null ? (Number) entry.getKey() : null;
+    }
+
+    @Override
+    public Number getMaxValue() {
+        checkSortable();
+        Map.Entry<K, ValueSet<K, T>> entry = getSortedMap().lastEntry();
+        return entry != null ? (Number) entry.getKey() : null;
+    }
+
+    @Override
+    public Iterable<T> get(K from, K to, boolean inclusive) {
+        checkSortable();
+        List<ValueSet<K, T>> valueSets = ColumnStandardIndexImpl.getRangeValues(getSortedMap(), from, to, inclusive);
+        List<T> result = new ArrayList<>();
+        for (ValueSet<K, T> valueSet : valueSets) {
+            result.addAll(valueSet);
+        }
+        return result;
+    }
+
+    @Override
+    public int countRange(K from, K to, boolean inclusive) {
+        checkSortable();
+        int count = 0;
+        for (ValueSet<K, T> valueSet : ColumnStandardIndexImpl.getRangeValues(getSortedMap(), from, to, inclusive)) {
+            count += valueSet.size();
+        }
+        return count;
+    }
+
+    @Override
+    public Iterable<T> getTop(int k) {
+        checkSortable();
+        ColumnStandardIndexImpl.checkK(k);
+        return collect(getSortedMap().descendingMap().values().iterator(), k);
+    }
+
+    @Override
+    public Iterable<T> getBottom(int k) {
+        checkSortable();
+        ColumnStandardIndexImpl.checkK(k);
+        return collect(getSortedMap().values().iterator(), k);
+    }
+
+    @Override
+    public Number getQuantile(double quantile) {
+        checkSortable();
+        ColumnStandardIndexImpl.checkQuantile(quantile);
+        int count = elements.get() - nullSet.size();
+        if (count <= 0) {
+            return null;
+        }
+        // Nearest rank, walking from the closest end
+        int rank = Math.max(1, (int) Math.ceil(quantile * count));
+        Iterator<ValueSet<K, T>> itr;
+        if (rank > count / 2) {
+            rank = count - rank + 1;
+            itr = getSortedMap().descendingMap().values().iterator();
+        } else {
+            itr = getSortedMap().values().iterator();
+        }
+        // Concurrent updates may make the count stale, in which case the last value is returned
+        Number result = null;
+        while (itr.hasNext()) {
+            ValueSet<K, T> valueSet = itr.next();
+            result = (Number) valueSet.value;
+            rank -= valueSet.size();
+            if (rank <= 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ColumnImpl getColumn() {
+        return column;
+    }
+
+    @Override
+    public int getVersion() {
+        return version.get();
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, ? extends Set<T>>> iterator() {
+        List<Map.Entry<K, ? extends Set<T>>> entries = new ArrayList<>(valuesCount.get() + 1);
+        if (!nullSet.isEmpty()) {
+            entries.add(new NullEntry());
+        }
+        entries.addAll(map.entrySet());
+        return Collections.unmodifiableList(entries).iterator();
+    }
+
+    // Expects no concurrent updates
+    @Override
+    public void clear() {
+        map.clear();
+        nullSet.clear();
+        elements.set(0);
+        valuesCount.set(0);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void destroy() {
+        clear();
+    }
+
+    protected ValueSet<K, T> getValueSet(K value) {
+        if (value == null) {
+            return nullSet;
+        }
+        return map.get(value);
+    }
+
+    protected ReentrantLock getStripe(K value) {
+        if (value == null) {
+            return nullStripe;
+        }
+        int h = value.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    private ConcurrentSkipListMap<K, ValueSet<K, T>> getSortedMap() {
+        return (ConcurrentSkipListMap<K, ValueSet<K, T>>) map;
+    }
+
+    private List<T> collect(Iterator<ValueSet<K, T>> itr, int k) {
+        List<T> result = new ArrayList<>(Math.min(k, elements.get()));
+        while (result.size() < k && itr.hasNext()) {
+            for (T element : itr.next()) {
+                if (result.size() == k) {
+                    break;
+                }
+                result.add(element);
+            }
+        }
+        return result;
+    }
+
+    private void checkSortable() {
+        if (!isSortable()) {
+            throw new UnsupportedOperationException("'" + column.getId() + "' is not a sortable column (" + column
+                    .getTypeClass().getSimpleName() + ").");
+        }
+    }
+
+    protected static final class ValueSet<K, T> extends AbstractSet<T> {
+
+        protected final K value;
+        private final Set<T> set;
+
+        public ValueSet(K value) {
+            this.value = value;
+            this.set = ConcurrentHashMap.newKeySet();
+        }
+
+        @Override
+        public int size() {
+            return set.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return set.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return set.contains(o);
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Collections.unmodifiableSet(set).iterator();
+        }
+
+        @Override
+        public boolean add(T e) {
+            return set.add(e);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return set.remove(o);
+        }
+
+        @Override
+        public void clear() {
+            set.clear();
+        }
+    }
+
+    private final class NullEntry implements Map.Entry<K, Set<T>> {
+
+        @Override
+        public K getKey() {
+            return null;
+        }
+
+        @Override
+        public Set<T> getValue() {
+            return nullSet;
+        }
+
+        @Override
+        public Set<T> setValue(Set<T> v) {
+            throw new UnsupportedOperationException("Not supported operation.");
+        }
+    }
+}
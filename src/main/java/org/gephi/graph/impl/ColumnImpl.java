@@ -211,6 +211,10 @@ public class ColumnImpl implements Column {
 
     protected void incrementVersion(ElementImpl element) {
         version.incrementAndGetVersion();
+        notifyObservers(element);
+    }
+
+    protected void notifyObservers(ElementImpl element) {
         if (observers != null && !observers.isEmpty()) {
             synchronized (observers) {
                 for (ColumnObserverImpl observer : observers) {
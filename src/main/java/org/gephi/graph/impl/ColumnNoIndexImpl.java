@@ -16,9 +16,14 @@
 
 package org.gephi.graph.impl;
 
+import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -183,6 +188,124 @@ public class ColumnNoIndexImpl<K, T extends Element> implements ColumnIndexImpl<
         }
     }
 
+    @Override
+    public Iterable<T> get(K from, K to, boolean inclusive) {
+        return getSortedElements(from, to, inclusive, false);
+    }
+
+    @Override
+    public int countRange(K from, K to, boolean inclusive) {
+        checkSortable();
+        lock();
+        try {
+            int count = 0;
+            Iterator<T> elementIterator = getElementIterator();
+            if (elementIterator != null) {
+                while (elementIterator.hasNext()) {
+                    Number num = (Number) elementIterator.next().getAttribute(column, graph.getView());
+                    if (num != null && isInRange(num, from, to, inclusive)) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> getTop(int k) {
+        ColumnStandardIndexImpl.checkK(k);
+        List<T> elements = getSortedElements(null, null, true, true);
+        return elements.subList(0, Math.min(k, elements.size()));
+    }
+
+    @Override
+    public Iterable<T> getBottom(int k) {
+        ColumnStandardIndexImpl.checkK(k);
+        List<T> elements = getSortedElements(null, null, true, false);
+        return elements.subList(0, Math.min(k, elements.size()));
+    }
+
+    @Override
+    public Number getQuantile(double quantile) {
+        checkSortable();
+        ColumnStandardIndexImpl.checkQuantile(quantile);
+        lock();
+        try {
+            List<Number> values = new ArrayList<>();
+            Iterator<T> elementIterator = getElementIterator();
+            if (elementIterator != null) {
+                while (elementIterator.hasNext()) {
+                    Number num = (Number) elementIterator.next().getAttribute(column, graph.getView());
+                    if (num != null) {
+                        values.add(num);
+                    }
+                }
+            }
+            if (values.isEmpty()) {
+                return null;
+            }
+            values.sort(ColumnNoIndexImpl::compare);
+            return values.get(Math.max(1, (int) Math.ceil(quantile * values.size())) - 1);
+        } finally {
+            unlock();
+        }
+    }
+
+    private List<T> getSortedElements(K from, K to, boolean inclusive, boolean descending) {
+        checkSortable();
+        lock();
+        try {
+            List<T> elements = new ArrayList<>();
+            Object2ObjectMap<T, Number> values = new Object2ObjectOpenHashMap<>();
+            Iterator<T> elementIterator = getElementIterator();
+            if (elementIterator != null) {
+                while (elementIterator.hasNext()) {
+                    T element = elementIterator.next();
+                    Number num = (Number) element.getAttribute(column, graph.getView());
+                    if (num != null && isInRange(num, from, to, inclusive)) {
+                        elements.add(element);
+                        values.put(element, num);
+                    }
+                }
+            }
+            Comparator<T> comparator = (a, b) -> compare(values.get(a), values.get(b));
+            elements.sort(descending ? comparator.reversed() : comparator);
+            return elements;
+        } finally {
+            unlock();
+        }
+    }
+
+    private static boolean isInRange(Number value, Object from, Object to, boolean inclusive) {
+        if (from != null) {
+            int c = compare(value, from);
+            if (c < 0 || (c == 0 && !inclusive)) {
+                return false;
+            }
+        }
+        if (to != null) {
+            int c = compare(value, to);
+            return c < 0 || (c == 0 && inclusive);
+        }
+        return true;
+    }
+
+    private static int compare(Object a, Object b) {
+        if (a.getClass().equals(b.getClass())) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+    }
+
+    private void checkSortable() {
+        if (!isSortable()) {
+            throw new UnsupportedOperationException("Only supported for sortable columns");
+        }
+    }
+
     @Override
     public Column getColumn() {
         return column;
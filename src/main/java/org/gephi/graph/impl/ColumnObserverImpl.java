@@ -131,6 +131,13 @@ public class ColumnObserverImpl implements ColumnObserver {
         bitVector.clear();
     }
 
+    // Called after the store is compacted
+    protected synchronized void remap(int[] remap) {
+        if (bitVector != null) {
+            bitVector = StoreIdRemappingImpl.remap(bitVector, remap);
+        }
+    }
+
     protected void setElement(ElementImpl element) {
         int storeId = element.getStoreId();
         ensureVectorSize(element);
@@ -38,8 +38,11 @@ import it.unimi.dsi.fastutil.shorts.Short2ObjectAVLTreeMap;
 import it.unimi.dsi.fastutil.shorts.ShortArrays;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -61,8 +64,8 @@ public abstract class ColumnStandardIndexImpl<K, T extends Element> implements C
     protected ColumnStandardIndexImpl(ColumnImpl column) {
         this.column = column;
         this.nullSet = new ValueSet<>(null);
-        this.lock = column.table != null && column.table.configuration.isEnableAutoLocking() ? new TableLockImpl()
-                : null;
+        this.lock = column.table != null && column.table.configuration.isEnableAutoLocking()
+                ? new TableLockImpl(LockMetricsImpl.getTableLockStatistics(column.table.store.graphStore)) : null;
     }
 
     protected static boolean isSupportedType(ColumnImpl col) {
@@ -248,6 +251,107 @@ public abstract class ColumnStandardIndexImpl<K, T extends Element> implements C
         return new LockableIterable<>(valueSet.set);
     }
 
+    @Override
+    public Iterable<T> get(K from, K to, boolean inclusive) {
+        checkSortable();
+        lock();
+        List<ValueSet<K, T>> valueSets;
+        try {
+            valueSets = getRangeValues((SortedMap<K, ValueSet<K, T>>) map, from, to, inclusive);
+        } catch (RuntimeException e) {
+            unlock();
+            throw e;
+        }
+        if (valueSets.isEmpty()) {
+            unlock();
+            return ValueSet.EMPTY;
+        }
+        return new LockableIterable<>(new ValueSetsIterable<>(valueSets));
+    }
+
+    @Override
+    public int countRange(K from, K to, boolean inclusive) {
+        checkSortable();
+        lock();
+        try {
+            int count = 0;
+            for (ValueSet<K, T> valueSet : getRangeValues((SortedMap<K, ValueSet<K, T>>) map, from, to, inclusive)) {
+                count += valueSet.size();
+            }
+            return count;
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> getTop(int k) {
+        checkSortable();
+        checkK(k);
+        lock();
+        try {
+            return collect(new DescendingValueIterator<>((SortedMap<K, ValueSet<K, T>>) map), k);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Iterable<T> getBottom(int k) {
+        checkSortable();
+        checkK(k);
+        lock();
+        try {
+            return collect(map.values().iterator(), k);
+        } finally {
+            unlock();
+        }
+    }
+
+    @Override
+    public Number getQuantile(double quantile) {
+        checkSortable();
+        checkQuantile(quantile);
+        lock();
+        try {
+            int count = elements - nullSet.size();
+            if (count == 0) {
+                return null;
+            }
+            // Nearest rank, walking from the closest end
+            int rank = Math.max(1, (int) Math.ceil(quantile * count));
+            Iterator<ValueSet<K, T>> itr;
+            if (rank > count / 2) {
+                rank = count - rank + 1;
+                itr = new DescendingValueIterator<>((SortedMap<K, ValueSet<K, T>>) map);
+            } else {
+                itr = map.values().iterator();
+            }
+            while (true) {
+                ValueSet<K, T> valueSet = itr.next();
+                rank -= valueSet.size();
+                if (rank <= 0) {
+                    return (Number) valueSet.value;
+                }
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    private List<T> collect(Iterator<ValueSet<K, T>> itr, int k) {
+        List<T> result = new ArrayList<>(Math.min(k, elements));
+        while (result.size() < k && itr.hasNext()) {
+            for (T element : itr.next().set) {
+                if (result.size() == k) {
+                    break;
+                }
+                result.add(element);
+            }
+        }
+        return result;
+    }
+
     protected ValueSet<K, T> getValueSet(K value) {
         if (value == null) {
             return nullSet;
@@ -280,6 +384,51 @@ public abstract class ColumnStandardIndexImpl<K, T extends Element> implements C
         return version.get();
     }
 
+    void checkSortable() {
+        if (!isSortable()) {
+            throw new UnsupportedOperationException("'" + column.getId() + "' is not a sortable column (" + column
+                    .getTypeClass().getSimpleName() + ").");
+        }
+    }
+
+    static void checkK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("The number of elements can't be negative");
+        }
+    }
+
+    static void checkQuantile(double quantile) {
+        if (!(quantile >= 0.0 && quantile <= 1.0)) {
+            throw new IllegalArgumentException("The quantile should be between 0 and 1");
+        }
+    }
+
+    // Returns the values whose keys are in the range, by ascending key
+    static <K, V> List<V> getRangeValues(SortedMap<K, V> map, K from, K to, boolean inclusive) {
+        List<V> result = new ArrayList<>();
+        if (from != null && to != null && ((Comparable) from).compareTo(to) > 0) {
+            return result;
+        }
+        SortedMap<K, V> subMap;
+        if (from == null) {
+            subMap = to == null ? map : map.headMap(to);
+        } else {
+            subMap = to == null ? map.tailMap(from) : map.subMap(from, to);
+        }
+        for (Map.Entry<K, V> entry : subMap.entrySet()) {
+            if (inclusive || from == null || ((Comparable) entry.getKey()).compareTo(from) != 0) {
+                result.add(entry.getValue());
+            }
+        }
+        if (inclusive && to != null) {
+            V value = map.get(to);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
     void lock() {
         if (lock != null) {
             lock.lock();
@@ -738,6 +887,78 @@ public abstract class ColumnStandardIndexImpl<K, T extends Element> implements C
         }
     }
 
+    static final class DescendingValueIterator<K, V> implements Iterator<V> {
+
+        private final SortedMap<K, V> map;
+        private SortedMap<K, V> headMap;
+
+        public DescendingValueIterator(SortedMap<K, V> map) {
+            this.map = map;
+            this.headMap = map;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !headMap.isEmpty();
+        }
+
+        @Override
+        public V next() {
+            K key = headMap.lastKey();
+            headMap = map.headMap(key);
+            return map.get(key);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported operation.");
+        }
+    }
+
+    private static final class ValueSetsIterable<K, T> implements Iterable<T> {
+
+        private final List<ValueSet<K, T>> valueSets;
+
+        public ValueSetsIterable(List<ValueSet<K, T>> valueSets) {
+            this.valueSets = valueSets;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new ValueSetsIterator();
+        }
+
+        private final class ValueSetsIterator implements Iterator<T> {
+
+            private int index;
+            private Iterator<T> itr = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!itr.hasNext()) {
+                    if (index == valueSets.size()) {
+                        return false;
+                    }
+                    itr = valueSets.get(index++).set.iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return itr.next();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Not supported operation.");
+            }
+        }
+    }
+
     private class LockableIterable<E> implements Iterable<E> {
 
         private final Iterable<E> ite;
@@ -48,6 +48,8 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
     protected final ShortSortedSet garbageQueue;
     // Index
     protected final IndexStore<T> indexStore;
+    // Columnar storage (optional)
+    protected final ColumnarStore<T> columnarStore;
     // Version
     protected final List<TableObserverImpl> observers;
     // Locking (optional)
@@ -70,12 +72,16 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
         } else {
             configuration = graphStore.configuration;
         }
-        this.lock = configuration.isEnableAutoLocking() ? new TableLockImpl() : null;
+        this.lock = configuration.isEnableAutoLocking()
+                ? new TableLockImpl(LockMetricsImpl.getTableLockStatistics(graphStore)) : null;
         this.garbageQueue = new ShortRBTreeSet();
         this.idMap = new Object2ShortOpenHashMap<>(MAX_SIZE);
         this.columns = new ColumnImpl[MAX_SIZE];
         this.elementType = elementType;
         this.indexStore = new IndexStore<>(this);
+        StringPool stringPool = graphStore != null ? graphStore.stringPool : null;
+        this.columnarStore = configuration.isEnableColumnarAttributes() || stringPool != null
+                ? new ColumnarStore<>(elementType, configuration.isEnableColumnarAttributes(), stringPool) : null;
         idMap.defaultReturnValue(NULL_SHORT);
         this.observers = new ArrayList<>();
     }
@@ -103,6 +109,9 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
                 int intIndex = shortToInt(id);
                 columnImpl.setStoreId(intIndex);
                 columns[intIndex] = columnImpl;
+                if (columnarStore != null && columnarStore.accepts(columnImpl)) {
+                    columnarStore.addColumn(columnImpl);
+                }
                 if (indexStore != null) {
                     indexStore.addColumn(columnImpl);
                 }
@@ -128,9 +137,15 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
         try {
             final ColumnImpl columnImpl = (ColumnImpl) column;
 
+            // Apply pending index updates before column indices are reused
+            if (graphStore != null && graphStore.transaction != null) {
+                graphStore.transaction.flush();
+            }
+
             // Clean attributes
             if (graphStore != null && columnImpl.table != null) {
                 for (Element e : graphStore.getElements(columnImpl.table)) {
+                    ((ElementImpl) e).preserveAttributes();
                     ((ElementImpl) e).attributes.setAttribute(column, null);
                 }
             }
@@ -143,6 +158,9 @@ public class ColumnStore<T extends Element> implements ColumnIterable {
 
             int intId = shortToInt(id);
             columns[intId] = null;
+            if (columnarStore != null) {
+                columnarStore.removeColumn(columnImpl);
+            }
             if (indexStore != null) {
                 indexStore.removeColumn((ColumnImpl) column);
             }
@@ -0,0 +1,563 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.Node;
+
+/**
+ * Columnar storage for primitive attribute columns.
+ * <p>
+ * Values of static <code>Double</code>, <code>Integer</code>, <code>Float</code>, <code>Long</code> and
+ * <code>Boolean</code> columns are stored in dense primitive arrays indexed by the element's store id, instead of being
+ * boxed in each element's {@link AttributesImpl}. Arrays are allocated in blocks with the same size as the node or edge
+ * store blocks so the storage grows with the store. A bit set per block records which store ids have a non-null value.
+ * <p>
+ * Blocks are allocated under the store write lock when elements are attached, see {@link #ensureCapacity(int)}, so that
+ * attribute writes, which only lock the element, never replace a shared array. Bits shared by several elements, the
+ * presence bits and the <code>Boolean</code> values, are updated atomically.
+ * <p>
+ * When a {@link StringPool} is given, static <code>String</code> columns including the id and label are also stored
+ * here, as handles in the pool.
+ * <p>
+ * Elements only use the columnar storage while they belong to the store, see {@link AttributesImpl#attach(int)} and
+ * {@link AttributesImpl#detach()}.
+ *
+ * @param <T> element type
+ */
+public class ColumnarStore<T extends Element> {
+
+    // Const
+    protected final static int NULL_ID = -1;
+    // Config
+    protected final int blockSize;
+    protected final boolean primitives;
+    protected final StringPool stringPool;
+    // Columns, indexed by column store id
+    protected ColumnarColumn[] columns;
+    protected int length;
+    // Number of allocated blocks, in each column
+    protected int blocksCount;
+
+    public ColumnarStore(Class<T> elementType) {
+        this(elementType, true, null);
+    }
+
+    public ColumnarStore(Class<T> elementType, boolean primitives, StringPool stringPool) {
+        this(Node.class.equals(elementType) ? GraphStoreConfiguration.NODESTORE_BLOCK_SIZE
+                : GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE, primitives, stringPool);
+    }
+
+    public ColumnarStore(int blockSize) {
+        this(blockSize, true, null);
+    }
+
+    public ColumnarStore(int blockSize, boolean primitives, StringPool stringPool) {
+        if (blockSize % Long.SIZE != 0) {
+            throw new IllegalArgumentException("The block size should be a multiple of " + Long.SIZE);
+        }
+        this.blockSize = blockSize;
+        this.primitives = primitives;
+        this.stringPool = stringPool;
+        this.columns = new ColumnarColumn[GraphStoreConfiguration.NODE_DEFAULT_COLUMNS + 1];
+    }
+
+    public static boolean isSupported(ColumnImpl column) {
+        if (column.isReadOnly() || column.isDynamic()) {
+            return false;
+        }
+        Class type = column.getTypeClass();
+        return type.equals(Double.class) || type.equals(Integer.class) || type.equals(Float.class) || type
+                .equals(Long.class) || type.equals(Boolean.class);
+    }
+
+    public static boolean isSupportedString(ColumnImpl column) {
+        return !column.isDynamic() && column.getTypeClass().equals(String.class);
+    }
+
+    /**
+     * Returns true if the column values should be stored here, depending on the enabled storage.
+     */
+    public boolean accepts(ColumnImpl column) {
+        return (primitives && isSupported(column)) || (stringPool != null && isSupportedString(column));
+    }
+
+    protected void addColumn(ColumnImpl column) {
+        int index = column.getIndex();
+        if (index >= columns.length) {
+            columns = Arrays.copyOf(columns, Math.max(index + 1, columns.length * 2));
+        }
+        ColumnarColumn c = newColumn(column.getTypeClass());
+        c.ensureBlocks(blocksCount);
+        columns[index] = c;
+        length = Math.max(length, index + 1);
+    }
+
+    protected void removeColumn(ColumnImpl column) {
+        int index = column.getIndex();
+        if (index < length && columns[index] != null) {
+            // Releases pooled strings
+            columns[index].clear();
+            columns[index] = null;
+        }
+    }
+
+    public ColumnarColumn getColumn(int index) {
+        if (index < length) {
+            return columns[index];
+        }
+        return null;
+    }
+
+    public boolean isColumnar(int index) {
+        return index < length && columns[index] != null;
+    }
+
+    /**
+     * Allocates the blocks up to the given store id in every column.
+     * <p>
+     * Called under the store write lock before an element is attached.
+     */
+    protected void ensureCapacity(int storeId) {
+        int count = storeId / blockSize + 1;
+        if (count > blocksCount) {
+            for (int i = 0; i < length; i++) {
+                ColumnarColumn c = columns[i];
+                if (c != null) {
+                    c.ensureBlocks(count);
+                }
+            }
+            blocksCount = count;
+        }
+    }
+
+    protected void clear() {
+        for (int i = 0; i < length; i++) {
+            ColumnarColumn c = columns[i];
+            if (c != null) {
+                c.clear();
+            }
+        }
+        blocksCount = 0;
+    }
+
+    protected void trim(int maxStoreId) {
+        blocksCount = Math.min(blocksCount, (maxStoreId + blockSize - 1) / blockSize);
+        for (int i = 0; i < length; i++) {
+            ColumnarColumn c = columns[i];
+            if (c != null) {
+                c.trim(maxStoreId);
+            }
+        }
+    }
+
+    private ColumnarColumn newColumn(Class type) {
+        if (type.equals(Double.class)) {
+            return new DoubleColumn(blockSize);
+        } else if (type.equals(Integer.class)) {
+            return new IntegerColumn(blockSize);
+        } else if (type.equals(Float.class)) {
+            return new FloatColumn(blockSize);
+        } else if (type.equals(Long.class)) {
+            return new LongColumn(blockSize);
+        } else if (type.equals(Boolean.class)) {
+            return new BooleanColumn(blockSize);
+        } else if (type.equals(String.class) && stringPool != null) {
+            return new StringColumn(blockSize, stringPool);
+        }
+        throw new IllegalArgumentException("Unsupported columnar type " + type.getName());
+    }
+
+    protected abstract static class ColumnarColumn {
+
+        protected final int blockSize;
+        // Non-null values bits, per block
+        protected AtomicLongArray[] presence;
+
+        public ColumnarColumn(int blockSize) {
+            this.blockSize = blockSize;
+            this.presence = new AtomicLongArray[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS];
+        }
+
+        public boolean has(int storeId) {
+            int block = storeId / blockSize;
+            if (block >= presence.length) {
+                return false;
+            }
+            AtomicLongArray bits = presence[block];
+            int i = storeId % blockSize;
+            return bits != null && isSet(bits, i);
+        }
+
+        public Object get(int storeId) {
+            if (has(storeId)) {
+                return getValue(storeId / blockSize, storeId % blockSize);
+            }
+            return null;
+        }
+
+        public Object set(int storeId, Object value) {
+            int block = storeId / blockSize;
+            int i = storeId % blockSize;
+            Object oldValue = get(storeId);
+            if (value == null) {
+                if (oldValue != null) {
+                    clearValue(block, i);
+                    clearBit(presence[block], i);
+                }
+            } else {
+                setValue(block, i, value);
+                setBit(presence[block], i);
+            }
+            return oldValue;
+        }
+
+        public void remove(int storeId) {
+            set(storeId, null);
+        }
+
+        protected void clear() {
+            clearBlocks();
+            presence = new AtomicLongArray[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS];
+        }
+
+        // Releases the blocks past the last store id, called once the store is compacted
+        protected void trim(int maxStoreId) {
+            int firstBlock = (maxStoreId + blockSize - 1) / blockSize;
+            for (int block = firstBlock; block < presence.length; block++) {
+                if (presence[block] != null) {
+                    releaseBlock(block);
+                    presence[block] = null;
+                }
+            }
+        }
+
+        // Allocates the missing blocks below the given count
+        protected void ensureBlocks(int count) {
+            if (count > presence.length) {
+                presence = Arrays.copyOf(presence, Math.max(count, presence.length * 2));
+            }
+            for (int block = 0; block < count; block++) {
+                if (presence[block] == null) {
+                    allocateBlock(block);
+                    presence[block] = new AtomicLongArray(blockSize / Long.SIZE);
+                }
+            }
+        }
+
+        protected static boolean isSet(AtomicLongArray bits, int index) {
+            return (bits.get(index >>> 6) & (1L << index)) != 0;
+        }
+
+        protected static void setBit(AtomicLongArray bits, int index) {
+            int word = index >>> 6;
+            long mask = 1L << index;
+            long value;
+            do {
+                value = bits.get(word);
+            } while ((value & mask) == 0 && !bits.compareAndSet(word, value, value | mask));
+        }
+
+        protected static void clearBit(AtomicLongArray bits, int index) {
+            int word = index >>> 6;
+            long mask = 1L << index;
+            long value;
+            do {
+                value = bits.get(word);
+            } while ((value & mask) != 0 && !bits.compareAndSet(word, value, value & ~mask));
+        }
+
+        protected int growLength(int currentLength, int block) {
+            return Math.max(block + 1, currentLength * 2);
+        }
+
+        protected abstract void allocateBlock(int block);
+
+        protected abstract void clearBlocks();
+
+        protected abstract void releaseBlock(int block);
+
+        protected abstract Object getValue(int block, int index);
+
+        protected abstract void setValue(int block, int index, Object value);
+
+        // Called before a present value is cleared
+        protected void clearValue(int block, int index) {
+        }
+    }
+
+    protected static final class DoubleColumn extends ColumnarColumn {
+
+        private double[][] blocks = new double[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+
+        public DoubleColumn(int blockSize) {
+            super(blockSize);
+        }
+
+        public double getDouble(int storeId) {
+            return blocks[storeId / blockSize][storeId % blockSize];
+        }
+
+        @Override
+        protected void allocateBlock(int block) {
+            if (block >= blocks.length) {
+                blocks = Arrays.copyOf(blocks, growLength(blocks.length, block));
+            }
+            blocks[block] = new double[blockSize];
+        }
+
+        @Override
+        protected void clearBlocks() {
+            blocks = new double[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+        }
+
+        @Override
+        protected void releaseBlock(int block) {
+            blocks[block] = null;
+        }
+
+        @Override
+        protected Object getValue(int block, int index) {
+            return blocks[block][index];
+        }
+
+        @Override
+        protected void setValue(int block, int index, Object value) {
+            blocks[block][index] = (Double) value;
+        }
+    }
+
+    protected static final class FloatColumn extends ColumnarColumn {
+
+        private float[][] blocks = new float[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+
+        public FloatColumn(int blockSize) {
+            super(blockSize);
+        }
+
+        @Override
+        protected void allocateBlock(int block) {
+            if (block >= blocks.length) {
+                blocks = Arrays.copyOf(blocks, growLength(blocks.length, block));
+            }
+            blocks[block] = new float[blockSize];
+        }
+
+        @Override
+        protected void clearBlocks() {
+            blocks = new float[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+        }
+
+        @Override
+        protected void releaseBlock(int block) {
+            blocks[block] = null;
+        }
+
+        @Override
+        protected Object getValue(int block, int index) {
+            return blocks[block][index];
+        }
+
+        @Override
+        protected void setValue(int block, int index, Object value) {
+            blocks[block][index] = (Float) value;
+        }
+    }
+
+    protected static final class IntegerColumn extends ColumnarColumn {
+
+        private int[][] blocks = new int[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+
+        public IntegerColumn(int blockSize) {
+            super(blockSize);
+        }
+
+        @Override
+        protected void allocateBlock(int block) {
+            if (block >= blocks.length) {
+                blocks = Arrays.copyOf(blocks, growLength(blocks.length, block));
+            }
+            blocks[block] = new int[blockSize];
+        }
+
+        @Override
+        protected void clearBlocks() {
+            blocks = new int[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+        }
+
+        @Override
+        protected void releaseBlock(int block) {
+            blocks[block] = null;
+        }
+
+        @Override
+        protected Object getValue(int block, int index) {
+            return blocks[block][index];
+        }
+
+        @Override
+        protected void setValue(int block, int index, Object value) {
+            blocks[block][index] = (Integer) value;
+        }
+    }
+
+    protected static final class LongColumn extends ColumnarColumn {
+
+        private long[][] blocks = new long[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+
+        public LongColumn(int blockSize) {
+            super(blockSize);
+        }
+
+        @Override
+        protected void allocateBlock(int block) {
+            if (block >= blocks.length) {
+                blocks = Arrays.copyOf(blocks, growLength(blocks.length, block));
+            }
+            blocks[block] = new long[blockSize];
+        }
+
+        @Override
+        protected void clearBlocks() {
+            blocks = new long[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+        }
+
+        @Override
+        protected void releaseBlock(int block) {
+            blocks[block] = null;
+        }
+
+        @Override
+        protected Object getValue(int block, int index) {
+            return blocks[block][index];
+        }
+
+        @Override
+        protected void setValue(int block, int index, Object value) {
+            blocks[block][index] = (Long) value;
+        }
+    }
+
+    protected static final class BooleanColumn extends ColumnarColumn {
+
+        // Values bits, per block
+        private AtomicLongArray[] blocks = new AtomicLongArray[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS];
+
+        public BooleanColumn(int blockSize) {
+            super(blockSize);
+        }
+
+        @Override
+        protected void allocateBlock(int block) {
+            if (block >= blocks.length) {
+                blocks = Arrays.copyOf(blocks, growLength(blocks.length, block));
+            }
+            blocks[block] = new AtomicLongArray(blockSize / Long.SIZE);
+        }
+
+        @Override
+        protected void clearBlocks() {
+            blocks = new AtomicLongArray[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS];
+        }
+
+        @Override
+        protected void releaseBlock(int block) {
+            blocks[block] = null;
+        }
+
+        @Override
+        protected Object getValue(int block, int index) {
+            return isSet(blocks[block], index);
+        }
+
+        @Override
+        protected void setValue(int block, int index, Object value) {
+            if ((Boolean) value) {
+                setBit(blocks[block], index);
+            } else {
+                clearBit(blocks[block], index);
+            }
+        }
+    }
+
+    protected static final class StringColumn extends ColumnarColumn {
+
+        private final StringPool pool;
+        private int[][] blocks = new int[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+
+        public StringColumn(int blockSize, StringPool pool) {
+            super(blockSize);
+            this.pool = pool;
+        }
+
+        public int getHandle(int storeId) {
+            if (has(storeId)) {
+                return blocks[storeId / blockSize][storeId % blockSize];
+            }
+            return StringPool.NULL_HANDLE;
+        }
+
+        @Override
+        protected void allocateBlock(int block) {
+            if (block >= blocks.length) {
+                blocks = Arrays.copyOf(blocks, growLength(blocks.length, block));
+            }
+            blocks[block] = new int[blockSize];
+        }
+
+        @Override
+        protected void clearBlocks() {
+            for (int block = 0; block < presence.length && block < blocks.length; block++) {
+                releaseBlock(block);
+            }
+            blocks = new int[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+        }
+
+        @Override
+        protected void releaseBlock(int block) {
+            AtomicLongArray bits = presence[block];
+            if (bits != null) {
+                for (int i = 0; i < blockSize; i++) {
+                    if (isSet(bits, i)) {
+                        pool.release(blocks[block][i]);
+                    }
+                }
+            }
+            blocks[block] = null;
+        }
+
+        @Override
+        protected Object getValue(int block, int index) {
+            return pool.get(blocks[block][index]);
+        }
+
+        @Override
+        protected void setValue(int block, int index, Object value) {
+            int handle = pool.acquire((String) value);
+            if (isSet(presence[block], index)) {
+                pool.release(blocks[block][index]);
+            }
+            blocks[block][index] = handle;
+        }
+
+        @Override
+        protected void clearValue(int block, int index) {
+            pool.release(blocks[block][index]);
+        }
+    }
+}
@@ -38,6 +38,22 @@ public class ConfigurationImpl {
     private final boolean enableSpatialIndex;
     // Enable parallel edges of the same type (default True)
     private final boolean enableParallelEdgesSameType;
+    // Store primitive attribute columns in dense primitive arrays (default False)
+    private final boolean enableColumnarAttributes;
+    // Bitmap indexes (default False)
+    private final boolean enableBitmapIndex;
+    // Optimistic read locking (default False)
+    private final boolean enableOptimisticLocking;
+    // Lock metrics (default False)
+    private final boolean enableLockMetrics;
+    // Concurrent index (default False)
+    private final boolean enableConcurrentIndex;
+    // Sorted neighbor arrays cached per node (default False)
+    private final boolean enableNeighborIndex;
+    // String pool (default False)
+    private final boolean enableStringPool;
+    // Store node positions and sizes in arrays (default False)
+    private final boolean enableColumnarPositions;
 
     public ConfigurationImpl() {
         nodeIdType = GraphStoreConfiguration.DEFAULT_NODE_ID_TYPE;
@@ -56,6 +72,14 @@ public class ConfigurationImpl {
         enableEdgeProperties = GraphStoreConfiguration.DEFAULT_ENABLE_EDGE_PROPERTIES;
         enableSpatialIndex = GraphStoreConfiguration.DEFAULT_ENABLE_SPATIAL_INDEX;
         enableParallelEdgesSameType = GraphStoreConfiguration.DEFAULT_ENABLE_PARALLEL_EDGES_SAME_TYPE;
+        enableColumnarAttributes = GraphStoreConfiguration.DEFAULT_ENABLE_COLUMNAR_ATTRIBUTES;
+        enableBitmapIndex = GraphStoreConfiguration.DEFAULT_ENABLE_BITMAP_INDEX;
+        enableOptimisticLocking = GraphStoreConfiguration.DEFAULT_ENABLE_OPTIMISTIC_LOCKING;
+        enableLockMetrics = GraphStoreConfiguration.DEFAULT_ENABLE_LOCK_METRICS;
+        enableConcurrentIndex = GraphStoreConfiguration.DEFAULT_ENABLE_CONCURRENT_INDEX;
+        enableNeighborIndex = GraphStoreConfiguration.DEFAULT_ENABLE_NEIGHBOR_INDEX;
+        enableStringPool = GraphStoreConfiguration.DEFAULT_ENABLE_STRING_POOL;
+        enableColumnarPositions = GraphStoreConfiguration.DEFAULT_ENABLE_COLUMNAR_POSITIONS;
     }
 
     public ConfigurationImpl(Configuration configuration) {
@@ -75,6 +99,14 @@ public class ConfigurationImpl {
         enableEdgeProperties = configuration.isEnableEdgeProperties();
         enableSpatialIndex = configuration.isEnableSpatialIndex();
         enableParallelEdgesSameType = configuration.isEnableParallelEdgesSameType();
+        enableColumnarAttributes = configuration.isEnableColumnarAttributes();
+        enableBitmapIndex = configuration.isEnableBitmapIndex();
+        enableOptimisticLocking = configuration.isEnableOptimisticLocking();
+        enableLockMetrics = configuration.isEnableLockMetrics();
+        enableConcurrentIndex = configuration.isEnableConcurrentIndex();
+        enableNeighborIndex = configuration.isEnableNeighborIndex();
+        enableStringPool = configuration.isEnableStringPool();
+        enableColumnarPositions = configuration.isEnableColumnarPositions();
     }
 
     public Configuration toConfiguration() {
@@ -145,6 +177,38 @@ public class ConfigurationImpl {
         return enableParallelEdgesSameType;
     }
 
+    public boolean isEnableColumnarAttributes() {
+        return enableColumnarAttributes;
+    }
+
+    public boolean isEnableBitmapIndex() {
+        return enableBitmapIndex;
+    }
+
+    public boolean isEnableOptimisticLocking() {
+        return enableOptimisticLocking;
+    }
+
+    public boolean isEnableLockMetrics() {
+        return enableLockMetrics;
+    }
+
+    public boolean isEnableConcurrentIndex() {
+        return enableConcurrentIndex;
+    }
+
+    public boolean isEnableNeighborIndex() {
+        return enableNeighborIndex;
+    }
+
+    public boolean isEnableStringPool() {
+        return enableStringPool;
+    }
+
+    public boolean isEnableColumnarPositions() {
+        return enableColumnarPositions;
+    }
+
     // Used to return a Configuration instance
     private static class ConfigurationProxy extends Configuration {
 
@@ -197,6 +261,30 @@ public class ConfigurationImpl {
         if (isEnableParallelEdgesSameType() != that.isEnableParallelEdgesSameType()) {
             return false;
         }
+        if (isEnableColumnarAttributes() != that.isEnableColumnarAttributes()) {
+            return false;
+        }
+        if (isEnableBitmapIndex() != that.isEnableBitmapIndex()) {
+            return false;
+        }
+        if (isEnableOptimisticLocking() != that.isEnableOptimisticLocking()) {
+            return false;
+        }
+        if (isEnableLockMetrics() != that.isEnableLockMetrics()) {
+            return false;
+        }
+        if (isEnableConcurrentIndex() != that.isEnableConcurrentIndex()) {
+            return false;
+        }
+        if (isEnableNeighborIndex() != that.isEnableNeighborIndex()) {
+            return false;
+        }
+        if (isEnableStringPool() != that.isEnableStringPool()) {
+            return false;
+        }
+        if (isEnableColumnarPositions() != that.isEnableColumnarPositions()) {
+            return false;
+        }
         if (!getNodeIdType().equals(that.getNodeIdType())) {
             return false;
         }
@@ -230,12 +318,20 @@ public class ConfigurationImpl {
         result = 31 * result + (isEnableEdgeProperties() ? 1 : 0);
         result = 31 * result + (isEnableSpatialIndex() ? 1 : 0);
         result = 31 * result + (isEnableParallelEdgesSameType() ? 1 : 0);
+        result = 31 * result + (isEnableColumnarAttributes() ? 1 : 0);
+        result = 31 * result + (isEnableBitmapIndex() ? 1 : 0);
+        result = 31 * result + (isEnableOptimisticLocking() ? 1 : 0);
+        result = 31 * result + (isEnableLockMetrics() ? 1 : 0);
+        result = 31 * result + (isEnableConcurrentIndex() ? 1 : 0);
+        result = 31 * result + (isEnableNeighborIndex() ? 1 : 0);
+        result = 31 * result + (isEnableStringPool() ? 1 : 0);
+        result = 31 * result + (isEnableColumnarPositions() ? 1 : 0);
         return result;
     }
 
     @Override
     public String toString() {
-        return "ConfigurationImpl{" + "nodeIdType:" + nodeIdType + ", edgeIdType:" + edgeIdType + ", edgeLabelType:" + edgeLabelType + ", edgeWeightType:" + edgeWeightType + ", timeRepresentation:" + timeRepresentation + ", edgeWeightColumn:" + edgeWeightColumn + ", enableAutoLocking:" + enableAutoLocking + ", enableAutoEdgeTypeRegistration:" + enableAutoEdgeTypeRegistration + ", enableIndexNodes:" + enableIndexNodes + ", enableIndexEdges:" + enableIndexEdges + ", enableIndexTime:" + enableIndexTime + ", enableObservers:" + enableObservers + ", enableNodeProperties:" + enableNodeProperties + ", enableEdgeProperties:" + enableEdgeProperties + ", enableSpatialIndex:" + enableSpatialIndex + ", enableParallelEdgesSameType:" + enableParallelEdgesSameType + '}';
+        return "ConfigurationImpl{" + "nodeIdType:" + nodeIdType + ", edgeIdType:" + edgeIdType + ", edgeLabelType:" + edgeLabelType + ", edgeWeightType:" + edgeWeightType + ", timeRepresentation:" + timeRepresentation + ", edgeWeightColumn:" + edgeWeightColumn + ", enableAutoLocking:" + enableAutoLocking + ", enableAutoEdgeTypeRegistration:" + enableAutoEdgeTypeRegistration + ", enableIndexNodes:" + enableIndexNodes + ", enableIndexEdges:" + enableIndexEdges + ", enableIndexTime:" + enableIndexTime + ", enableObservers:" + enableObservers + ", enableNodeProperties:" + enableNodeProperties + ", enableEdgeProperties:" + enableEdgeProperties + ", enableSpatialIndex:" + enableSpatialIndex + ", enableParallelEdgesSameType:" + enableParallelEdgesSameType + ", enableColumnarAttributes:" + enableColumnarAttributes + ", enableBitmapIndex:" + enableBitmapIndex + ", enableOptimisticLocking:" + enableOptimisticLocking + ", enableLockMetrics:" + enableLockMetrics + ", enableConcurrentIndex:" + enableConcurrentIndex + ", enableNeighborIndex:" + enableNeighborIndex + ", enableStringPool:" + enableStringPool + ", enableColumnarPositions:" + enableColumnarPositions + '}';
     }
 
     public String diffAsString(ConfigurationImpl other) {
@@ -305,6 +401,38 @@ public class ConfigurationImpl {
             sb.append("enableParallelEdgesSameType: ").append(isEnableParallelEdgesSameType()).append(" != ")
                     .append(otherImpl.isEnableParallelEdgesSameType()).append("\n");
         }
+        if (isEnableColumnarAttributes() != otherImpl.isEnableColumnarAttributes()) {
+            sb.append("enableColumnarAttributes: ").append(isEnableColumnarAttributes()).append(" != ")
+                    .append(otherImpl.isEnableColumnarAttributes()).append("\n");
+        }
+        if (isEnableBitmapIndex() != otherImpl.isEnableBitmapIndex()) {
+            sb.append("enableBitmapIndex: ").append(isEnableBitmapIndex()).append(" != ")
+                    .append(otherImpl.isEnableBitmapIndex()).append("\n");
+        }
+        if (isEnableOptimisticLocking() != otherImpl.isEnableOptimisticLocking()) {
+            sb.append("enableOptimisticLocking: ").append(isEnableOptimisticLocking()).append(" != ")
+                    .append(otherImpl.isEnableOptimisticLocking()).append("\n");
+        }
+        if (isEnableLockMetrics() != otherImpl.isEnableLockMetrics()) {
+            sb.append("enableLockMetrics: ").append(isEnableLockMetrics()).append(" != ")
+                    .append(otherImpl.isEnableLockMetrics()).append("\n");
+        }
+        if (isEnableConcurrentIndex() != otherImpl.isEnableConcurrentIndex()) {
+            sb.append("enableConcurrentIndex: ").append(isEnableConcurrentIndex()).append(" != ")
+                    .append(otherImpl.isEnableConcurrentIndex()).append("\n");
+        }
+        if (isEnableNeighborIndex() != otherImpl.isEnableNeighborIndex()) {
+            sb.append("enableNeighborIndex: ").append(isEnableNeighborIndex()).append(" != ")
+                    .append(otherImpl.isEnableNeighborIndex()).append("\n");
+        }
+        if (isEnableStringPool() != otherImpl.isEnableStringPool()) {
+            sb.append("enableStringPool: ").append(isEnableStringPool()).append(" != ")
+                    .append(otherImpl.isEnableStringPool()).append("\n");
+        }
+        if (isEnableColumnarPositions() != otherImpl.isEnableColumnarPositions()) {
+            sb.append("enableColumnarPositions: ").append(isEnableColumnarPositions()).append(" != ")
+                    .append(otherImpl.isEnableColumnarPositions()).append("\n");
+        }
         // Remove last /n
         if (sb.length() > 0) {
             sb.setLength(sb.length() - 1);
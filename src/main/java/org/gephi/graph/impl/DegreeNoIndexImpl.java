@@ -1,8 +1,16 @@
 package org.gephi.graph.impl;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.gephi.graph.api.Column;
@@ -108,6 +116,73 @@ public class DegreeNoIndexImpl implements ColumnIndexImpl<Integer, Node> {
         return max;
     }
 
+    @Override
+    public Iterable<Node> get(Integer from, Integer to, boolean inclusive) {
+        return getSortedNodes(from, to, inclusive, false);
+    }
+
+    @Override
+    public int countRange(Integer from, Integer to, boolean inclusive) {
+        int count = 0;
+        for (Node node : graph.getNodes()) {
+            if (isInRange(getDegree(node), from, to, inclusive)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Iterable<Node> getTop(int k) {
+        ColumnStandardIndexImpl.checkK(k);
+        List<Node> nodes = getSortedNodes(null, null, true, true);
+        return nodes.subList(0, Math.min(k, nodes.size()));
+    }
+
+    @Override
+    public Iterable<Node> getBottom(int k) {
+        ColumnStandardIndexImpl.checkK(k);
+        List<Node> nodes = getSortedNodes(null, null, true, false);
+        return nodes.subList(0, Math.min(k, nodes.size()));
+    }
+
+    @Override
+    public Integer getQuantile(double quantile) {
+        ColumnStandardIndexImpl.checkQuantile(quantile);
+        IntList degrees = new IntArrayList();
+        for (Node node : graph.getNodes()) {
+            degrees.add(getDegree(node));
+        }
+        if (degrees.isEmpty()) {
+            return null;
+        }
+        int[] array = degrees.toIntArray();
+        Arrays.sort(array);
+        return array[Math.max(1, (int) Math.ceil(quantile * array.length)) - 1];
+    }
+
+    private List<Node> getSortedNodes(Integer from, Integer to, boolean inclusive, boolean descending) {
+        List<Node> nodes = new ArrayList<>();
+        Object2IntMap<Node> degrees = new Object2IntOpenHashMap<>();
+        for (Node node : graph.getNodes()) {
+            int degree = getDegree(node);
+            if (isInRange(degree, from, to, inclusive)) {
+                nodes.add(node);
+                degrees.put(node, degree);
+            }
+        }
+        Comparator<Node> comparator = Comparator.comparingInt(degrees::getInt);
+        nodes.sort(descending ? comparator.reversed() : comparator);
+        return nodes;
+    }
+
+    private static boolean isInRange(int degree, Integer from, Integer to, boolean inclusive) {
+        if (from != null && (inclusive ? degree < from : degree <= from)) {
+            return false;
+        }
+        return to == null || (inclusive ? degree <= to : degree < to);
+    }
+
     @Override
     public Column getColumn() {
         switch (degreeType) {
@@ -123,7 +198,7 @@ public class DegreeNoIndexImpl implements ColumnIndexImpl<Integer, Node> {
 
     @Override
     public int getVersion() {
-        return ((GraphModelImpl) graph.getModel()).store.version.nodeVersion;
+        return ((GraphModelImpl) graph.getModel()).store.version.nodeModCount;
     }
 
     @Override
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Open-addressing dictionary from <code>(type, longId)</code> keys to edge store ids, see
+ * {@link EdgeStore#getLongId(NodeImpl, NodeImpl, boolean)}.
+ * <p>
+ * All edge types share a single linear probing table. The first edge of each key is stored inline and only parallel
+ * edges use the overflow area, a pool of linked entries kept in insertion order with a tail per key so appending is
+ * constant time. Nothing is allocated when adding or looking up a key unless the table or the pool grows.
+ */
+public class EdgeDictionary {
+
+    // Const
+    protected static final int NULL_ID = -1;
+    protected static final int EMPTY = -1;
+    // Table
+    protected long[] keys;
+    protected int[] types;
+    protected int[] values;
+    // Head and tail of the overflow list per slot, allocated with the first parallel edge
+    protected int[] overflowHeads;
+    protected int[] overflowTails;
+    protected int mask;
+    protected int size;
+    protected int maxFill;
+    protected final float loadFactor;
+    // Overflow pool
+    protected int[] overflowValues;
+    protected int[] overflowNext;
+    protected int overflowLength;
+    protected int overflowFree = NULL_ID;
+
+    public EdgeDictionary() {
+        this(GraphStoreConfiguration.EDGESTORE_DEFAULT_DICTIONARY_SIZE,
+                GraphStoreConfiguration.EDGESTORE_DICTIONARY_LOAD_FACTOR);
+    }
+
+    public EdgeDictionary(int expected, float loadFactor) {
+        this.loadFactor = loadFactor;
+        allocate(HashCommon.arraySize(Math.max(expected, 2), loadFactor));
+        this.overflowValues = new int[0];
+        this.overflowNext = new int[0];
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        types = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(types, EMPTY);
+        mask = capacity - 1;
+        maxFill = HashCommon.maxFill(capacity, loadFactor);
+    }
+
+    private static int hash(int type, long key) {
+        return (int) HashCommon.mix(31 * key + type);
+    }
+
+    private int find(int type, long key) {
+        int pos = hash(type, key) & mask;
+        while (types[pos] != EMPTY) {
+            if (keys[pos] == key && types[pos] == type) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first edge store id for this key.
+     *
+     * @param type edge type
+     * @param key long id
+     * @return first edge store id or <code>NULL_ID</code> if absent
+     */
+    public int get(int type, long key) {
+        int pos = find(type, key);
+        return pos == -1 ? NULL_ID : values[pos];
+    }
+
+    public boolean containsKey(int type, long key) {
+        return find(type, key) != -1;
+    }
+
+    /**
+     * Returns a copy of the edge store ids for this key, in insertion order.
+     *
+     * @param type edge type
+     * @param key long id
+     * @return edge store ids or <code>null</code> if absent
+     */
+    public int[] getAll(int type, long key) {
+        int pos = find(type, key);
+        return pos == -1 ? null : valuesAt(pos);
+    }
+
+    /**
+     * Returns the first edge store id for this key accepted by the predicate.
+     *
+     * @param type edge type
+     * @param key long id
+     * @param predicate predicate on edge store ids
+     * @return first accepted edge store id or <code>NULL_ID</code> if none
+     */
+    public int find(int type, long key, IntPredicate predicate) {
+        int pos = find(type, key);
+        if (pos == -1) {
+            return NULL_ID;
+        }
+        if (predicate.test(values[pos])) {
+            return values[pos];
+        }
+        for (int node = head(pos); node != NULL_ID; node = overflowNext[node]) {
+            if (predicate.test(overflowValues[node])) {
+                return overflowValues[node];
+            }
+        }
+        return NULL_ID;
+    }
+
+    /**
+     * Appends the edge store id to this key.
+     *
+     * @param type edge type
+     * @param key long id
+     * @param id edge store id
+     */
+    public void add(int type, long key, int id) {
+        int pos = hash(type, key) & mask;
+        while (types[pos] != EMPTY) {
+            if (keys[pos] == key && types[pos] == type) {
+                appendOverflow(pos, id);
+                return;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        types[pos] = type;
+        values[pos] = id;
+        if (overflowHeads != null) {
+            overflowHeads[pos] = NULL_ID;
+            overflowTails[pos] = NULL_ID;
+        }
+        if (++size >= maxFill) {
+            rehash(HashCommon.arraySize(size + 1, loadFactor));
+        }
+    }
+
+    /**
+     * Removes the edge store id from this key, the key is removed with its last edge.
+     *
+     * @param type edge type
+     * @param key long id
+     * @param id edge store id
+     * @return true if removed, false if not found
+     */
+    public boolean remove(int type, long key, int id) {
+        int pos = find(type, key);
+        if (pos == -1) {
+            return false;
+        }
+        int head = head(pos);
+        if (values[pos] == id) {
+            if (head == NULL_ID) {
+                size--;
+                shiftKeys(pos);
+            } else {
+                values[pos] = overflowValues[head];
+                overflowHeads[pos] = overflowNext[head];
+                if (overflowTails[pos] == head) {
+                    overflowTails[pos] = NULL_ID;
+                }
+                freeOverflow(head);
+            }
+            return true;
+        }
+        for (int previous = NULL_ID, node = head; node != NULL_ID; previous = node, node = overflowNext[node]) {
+            if (overflowValues[node] == id) {
+                if (previous == NULL_ID) {
+                    overflowHeads[pos] = overflowNext[node];
+                } else {
+                    overflowNext[previous] = overflowNext[node];
+                }
+                if (overflowTails[pos] == node) {
+                    overflowTails[pos] = previous;
+                }
+                freeOverflow(node);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void ensureCapacity(int expected) {
+        int capacity = HashCommon.arraySize(Math.max(expected, 2), loadFactor);
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(types, EMPTY);
+        overflowHeads = null;
+        overflowTails = null;
+        overflowValues = new int[0];
+        overflowNext = new int[0];
+        overflowLength = 0;
+        overflowFree = NULL_ID;
+        size = 0;
+    }
+
+    // Slot access, used to rebuild the dictionary
+
+    protected int capacity() {
+        return keys.length;
+    }
+
+    protected int typeAt(int pos) {
+        return types[pos];
+    }
+
+    protected int[] valuesAt(int pos) {
+        int head = head(pos);
+        if (head == NULL_ID) {
+            return new int[] { values[pos] };
+        }
+        int count = 1;
+        for (int node = head; node != NULL_ID; node = overflowNext[node]) {
+            count++;
+        }
+        int[] result = new int[count];
+        result[0] = values[pos];
+        int i = 1;
+        for (int node = head; node != NULL_ID; node = overflowNext[node]) {
+            result[i++] = overflowValues[node];
+        }
+        return result;
+    }
+
+    private int head(int pos) {
+        return overflowHeads == null ? NULL_ID : overflowHeads[pos];
+    }
+
+    private void appendOverflow(int pos, int id) {
+        if (overflowHeads == null) {
+            overflowHeads = new int[keys.length];
+            overflowTails = new int[keys.length];
+            Arrays.fill(overflowHeads, NULL_ID);
+            Arrays.fill(overflowTails, NULL_ID);
+        }
+        int node = allocateOverflow(id);
+        if (overflowHeads[pos] == NULL_ID) {
+            overflowHeads[pos] = node;
+        } else {
+            overflowNext[overflowTails[pos]] = node;
+        }
+        overflowTails[pos] = node;
+    }
+
+    private int allocateOverflow(int id) {
+        int node;
+        if (overflowFree != NULL_ID) {
+            node = overflowFree;
+            overflowFree = overflowNext[node];
+        } else {
+            if (overflowLength == overflowValues.length) {
+                int length = Math.max(16, overflowLength + (overflowLength >> 1));
+                overflowValues = Arrays.copyOf(overflowValues, length);
+                overflowNext = Arrays.copyOf(overflowNext, length);
+            }
+            node = overflowLength++;
+        }
+        overflowValues[node] = id;
+        overflowNext[node] = NULL_ID;
+        return node;
+    }
+
+    private void freeOverflow(int node) {
+        overflowNext[node] = overflowFree;
+        overflowFree = node;
+    }
+
+    // Backward shift deletion, keeps the probe sequences without tombstones
+    private void shiftKeys(int pos) {
+        int last;
+        int slot;
+        while (true) {
+            pos = ((last = pos) + 1) & mask;
+            while (true) {
+                if (types[pos] == EMPTY) {
+                    types[last] = EMPTY;
+                    if (overflowHeads != null) {
+                        overflowHeads[last] = NULL_ID;
+                        overflowTails[last] = NULL_ID;
+                    }
+                    return;
+                }
+                slot = hash(types[pos], keys[pos]) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = keys[pos];
+            types[last] = types[pos];
+            values[last] = values[pos];
+            if (overflowHeads != null) {
+                overflowHeads[last] = overflowHeads[pos];
+                overflowTails[last] = overflowTails[pos];
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldTypes = types;
+        int[] oldValues = values;
+        int[] oldHeads = overflowHeads;
+        int[] oldTails = overflowTails;
+        allocate(capacity);
+        if (oldHeads != null) {
+            overflowHeads = new int[capacity];
+            overflowTails = new int[capacity];
+            Arrays.fill(overflowHeads, NULL_ID);
+            Arrays.fill(overflowTails, NULL_ID);
+        }
+        for (int i = 0; i < oldKeys.length; i++) {
+            int type = oldTypes[i];
+            if (type != EMPTY) {
+                int pos = hash(type, oldKeys[i]) & mask;
+                while (types[pos] != EMPTY) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = oldKeys[i];
+                types[pos] = type;
+                values[pos] = oldValues[i];
+                if (oldHeads != null) {
+                    overflowHeads[pos] = oldHeads[i];
+                    overflowTails[pos] = oldTails[i];
+                }
+            }
+        }
+    }
+}
@@ -77,6 +77,9 @@ public class EdgeImpl extends ElementImpl implements Edge {
 
     @Override
     public double getWeight() {
+        if (attributes.hasColumnarDouble(GraphStoreConfiguration.EDGE_WEIGHT_INDEX)) {
+            return attributes.getColumnarDouble(GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
+        }
         synchronized (this) {
             Object weightObject = attributes.getAttribute(GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
             if (weightObject instanceof Double) {
@@ -147,6 +150,9 @@ public class EdgeImpl extends ElementImpl implements Edge {
     public void setType(int type) {
         graphStore.autoWriteLock();
         try {
+            if (type != this.type) {
+                graphStore.snapshotStore.preserveType(this);
+            }
             graphStore.edgeStore.setEdgeType(this, type);
         } finally {
             graphStore.autoWriteUnlock();
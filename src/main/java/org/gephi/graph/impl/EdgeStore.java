@@ -16,13 +16,12 @@
 
 package org.gephi.graph.impl;
 
-import it.unimi.dsi.fastutil.longs.Long2ObjectOpenCustomHashMap;
-import it.unimi.dsi.fastutil.longs.LongHash;
-import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.Hash;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
@@ -32,7 +31,10 @@ import java.util.List;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import org.gephi.graph.api.Edge;
@@ -44,6 +46,9 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
     // Const
     protected final static int NULL_ID = -1;
     protected final static int NODE_BITS = 31;
+    protected final static int ANY_TYPE = -1;
+    // Incident edges are found by sweeping the blocks once the removed nodes hold 1/INCIDENT_SWEEP_RATIO of the edges
+    protected final static int INCIDENT_SWEEP_RATIO = 8;
     protected static final Iterator<Edge> EMPTY_EDGE_ITERATOR = Collections.emptyIterator();
     // Locking (optional)
     protected final GraphLockImpl lock;
@@ -55,8 +60,11 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
     protected final GraphViewStore viewStore;
     // Spatial index
     protected final SpatialIndexImpl spatialIndex;
+    protected final NeighborIndexImpl neighborIndex;
     // Configuration
     protected final ConfigurationImpl configuration;
+    // String pool (optional)
+    protected final StringPool stringPool;
     // Data
     protected int size;
     protected int garbageSize;
@@ -64,32 +72,44 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
     protected int currentBlockIndex;
     protected EdgeBlock blocks[];
     protected EdgeBlock currentBlock;
-    protected Object2IntOpenHashMap dictionary;
-    protected Long2ObjectOpenCustomHashMap<int[]>[] longDictionary;
+    protected IdDictionary dictionary;
+    protected EdgeDictionary longDictionary;
     // Stats
     protected int typeSize[];
     protected int undirectedSize;
     protected int mutualEdgesSize;
     protected int[] mutualEdgesTypeSize;
+    // Long dictionary lookups
+    private final IntPredicate mutualPredicate = id -> get(id).isMutual();
+    private final IntPredicate nonMutualPredicate = id -> !get(id).isMutual();
+    private final IntPredicate undirectedPredicate = id -> !get(id).isDirected();
 
     public EdgeStore() {
+        this.configuration = new ConfigurationImpl();
+        this.stringPool = null;
         initStore();
         this.lock = null;
         this.edgeTypeStore = null;
         this.viewStore = null;
         this.version = null;
         this.spatialIndex = null;
-        this.configuration = new ConfigurationImpl();
+        this.neighborIndex = null;
     }
 
     public EdgeStore(final EdgeTypeStore edgeTypeStore, final SpatialIndexImpl spatialIndex, final ConfigurationImpl configuration, final GraphLockImpl lock, final GraphViewStore viewStore, final GraphVersion graphVersion) {
+        this(edgeTypeStore, spatialIndex, configuration, null, lock, viewStore, graphVersion);
+    }
+
+    public EdgeStore(final EdgeTypeStore edgeTypeStore, final SpatialIndexImpl spatialIndex, final ConfigurationImpl configuration, final StringPool stringPool, final GraphLockImpl lock, final GraphViewStore viewStore, final GraphVersion graphVersion) {
+        this.configuration = configuration == null ? new ConfigurationImpl() : configuration;
+        this.stringPool = stringPool;
         initStore();
         this.lock = lock;
         this.edgeTypeStore = edgeTypeStore;
         this.viewStore = viewStore;
         this.version = graphVersion;
         this.spatialIndex = spatialIndex;
-        this.configuration = configuration == null ? new ConfigurationImpl() : configuration;
+        this.neighborIndex = this.configuration.isEnableNeighborIndex() ? new NeighborIndexImpl() : null;
     }
 
     protected static long getLongId(NodeImpl source, NodeImpl target, boolean directed) {
@@ -112,12 +132,9 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         this.blocks = new EdgeBlock[GraphStoreConfiguration.EDGESTORE_DEFAULT_BLOCKS];
         this.blocks[0] = new EdgeBlock(0);
         this.currentBlock = blocks[currentBlockIndex];
-        this.dictionary = new Object2IntOpenHashMap(GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE);
-        this.dictionary.defaultReturnValue(NULL_ID);
-        this.longDictionary = new Long2ObjectOpenCustomHashMap[GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT];
-        this.longDictionary[0] = new Long2ObjectOpenCustomHashMap(
-                GraphStoreConfiguration.EDGESTORE_DEFAULT_DICTIONARY_SIZE,
-                GraphStoreConfiguration.EDGESTORE_DICTIONARY_LOAD_FACTOR, new DictionaryHashStrategy());
+        this.dictionary = IdDictionary.create(configuration
+                .getEdgeIdType(), stringPool, GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE, Hash.DEFAULT_LOAD_FACTOR);
+        this.longDictionary = new EdgeDictionary();
         this.mutualEdgesTypeSize = new int[GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT];
         this.typeSize = new int[GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT];
     }
@@ -156,6 +173,26 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         }
     }
 
+    // Releases the trailing blocks left with only garbage
+    private void trimBlocks() {
+        int i = blocksCount - 1;
+        EdgeBlock block = blocks[i];
+        while (block.garbageLength == block.nodeLength && i >= 0) {
+            if (i != 0) {
+                blocks[i] = null;
+                blocksCount--;
+                garbageSize -= block.nodeLength;
+                block = blocks[--i];
+                currentBlock = block;
+                currentBlockIndex--;
+            } else {
+                currentBlock.clear();
+                garbageSize = 0;
+                break;
+            }
+        }
+    }
+
     private void trimDictionary() {
         dictionary.trim(Math.max(GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE, size * 2));
     }
@@ -200,18 +237,9 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         }
     }
 
-    private void ensureLongDictionaryCapacity(int type) {
-        int length = longDictionary.length;
+    private void ensureTypeCapacity(int type) {
+        int length = typeSize.length;
         if (type >= length) {
-            Long2ObjectOpenCustomHashMap[] newArray = new Long2ObjectOpenCustomHashMap[type + 1];
-            System.arraycopy(longDictionary, 0, newArray, 0, length);
-            longDictionary = newArray;
-            for (int i = length; i <= type; i++) {
-                Long2ObjectOpenCustomHashMap newMap = new Long2ObjectOpenCustomHashMap(
-                        GraphStoreConfiguration.EDGESTORE_DEFAULT_DICTIONARY_SIZE,
-                        GraphStoreConfiguration.EDGESTORE_DICTIONARY_LOAD_FACTOR, new DictionaryHashStrategy());
-                longDictionary[i] = newMap;
-            }
             int[] newSizeArray = new int[type + 1];
             System.arraycopy(mutualEdgesTypeSize, 0, newSizeArray, 0, length);
             mutualEdgesTypeSize = newSizeArray;
@@ -312,12 +340,17 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         if (!isEmpty()) {
             incrementVersion();
         }
+        if (version != null) {
+            version.invalidateEdgeJournal();
+        }
 
         for (EdgeStoreIterator itr = new EdgeStoreIterator(); itr.hasNext();) {
             EdgeImpl edge = itr.next();
+            edge.attributes.detach();
             edge.setStoreId(EdgeStore.NULL_ID);
         }
 
+        dictionary.clear();
         initStore();
     }
 
@@ -331,14 +364,14 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
     }
 
     public int size(int type) {
-        if (type < longDictionary.length) {
+        if (type < typeSize.length) {
             return typeSize[type];
         }
         return 0;
     }
 
     public int undirectedSize(int type) {
-        if (type < longDictionary.length) {
+        if (type < typeSize.length) {
             return typeSize[type] - mutualEdgesTypeSize[type];
         }
         return 0;
@@ -483,6 +516,157 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         return new NeighborsUndirectedIterator((NodeImpl) node, new EdgeTypeInOutIterator((NodeImpl) node, type));
     }
 
+    /**
+     * Calls the consumer for each edge of the node without allocating, following the adjacency links.
+     *
+     * @param node node
+     * @param type edge type or <code>ANY_TYPE</code>
+     * @param out visit the outgoing edges
+     * @param in visit the incoming edges, self loops are skipped if outgoing edges are visited as well
+     * @param undirected skip the second edge of mutual pairs
+     * @param edgeFilter view edge bit vector or <code>null</code> to accept all edges
+     * @param consumer edge consumer
+     */
+    protected void forEachEdge(NodeImpl node, int type, boolean out, boolean in, boolean undirected, BitSet edgeFilter, Consumer<? super Edge> consumer) {
+        checkValidNodeObject(node);
+        traverse(node, type, out, in, undirected, edgeFilter, consumer, null, null);
+    }
+
+    /**
+     * Calls the consumer with the store id of the opposite node of each edge of the node, without allocating.
+     * <p>
+     * The second edge of mutual pairs is skipped when both outgoing and incoming edges are visited, like
+     * {@link #neighborIterator(Node)}.
+     *
+     * @param node node
+     * @param type edge type or <code>ANY_TYPE</code>
+     * @param out visit the outgoing edges
+     * @param in visit the incoming edges
+     * @param edgeFilter view edge bit vector or <code>null</code> to accept all edges
+     * @param consumer neighbor store id consumer
+     */
+    protected void forEachNeighbor(NodeImpl node, int type, boolean out, boolean in, BitSet edgeFilter, IntConsumer consumer) {
+        checkValidNodeObject(node);
+        traverse(node, type, out, in, out && in, edgeFilter, null, consumer, null);
+    }
+
+    /**
+     * Copies the neighbor store ids of the node into the buffer, as visited by
+     * {@link #forEachNeighbor(NodeImpl, int, boolean, boolean, BitSet, IntConsumer)}.
+     *
+     * @param node node
+     * @param edgeFilter view edge bit vector or <code>null</code> to accept all edges
+     * @param buffer destination, neighbors past its length are counted but not copied
+     * @return the number of neighbors
+     */
+    protected int neighborStoreIds(NodeImpl node, BitSet edgeFilter, int[] buffer) {
+        checkValidNodeObject(node);
+        checkNonNullObject(buffer);
+        return traverse(node, ANY_TYPE, true, true, true, edgeFilter, null, null, buffer);
+    }
+
+    private int traverse(NodeImpl node, int type, boolean out, boolean in, boolean undirected, BitSet edgeFilter, Consumer<? super Edge> edgeConsumer, IntConsumer neighborConsumer, int[] buffer) {
+        int count = 0;
+        if (out) {
+            EdgeImpl[] heads = node.headOut;
+            int to = type == ANY_TYPE ? heads.length : Math.min(type + 1, heads.length);
+            for (int t = type == ANY_TYPE ? 0 : type; t < to; t++) {
+                for (EdgeImpl edge = heads[t]; edge != null; edge = getLinked(edge.nextOutEdge)) {
+                    if (isTraversed(edge, undirected, edgeFilter)) {
+                        count = emit(edge, edge.target, count, edgeConsumer, neighborConsumer, buffer);
+                    }
+                }
+            }
+        }
+        if (in) {
+            EdgeImpl[] heads = node.headIn;
+            int to = type == ANY_TYPE ? heads.length : Math.min(type + 1, heads.length);
+            for (int t = type == ANY_TYPE ? 0 : type; t < to; t++) {
+                for (EdgeImpl edge = heads[t]; edge != null; edge = getLinked(edge.nextInEdge)) {
+                    if (!(out && edge.isSelfLoop()) && isTraversed(edge, undirected, edgeFilter)) {
+                        count = emit(edge, edge.source, count, edgeConsumer, neighborConsumer, buffer);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private boolean isTraversed(EdgeImpl edge, boolean undirected, BitSet edgeFilter) {
+        if (edgeFilter != null && !edgeFilter.get(edge.storeId)) {
+            return false;
+        }
+        if (undirected && isUndirectedToIgnore(edge)) {
+            if (edgeFilter == null) {
+                return false;
+            }
+            // In views the mutual edge is only a duplicate if the view contains it as well
+            EdgeImpl mutual = get(edge.target, edge.source, edge.type, false);
+            return mutual == null || !edgeFilter.get(mutual.storeId);
+        }
+        return true;
+    }
+
+    private static int emit(EdgeImpl edge, NodeImpl neighbor, int count, Consumer<? super Edge> edgeConsumer, IntConsumer neighborConsumer, int[] buffer) {
+        if (edgeConsumer != null) {
+            edgeConsumer.accept(edge);
+        } else if (neighborConsumer != null) {
+            neighborConsumer.accept(neighbor.storeId);
+        } else if (count < buffer.length) {
+            buffer[count] = neighbor.storeId;
+        }
+        return count + 1;
+    }
+
+    /**
+     * Returns the sorted common neighbor store ids of both nodes.
+     *
+     * @param node1 first node
+     * @param node2 second node
+     * @param index neighbor index caching the rows or <code>null</code> to build them
+     * @param edgeFilter view edge bit vector or <code>null</code> to accept all edges
+     * @return the common neighbors' store ids
+     */
+    protected int[] commonNeighbors(Node node1, Node node2, NeighborIndexImpl index, BitSet edgeFilter) {
+        int[] row1 = getNeighborRow(node1, index, edgeFilter);
+        int[] row2 = getNeighborRow(node2, index, edgeFilter);
+        int[] buffer = new int[Math.min(row1.length, row2.length)];
+        int count = NeighborIndexImpl.intersect(row1, row2, buffer);
+        return count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * Counts or copies the sorted common neighbor store ids of both nodes.
+     *
+     * @param node1 first node
+     * @param node2 second node
+     * @param index neighbor index caching the rows or <code>null</code> to build them
+     * @param edgeFilter view edge bit vector or <code>null</code> to accept all edges
+     * @param buffer destination or <code>null</code> to only count
+     * @return the number of common neighbors
+     */
+    protected int commonNeighbors(Node node1, Node node2, NeighborIndexImpl index, BitSet edgeFilter, int[] buffer) {
+        int[] row1 = getNeighborRow(node1, index, edgeFilter);
+        int[] row2 = getNeighborRow(node2, index, edgeFilter);
+        return NeighborIndexImpl.intersect(row1, row2, buffer);
+    }
+
+    private int[] getNeighborRow(Node node, NeighborIndexImpl index, BitSet edgeFilter) {
+        checkValidNodeObject(node);
+        if (index != null) {
+            return index.getRow(this, (NodeImpl) node, edgeFilter);
+        }
+        return NeighborIndexImpl.buildRow(this, (NodeImpl) node, edgeFilter);
+    }
+
+    // Follows an adjacency link, ids are valid by construction
+    private EdgeImpl getLinked(int id) {
+        if (id == NULL_ID) {
+            return null;
+        }
+        return blocks[id / GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE].get(id);
+    }
+
     public Iterator<Edge> edgesUndirectedIterator(final Node node1, final Node node2) {
         checkValidNodeObject(node1);
         checkValidNodeObject(node2);
@@ -512,7 +696,15 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
     public EdgeImpl get(final Object id) {
         checkNonNullObject(id);
 
-        int index = dictionary.getInt(id);
+        int index = dictionary.get(id);
+        if (index != EdgeStore.NULL_ID) {
+            return get(index);
+        }
+        return null;
+    }
+
+    public EdgeImpl getById(final long id) {
+        int index = dictionary.get(id);
         if (index != EdgeStore.NULL_ID) {
             return get(index);
         }
@@ -533,38 +725,38 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         NodeImpl sourceImpl = (NodeImpl) source;
         NodeImpl targetImpl = (NodeImpl) target;
 
-        if (type < longDictionary.length) {
+        if (type < typeSize.length) {
             if (isUndirectedGraph()) {
-                int[] index = longDictionary[type].get(getLongId(sourceImpl, targetImpl, false));
-                if (index != null) {
-                    return get(index[0]);
+                int id = longDictionary.get(type, getLongId(sourceImpl, targetImpl, false));
+                if (id != NULL_ID) {
+                    return get(id);
                 }
             } else if (isMixedGraph()) {
-                int[] index = longDictionary[type].get(getLongId(sourceImpl, targetImpl, true));
-                if (index != null) {
-                    return get(index[0]);
+                int id = longDictionary.get(type, getLongId(sourceImpl, targetImpl, true));
+                if (id != NULL_ID) {
+                    return get(id);
                 } else if (targetImpl.storeId > sourceImpl.storeId) {
-                    index = longDictionary[type].get(getLongId(sourceImpl, targetImpl, false));
-                    if (index != null) {
-                        EdgeImpl e = get(index[0]);
+                    id = longDictionary.get(type, getLongId(sourceImpl, targetImpl, false));
+                    if (id != NULL_ID) {
+                        EdgeImpl e = get(id);
                         if (!e.isDirected() || undirectedDecorator) {
                             return e;
                         }
                     }
                 } else if (undirectedDecorator) {
-                    index = longDictionary[type].get(getLongId(targetImpl, sourceImpl, true));
-                    if (index != null) {
-                        return get(index[0]);
+                    id = longDictionary.get(type, getLongId(targetImpl, sourceImpl, true));
+                    if (id != NULL_ID) {
+                        return get(id);
                     }
                 }
             } else {
-                int[] index = longDictionary[type].get(getLongId(sourceImpl, targetImpl, true));
-                if (index != null) {
-                    return get(index[0]);
+                int id = longDictionary.get(type, getLongId(sourceImpl, targetImpl, true));
+                if (id != NULL_ID) {
+                    return get(id);
                 } else if (undirectedDecorator) {
-                    index = longDictionary[type].get(getLongId(targetImpl, sourceImpl, true));
-                    if (index != null) {
-                        return get(index[0]);
+                    id = longDictionary.get(type, getLongId(targetImpl, sourceImpl, true));
+                    if (id != NULL_ID) {
+                        return get(id);
                     }
                 }
             }
@@ -578,26 +770,26 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         NodeImpl sourceImpl = (NodeImpl) source;
         NodeImpl targetImpl = (NodeImpl) target;
 
-        if (type < longDictionary.length) {
+        if (type < typeSize.length) {
             if (isUndirectedGraph()) {
-                int[] index = longDictionary[type].get(getLongId(sourceImpl, targetImpl, false));
+                int[] index = longDictionary.getAll(type, getLongId(sourceImpl, targetImpl, false));
                 if (index != null) {
                     return new EdgesIterator(index);
                 }
             } else if (isMixedGraph() && !undirectedDecorator) {
-                int[] index = longDictionary[type].get(getLongId(sourceImpl, targetImpl, true));
+                int[] index = longDictionary.getAll(type, getLongId(sourceImpl, targetImpl, true));
                 if (index != null) {
                     return new EdgesIterator(index);
                 } else if (targetImpl.storeId > sourceImpl.storeId) {
-                    index = longDictionary[type].get(getLongId(sourceImpl, targetImpl, false));
+                    index = longDictionary.getAll(type, getLongId(sourceImpl, targetImpl, false));
                     if (index != null) {
                         return new EdgesIteratorOnlyUndirected(index);
                     }
                 }
             } else {
-                int[] index = longDictionary[type].get(getLongId(sourceImpl, targetImpl, true));
+                int[] index = longDictionary.getAll(type, getLongId(sourceImpl, targetImpl, true));
                 if (undirectedDecorator) {
-                    int[] reverseIndex = longDictionary[type].get(getLongId(targetImpl, sourceImpl, true));
+                    int[] reverseIndex = longDictionary.getAll(type, getLongId(targetImpl, sourceImpl, true));
                     if (reverseIndex != null) {
                         if (index != null) {
                             index = Arrays.copyOf(index, index.length + reverseIndex.length);
@@ -639,12 +831,10 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         int oldType = e.getType();
         EdgeImpl edge = (EdgeImpl) e;
         if (edge.storeId != EdgeStore.NULL_ID) {
-            ensureLongDictionaryCapacity(type);
-            Long2ObjectOpenCustomHashMap<int[]> newDico = longDictionary[type];
+            ensureTypeCapacity(type);
 
             long longId = getLongId(edge.source, edge.target, edge.isDirected());
-            int[] newDicoValue = newDico.get(longId);
-            if (newDicoValue != null && !configuration.isEnableParallelEdgesSameType()) {
+            if (!configuration.isEnableParallelEdgesSameType() && longDictionary.containsKey(type, longId)) {
                 return false;
             }
 
@@ -659,7 +849,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
             insertOutEdge(edge);
             insertInEdge(edge);
 
-            addToDico(newDico, newDicoValue, edge, longId);
+            addToDico(edge, longId);
             typeSize[type]++;
 
             if (viewStore != null) {
@@ -680,70 +870,46 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         NodeImpl target = edge.target;
         boolean directed = edge.isDirected();
 
-        Long2ObjectOpenCustomHashMap<int[]> dico = longDictionary[type];
-        long longId = getLongId(source, target, directed);
-        int[] dicoValue = dico.get(longId);
-        if (dicoValue.length == 1) {
-            dico.remove(longId);
-        } else {
-            int[] newDicoValue = new int[dicoValue.length - 1];
-            int j = 0;
-            for (int i = 0; i < dicoValue.length; i++) {
-                int v = dicoValue[i];
-                if (v != id) {
-                    newDicoValue[j++] = v;
-                }
-            }
-            dico.put(longId, newDicoValue);
-        }
+        longDictionary.remove(type, getLongId(source, target, directed), id);
 
         if (directed && !edge.isSelfLoop()) {
-            int[] index = longDictionary[type].get(getLongId(edge.target, edge.source, true));
-            if (index != null) {
-                for (int i = 0; i < index.length; i++) {
-                    EdgeImpl mutual = get(index[i]);
-                    if (mutual.isMutual()) {
-                        edge.setMutual(false);
-
-                        mutual.setMutual(false);
-                        source.mutualDegree--;
-                        target.mutualDegree--;
-                        mutualEdgesSize--;
-                        mutualEdgesTypeSize[type]--;
-                        break;
-                    }
-                }
+            int mutualId = longDictionary.find(type, getLongId(edge.target, edge.source, true), mutualPredicate);
+            if (mutualId != NULL_ID) {
+                EdgeImpl mutual = get(mutualId);
+                edge.setMutual(false);
+
+                mutual.setMutual(false);
+                source.mutualDegree--;
+                target.mutualDegree--;
+                mutualEdgesSize--;
+                mutualEdgesTypeSize[type]--;
             }
         }
     }
 
-    private void addToDico(Long2ObjectOpenCustomHashMap<int[]> dico, int[] dicoValue, EdgeImpl edge, long longId) {
-        if (dicoValue == null) {
-            dicoValue = new int[] { edge.storeId };
-        } else {
-            dicoValue = Arrays.copyOf(dicoValue, dicoValue.length + 1);
-            dicoValue[dicoValue.length - 1] = edge.storeId;
+    private void addToDico(EdgeImpl edge, long longId) {
+        if (putInDico(edge, longId)) {
+            edge.source.mutualDegree++;
+            edge.target.mutualDegree++;
+            mutualEdgesSize++;
+            mutualEdgesTypeSize[edge.type]++;
         }
-        dico.put(longId, dicoValue);
+    }
+
+    // Returns true if the edge forms a new mutual pair, counters are left to the caller
+    private boolean putInDico(EdgeImpl edge, long longId) {
+        int type = edge.type;
+        longDictionary.add(type, longId, edge.storeId);
 
         if (edge.isDirected() && !edge.isSelfLoop()) {
-            int type = edge.type;
-            int[] index = longDictionary[type].get(getLongId(edge.target, edge.source, true));
-            if (index != null) {
-                for (int i = 0; i < index.length; i++) {
-                    EdgeImpl mutual = get(index[i]);
-                    if (!mutual.isMutual()) {
-                        mutual.setMutual(true);
-                        edge.setMutual(true);
-                        edge.source.mutualDegree++;
-                        edge.target.mutualDegree++;
-                        mutualEdgesSize++;
-                        mutualEdgesTypeSize[type]++;
-                        break;
-                    }
-                }
+            int mutualId = longDictionary.find(type, getLongId(edge.target, edge.source, true), nonMutualPredicate);
+            if (mutualId != NULL_ID) {
+                get(mutualId).setMutual(true);
+                edge.setMutual(true);
+                return true;
             }
         }
+        return false;
     }
 
     @Override
@@ -761,11 +927,9 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
             NodeImpl source = edge.source;
             NodeImpl target = edge.target;
 
-            ensureLongDictionaryCapacity(type);
-            Long2ObjectOpenCustomHashMap<int[]> dico = longDictionary[type];
+            ensureTypeCapacity(type);
             long longId = getLongId(source, target, directed);
-            int[] dicoValue = dico.get(longId);
-            if (dicoValue != null && !configuration.isEnableParallelEdgesSameType()) {
+            if (!configuration.isEnableParallelEdgesSameType() && longDictionary.containsKey(type, longId)) {
                 return false;
             }
 
@@ -792,11 +956,14 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
 
             insertOutEdge(edge);
             insertInEdge(edge);
+            if (version != null) {
+                version.journalEdge(edge.storeId);
+            }
 
             source.outDegree++;
             target.inDegree++;
 
-            addToDico(dico, dicoValue, edge, longId);
+            addToDico(edge, longId);
 
             if (viewStore != null) {
                 viewStore.addEdge(edge);
@@ -827,6 +994,9 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
             checkEdgeExists(edge);
 
             incrementVersion();
+            if (version != null) {
+                version.journalEdge(id);
+            }
 
             if (viewStore != null) {
                 viewStore.removeEdge(edge);
@@ -854,19 +1024,8 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
             dictionary.remove(edge.getId());
             trimDictionary();
 
-            for (int i = storeIndex; i == (blocksCount - 1) && block.garbageLength == block.nodeLength && i >= 0;) {
-                if (i != 0) {
-                    blocks[i] = null;
-                    blocksCount--;
-                    garbageSize -= block.nodeLength;
-                    block = blocks[--i];
-                    currentBlock = block;
-                    currentBlockIndex--;
-                } else {
-                    currentBlock.clear();
-                    garbageSize = 0;
-                    break;
-                }
+            if (storeIndex == blocksCount - 1) {
+                trimBlocks();
             }
 
             removeFromDico(edge, id);
@@ -903,7 +1062,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
     }
 
     public boolean containsAnyType(NodeImpl source, NodeImpl target) {
-        int typeLength = longDictionary.length;
+        int typeLength = typeSize.length;
         for (int i = 0; i < typeLength; i++) {
             if (contains(source, target, i)) {
                 return true;
@@ -916,25 +1075,17 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         checkNonNullObject(source);
         checkNonNullObject(target);
 
-        if (type < longDictionary.length) {
+        if (type < typeSize.length) {
             if (isUndirectedGraph()) {
-                return longDictionary[type].containsKey(getLongId(source, target, false));
+                return longDictionary.containsKey(type, getLongId(source, target, false));
             } else if (isMixedGraph()) {
-                if (longDictionary[type].containsKey(getLongId(source, target, true))) {
+                if (longDictionary.containsKey(type, getLongId(source, target, true))) {
                     return true;
                 } else if (target.storeId > source.storeId) {
-                    int[] index = longDictionary[type].get(getLongId(source, target, false));
-                    if (index != null) {
-                        for (int i = 0; i < index.length; i++) {
-                            EdgeImpl mutual = get(index[i]);
-                            if (!mutual.isDirected()) {
-                                return true;
-                            }
-                        }
-                    }
+                    return longDictionary.find(type, getLongId(source, target, false), undirectedPredicate) != NULL_ID;
                 }
             } else {
-                return longDictionary[type].containsKey(getLongId(source, target, true));
+                return longDictionary.containsKey(type, getLongId(source, target, true));
             }
         }
         return false;
@@ -1041,6 +1192,11 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         checkCollection(c);
 
         if (!c.isEmpty()) {
+            EdgeImpl[] bulkEdges = prepareBulkAdd(c);
+            if (bulkEdges != null && bulkAdd(bulkEdges)) {
+                return true;
+            }
+
             int capacityNeeded = c.size() - garbageSize;
             if (capacityNeeded > 0) {
                 ensureCapacity(capacityNeeded);
@@ -1058,6 +1214,289 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         return false;
     }
 
+    /**
+     * Returns the edges as an array if the batch can take the bulk path, or null if it should go through
+     * {@link #add(Edge)} one edge at a time.
+     * <p>
+     * The bulk path only handles new edges with valid source and target, all directed or all undirected like the edges
+     * already in the store, in a store without garbage. Anything else falls back to the sequential path so exceptions
+     * and partial additions behave the same.
+     */
+    private EdgeImpl[] prepareBulkAdd(Collection<? extends Edge> c) {
+        if (c.size() < GraphStoreConfiguration.BULK_LOAD_THRESHOLD || garbageSize > 0 || !configuration
+                .isEnableParallelEdgesSameType()) {
+            return null;
+        }
+        EdgeImpl[] edges = new EdgeImpl[c.size()];
+        boolean directed = true;
+        int i = 0;
+        for (Edge e : c) {
+            if (!(e instanceof EdgeImpl) || i == edges.length) {
+                return null;
+            }
+            EdgeImpl edge = (EdgeImpl) e;
+            if (edge.storeId != NULL_ID || edge.source == null || edge.target == null || edge.source.storeId == NodeStore.NULL_ID || edge.target.storeId == NodeStore.NULL_ID || !dictionary
+                    .isValidKey(edge.getId())) {
+                return null;
+            }
+            if (i == 0) {
+                directed = edge.isDirected();
+            } else if (edge.isDirected() != directed) {
+                return null;
+            }
+            if (edgeTypeStore != null && !edgeTypeStore.contains(edge.type) && !configuration
+                    .isEnableAutoEdgeTypeRegistration()) {
+                return null;
+            }
+            edges[i++] = edge;
+        }
+        if (i != edges.length || (directed ? undirectedSize != 0 : undirectedSize != size)) {
+            return null;
+        }
+        return edges;
+    }
+
+    /**
+     * Adds a batch prepared by {@link #prepareBulkAdd(Collection)}.
+     * <p>
+     * Blocks and dictionaries are sized once for the whole batch. The long dictionaries are filled in parallel across
+     * edge types, the out and in adjacency lists in parallel partitioned by source and target store id. Views and
+     * attribute indexes are updated in one final sequential pass. The resulting store is identical to adding the edges
+     * one by one in the same order.
+     *
+     * @return false if nothing was changed because of a duplicate id, the caller should then use the sequential path
+     */
+    private boolean bulkAdd(EdgeImpl[] edges) {
+        int count = edges.length;
+
+        // Store ids and id dictionary, sequential as ids are allocated in order
+        int savedBlockIndex = currentBlockIndex;
+        int savedBlockLength = currentBlock.nodeLength;
+        int savedBlocksCount = blocksCount;
+        ensureCapacity(count);
+        dictionary.ensureCapacity(size + count);
+        currentBlockIndex = savedBlockIndex;
+        currentBlock = blocks[savedBlockIndex];
+        int firstId = currentBlock.offset + currentBlock.nodeLength;
+        for (int i = 0; i < count; i++) {
+            EdgeImpl edge = edges[i];
+            if (edge.storeId != NULL_ID) {
+                // Same edge twice in the batch
+                rollbackBulkAdd(edges, i, savedBlockIndex, savedBlockLength, savedBlocksCount);
+                return false;
+            }
+            ensureCapacity(1);
+            currentBlock.add(edge);
+            int previous = dictionary.put(edge.getId(), edge.storeId);
+            if (previous != NULL_ID) {
+                rollbackBulkAdd(edges, i + 1, savedBlockIndex, savedBlockLength, savedBlocksCount);
+                if (previous < firstId) {
+                    dictionary.put(edge.getId(), previous);
+                }
+                return false;
+            }
+        }
+
+        // Types
+        int maxType = 0;
+        int maxNode = 0;
+        for (EdgeImpl edge : edges) {
+            maxType = Math.max(maxType, edge.type);
+            maxNode = Math.max(maxNode, Math.max(edge.source.storeId, edge.target.storeId));
+        }
+        ensureTypeCapacity(maxType);
+        int[] typeCounts = new int[maxType + 1];
+        for (EdgeImpl edge : edges) {
+            typeCounts[edge.type]++;
+        }
+        for (int type = 0; type <= maxType; type++) {
+            if (typeCounts[type] > 0 && edgeTypeStore != null) {
+                edgeTypeStore.registerEdgeType(type);
+            }
+        }
+        longDictionary.ensureCapacity(longDictionary.size() + count);
+        incrementVersion();
+
+        // Long dictionary and mutual detection, sequential as all types share the table
+        int[] mutualEdges = fillDictionary(edges);
+        for (int id : mutualEdges) {
+            EdgeImpl edge = get(id);
+            edge.source.mutualDegree++;
+            edge.target.mutualDegree++;
+            mutualEdgesTypeSize[edge.type]++;
+        }
+        mutualEdgesSize += mutualEdges.length;
+        for (int type = 0; type <= maxType; type++) {
+            typeSize[type] += typeCounts[type];
+        }
+
+        // Adjacency lists, partitioned by node so each node's lists are built by a single task
+        int[] offsets = new int[maxNode + 2];
+        int[] order = new int[count];
+        sortByNode(edges, offsets, order, true);
+        IntStream.rangeClosed(0, maxNode).parallel().forEach(node -> {
+            int start = offsets[node];
+            int end = offsets[node + 1];
+            if (start < end) {
+                for (int i = start; i < end; i++) {
+                    insertOutEdge(edges[order[i]]);
+                }
+                edges[order[start]].source.outDegree += end - start;
+            }
+        });
+        sortByNode(edges, offsets, order, false);
+        IntStream.rangeClosed(0, maxNode).parallel().forEach(node -> {
+            int start = offsets[node];
+            int end = offsets[node + 1];
+            if (start < end) {
+                for (int i = start; i < end; i++) {
+                    insertInEdge(edges[order[i]]);
+                }
+                edges[order[start]].target.inDegree += end - start;
+            }
+        });
+
+        size += count;
+        if (!edges[0].isDirected()) {
+            undirectedSize += count;
+        }
+        if (version != null) {
+            BitSet ids = new BitSet(firstId + count);
+            ids.set(firstId, firstId + count);
+            version.journalEdges(ids);
+        }
+
+        // Views and attribute indexing in one final pass. Views see an edge as mutual only if it
+        // paired with an earlier edge, as they would when edges are added one by one
+        BitSet paired = new BitSet(firstId + count);
+        for (int id : mutualEdges) {
+            paired.set(id);
+        }
+        for (EdgeImpl edge : edges) {
+            if (viewStore != null) {
+                boolean mutual = edge.isMutual();
+                if (mutual && !paired.get(edge.storeId)) {
+                    edge.setMutual(false);
+                    viewStore.addEdge(edge);
+                    edge.setMutual(true);
+                } else {
+                    viewStore.addEdge(edge);
+                }
+            }
+            edge.indexAttributes();
+        }
+        return true;
+    }
+
+    private int[] fillDictionary(EdgeImpl[] edges) {
+        int[] mutuals = new int[16];
+        int mutualCount = 0;
+        for (EdgeImpl edge : edges) {
+            long longId = getLongId(edge.source, edge.target, edge.isDirected());
+            if (putInDico(edge, longId)) {
+                if (mutualCount == mutuals.length) {
+                    mutuals = Arrays.copyOf(mutuals, mutualCount * 2);
+                }
+                mutuals[mutualCount++] = edge.storeId;
+            }
+        }
+        return Arrays.copyOf(mutuals, mutualCount);
+    }
+
+    // Counting sort of the edge indices by source or target store id, stable in batch order
+    private static void sortByNode(EdgeImpl[] edges, int[] offsets, int[] order, boolean bySource) {
+        Arrays.fill(offsets, 0);
+        for (EdgeImpl edge : edges) {
+            offsets[(bySource ? edge.source : edge.target).storeId + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] cursors = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int i = 0; i < edges.length; i++) {
+            order[cursors[(bySource ? edges[i].source : edges[i].target).storeId]++] = i;
+        }
+    }
+
+    private void rollbackBulkAdd(EdgeImpl[] edges, int added, int savedBlockIndex, int savedBlockLength, int savedBlocksCount) {
+        for (int i = 0; i < added; i++) {
+            EdgeImpl edge = edges[i];
+            dictionary.remove(edge.getId());
+            blocks[edge.storeId / GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE].backingArray[edge.storeId % GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE] = null;
+            edge.setStoreId(NULL_ID);
+        }
+        for (int i = savedBlockIndex; i <= currentBlockIndex; i++) {
+            blocks[i].nodeLength = i == savedBlockIndex ? savedBlockLength : 0;
+        }
+        // Releases the blocks grown for the batch
+        for (int i = savedBlocksCount; i < blocksCount; i++) {
+            blocks[i] = null;
+        }
+        blocksCount = savedBlocksCount;
+        currentBlockIndex = savedBlockIndex;
+        currentBlock = blocks[savedBlockIndex];
+    }
+
+    /**
+     * Adds edges which are already linked, as read from a snapshot. The adjacency pointers and mutual flags of the
+     * edges as well as the heads and degrees of the nodes are expected to be set, so only the blocks, dictionaries and
+     * counters are filled. The store must be empty and the edges are given in store id order.
+     *
+     * @param edges edges to add
+     */
+    protected void addLinked(EdgeImpl[] edges) {
+        if (size > 0 || garbageSize > 0) {
+            throw new IllegalStateException("The store is not empty");
+        }
+        int count = edges.length;
+        if (count == 0) {
+            return;
+        }
+        ensureCapacity(count);
+        dictionary.ensureCapacity(count);
+        currentBlockIndex = 0;
+        currentBlock = blocks[0];
+
+        int maxType = 0;
+        for (EdgeImpl edge : edges) {
+            maxType = Math.max(maxType, edge.type);
+        }
+        ensureTypeCapacity(maxType);
+        int[] mutualCounts = new int[maxType + 1];
+
+        for (int i = 0; i < count; i++) {
+            EdgeImpl edge = edges[i];
+            checkIdDoesntExist(edge.getId());
+            ensureCapacity(1);
+            currentBlock.add(edge);
+            dictionary.put(edge.getId(), i);
+
+            int type = edge.type;
+            if (edgeTypeStore != null) {
+                edgeTypeStore.registerEdgeType(type);
+            }
+            longDictionary.add(type, getLongId(edge.source, edge.target, edge.isDirected()), i);
+
+            if (edge.isMutual()) {
+                mutualCounts[type]++;
+            }
+            if (!edge.isDirected()) {
+                undirectedSize++;
+            }
+            typeSize[type]++;
+        }
+        for (int type = 0; type <= maxType; type++) {
+            mutualEdgesTypeSize[type] += mutualCounts[type] / 2;
+            mutualEdgesSize += mutualCounts[type] / 2;
+        }
+        size = count;
+        incrementVersion();
+
+        for (EdgeImpl edge : edges) {
+            edge.indexAttributes();
+        }
+    }
+
     @Override
     public boolean removeAll(Collection<?> c) {
         checkCollection(c);
@@ -1076,6 +1515,93 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         return false;
     }
 
+    /**
+     * Removes all the edges incident to the given nodes at once.
+     * <p>
+     * Views, the version and the journal are updated a single time for all the edges, before they are unlinked one by
+     * one.
+     *
+     * @param nodes nodes whose edges are removed, without duplicates
+     * @param nodeIds store ids of the nodes
+     * @return the number of removed edges
+     */
+    protected int removeAll(NodeImpl[] nodes, BitSet nodeIds) {
+        BitSet edgeIds = getIncidentEdges(nodes, nodeIds);
+        int count = edgeIds.cardinality();
+        if (count == 0) {
+            return 0;
+        }
+
+        incrementVersion();
+        if (version != null) {
+            version.journalEdges(edgeIds);
+        }
+
+        if (viewStore != null) {
+            viewStore.removeEdges(edgeIds);
+        }
+
+        for (int id = edgeIds.nextSetBit(0); id >= 0; id = edgeIds.nextSetBit(id + 1)) {
+            EdgeImpl edge = get(id);
+            edge.destroyAttributes();
+
+            blocks[id / GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE].remove(edge);
+
+            removeOutEdge(edge);
+            removeInEdge(edge);
+
+            edge.source.outDegree--;
+            edge.target.inDegree--;
+
+            typeSize[edge.type]--;
+            if (!edge.isDirected()) {
+                undirectedSize--;
+            }
+            dictionary.remove(edge.getId());
+            removeFromDico(edge, id);
+        }
+        size -= count;
+        garbageSize += count;
+        trimDictionary();
+        trimBlocks();
+        return count;
+    }
+
+    // Walks the adjacency lists of the nodes, or sweeps the blocks once if the nodes hold a large share of the edges
+    private BitSet getIncidentEdges(NodeImpl[] nodes, BitSet nodeIds) {
+        long degrees = 0;
+        for (NodeImpl node : nodes) {
+            degrees += node.outDegree + node.inDegree;
+        }
+        BitSet edgeIds = new BitSet(maxStoreId());
+        if (degrees * INCIDENT_SWEEP_RATIO >= size) {
+            for (int i = 0; i < blocksCount; i++) {
+                EdgeBlock block = blocks[i];
+                EdgeImpl[] backingArray = block.backingArray;
+                for (int j = 0; j < block.nodeLength; j++) {
+                    EdgeImpl edge = backingArray[j];
+                    if (edge != null && (nodeIds.get(edge.source.storeId) || nodeIds.get(edge.target.storeId))) {
+                        edgeIds.set(edge.storeId);
+                    }
+                }
+            }
+        } else {
+            for (NodeImpl node : nodes) {
+                for (EdgeImpl head : node.headOut) {
+                    for (EdgeImpl edge = head; edge != null; edge = getLinked(edge.nextOutEdge)) {
+                        edgeIds.set(edge.storeId);
+                    }
+                }
+                for (EdgeImpl head : node.headIn) {
+                    for (EdgeImpl edge = head; edge != null; edge = getLinked(edge.nextInEdge)) {
+                        edgeIds.set(edge.storeId);
+                    }
+                }
+            }
+        }
+        return edgeIds;
+    }
+
     @Override
     public boolean retainAll(Collection<?> c) {
         checkCollection(c);
@@ -1105,6 +1631,99 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         return false;
     }
 
+    /**
+     * Renumbers the edges densely in their current order, rewrites the adjacency links and the long dictionary and
+     * releases the empty blocks.
+     * <p>
+     * Must be called after {@link NodeStore#compact()} as the long dictionary keys derive from the node store ids.
+     *
+     * @param nodesMoved true if the node store ids changed
+     * @return the new store id indexed by the old one, or <code>null</code> if the store ids were already dense
+     */
+    protected int[] compact(boolean nodesMoved) {
+        int length = maxStoreId();
+        if (neighborIndex != null && (nodesMoved || size != length)) {
+            neighborIndex.incrementVersion();
+        }
+        if (size == length) {
+            if (nodesMoved) {
+                rebuildLongDictionary(null);
+            }
+            return null;
+        }
+        int[] remap = new int[length];
+        EdgeImpl[] edges = new EdgeImpl[size];
+        int index = 0;
+        for (int i = 0; i < blocksCount; i++) {
+            EdgeBlock block = blocks[i];
+            for (int j = 0; j < block.nodeLength; j++) {
+                EdgeImpl edge = block.backingArray[j];
+                if (edge != null) {
+                    remap[block.offset + j] = index;
+                    edges[index++] = edge;
+                } else {
+                    remap[block.offset + j] = NULL_ID;
+                }
+            }
+        }
+
+        int blocksNeeded = Math.max(1, (int) Math.ceil(size / (double) GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE));
+        this.garbageSize = 0;
+        this.blocksCount = 1;
+        this.currentBlockIndex = 0;
+        this.blocks = new EdgeBlock[Math.max(GraphStoreConfiguration.EDGESTORE_DEFAULT_BLOCKS, blocksNeeded)];
+        this.blocks[0] = new EdgeBlock(0);
+        this.currentBlock = blocks[0];
+        if (size > 0) {
+            ensureCapacity(size);
+            currentBlockIndex = 0;
+            currentBlock = blocks[0];
+        }
+        // Ascending order, the new store id is never used by an edge not moved yet
+        for (EdgeImpl edge : edges) {
+            ensureCapacity(1);
+            currentBlock.add(edge);
+            edge.nextOutEdge = remapId(remap, edge.nextOutEdge);
+            edge.previousOutEdge = remapId(remap, edge.previousOutEdge);
+            edge.nextInEdge = remapId(remap, edge.nextInEdge);
+            edge.previousInEdge = remapId(remap, edge.previousInEdge);
+            dictionary.put(edge.getId(), edge.storeId);
+            edge.attributes.move(edge.storeId);
+        }
+        trimDictionary();
+        rebuildLongDictionary(remap);
+        return remap;
+    }
+
+    private static int remapId(int[] remap, int id) {
+        return id == NULL_ID ? NULL_ID : remap[id];
+    }
+
+    private void rebuildLongDictionary(int[] remap) {
+        EdgeDictionary dico = longDictionary;
+        EdgeDictionary newDico = new EdgeDictionary(
+                Math.max(dico.size(), GraphStoreConfiguration.EDGESTORE_DEFAULT_DICTIONARY_SIZE),
+                GraphStoreConfiguration.EDGESTORE_DICTIONARY_LOAD_FACTOR);
+        int capacity = dico.capacity();
+        for (int pos = 0; pos < capacity; pos++) {
+            int type = dico.typeAt(pos);
+            if (type != EdgeDictionary.EMPTY) {
+                int[] ids = dico.valuesAt(pos);
+                if (remap != null) {
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = remap[ids[i]];
+                    }
+                }
+                EdgeImpl edge = get(ids[0]);
+                long longId = getLongId(edge.source, edge.target, edge.isDirected());
+                for (int id : ids) {
+                    newDico.add(type, longId, id);
+                }
+            }
+        }
+        longDictionary = newDico;
+    }
+
     public int deepHashCode() {
         int hash = 7;
         hash = 67 * hash + this.size;
@@ -1143,7 +1762,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         checkValidNodeObject(node1);
         checkValidNodeObject(node2);
 
-        int typeLength = longDictionary.length;
+        int typeLength = typeSize.length;
         for (int i = 0; i < typeLength; i++) {
             if (contains((NodeImpl) node1, (NodeImpl) node2, i)) {
                 return true;
@@ -1172,19 +1791,19 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
 
     void checkUndirectedNotExist(EdgeImpl edge) {
         int type = edge.type;
-        if (type < longDictionary.length) {
+        if (type < typeSize.length) {
             if (edge.isDirected() && !isDirectedGraph()) {
-                int[] index = longDictionary[type].get(getLongId(edge.source, edge.target, false));
-                if (index != null && !get(index[0]).isDirected()) {
+                int id = longDictionary.get(type, getLongId(edge.source, edge.target, false));
+                if (id != NULL_ID && !get(id).isDirected()) {
                     throw new IllegalArgumentException("An undirected edge already exists");
                 }
             } else if (!edge.isDirected() && !isUndirectedGraph()) {
-                int[] index = longDictionary[type].get(getLongId(edge.source, edge.target, true));
-                if (index != null && get(index[0]).isDirected()) {
+                int id = longDictionary.get(type, getLongId(edge.source, edge.target, true));
+                if (id != NULL_ID && get(id).isDirected()) {
                     throw new IllegalArgumentException("An directed edge already exists");
                 }
-                index = longDictionary[type].get(getLongId(edge.target, edge.source, true));
-                if (index != null && get(index[0]).isDirected()) {
+                id = longDictionary.get(type, getLongId(edge.target, edge.source, true));
+                if (id != NULL_ID && get(id).isDirected()) {
                     throw new IllegalArgumentException("An directed edge already exists");
                 }
             }
@@ -1192,6 +1811,9 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
     }
 
     void checkIdDoesntExist(Object id) {
+        if (!dictionary.isValidKey(id)) {
+            throw new IllegalArgumentException("The id class does not match with the expected type");
+        }
         if (dictionary.containsKey(id)) {
             throw new IllegalArgumentException("The edge id already exist");
         }
@@ -1292,6 +1914,9 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         if (spatialIndex != null) {
             spatialIndex.incrementVersion();
         }
+        if (neighborIndex != null) {
+            neighborIndex.incrementVersion();
+        }
     }
 
     boolean isUndirectedToIgnore(EdgeImpl edge) {
@@ -1306,9 +1931,11 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
 
         protected final int offset;
         protected final short[] garbageArray;
-        protected final EdgeImpl[] backingArray;
+        protected EdgeImpl[] backingArray;
         protected int nodeLength;
         protected int garbageLength;
+        // Snapshots sharing the backing array, copied before the next write
+        protected GraphSnapshotStore sharedWith;
 
         public EdgeBlock(int index) {
             this.offset = index * GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE;
@@ -1328,12 +1955,14 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         }
 
         public void add(EdgeImpl k) {
+            copyOnWrite();
             int i = nodeLength++;
             backingArray[i] = k;
             k.setStoreId(i + offset);
         }
 
         public void set(EdgeImpl k) {
+            copyOnWrite();
             int i = garbageArray[--garbageLength] - Short.MIN_VALUE;
             backingArray[i] = k;
             k.setStoreId(i + offset);
@@ -1344,6 +1973,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         }
 
         public void remove(EdgeImpl k) {
+            copyOnWrite();
             int i = k.getStoreId() - offset;
             backingArray[i] = null;
             garbageArray[garbageLength++] = (short) (i + Short.MIN_VALUE);
@@ -1354,18 +1984,19 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
             nodeLength = 0;
             garbageLength = 0;
         }
-    }
-
-    private static class DictionaryHashStrategy implements LongHash.Strategy {
 
-        @Override
-        public int hashCode(long l) {
-            return (int) (l ^ (l >>> 32));
+        public EdgeImpl[] share(GraphSnapshotStore snapshotStore) {
+            sharedWith = snapshotStore;
+            return backingArray;
         }
 
-        @Override
-        public boolean equals(long l1, long l2) {
-            return l1 == l2;
+        private void copyOnWrite() {
+            if (sharedWith != null) {
+                if (sharedWith.isOpen()) {
+                    backingArray = backingArray.clone();
+                }
+                sharedWith = null;
+            }
         }
     }
 
@@ -2105,7 +2736,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         EdgeSpliterator(int startBlock, int endBlockExclusive, int totalSize) {
             this.blockIndex = startBlock;
             this.endBlockExclusive = endBlockExclusive;
-            this.expectedVersion = version != null ? version.getEdgeVersion() : 0;
+            this.expectedVersion = version != null ? version.getEdgeModCount() : 0;
             this.consumed = 0;
 
             // Use the total store size for the root spliterator (covering all blocks)
@@ -2155,7 +2786,7 @@ public class EdgeStore implements Collection<Edge>, EdgeIterable {
         }
 
         protected void checkForComodification() {
-            if (version != null && expectedVersion != version.getEdgeVersion()) {
+            if (version != null && expectedVersion != version.getEdgeModCount()) {
                 throw new ConcurrentModificationException();
             }
         }
@@ -58,6 +58,31 @@ public class EdgeTypeNoIndexImpl implements ColumnIndexImpl<Object, Edge> {
         throw new UnsupportedOperationException("Edge type index is not sortable");
     }
 
+    @Override
+    public Iterable<Edge> get(Object from, Object to, boolean inclusive) {
+        throw new UnsupportedOperationException("Edge type index is not sortable");
+    }
+
+    @Override
+    public int countRange(Object from, Object to, boolean inclusive) {
+        throw new UnsupportedOperationException("Edge type index is not sortable");
+    }
+
+    @Override
+    public Iterable<Edge> getTop(int k) {
+        throw new UnsupportedOperationException("Edge type index is not sortable");
+    }
+
+    @Override
+    public Iterable<Edge> getBottom(int k) {
+        throw new UnsupportedOperationException("Edge type index is not sortable");
+    }
+
+    @Override
+    public Number getQuantile(double quantile) {
+        throw new UnsupportedOperationException("Edge type index is not sortable");
+    }
+
     @Override
     public Column getColumn() {
         return graph.getModel().defaultColumns().edgeType();
@@ -65,7 +90,7 @@ public class EdgeTypeNoIndexImpl implements ColumnIndexImpl<Object, Edge> {
 
     @Override
     public int getVersion() {
-        return ((GraphModelImpl) graph.getModel()).store.version.edgeVersion;
+        return ((GraphModelImpl) graph.getModel()).store.version.edgeModCount;
     }
 
     @Override
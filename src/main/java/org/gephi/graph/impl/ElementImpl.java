@@ -178,6 +178,7 @@ public abstract class ElementImpl implements Element {
         checkColumn(column);
         checkReadOnlyColumn(column);
 
+        preserveAttributes();
         Object oldValue = attributes.setAttribute(column, column.getDefaultValue());
         updateIndex(column, oldValue, column.getDefaultValue());
 
@@ -212,6 +213,7 @@ public abstract class ElementImpl implements Element {
         checkColumnDynamic(column);
         checkReadOnlyColumn(column);
 
+        preserveAttributes();
         Object oldValue = attributes.removeTimeAttribute(column, timeObject);
 
         // TODO
@@ -238,6 +240,7 @@ public abstract class ElementImpl implements Element {
         value = AttributeUtils.standardizeValue(value);
         checkType(column, value);
 
+        preserveAttributes();
         Object oldValue = attributes.setAttribute(column, value);
         updateIndex(column, oldValue, value);
     }
@@ -271,6 +274,7 @@ public abstract class ElementImpl implements Element {
         checkReadOnlyColumn(column);
         checkDynamicType(column, value);
 
+        preserveAttributes();
         Object newValue = attributes.setAttribute(column, value, timeObject);
         updateIndex(column, null, newValue);
     }
@@ -280,6 +284,10 @@ public abstract class ElementImpl implements Element {
         if (isValid()) {
             ColumnStore columnStore = getColumnStore();
             ColumnImpl columnImpl = (ColumnImpl) column;
+            GraphTransactionImpl transaction = graphStore != null ? graphStore.transaction : null;
+            if (transaction != null && transaction.deferIndex(this, columnImpl, oldValue)) {
+                return;
+            }
             if (columnImpl.isDynamic()) {
                 TimeIndexStore timeIndexStore = getTimeIndexStore();
                 if (timeIndexStore != null) {
@@ -331,6 +339,7 @@ public abstract class ElementImpl implements Element {
     private boolean addTime(Object timeObject) {
         checkEnabledTimeSet();
 
+        preserveAttributes();
         boolean res = attributes.addTime(timeObject);
         if (res) {
             updateIndex(getDefaultColumns().timeset, null, timeObject);
@@ -354,6 +363,7 @@ public abstract class ElementImpl implements Element {
     private boolean removeTime(Object timeObject) {
         checkEnabledTimeSet();
 
+        preserveAttributes();
         boolean res = attributes.removeTime(timeObject);
         if (res) {
             updateIndex(getDefaultColumns().timeset, timeObject, null);
@@ -421,8 +431,17 @@ public abstract class ElementImpl implements Element {
 
     // Called when elements are added
     // TODO
+    // Keeps the current values in the open snapshots before they are overwritten
+    protected void preserveAttributes() {
+        if (graphStore != null) {
+            graphStore.snapshotStore.preserveAttributes(this);
+        }
+    }
+
     protected void indexAttributes() {
         synchronized (this) {
+            attributes.attach(getStoreId());
+
             ColumnStore columnStore = getColumnStore();
             if (columnStore != null) {
                 columnStore.indexStore.index(this);
@@ -454,6 +473,11 @@ public abstract class ElementImpl implements Element {
 
     protected void destroyAttributes() {
         synchronized (this) {
+            GraphTransactionImpl transaction = graphStore != null ? graphStore.transaction : null;
+            if (transaction != null) {
+                transaction.flush(this);
+            }
+
             ColumnStore columnStore = getColumnStore();
             if (columnStore != null) {
                 columnStore.indexStore.clear(this);
@@ -463,13 +487,18 @@ public abstract class ElementImpl implements Element {
             if (timeIndexStore != null) {
                 timeIndexStore.clear(this);
             }
+
+            attributes.detach();
         }
     }
 
     @Override
     public int hashCode() {
+        // Pooled ids are hashed from the pool so they aren't decoded
+        final int handle = attributes.getIdHandle();
         int hash = 7;
-        hash = 29 * hash + this.getId().hashCode();
+        hash = 29 * hash + (handle != StringPool.NULL_HANDLE ? attributes.columnarStore.stringPool.getHash(handle)
+                : this.getId().hashCode());
         return hash;
     }
 
@@ -482,6 +511,14 @@ public abstract class ElementImpl implements Element {
             return false;
         }
         final ElementImpl other = (ElementImpl) obj;
+        final int handle = attributes.getIdHandle();
+        if (handle != StringPool.NULL_HANDLE) {
+            // Pooled strings are unique so equal ids in the same pool have the same handle
+            final int otherHandle = other.attributes.getIdHandle();
+            if (otherHandle != StringPool.NULL_HANDLE && attributes.columnarStore.stringPool == other.attributes.columnarStore.stringPool) {
+                return handle == otherHandle;
+            }
+        }
         return this.getId().equals(other.getId());
     }
 
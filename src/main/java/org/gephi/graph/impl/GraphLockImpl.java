@@ -18,6 +18,7 @@ package org.gephi.graph.impl;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import java.util.function.Supplier;
 import org.gephi.graph.api.GraphLock;
 
 public class GraphLockImpl implements GraphLock {
@@ -25,26 +26,50 @@ public class GraphLockImpl implements GraphLock {
     protected final ReentrantReadWriteLock readWriteLock;
     protected final ReadLock readLock;
     protected final WriteLock writeLock;
+    // Statistics (optional)
+    protected final LockStatisticsImpl readStatistics;
+    protected final LockStatisticsImpl writeStatistics;
 
     public GraphLockImpl() {
+        this(null, null);
+    }
+
+    public GraphLockImpl(LockStatisticsImpl readStatistics, LockStatisticsImpl writeStatistics) {
         readWriteLock = new ReentrantReadWriteLock();
         readLock = readWriteLock.readLock();
         writeLock = readWriteLock.writeLock();
+        this.readStatistics = readStatistics;
+        this.writeStatistics = writeStatistics;
     }
 
     @Override
     public void readLock() {
-        readLock.lock();
+        if (readStatistics == null || readWriteLock.getReadHoldCount() > 0) {
+            readLock.lock();
+            return;
+        }
+        long startTime = System.nanoTime();
+        boolean contended = !readLock.tryLock();
+        if (contended) {
+            readLock.lock();
+        }
+        readStatistics.recordAcquisition(startTime, contended);
     }
 
     @Override
     public void readUnlock() {
+        if (readStatistics != null && readWriteLock.getReadHoldCount() == 1) {
+            readStatistics.recordRelease();
+        }
         readLock.unlock();
     }
 
     @Override
     public void readUnlockAll() {
         final int nReadLocks = readWriteLock.getReadHoldCount();
+        if (readStatistics != null && nReadLocks > 0) {
+            readStatistics.recordRelease();
+        }
         for (int n = 0; n < nReadLocks; n++) {
             readLock.unlock();
         }
@@ -53,14 +78,29 @@ public class GraphLockImpl implements GraphLock {
     @Override
     public void writeLock() {
         if (readWriteLock.getReadHoldCount() > 0 && !readWriteLock.isWriteLockedByCurrentThread()) {
+            if (writeStatistics != null) {
+                writeStatistics.recordFailedUpgrade();
+            }
             throw new IllegalMonitorStateException(
                     "Impossible to acquire a write lock when currently holding a read lock. Use toArray() methods on NodeIterable and EdgeIterable to avoid holding a readLock or wrap your loop with a write lock.");
         }
-        writeLock.lock();
+        if (writeStatistics == null || readWriteLock.isWriteLockedByCurrentThread()) {
+            writeLock.lock();
+            return;
+        }
+        long startTime = System.nanoTime();
+        boolean contended = !writeLock.tryLock();
+        if (contended) {
+            writeLock.lock();
+        }
+        writeStatistics.recordAcquisition(startTime, contended);
     }
 
     @Override
     public void writeUnlock() {
+        if (writeStatistics != null && readWriteLock.getWriteHoldCount() == 1) {
+            writeStatistics.recordRelease();
+        }
         writeLock.unlock();
     }
 
@@ -74,6 +114,22 @@ public class GraphLockImpl implements GraphLock {
         return readWriteLock.getWriteHoldCount();
     }
 
+    /**
+     * Runs a short read operation under the read lock and returns its result.
+     *
+     * @param reader read operation
+     * @param <V> result type
+     * @return the result
+     */
+    public <V> V read(Supplier<V> reader) {
+        readLock();
+        try {
+            return reader.get();
+        } finally {
+            readUnlock();
+        }
+    }
+
     public void checkHoldWriteLock() {
         if (!readWriteLock.isWriteLockedByCurrentThread()) {
             throw new IllegalMonitorStateException(
@@ -18,6 +18,7 @@ package org.gephi.graph.impl;
 import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.function.Predicate;
+import org.gephi.graph.api.AdjacencySnapshot;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.DirectedSubgraph;
@@ -28,11 +29,15 @@ import org.gephi.graph.api.GraphBridge;
 import org.gephi.graph.api.GraphFactory;
 import org.gephi.graph.api.GraphModel;
 import org.gephi.graph.api.GraphObserver;
+import org.gephi.graph.api.GraphSnapshot;
+import org.gephi.graph.api.GraphTransaction;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Index;
 import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.LockMetrics;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.SpatialIndex;
+import org.gephi.graph.api.StoreIdRemapping;
 import org.gephi.graph.api.Subgraph;
 import org.gephi.graph.api.Table;
 import org.gephi.graph.api.TimeFormat;
@@ -453,6 +458,87 @@ public class GraphModelImpl implements GraphModel {
         return store.nodeStore.maxStoreId();
     }
 
+    @Override
+    public void getNodePositions(float[] xs, float[] ys) {
+        checkNodeProperties();
+        store.autoReadLock();
+        try {
+            store.nodeStore.getPositions(xs, ys);
+        } finally {
+            store.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void setNodePositions(float[] xs, float[] ys) {
+        checkNodeProperties();
+        store.autoReadLock();
+        try {
+            store.nodeStore.setPositions(xs, ys);
+        } finally {
+            store.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void getNodeSizes(float[] sizes) {
+        checkNodeProperties();
+        store.autoReadLock();
+        try {
+            store.nodeStore.getSizes(sizes);
+        } finally {
+            store.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public AdjacencySnapshot createAdjacencySnapshot() {
+        return createAdjacencySnapshot(store.mainGraphView, false);
+    }
+
+    @Override
+    public AdjacencySnapshot createAdjacencySnapshot(GraphView view, boolean withWeights) {
+        store.viewStore.checkNonNullViewObject(view);
+        store.autoReadLock();
+        try {
+            if (!view.isMainView()) {
+                store.viewStore.checkViewExist((GraphViewImpl) view);
+            }
+            return AdjacencySnapshotImpl.build(store, view, withWeights);
+        } finally {
+            store.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public GraphSnapshot snapshot() {
+        return store.snapshotStore.open();
+    }
+
+    @Override
+    public GraphTransaction beginTransaction() {
+        store.lock.writeLock();
+        try {
+            return GraphTransactionImpl.begin(store);
+        } catch (RuntimeException e) {
+            store.lock.writeUnlock();
+            throw e;
+        }
+    }
+
+    @Override
+    public LockMetrics getLockMetrics() {
+        if (store.lockMetrics == null) {
+            throw new UnsupportedOperationException("Lock metrics are disabled (from Configuration)");
+        }
+        return store.lockMetrics;
+    }
+
+    @Override
+    public StoreIdRemapping compact() {
+        return store.compact();
+    }
+
     public void destroyGraphObserver(GraphObserver observer) {
         checkGraphObserver(observer);
 
@@ -486,6 +572,12 @@ public class GraphModelImpl implements GraphModel {
         return true;
     }
 
+    private void checkNodeProperties() {
+        if (!configuration.isEnableNodeProperties()) {
+            throw new UnsupportedOperationException("Node properties are disabled (from Configuration)");
+        }
+    }
+
     private void checkGraphObserver(GraphObserver observer) {
         if (observer == null) {
             throw new NullPointerException();
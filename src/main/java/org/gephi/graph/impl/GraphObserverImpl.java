@@ -15,9 +15,12 @@
  */
 package org.gephi.graph.impl;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectList;
 import it.unimi.dsi.fastutil.objects.ObjectLists;
+import java.lang.reflect.Array;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
@@ -34,6 +37,8 @@ public class GraphObserverImpl implements GraphObserver {
     protected final GraphVersion graphVersion;
     // Config
     protected final boolean withDiff;
+    protected final boolean nodeJournaled;
+    protected final boolean edgeJournaled;
     // Version
     protected int nodeVersion = Integer.MIN_VALUE;
     protected int edgeVersion = Integer.MIN_VALUE;
@@ -49,8 +54,11 @@ public class GraphObserverImpl implements GraphObserver {
         this.graphVersion = graphVersion;
         this.graph = graph;
         this.withDiff = withDiff;
+        this.nodeJournaled = isNodeJournaled(graph);
+        this.edgeJournaled = isEdgeJournaled(graph);
         if (withDiff) {
             readLock();
+            graphVersion.enableJournal();
             initCache();
             readUnlock();
         }
@@ -113,10 +121,42 @@ public class GraphObserverImpl implements GraphObserver {
         }
     }
 
+    // Called after the store is compacted, cached elements on holes are kept at the end to be reported as removed
+    protected void remap(int[] nodeRemap, int[] edgeRemap) {
+        if (nodeCache != null && nodeRemap != null) {
+            nodeCache = remapCache(nodeCache, nodeRemap, graphStore.nodeStore.maxStoreId());
+        }
+        if (edgeCache != null && edgeRemap != null) {
+            edgeCache = remapCache(edgeCache, edgeRemap, graphStore.edgeStore.maxStoreId());
+        }
+    }
+
+    private static <T extends ElementImpl> T[] remapCache(T[] cache, int[] remap, int maxStoreId) {
+        int orphans = 0;
+        for (int i = 0; i < cache.length; i++) {
+            if (cache[i] != null && (i >= remap.length || remap[i] == NodeStore.NULL_ID)) {
+                orphans++;
+            }
+        }
+        T[] newCache = (T[]) Array.newInstance(cache.getClass().getComponentType(), maxStoreId + orphans);
+        int orphanIndex = maxStoreId;
+        for (int i = 0; i < cache.length; i++) {
+            T element = cache[i];
+            if (element != null) {
+                if (i >= remap.length || remap[i] == NodeStore.NULL_ID) {
+                    newCache[orphanIndex++] = element;
+                } else {
+                    newCache[remap[i]] = element;
+                }
+            }
+        }
+        return newCache;
+    }
+
     protected void refreshDiff() {
         graphDiff = new GraphDiffImpl();
 
-        if (nodeVersion < graphVersion.nodeVersion) {
+        if (nodeVersion < graphVersion.nodeVersion && !replayNodeJournal()) {
             int maxStoreId = graphStore.nodeStore.maxStoreId();
 
             for (int i = 0; i < nodeCache.length; i++) {
@@ -143,7 +183,7 @@ public class GraphObserverImpl implements GraphObserver {
             }
         }
 
-        if (edgeVersion < graphVersion.edgeVersion) {
+        if (edgeVersion < graphVersion.edgeVersion && !replayEdgeJournal()) {
             int maxStoreId = graphStore.edgeStore.maxStoreId();
 
             for (int i = 0; i < edgeCache.length; i++) {
@@ -173,6 +213,104 @@ public class GraphObserverImpl implements GraphObserver {
 
     }
 
+    private boolean replayNodeJournal() {
+        IntArrayList storeIds = replay(nodeJournaled, graphVersion.nodeJournal, nodeVersion);
+        if (storeIds == null) {
+            return false;
+        }
+        int maxStoreId = graphStore.nodeStore.maxStoreId();
+        if (maxStoreId > nodeCache.length) {
+            NodeImpl[] newCache = new NodeImpl[maxStoreId];
+            System.arraycopy(nodeCache, 0, newCache, 0, nodeCache.length);
+            nodeCache = newCache;
+        }
+        int[] ids = storeIds.elements();
+        int size = storeIds.size();
+        for (int i = 0; i < size; i++) {
+            int storeId = ids[i];
+            NodeImpl nImpl = storeId < nodeCache.length ? nodeCache[storeId] : null;
+            if (nImpl != null && !graph.contains(nImpl)) {
+                graphDiff.removedNodes.add(nImpl);
+                nodeCache[storeId] = null;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            int storeId = ids[i];
+            NodeImpl nImpl = graphStore.nodeStore.getForGetByStoreId(storeId);
+            if (nImpl != null && nodeCache[storeId] != nImpl && graph.contains(nImpl)) {
+                graphDiff.addedNodes.add(nImpl);
+                nodeCache[storeId] = nImpl;
+            }
+        }
+        return true;
+    }
+
+    private boolean replayEdgeJournal() {
+        IntArrayList storeIds = replay(edgeJournaled, graphVersion.edgeJournal, edgeVersion);
+        if (storeIds == null) {
+            return false;
+        }
+        int maxStoreId = graphStore.edgeStore.maxStoreId();
+        if (maxStoreId > edgeCache.length) {
+            EdgeImpl[] newCache = new EdgeImpl[maxStoreId];
+            System.arraycopy(edgeCache, 0, newCache, 0, edgeCache.length);
+            edgeCache = newCache;
+        }
+        int[] ids = storeIds.elements();
+        int size = storeIds.size();
+        for (int i = 0; i < size; i++) {
+            int storeId = ids[i];
+            EdgeImpl eImpl = storeId < edgeCache.length ? edgeCache[storeId] : null;
+            if (eImpl != null && !graph.contains(eImpl)) {
+                graphDiff.removedEdges.add(eImpl);
+                edgeCache[storeId] = null;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            int storeId = ids[i];
+            EdgeImpl eImpl = graphStore.edgeStore.getForGetByStoreId(storeId);
+            if (eImpl != null && edgeCache[storeId] != eImpl && graph.contains(eImpl)) {
+                graphDiff.addedEdges.add(eImpl);
+                edgeCache[storeId] = eImpl;
+            }
+        }
+        return true;
+    }
+
+    private static IntArrayList replay(boolean journaled, ChangeJournal journal, int fromVersion) {
+        if (!journaled || journal == null) {
+            return null;
+        }
+        IntArrayList storeIds = new IntArrayList();
+        if (!journal.replay(fromVersion, storeIds)) {
+            return null;
+        }
+        // Same order as the full scan, each touched slot visited once
+        int[] ids = storeIds.elements();
+        IntArrays.quickSort(ids, 0, storeIds.size());
+        int size = 0;
+        for (int i = 0; i < storeIds.size(); i++) {
+            if (i == 0 || ids[i] != ids[size - 1]) {
+                ids[size++] = ids[i];
+            }
+        }
+        storeIds.size(size);
+        return storeIds;
+    }
+
+    private static boolean isNodeJournaled(Graph graph) {
+        // Edge-only views see store-level node changes, which aren't in the view journal
+        return graph.getView().isMainView() || ((GraphViewImpl) graph.getView()).nodeView;
+    }
+
+    private static boolean isEdgeJournaled(Graph graph) {
+        // Undirected graphs hide one edge of each mutual pair, which depends on more than the touched slots
+        if (graph instanceof UndirectedDecorator) {
+            return false;
+        }
+        return !(graph instanceof GraphViewDecorator) || !((GraphViewDecorator) graph).undirected;
+    }
+
     protected void resetNodeVersion() {
         nodeVersion = Integer.MIN_VALUE;
     }
@@ -0,0 +1,1335 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.GraphLock;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.GraphSnapshot;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.NodeIterable;
+import org.gephi.graph.api.SpatialIndex;
+
+/**
+ * Implementation of {@link GraphSnapshot}.
+ * <p>
+ * The snapshot keeps a reference to the store block arrays, which the blocks copy before their next write. Nodes and
+ * edges are indexed by their store id at the time the snapshot was opened. The adjacency and id dictionaries are built
+ * lazily from the pinned blocks on first use, without locking the graph.
+ */
+public class GraphSnapshotImpl implements GraphSnapshot {
+
+    // Store
+    protected final GraphStore graphStore;
+    protected final GraphSnapshotStore snapshotStore;
+    // Version
+    protected final int version;
+    // Pinned blocks
+    protected final NodeImpl[][] nodeBlocks;
+    protected final int[] nodeBlockLengths;
+    protected final EdgeImpl[][] edgeBlocks;
+    protected final int[] edgeBlockLengths;
+    // Counts
+    protected final int nodeCount;
+    protected final int edgeCount;
+    protected final int undirectedCount;
+    protected final int[] typeCounts;
+    // Values replaced since the snapshot was opened
+    protected final Reference2ObjectOpenHashMap<ElementImpl, Object[]> savedAttributes;
+    protected final Reference2IntOpenHashMap<EdgeImpl> savedTypes;
+    // Lazy structures
+    private volatile ElementIndex elementIndex;
+    private volatile Adjacency adjacency;
+    // State
+    private volatile boolean closed;
+
+    // Called with the read lock held
+    protected GraphSnapshotImpl(GraphStore graphStore, GraphSnapshotStore snapshotStore) {
+        this.graphStore = graphStore;
+        this.snapshotStore = snapshotStore;
+        this.version = graphStore.version != null ? graphStore.getVersion() : 0;
+
+        NodeStore nodeStore = graphStore.nodeStore;
+        nodeBlocks = new NodeImpl[nodeStore.blocksCount][];
+        nodeBlockLengths = new int[nodeStore.blocksCount];
+        for (int i = 0; i < nodeStore.blocksCount; i++) {
+            NodeStore.NodeBlock block = nodeStore.blocks[i];
+            nodeBlocks[i] = block.share(snapshotStore);
+            nodeBlockLengths[i] = block.nodeLength;
+        }
+        EdgeStore edgeStore = graphStore.edgeStore;
+        edgeBlocks = new EdgeImpl[edgeStore.blocksCount][];
+        edgeBlockLengths = new int[edgeStore.blocksCount];
+        for (int i = 0; i < edgeStore.blocksCount; i++) {
+            EdgeStore.EdgeBlock block = edgeStore.blocks[i];
+            edgeBlocks[i] = block.share(snapshotStore);
+            edgeBlockLengths[i] = block.nodeLength;
+        }
+
+        nodeCount = nodeStore.size();
+        edgeCount = edgeStore.size();
+        undirectedCount = edgeStore.undirectedSize;
+        typeCounts = Arrays.copyOf(edgeStore.typeSize, edgeStore.typeSize.length);
+
+        savedAttributes = new Reference2ObjectOpenHashMap<>();
+        savedTypes = new Reference2IntOpenHashMap<>();
+    }
+
+    @Override
+    public Object getAttribute(Element element, Column column) {
+        checkOpen();
+        checkElement(element);
+        if (column == null) {
+            throw new NullPointerException();
+        }
+        ElementImpl elementImpl = (ElementImpl) element;
+        return getAttribute(elementImpl, column.getIndex());
+    }
+
+    @Override
+    public double getWeight(Edge edge) {
+        checkOpen();
+        EdgeImpl edgeImpl = checkEdge(edge);
+        Object weight = getAttribute(edgeImpl, GraphStoreConfiguration.EDGE_WEIGHT_INDEX);
+        if (weight instanceof Double) {
+            return (Double) weight;
+        }
+        return edgeImpl.getWeight();
+    }
+
+    @Override
+    public int getType(Edge edge) {
+        checkOpen();
+        return typeOf(checkEdge(edge));
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            snapshotStore.close(this);
+            synchronized (savedAttributes) {
+                savedAttributes.clear();
+            }
+            synchronized (savedTypes) {
+                savedTypes.clear();
+            }
+            elementIndex = null;
+            adjacency = null;
+        }
+    }
+
+    @Override
+    public boolean contains(Node node) {
+        checkOpen();
+        checkNonNullNode(node);
+        return getElementIndex().nodeIds.containsKey(node);
+    }
+
+    @Override
+    public boolean contains(Edge edge) {
+        checkOpen();
+        checkNonNullEdge(edge);
+        return getElementIndex().edgeIds.containsKey(edge);
+    }
+
+    @Override
+    public Node getNode(Object id) {
+        checkOpen();
+        return getElementIndex().nodesById.get(id);
+    }
+
+    @Override
+    public Node getNode(long id) {
+        checkOpen();
+        return getById(getElementIndex().nodesById, id);
+    }
+
+    @Override
+    public Node getNodeByStoreId(int storeId) {
+        checkOpen();
+        return pinnedNode(storeId);
+    }
+
+    @Override
+    public boolean hasNode(Object id) {
+        return getNode(id) != null;
+    }
+
+    @Override
+    public Edge getEdge(Object id) {
+        checkOpen();
+        return getElementIndex().edgesById.get(id);
+    }
+
+    @Override
+    public Edge getEdge(long id) {
+        checkOpen();
+        return getById(getElementIndex().edgesById, id);
+    }
+
+    @Override
+    public Edge getEdgeByStoreId(int storeId) {
+        checkOpen();
+        return pinnedEdge(storeId);
+    }
+
+    @Override
+    public boolean hasEdge(Object id) {
+        return getEdge(id) != null;
+    }
+
+    @Override
+    public Edge getEdge(Node node1, Node node2) {
+        return getEdge(node1, node2, EdgeTypeStore.NULL_LABEL);
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node1, Node node2) {
+        return getEdges(node1, node2, EdgeTypeStore.NULL_LABEL);
+    }
+
+    @Override
+    public Edge getEdge(Node node1, Node node2, int type) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        int source = adj.checkNode(node1);
+        int target = adj.checkNode(node2);
+        EdgeImpl edge = adj.find(source, target, type, true);
+        if (edge == null) {
+            edge = adj.find(target, source, type, false);
+        }
+        return edge;
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node1, Node node2, int type) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        int source = adj.checkNode(node1);
+        int target = adj.checkNode(node2);
+        ObjectArrayList<Edge> edges = new ObjectArrayList<>();
+        adj.findAll(source, target, type, true, edges);
+        adj.findAll(target, source, type, false, edges);
+        return new EdgeIterableWrapper(edges::iterator, null);
+    }
+
+    @Override
+    public NodeIterable getNodes() {
+        checkOpen();
+        return new NodeIterableWrapper(() -> new PinnedIterator<>(nodeBlocks, nodeBlockLengths), null);
+    }
+
+    @Override
+    public EdgeIterable getEdges() {
+        checkOpen();
+        return new EdgeIterableWrapper(() -> new PinnedIterator<>(edgeBlocks, edgeBlockLengths), null);
+    }
+
+    @Override
+    public EdgeIterable getEdges(int type) {
+        checkOpen();
+        return new EdgeIterableWrapper(() -> new FilteredEdgeIterator(e -> typeOf(e) == type), null);
+    }
+
+    @Override
+    public EdgeIterable getSelfLoops() {
+        checkOpen();
+        return new EdgeIterableWrapper(() -> new FilteredEdgeIterator(EdgeImpl::isSelfLoop), null);
+    }
+
+    @Override
+    public NodeIterable getNeighbors(Node node) {
+        return getNeighbors(node, Adjacency.ANY_TYPE);
+    }
+
+    @Override
+    public NodeIterable getNeighbors(Node node, int type) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        int index = adj.checkNode(node);
+        return new NodeIterableWrapper(() -> adj.neighborIterator(index, type), null);
+    }
+
+    @Override
+    public NodeIterable getPredecessors(Node node) {
+        return getPredecessors(node, Adjacency.ANY_TYPE);
+    }
+
+    @Override
+    public NodeIterable getPredecessors(Node node, int type) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        int index = adj.checkNode(node);
+        return new NodeIterableWrapper(() -> adj.opposites(index, adj.rowIterator(index, type, false, false)), null);
+    }
+
+    @Override
+    public NodeIterable getSuccessors(Node node) {
+        return getSuccessors(node, Adjacency.ANY_TYPE);
+    }
+
+    @Override
+    public NodeIterable getSuccessors(Node node, int type) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        int index = adj.checkNode(node);
+        return new NodeIterableWrapper(() -> adj.opposites(index, adj.rowIterator(index, type, true, false)), null);
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node) {
+        return getEdges(node, Adjacency.ANY_TYPE);
+    }
+
+    @Override
+    public EdgeIterable getEdges(Node node, int type) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        int index = adj.checkNode(node);
+        return new EdgeIterableWrapper(() -> adj.inOutIterator(index, type), null);
+    }
+
+    @Override
+    public EdgeIterable getInEdges(Node node) {
+        return getInEdges(node, Adjacency.ANY_TYPE);
+    }
+
+    @Override
+    public EdgeIterable getInEdges(Node node, int type) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        int index = adj.checkNode(node);
+        return new EdgeIterableWrapper(() -> adj.rowIterator(index, type, false, false), null);
+    }
+
+    @Override
+    public EdgeIterable getOutEdges(Node node) {
+        return getOutEdges(node, Adjacency.ANY_TYPE);
+    }
+
+    @Override
+    public EdgeIterable getOutEdges(Node node, int type) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        int index = adj.checkNode(node);
+        return new EdgeIterableWrapper(() -> adj.rowIterator(index, type, true, false), null);
+    }
+
+    @Override
+    public void forEachNeighbor(Node node, IntConsumer consumer) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        adj.traverse(adj.checkNode(node), Adjacency.ANY_TYPE, true, true, true, null, consumer, null);
+    }
+
+    @Override
+    public void forEachNeighbor(Node node, int type, IntConsumer consumer) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        adj.traverse(adj.checkNode(node), type, true, true, true, null, consumer, null);
+    }
+
+    @Override
+    public void forEachEdge(Node node, Consumer<? super Edge> consumer) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        adj.traverse(adj.checkNode(node), Adjacency.ANY_TYPE, true, true, false, consumer, null, null);
+    }
+
+    @Override
+    public void forEachEdge(Node node, int type, Consumer<? super Edge> consumer) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        adj.traverse(adj.checkNode(node), type, true, true, false, consumer, null, null);
+    }
+
+    @Override
+    public int neighborStoreIds(Node node, int[] buffer) {
+        checkOpen();
+        if (buffer == null) {
+            throw new NullPointerException();
+        }
+        Adjacency adj = getAdjacency();
+        return adj.traverse(adj.checkNode(node), Adjacency.ANY_TYPE, true, true, true, null, null, buffer);
+    }
+
+    @Override
+    public NodeIterable getCommonNeighbors(Node node1, Node node2) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        int[] row1 = adj.neighborRow(adj.checkNode(node1));
+        int[] row2 = adj.neighborRow(adj.checkNode(node2));
+        int[] storeIds = new int[Math.min(row1.length, row2.length)];
+        int count = NeighborIndexImpl.intersect(row1, row2, storeIds);
+        ObjectArrayList<Node> nodes = new ObjectArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            nodes.add(pinnedNode(storeIds[i]));
+        }
+        return new NodeIterableWrapper(nodes::iterator, null);
+    }
+
+    @Override
+    public int countCommonNeighbors(Node node1, Node node2) {
+        return commonNeighborStoreIds(node1, node2, null);
+    }
+
+    @Override
+    public int commonNeighborStoreIds(Node node1, Node node2, int[] buffer) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        int[] row1 = adj.neighborRow(adj.checkNode(node1));
+        int[] row2 = adj.neighborRow(adj.checkNode(node2));
+        return NeighborIndexImpl.intersect(row1, row2, buffer);
+    }
+
+    @Override
+    public void forEachSuccessor(Node node, IntConsumer consumer) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        adj.traverse(adj.checkNode(node), Adjacency.ANY_TYPE, true, false, false, null, consumer, null);
+    }
+
+    @Override
+    public void forEachPredecessor(Node node, IntConsumer consumer) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        adj.traverse(adj.checkNode(node), Adjacency.ANY_TYPE, false, true, false, null, consumer, null);
+    }
+
+    @Override
+    public void forEachOutEdge(Node node, Consumer<? super Edge> consumer) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        adj.traverse(adj.checkNode(node), Adjacency.ANY_TYPE, true, false, false, consumer, null, null);
+    }
+
+    @Override
+    public void forEachOutEdge(Node node, int type, Consumer<? super Edge> consumer) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        adj.traverse(adj.checkNode(node), type, true, false, false, consumer, null, null);
+    }
+
+    @Override
+    public void forEachInEdge(Node node, Consumer<? super Edge> consumer) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        adj.traverse(adj.checkNode(node), Adjacency.ANY_TYPE, false, true, false, consumer, null, null);
+    }
+
+    @Override
+    public void forEachInEdge(Node node, int type, Consumer<? super Edge> consumer) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        adj.traverse(adj.checkNode(node), type, false, true, false, consumer, null, null);
+    }
+
+    @Override
+    public Edge getMutualEdge(Edge edge) {
+        checkOpen();
+        EdgeImpl edgeImpl = checkEdge(edge);
+        return getEdge(edgeImpl.target, edgeImpl.source, typeOf(edgeImpl));
+    }
+
+    @Override
+    public int getNodeCount() {
+        checkOpen();
+        return nodeCount;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        checkOpen();
+        return edgeCount;
+    }
+
+    @Override
+    public int getEdgeCount(int type) {
+        checkOpen();
+        return type >= 0 && type < typeCounts.length ? typeCounts[type] : 0;
+    }
+
+    @Override
+    public Node getOpposite(Node node, Edge edge) {
+        checkNonNullNode(node);
+        checkNonNullEdge(edge);
+        return edge.getSource() == node ? edge.getTarget() : edge.getSource();
+    }
+
+    @Override
+    public int getDegree(Node node) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        int index = adj.checkNode(node);
+        return adj.outDegree(index) + adj.inDegree(index);
+    }
+
+    @Override
+    public int getInDegree(Node node) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        return adj.inDegree(adj.checkNode(node));
+    }
+
+    @Override
+    public int getOutDegree(Node node) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        return adj.outDegree(adj.checkNode(node));
+    }
+
+    @Override
+    public boolean isSelfLoop(Edge edge) {
+        checkNonNullEdge(edge);
+        return edge.isSelfLoop();
+    }
+
+    @Override
+    public boolean isDirected(Edge edge) {
+        checkNonNullEdge(edge);
+        return edge.isDirected();
+    }
+
+    @Override
+    public boolean isAdjacent(Node node1, Node node2) {
+        return isAdjacent(node1, node2, Adjacency.ANY_TYPE);
+    }
+
+    @Override
+    public boolean isAdjacent(Node node1, Node node2, int type) {
+        checkOpen();
+        Adjacency adj = getAdjacency();
+        int source = adj.checkNode(node1);
+        int target = adj.checkNode(node2);
+        return adj.find(source, target, type, true) != null || adj.find(target, source, type, false) != null;
+    }
+
+    @Override
+    public boolean isIncident(Edge edge1, Edge edge2) {
+        checkNonNullEdge(edge1);
+        checkNonNullEdge(edge2);
+        return edge1.getSource() == edge2.getSource() || edge1.getTarget() == edge2.getTarget() || edge1
+                .getSource() == edge2.getTarget() || edge1.getTarget() == edge2.getSource();
+    }
+
+    @Override
+    public boolean isIncident(Node node, Edge edge) {
+        checkNonNullNode(node);
+        checkNonNullEdge(edge);
+        return edge.getSource() == node || edge.getTarget() == node;
+    }
+
+    @Override
+    public GraphView getView() {
+        return graphStore.mainGraphView;
+    }
+
+    @Override
+    public GraphModel getModel() {
+        return graphStore.graphModel;
+    }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return undirectedCount == 0;
+    }
+
+    @Override
+    public boolean isUndirected() {
+        return edgeCount > 0 && undirectedCount == edgeCount;
+    }
+
+    @Override
+    public boolean isMixed() {
+        return undirectedCount > 0 && undirectedCount != edgeCount;
+    }
+
+    @Override
+    public Object getAttribute(String key) {
+        return graphStore.getAttribute(key);
+    }
+
+    @Override
+    public Object getAttribute(String key, double timestamp) {
+        return graphStore.getAttribute(key, timestamp);
+    }
+
+    @Override
+    public Object getAttribute(String key, Interval interval) {
+        return graphStore.getAttribute(key, interval);
+    }
+
+    @Override
+    public Set<String> getAttributeKeys() {
+        return graphStore.getAttributeKeys();
+    }
+
+    @Override
+    public void readLock() {
+        // Snapshots don't need locking
+    }
+
+    @Override
+    public void readUnlock() {
+        // Snapshots don't need locking
+    }
+
+    @Override
+    public void readUnlockAll() {
+        // Snapshots don't need locking
+    }
+
+    @Override
+    public void writeLock() {
+        throw readOnly();
+    }
+
+    @Override
+    public void writeUnlock() {
+        throw readOnly();
+    }
+
+    @Override
+    public GraphLock getLock() {
+        throw new UnsupportedOperationException("Snapshots don't need locking");
+    }
+
+    @Override
+    public SpatialIndex getSpatialIndex() {
+        throw new UnsupportedOperationException("Snapshots don't support the spatial index");
+    }
+
+    @Override
+    public boolean addEdge(Edge edge) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean addNode(Node node) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean addAllEdges(Collection<? extends Edge> edges) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean addAllNodes(Collection<? extends Node> nodes) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean removeEdge(Edge edge) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean removeNode(Node node) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean removeAllEdges(Collection<? extends Edge> edges) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean removeAllNodes(Collection<? extends Node> nodes) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean retainNodes(Collection<? extends Node> nodes) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean retainEdges(Collection<? extends Edge> edges) {
+        throw readOnly();
+    }
+
+    @Override
+    public void clearEdges(Node node) {
+        throw readOnly();
+    }
+
+    @Override
+    public void clearEdges(Node node, int type) {
+        throw readOnly();
+    }
+
+    @Override
+    public void clear() {
+        throw readOnly();
+    }
+
+    @Override
+    public void clearEdges() {
+        throw readOnly();
+    }
+
+    @Override
+    public void setAttribute(String key, Object value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeAttribute(String key) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setAttribute(String key, Object value, double timestamp) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setAttribute(String key, Object value, Interval interval) {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeAttribute(String key, double timestamp) {
+        throw readOnly();
+    }
+
+    @Override
+    public void removeAttribute(String key, Interval interval) {
+        throw readOnly();
+    }
+
+    // Called by the snapshot store with the element's attributes locked
+    protected boolean needsAttributes(ElementImpl element) {
+        synchronized (savedAttributes) {
+            if (closed || savedAttributes.containsKey(element)) {
+                return false;
+            }
+        }
+        return isPinned(element);
+    }
+
+    protected void saveAttributes(ElementImpl element, Object[] values) {
+        synchronized (savedAttributes) {
+            savedAttributes.put(element, values);
+        }
+    }
+
+    protected void saveType(EdgeImpl edge) {
+        if (!closed && isPinned(edge)) {
+            synchronized (savedTypes) {
+                if (!closed && !savedTypes.containsKey(edge)) {
+                    savedTypes.put(edge, edge.type);
+                }
+            }
+        }
+    }
+
+    protected Object getAttribute(ElementImpl element, int index) {
+        AttributesImpl attributes = element.attributes;
+        // Locked so a concurrent write can't happen between the lookup and the read
+        synchronized (attributes) {
+            Object[] saved;
+            synchronized (savedAttributes) {
+                saved = savedAttributes.get(element);
+            }
+            if (saved != null) {
+                return index < saved.length ? saved[index] : null;
+            }
+            return attributes.getAttribute(index);
+        }
+    }
+
+    protected int typeOf(EdgeImpl edge) {
+        synchronized (savedTypes) {
+            if (savedTypes.containsKey(edge)) {
+                return savedTypes.getInt(edge);
+            }
+            return edge.type;
+        }
+    }
+
+    // True if the element was in the graph when the snapshot was opened. Elements removed since then are found
+    // through the element index
+    private boolean isPinned(ElementImpl element) {
+        if (element instanceof NodeImpl) {
+            int storeId = ((NodeImpl) element).storeId;
+            if (storeId != NodeStore.NULL_ID) {
+                return pinnedNode(storeId) == element;
+            }
+            return getElementIndex().nodeIds.containsKey(element);
+        }
+        int storeId = ((EdgeImpl) element).storeId;
+        if (storeId != EdgeStore.NULL_ID) {
+            return pinnedEdge(storeId) == element;
+        }
+        return getElementIndex().edgeIds.containsKey(element);
+    }
+
+    private NodeImpl pinnedNode(int storeId) {
+        int blockIndex = storeId / GraphStoreConfiguration.NODESTORE_BLOCK_SIZE;
+        int index = storeId % GraphStoreConfiguration.NODESTORE_BLOCK_SIZE;
+        if (storeId < 0 || blockIndex >= nodeBlocks.length || index >= nodeBlockLengths[blockIndex]) {
+            return null;
+        }
+        return nodeBlocks[blockIndex][index];
+    }
+
+    private EdgeImpl pinnedEdge(int storeId) {
+        int blockIndex = storeId / GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE;
+        int index = storeId % GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE;
+        if (storeId < 0 || blockIndex >= edgeBlocks.length || index >= edgeBlockLengths[blockIndex]) {
+            return null;
+        }
+        return edgeBlocks[blockIndex][index];
+    }
+
+    private ElementIndex getElementIndex() {
+        ElementIndex index = elementIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = elementIndex;
+                if (index == null) {
+                    index = new ElementIndex();
+                    elementIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private Adjacency getAdjacency() {
+        Adjacency adj = adjacency;
+        if (adj == null) {
+            ElementIndex index = getElementIndex();
+            synchronized (this) {
+                adj = adjacency;
+                if (adj == null) {
+                    adj = new Adjacency(index);
+                    adjacency = adj;
+                }
+            }
+        }
+        return adj;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The snapshot is closed");
+        }
+    }
+
+    private void checkElement(Element element) {
+        if (element instanceof Node) {
+            checkNonNullNode((Node) element);
+            if (!getElementIndex().nodeIds.containsKey(element)) {
+                throw new IllegalArgumentException("The node doesn't belong to this snapshot");
+            }
+        } else {
+            checkEdge((Edge) element);
+        }
+    }
+
+    private EdgeImpl checkEdge(Edge edge) {
+        checkNonNullEdge(edge);
+        if (!getElementIndex().edgeIds.containsKey(edge)) {
+            throw new IllegalArgumentException("The edge doesn't belong to this snapshot");
+        }
+        return (EdgeImpl) edge;
+    }
+
+    private static void checkNonNullNode(Node node) {
+        if (node == null) {
+            throw new NullPointerException();
+        }
+        if (!(node instanceof NodeImpl)) {
+            throw new ClassCastException("Object must be a NodeImpl object");
+        }
+    }
+
+    private static void checkNonNullEdge(Edge edge) {
+        if (edge == null) {
+            throw new NullPointerException();
+        }
+        if (!(edge instanceof EdgeImpl)) {
+            throw new ClassCastException("Object must be a EdgeImpl object");
+        }
+    }
+
+    // Ids given as numbers match both integer and long ids, as the id type isn't known here
+    private static <T> T getById(Object2ObjectOpenHashMap<Object, T> map, long id) {
+        if (id >= Integer.MIN_VALUE && id <= Integer.MAX_VALUE) {
+            T element = map.get((int) id);
+            if (element != null) {
+                return element;
+            }
+        }
+        return map.get(id);
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Snapshots are read-only");
+    }
+
+    // Identity and id lookups over the pinned elements
+    private final class ElementIndex {
+
+        private final Reference2IntOpenHashMap<NodeImpl> nodeIds;
+        private final Reference2IntOpenHashMap<EdgeImpl> edgeIds;
+        private final Object2ObjectOpenHashMap<Object, NodeImpl> nodesById;
+        private final Object2ObjectOpenHashMap<Object, EdgeImpl> edgesById;
+        private final int maxNodeId;
+        private final int maxEdgeId;
+
+        private ElementIndex() {
+            nodeIds = new Reference2IntOpenHashMap<>(nodeCount);
+            nodeIds.defaultReturnValue(NodeStore.NULL_ID);
+            nodesById = new Object2ObjectOpenHashMap<>(nodeCount);
+            int maxNode = 0;
+            for (int b = 0; b < nodeBlocks.length; b++) {
+                NodeImpl[] block = nodeBlocks[b];
+                for (int i = 0; i < nodeBlockLengths[b]; i++) {
+                    NodeImpl node = block[i];
+                    if (node != null) {
+                        int storeId = b * GraphStoreConfiguration.NODESTORE_BLOCK_SIZE + i;
+                        nodeIds.put(node, storeId);
+                        nodesById.put(node.getId(), node);
+                        maxNode = storeId + 1;
+                    }
+                }
+            }
+            edgeIds = new Reference2IntOpenHashMap<>(edgeCount);
+            edgeIds.defaultReturnValue(EdgeStore.NULL_ID);
+            edgesById = new Object2ObjectOpenHashMap<>(edgeCount);
+            int maxEdge = 0;
+            for (int b = 0; b < edgeBlocks.length; b++) {
+                EdgeImpl[] block = edgeBlocks[b];
+                for (int i = 0; i < edgeBlockLengths[b]; i++) {
+                    EdgeImpl edge = block[i];
+                    if (edge != null) {
+                        int storeId = b * GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE + i;
+                        edgeIds.put(edge, storeId);
+                        edgesById.put(edge.getId(), edge);
+                        maxEdge = storeId + 1;
+                    }
+                }
+            }
+            maxNodeId = maxNode;
+            maxEdgeId = maxEdge;
+        }
+    }
+
+    // Out and in rows of each node, indexed by pinned node store id
+    private final class Adjacency {
+
+        private static final int ANY_TYPE = -1;
+
+        private final ElementIndex index;
+        // Out
+        private final int[] outOffsets;
+        private final EdgeImpl[] outEdges;
+        private final int[] outTypes;
+        // In
+        private final int[] inOffsets;
+        private final EdgeImpl[] inEdges;
+        private final int[] inTypes;
+        // Mutual edges, indexed by pinned edge store id
+        private final boolean[] mutual;
+
+        private Adjacency(ElementIndex index) {
+            this.index = index;
+            int nodeLength = index.maxNodeId;
+            outOffsets = new int[nodeLength + 1];
+            inOffsets = new int[nodeLength + 1];
+            for (int b = 0; b < edgeBlocks.length; b++) {
+                EdgeImpl[] block = edgeBlocks[b];
+                for (int i = 0; i < edgeBlockLengths[b]; i++) {
+                    EdgeImpl edge = block[i];
+                    if (edge != null) {
+                        outOffsets[index.nodeIds.getInt(edge.source) + 1]++;
+                        inOffsets[index.nodeIds.getInt(edge.target) + 1]++;
+                    }
+                }
+            }
+            for (int i = 0; i < nodeLength; i++) {
+                outOffsets[i + 1] += outOffsets[i];
+                inOffsets[i + 1] += inOffsets[i];
+            }
+            outEdges = new EdgeImpl[edgeCount];
+            outTypes = new int[edgeCount];
+            inEdges = new EdgeImpl[edgeCount];
+            inTypes = new int[edgeCount];
+            mutual = new boolean[index.maxEdgeId];
+            int[] outCursors = Arrays.copyOf(outOffsets, nodeLength);
+            int[] inCursors = Arrays.copyOf(inOffsets, nodeLength);
+            Long2ObjectOpenHashMap<IntArrayList> unpaired = new Long2ObjectOpenHashMap<>();
+            for (int b = 0; b < edgeBlocks.length; b++) {
+                EdgeImpl[] block = edgeBlocks[b];
+                for (int i = 0; i < edgeBlockLengths[b]; i++) {
+                    EdgeImpl edge = block[i];
+                    if (edge != null) {
+                        int type = typeOf(edge);
+                        int source = index.nodeIds.getInt(edge.source);
+                        int target = index.nodeIds.getInt(edge.target);
+                        int outCursor = outCursors[source]++;
+                        outEdges[outCursor] = edge;
+                        outTypes[outCursor] = type;
+                        int inCursor = inCursors[target]++;
+                        inEdges[inCursor] = edge;
+                        inTypes[inCursor] = type;
+                        if (edge.isDirected() && source != target) {
+                            pairMutual(unpaired, b * GraphStoreConfiguration.EDGESTORE_BLOCK_SIZE + i, type, source, target);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Pairs each directed edge with at most one unpaired edge of the same type in the other direction
+        private void pairMutual(Long2ObjectOpenHashMap<IntArrayList> unpaired, int edgeId, int type, int source, int target) {
+            IntArrayList reverse = unpaired.get(pairKey(target, source));
+            if (reverse != null) {
+                for (int i = 0; i < reverse.size(); i++) {
+                    int reverseId = reverse.getInt(i);
+                    if (typeOf(pinnedEdge(reverseId)) == type) {
+                        reverse.removeInt(i);
+                        mutual[reverseId] = true;
+                        mutual[edgeId] = true;
+                        return;
+                    }
+                }
+            }
+            unpaired.computeIfAbsent(pairKey(source, target), k -> new IntArrayList(1)).add(edgeId);
+        }
+
+        private long pairKey(int source, int target) {
+            return ((long) source << 32) | (target & 0xFFFFFFFFL);
+        }
+
+        private int checkNode(Node node) {
+            checkNonNullNode(node);
+            int storeId = index.nodeIds.getInt(node);
+            if (storeId == NodeStore.NULL_ID) {
+                throw new IllegalArgumentException("The node doesn't belong to this snapshot");
+            }
+            return storeId;
+        }
+
+        private int outDegree(int node) {
+            return outOffsets[node + 1] - outOffsets[node];
+        }
+
+        private int inDegree(int node) {
+            return inOffsets[node + 1] - inOffsets[node];
+        }
+
+        // Directed edges from source to target, or undirected edges in that direction only
+        private EdgeImpl find(int source, int target, int type, boolean directed) {
+            if (outDegree(source) <= inDegree(target)) {
+                for (int i = outOffsets[source]; i < outOffsets[source + 1]; i++) {
+                    EdgeImpl edge = outEdges[i];
+                    if (matches(edge, outTypes[i], type, directed) && index.nodeIds.getInt(edge.target) == target) {
+                        return edge;
+                    }
+                }
+            } else {
+                for (int i = inOffsets[target]; i < inOffsets[target + 1]; i++) {
+                    EdgeImpl edge = inEdges[i];
+                    if (matches(edge, inTypes[i], type, directed) && index.nodeIds.getInt(edge.source) == source) {
+                        return edge;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void findAll(int source, int target, int type, boolean directed, Collection<Edge> result) {
+            if (!directed && source == target) {
+                // Self-loops were already found in the first direction
+                return;
+            }
+            for (int i = outOffsets[source]; i < outOffsets[source + 1]; i++) {
+                EdgeImpl edge = outEdges[i];
+                if (matches(edge, outTypes[i], type, directed) && index.nodeIds.getInt(edge.target) == target) {
+                    result.add(edge);
+                }
+            }
+        }
+
+        private boolean matches(EdgeImpl edge, int edgeType, int type, boolean directed) {
+            return (type == ANY_TYPE || edgeType == type) && (directed || !edge.isDirected());
+        }
+
+        private Iterator<Edge> rowIterator(int node, int type, boolean out, boolean skipSelfLoops) {
+            if (out) {
+                return new RowIterator(outEdges, outTypes, outOffsets[node], outOffsets[node + 1], type, skipSelfLoops);
+            }
+            return new RowIterator(inEdges, inTypes, inOffsets[node], inOffsets[node + 1], type, skipSelfLoops);
+        }
+
+        // Out edges followed by in edges, self-loops are only returned once
+        private Iterator<Edge> inOutIterator(int node, int type) {
+            Iterator<Edge> outIterator = rowIterator(node, type, true, false);
+            Iterator<Edge> inIterator = rowIterator(node, type, false, true);
+            return new Iterator<Edge>() {
+                @Override
+                public boolean hasNext() {
+                    return outIterator.hasNext() || inIterator.hasNext();
+                }
+
+                @Override
+                public Edge next() {
+                    return outIterator.hasNext() ? outIterator.next() : inIterator.next();
+                }
+            };
+        }
+
+        // Mutual edges are only followed once, from the edge with the greater source store id
+        private Iterator<Node> neighborIterator(int node, int type) {
+            Iterator<Edge> edges = inOutIterator(node, type);
+            Iterator<Edge> filtered = new Iterator<Edge>() {
+                private Edge pointer;
+
+                @Override
+                public boolean hasNext() {
+                    while (pointer == null && edges.hasNext()) {
+                        EdgeImpl edge = (EdgeImpl) edges.next();
+                        if (!isMutualToIgnore(edge)) {
+                            pointer = edge;
+                        }
+                    }
+                    return pointer != null;
+                }
+
+                @Override
+                public Edge next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Edge edge = pointer;
+                    pointer = null;
+                    return edge;
+                }
+            };
+            return opposites(node, filtered);
+        }
+
+        // Sorted distinct neighbors by pinned store id, built on every call
+        private int[] neighborRow(int node) {
+            int[] neighbors = new int[traverse(node, ANY_TYPE, true, true, true, null, null, NeighborIndexImpl.EMPTY_ROW)];
+            traverse(node, ANY_TYPE, true, true, true, null, null, neighbors);
+            return NeighborIndexImpl.toRow(node, neighbors, neighbors.length);
+        }
+
+        // Same order as the iterators, neighbors are reported by pinned store id
+        private int traverse(int node, int type, boolean out, boolean in, boolean skipMutual, Consumer<? super Edge> edgeConsumer, IntConsumer neighborConsumer, int[] buffer) {
+            int count = 0;
+            if (out) {
+                for (int i = outOffsets[node]; i < outOffsets[node + 1]; i++) {
+                    EdgeImpl edge = outEdges[i];
+                    if ((type == ANY_TYPE || outTypes[i] == type) && !(skipMutual && isMutualToIgnore(edge))) {
+                        count = emit(edge, edge.target, count, edgeConsumer, neighborConsumer, buffer);
+                    }
+                }
+            }
+            if (in) {
+                for (int i = inOffsets[node]; i < inOffsets[node + 1]; i++) {
+                    EdgeImpl edge = inEdges[i];
+                    if ((type == ANY_TYPE || inTypes[i] == type) && !(out && edge
+                            .isSelfLoop()) && !(skipMutual && isMutualToIgnore(edge))) {
+                        count = emit(edge, edge.source, count, edgeConsumer, neighborConsumer, buffer);
+                    }
+                }
+            }
+            return count;
+        }
+
+        private int emit(EdgeImpl edge, NodeImpl neighbor, int count, Consumer<? super Edge> edgeConsumer, IntConsumer neighborConsumer, int[] buffer) {
+            if (edgeConsumer != null) {
+                edgeConsumer.accept(edge);
+            } else if (neighborConsumer != null) {
+                neighborConsumer.accept(index.nodeIds.getInt(neighbor));
+            } else if (count < buffer.length) {
+                buffer[count] = index.nodeIds.getInt(neighbor);
+            }
+            return count + 1;
+        }
+
+        private boolean isMutualToIgnore(EdgeImpl edge) {
+            int source = index.nodeIds.getInt(edge.source);
+            int target = index.nodeIds.getInt(edge.target);
+            return source < target && mutual[index.edgeIds.getInt(edge)];
+        }
+
+        private Iterator<Node> opposites(int node, Iterator<Edge> edges) {
+            NodeImpl nodeImpl = pinnedNode(node);
+            return new Iterator<Node>() {
+                @Override
+                public boolean hasNext() {
+                    return edges.hasNext();
+                }
+
+                @Override
+                public Node next() {
+                    Edge edge = edges.next();
+                    return edge.getSource() == nodeImpl ? edge.getTarget() : edge.getSource();
+                }
+            };
+        }
+    }
+
+    private static final class RowIterator implements Iterator<Edge> {
+
+        private final EdgeImpl[] edges;
+        private final int[] types;
+        private final int end;
+        private final int type;
+        private final boolean skipSelfLoops;
+        private int cursor;
+
+        private RowIterator(EdgeImpl[] edges, int[] types, int start, int end, int type, boolean skipSelfLoops) {
+            this.edges = edges;
+            this.types = types;
+            this.cursor = start;
+            this.end = end;
+            this.type = type;
+            this.skipSelfLoops = skipSelfLoops;
+            skip();
+        }
+
+        private void skip() {
+            while (cursor < end && ((type != Adjacency.ANY_TYPE && types[cursor] != type) || (skipSelfLoops && edges[cursor]
+                    .isSelfLoop()))) {
+                cursor++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < end;
+        }
+
+        @Override
+        public Edge next() {
+            if (cursor >= end) {
+                throw new NoSuchElementException();
+            }
+            EdgeImpl edge = edges[cursor++];
+            skip();
+            return edge;
+        }
+    }
+
+    private static final class PinnedIterator<T> implements Iterator<T> {
+
+        private final Object[][] blocks;
+        private final int[] lengths;
+        private int blockIndex;
+        private int cursor;
+        private Object pointer;
+
+        private PinnedIterator(Object[][] blocks, int[] lengths) {
+            this.blocks = blocks;
+            this.lengths = lengths;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pointer == null && blockIndex < blocks.length) {
+                if (cursor < lengths[blockIndex]) {
+                    pointer = blocks[blockIndex][cursor++];
+                } else {
+                    blockIndex++;
+                    cursor = 0;
+                }
+            }
+            return pointer != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T res = (T) pointer;
+            pointer = null;
+            return res;
+        }
+    }
+
+    private final class FilteredEdgeIterator implements Iterator<Edge> {
+
+        private final PinnedIterator<EdgeImpl> itr = new PinnedIterator<>(edgeBlocks, edgeBlockLengths);
+        private final Predicate<EdgeImpl> predicate;
+        private EdgeImpl pointer;
+
+        private FilteredEdgeIterator(Predicate<EdgeImpl> predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pointer == null && itr.hasNext()) {
+                EdgeImpl edge = itr.next();
+                if (predicate.test(edge)) {
+                    pointer = edge;
+                }
+            }
+            return pointer != null;
+        }
+
+        @Override
+        public Edge next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            EdgeImpl edge = pointer;
+            pointer = null;
+            return edge;
+        }
+    }
+}
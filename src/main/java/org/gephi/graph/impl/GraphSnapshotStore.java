@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registry of the open {@link GraphSnapshotImpl} of a store.
+ * <p>
+ * Snapshots share the node and edge block arrays with the store. Blocks are marked as shared when a snapshot is opened
+ * and copied by the next write, as long as a snapshot is still open. Attribute values and edge types are preserved into
+ * each open snapshot before they are overwritten. Old arrays are reclaimed once the snapshots referencing them are
+ * closed.
+ */
+public class GraphSnapshotStore {
+
+    // Store
+    protected final GraphStore graphStore;
+    // Open snapshots
+    protected final List<GraphSnapshotImpl> snapshots;
+    protected volatile int openCount;
+
+    public GraphSnapshotStore(GraphStore graphStore) {
+        if (graphStore == null) {
+            throw new NullPointerException();
+        }
+        this.graphStore = graphStore;
+        this.snapshots = new ArrayList<>();
+    }
+
+    public GraphSnapshotImpl open() {
+        graphStore.autoReadLock();
+        try {
+            GraphSnapshotImpl snapshot = new GraphSnapshotImpl(graphStore, this);
+            synchronized (snapshots) {
+                snapshots.add(snapshot);
+                openCount = snapshots.size();
+            }
+            return snapshot;
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    protected void close(GraphSnapshotImpl snapshot) {
+        synchronized (snapshots) {
+            snapshots.remove(snapshot);
+            openCount = snapshots.size();
+        }
+    }
+
+    public boolean isOpen() {
+        return openCount > 0;
+    }
+
+    public int size() {
+        return openCount;
+    }
+
+    protected void preserveAttributes(ElementImpl element) {
+        if (openCount == 0) {
+            return;
+        }
+        synchronized (element.attributes) {
+            Object[] values = null;
+            synchronized (snapshots) {
+                for (GraphSnapshotImpl snapshot : snapshots) {
+                    if (snapshot.needsAttributes(element)) {
+                        if (values == null) {
+                            values = element.attributes.copyBackingArray();
+                        }
+                        snapshot.saveAttributes(element, values);
+                    }
+                }
+            }
+        }
+    }
+
+    protected void preserveType(EdgeImpl edge) {
+        if (openCount == 0) {
+            return;
+        }
+        synchronized (snapshots) {
+            for (GraphSnapshotImpl snapshot : snapshots) {
+                snapshot.saveType(edge);
+            }
+        }
+    }
+}
@@ -16,12 +16,17 @@
 
 package org.gephi.graph.impl;
 
+import it.unimi.dsi.fastutil.objects.ObjectIterators;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.DirectedSubgraph;
@@ -56,10 +61,19 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     protected final GraphViewStore viewStore;
     protected final TimeStore timeStore;
     protected final GraphAttributesImpl attributes;
+    // String pool (optional)
+    protected final StringPool stringPool;
     // Factory
     protected final GraphFactoryImpl factory;
     // Lock
     protected final GraphLockImpl lock;
+    // Lock of the optimistic short reads, null if disabled
+    protected final OptimisticGraphLockImpl optimisticLock;
+    protected final LockMetricsImpl lockMetrics;
+    // Snapshots
+    protected final GraphSnapshotStore snapshotStore;
+    // Transaction, null when none is active
+    protected GraphTransactionImpl transaction;
     // Version
     protected final GraphVersion version;
     protected final List<GraphObserverImpl> observers;
@@ -91,7 +105,14 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     protected GraphStore(GraphModelImpl model, ConfigurationImpl config) {
         configuration = config;
         graphModel = model;
-        lock = new GraphLockImpl();
+        lockMetrics = configuration.isEnableLockMetrics() ? new LockMetricsImpl() : null;
+        LockStatisticsImpl readStatistics = lockMetrics != null ? lockMetrics.graphReadLock : null;
+        LockStatisticsImpl writeStatistics = lockMetrics != null ? lockMetrics.graphWriteLock : null;
+        lock = configuration.isEnableOptimisticLocking() ? new OptimisticGraphLockImpl(readStatistics, writeStatistics)
+                : new GraphLockImpl(readStatistics, writeStatistics);
+        optimisticLock = configuration.isEnableAutoLocking() && lock instanceof OptimisticGraphLockImpl
+                ? (OptimisticGraphLockImpl) lock : null;
+        snapshotStore = new GraphSnapshotStore(this);
 
         edgeTypeStore = new EdgeTypeStore();
         mainGraphView = new MainGraphView();
@@ -99,10 +120,12 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         version = configuration.isEnableObservers() ? new GraphVersion(this) : null;
         observers = configuration.isEnableObservers() ? new ArrayList<>() : null;
         spatialIndex = configuration.isEnableSpatialIndex() ? new SpatialIndexImpl(this) : null;
-        edgeStore = new EdgeStore(edgeTypeStore, spatialIndex, configuration,
+        stringPool = configuration.isEnableStringPool() ? new StringPool() : null;
+        edgeStore = new EdgeStore(edgeTypeStore, spatialIndex, configuration, stringPool,
                 configuration.isEnableAutoLocking() ? lock : null, viewStore,
                 configuration.isEnableObservers() ? version : null);
-        nodeStore = new NodeStore(edgeStore, spatialIndex, configuration.isEnableAutoLocking() ? lock : null, viewStore,
+        nodeStore = new NodeStore(edgeStore, spatialIndex, configuration, stringPool,
+                configuration.isEnableAutoLocking() ? lock : null, viewStore,
                 configuration.isEnableObservers() ? version : null);
         nodeTable = new TableImpl<>(this, Node.class);
         edgeTable = new TableImpl<>(this, Edge.class);
@@ -189,6 +212,17 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
 
     @Override
     public NodeImpl getNode(final Object id) {
+        final long stamp = tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final NodeImpl node = nodeStore.get(id);
+                if (validateOptimisticRead(stamp)) {
+                    return node;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         autoReadLock();
         try {
             return nodeStore.get(id);
@@ -197,8 +231,40 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         }
     }
 
+    @Override
+    public NodeImpl getNode(final long id) {
+        final long stamp = tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final NodeImpl node = nodeStore.getById(id);
+                if (validateOptimisticRead(stamp)) {
+                    return node;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
+        autoReadLock();
+        try {
+            return nodeStore.getById(id);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
     @Override
     public NodeImpl getNodeByStoreId(final int id) {
+        final long stamp = tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final NodeImpl node = nodeStore.getForGetByStoreId(id);
+                if (validateOptimisticRead(stamp)) {
+                    return node;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         autoReadLock();
         try {
             return nodeStore.getForGetByStoreId(id);
@@ -214,6 +280,17 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
 
     @Override
     public EdgeImpl getEdge(final Object id) {
+        final long stamp = tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final EdgeImpl edge = edgeStore.get(id);
+                if (validateOptimisticRead(stamp)) {
+                    return edge;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         autoReadLock();
         try {
             return edgeStore.get(id);
@@ -222,8 +299,40 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         }
     }
 
+    @Override
+    public EdgeImpl getEdge(final long id) {
+        final long stamp = tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final EdgeImpl edge = edgeStore.getById(id);
+                if (validateOptimisticRead(stamp)) {
+                    return edge;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
+        autoReadLock();
+        try {
+            return edgeStore.getById(id);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
     @Override
     public EdgeImpl getEdgeByStoreId(final int id) {
+        final long stamp = tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final EdgeImpl edge = edgeStore.getForGetByStoreId(id);
+                if (validateOptimisticRead(stamp)) {
+                    return edge;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         autoReadLock();
         try {
             return edgeStore.getForGetByStoreId(id);
@@ -239,6 +348,17 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
 
     @Override
     public Edge getMutualEdge(Edge edge) {
+        final long stamp = tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final EdgeImpl mutualEdge = edgeStore.getMutualEdge(edge);
+                if (validateOptimisticRead(stamp)) {
+                    return mutualEdge;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         autoReadLock();
         try {
             return edgeStore.getMutualEdge(edge);
@@ -305,18 +425,26 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
     public boolean removeAllNodes(Collection<? extends Node> nodes) {
         autoWriteLock();
         try {
+            // Incident edges are removed in bulk before the nodes
+            BitSet nodeIds = new BitSet(nodeStore.maxStoreId());
+            List<NodeImpl> toRemove = new ArrayList<>(nodes.size());
             for (Node node : nodes) {
                 nodeStore.checkNonNullNodeObject(node);
-                if (((NodeImpl) node).storeId == NodeStore.NULL_ID) {
+                NodeImpl nodeImpl = (NodeImpl) node;
+                if (nodeImpl.storeId == NodeStore.NULL_ID || nodeIds.get(nodeImpl.storeId)) {
                     continue;
                 }
-                for (EdgeStore.EdgeInOutIterator edgeIterator = edgeStore.edgeIterator(node, false); edgeIterator
-                        .hasNext();) {
-                    edgeIterator.next();
-                    edgeIterator.remove();
-                }
+                nodeStore.checkNodeExists(nodeImpl);
+                nodeIds.set(nodeImpl.storeId);
+                toRemove.add(nodeImpl);
+            }
+            if (toRemove.isEmpty()) {
+                return false;
             }
-            return nodeStore.removeAll(nodes);
+            NodeImpl[] nodeArray = toRemove.toArray(new NodeImpl[0]);
+            edgeStore.removeAll(nodeArray, nodeIds);
+            nodeStore.removeAll(nodeArray, nodeIds);
+            return true;
         } finally {
             autoWriteUnlock();
         }
@@ -362,6 +490,17 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
 
     @Override
     public boolean contains(final Node node) {
+        final long stamp = tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final boolean contains = nodeStore.contains(node);
+                if (validateOptimisticRead(stamp)) {
+                    return contains;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         autoReadLock();
         try {
             return nodeStore.contains(node);
@@ -372,6 +511,17 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
 
     @Override
     public boolean contains(final Edge edge) {
+        final long stamp = tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final boolean contains = edgeStore.contains(edge);
+                if (validateOptimisticRead(stamp)) {
+                    return contains;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         autoReadLock();
         try {
             return edgeStore.contains(edge);
@@ -382,6 +532,17 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
 
     @Override
     public Edge getEdge(final Node node1, final Node node2, final int type) {
+        final long stamp = tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final EdgeImpl edge = edgeStore.get(node1, node2, type, false);
+                if (validateOptimisticRead(stamp)) {
+                    return edge;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         autoReadLock();
         try {
             return edgeStore.get(node1, node2, type, false);
@@ -397,6 +558,17 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
 
     @Override
     public Edge getEdge(final Node node1, final Node node2) {
+        final long stamp = tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final EdgeImpl edge = edgeStore.get(node1, node2, false);
+                if (validateOptimisticRead(stamp)) {
+                    return edge;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         autoReadLock();
         try {
             return edgeStore.get(node1, node2, false);
@@ -470,6 +642,142 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         return new EdgeIterableWrapper(() -> edgeStore.edgeOutIterator(node, type), getAutoLock());
     }
 
+    @Override
+    public void forEachNeighbor(Node node, IntConsumer consumer) {
+        autoReadLock();
+        try {
+            edgeStore.forEachNeighbor((NodeImpl) node, EdgeStore.ANY_TYPE, true, true, null, consumer);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachNeighbor(Node node, int type, IntConsumer consumer) {
+        autoReadLock();
+        try {
+            edgeStore.forEachNeighbor((NodeImpl) node, type, true, true, null, consumer);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachEdge(Node node, Consumer<? super Edge> consumer) {
+        autoReadLock();
+        try {
+            edgeStore.forEachEdge((NodeImpl) node, EdgeStore.ANY_TYPE, true, true, false, null, consumer);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachEdge(Node node, int type, Consumer<? super Edge> consumer) {
+        autoReadLock();
+        try {
+            edgeStore.forEachEdge((NodeImpl) node, type, true, true, false, null, consumer);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
+    @Override
+    public int neighborStoreIds(Node node, int[] buffer) {
+        autoReadLock();
+        try {
+            return edgeStore.neighborStoreIds((NodeImpl) node, null, buffer);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
+    @Override
+    public NodeIterable getCommonNeighbors(final Node node1, final Node node2) {
+        return new NodeIterableWrapper(() -> commonNeighborIterator(node1, node2, edgeStore.neighborIndex, null),
+                getAutoLock());
+    }
+
+    @Override
+    public int countCommonNeighbors(Node node1, Node node2) {
+        autoReadLock();
+        try {
+            return edgeStore.commonNeighbors(node1, node2, edgeStore.neighborIndex, null, null);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
+    @Override
+    public int commonNeighborStoreIds(Node node1, Node node2, int[] buffer) {
+        autoReadLock();
+        try {
+            return edgeStore.commonNeighbors(node1, node2, edgeStore.neighborIndex, null, buffer);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachSuccessor(Node node, IntConsumer consumer) {
+        autoReadLock();
+        try {
+            edgeStore.forEachNeighbor((NodeImpl) node, EdgeStore.ANY_TYPE, true, false, null, consumer);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachPredecessor(Node node, IntConsumer consumer) {
+        autoReadLock();
+        try {
+            edgeStore.forEachNeighbor((NodeImpl) node, EdgeStore.ANY_TYPE, false, true, null, consumer);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachOutEdge(Node node, Consumer<? super Edge> consumer) {
+        autoReadLock();
+        try {
+            edgeStore.forEachEdge((NodeImpl) node, EdgeStore.ANY_TYPE, true, false, false, null, consumer);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachOutEdge(Node node, int type, Consumer<? super Edge> consumer) {
+        autoReadLock();
+        try {
+            edgeStore.forEachEdge((NodeImpl) node, type, true, false, false, null, consumer);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachInEdge(Node node, Consumer<? super Edge> consumer) {
+        autoReadLock();
+        try {
+            edgeStore.forEachEdge((NodeImpl) node, EdgeStore.ANY_TYPE, false, true, false, null, consumer);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachInEdge(Node node, int type, Consumer<? super Edge> consumer) {
+        autoReadLock();
+        try {
+            edgeStore.forEachEdge((NodeImpl) node, type, false, true, false, null, consumer);
+        } finally {
+            autoReadUnlock();
+        }
+    }
+
     @Override
     public int getNodeCount() {
         return nodeStore.size();
@@ -535,6 +843,17 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
 
     @Override
     public boolean isAdjacent(final Node node1, final Node node2) {
+        final long stamp = tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final boolean adjacent = edgeStore.isAdjacent(node1, node2);
+                if (validateOptimisticRead(stamp)) {
+                    return adjacent;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         autoReadLock();
         try {
             return edgeStore.isAdjacent(node1, node2);
@@ -545,6 +864,17 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
 
     @Override
     public boolean isAdjacent(final Node node1, final Node node2, final int type) {
+        final long stamp = tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final boolean adjacent = edgeStore.isAdjacent(node1, node2, type);
+                if (validateOptimisticRead(stamp)) {
+                    return adjacent;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         autoReadLock();
         try {
             return edgeStore.isAdjacent(node1, node2, type);
@@ -621,6 +951,10 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
             edgeTypeStore.clear();
             edgeTable.store.indexStore.clear();
             nodeTable.store.indexStore.clear();
+            if (edgeTable.store.columnarStore != null) {
+                edgeTable.store.columnarStore.clear();
+                nodeTable.store.columnarStore.clear();
+            }
             timeStore.clear();
         } finally {
             autoWriteUnlock();
@@ -639,12 +973,84 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
             edgeStore.clear();
             edgeTypeStore.clear();
             edgeTable.store.indexStore.clear();
+            if (edgeTable.store.columnarStore != null) {
+                edgeTable.store.columnarStore.clear();
+            }
             timeStore.clearEdges();
         } finally {
             autoWriteUnlock();
         }
     }
 
+    public StoreIdRemappingImpl compact() {
+        autoWriteLock();
+        try {
+            if (snapshotStore.isOpen()) {
+                throw new IllegalStateException("The store can't be compacted while a snapshot is open");
+            }
+            int[] nodeRemap = nodeStore.compact();
+            int[] edgeRemap = edgeStore.compact(nodeRemap != null);
+
+            if (nodeRemap != null || edgeRemap != null) {
+                for (GraphViewImpl view : viewStore.views) {
+                    if (view != null) {
+                        view.remap(nodeRemap, edgeRemap);
+                        invalidateJournals(view.version, nodeRemap, edgeRemap);
+                        if (view.observers != null) {
+                            for (GraphObserverImpl observer : view.observers) {
+                                observer.remap(nodeRemap, edgeRemap);
+                            }
+                        }
+                    }
+                }
+                invalidateJournals(version, nodeRemap, edgeRemap);
+                if (observers != null) {
+                    for (GraphObserverImpl observer : observers) {
+                        observer.remap(nodeRemap, edgeRemap);
+                    }
+                }
+            }
+            if (nodeRemap != null) {
+                remapTable(nodeTable.store, nodeRemap, nodeStore.maxStoreId());
+            }
+            if (edgeRemap != null) {
+                remapTable(edgeTable.store, edgeRemap, edgeStore.maxStoreId());
+            }
+            return new StoreIdRemappingImpl(nodeRemap, edgeRemap, nodeStore.maxStoreId(), edgeStore.maxStoreId());
+        } finally {
+            autoWriteUnlock();
+        }
+    }
+
+    // Journals record store ids, observers fall back to a full scan on their remapped caches
+    private static void invalidateJournals(GraphVersion graphVersion, int[] nodeRemap, int[] edgeRemap) {
+        if (graphVersion != null) {
+            if (nodeRemap != null) {
+                graphVersion.invalidateNodeJournal();
+            }
+            if (edgeRemap != null) {
+                graphVersion.invalidateEdgeJournal();
+            }
+        }
+    }
+
+    private static void remapTable(ColumnStore<?> columnStore, int[] remap, int maxStoreId) {
+        columnStore.indexStore.remap(remap);
+        if (columnStore.columnarStore != null) {
+            columnStore.columnarStore.trim(maxStoreId);
+        }
+        for (int i = 0; i < columnStore.length; i++) {
+            ColumnImpl column = columnStore.columns[i];
+            if (column != null && column.observers != null) {
+                synchronized (column.observers) {
+                    for (ColumnObserverImpl observer : column.observers) {
+                        observer.remap(remap);
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public GraphView getView() {
         return mainGraphView;
@@ -738,6 +1144,24 @@ public class GraphStore implements DirectedGraph, DirectedSubgraph {
         return spatialIndex;
     }
 
+    // Returns the stamp of an optimistic short read, or zero if short reads take the read lock
+    protected long tryOptimisticRead() {
+        return optimisticLock != null ? optimisticLock.tryOptimisticRead() : 0L;
+    }
+
+    protected boolean validateOptimisticRead(long stamp) {
+        return optimisticLock.validate(stamp);
+    }
+
+    protected Iterator<Node> commonNeighborIterator(Node node1, Node node2, NeighborIndexImpl index, BitSet edgeFilter) {
+        int[] storeIds = edgeStore.commonNeighbors(node1, node2, index, edgeFilter);
+        Node[] nodes = new Node[storeIds.length];
+        for (int i = 0; i < storeIds.length; i++) {
+            nodes[i] = nodeStore.get(storeIds[i]);
+        }
+        return ObjectIterators.wrap(nodes);
+    }
+
     protected void autoReadLock() {
         if (configuration.isEnableAutoLocking()) {
             readLock();
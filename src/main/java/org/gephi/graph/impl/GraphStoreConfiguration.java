@@ -34,6 +34,14 @@ public final class GraphStoreConfiguration {
     public static final boolean DEFAULT_ENABLE_SPATIAL_INDEX = true;
     public static final boolean DEFAULT_ENABLE_EDGE_WEIGHT_COLUMN = true;
     public static final boolean DEFAULT_ENABLE_PARALLEL_EDGES_SAME_TYPE = true;
+    public static final boolean DEFAULT_ENABLE_COLUMNAR_ATTRIBUTES = false;
+    public static final boolean DEFAULT_ENABLE_BITMAP_INDEX = false;
+    public static final boolean DEFAULT_ENABLE_OPTIMISTIC_LOCKING = false;
+    public static final boolean DEFAULT_ENABLE_LOCK_METRICS = false;
+    public static final boolean DEFAULT_ENABLE_CONCURRENT_INDEX = false;
+    public static final boolean DEFAULT_ENABLE_NEIGHBOR_INDEX = false;
+    public static final boolean DEFAULT_ENABLE_STRING_POOL = false;
+    public static final boolean DEFAULT_ENABLE_COLUMNAR_POSITIONS = false;
     // NodeStore
     public final static int NODESTORE_BLOCK_SIZE = 8192;
     public final static int NODESTORE_DEFAULT_BLOCKS = 5;
@@ -45,11 +53,20 @@ public final class GraphStoreConfiguration {
     public static final int EDGESTORE_DEFAULT_TYPE_COUNT = 1;
     public static final int EDGESTORE_DEFAULT_DICTIONARY_SIZE = 32768;
     public static final float EDGESTORE_DICTIONARY_LOAD_FACTOR = .7f;
+    // Bulk load
+    public static final int BULK_LOAD_THRESHOLD = 4096;
+    // Chunked serialization
+    public static final int SERIALIZATION_CHUNK_SIZE = 1 << 16;
+    // Concurrent index
+    public static final int CONCURRENT_INDEX_STRIPES = 64;
     // GraphView
     public static final int VIEW_DEFAULT_TYPE_COUNT = 1;
     public static final double VIEW_GROWING_FACTOR = 1.1;
     // Diff
     public static final double COLUMNDIFF_GROWING_FACTOR = 1.1;
+    // Observer journal
+    public static final int JOURNAL_DEFAULT_SIZE = 64;
+    public static final int JOURNAL_MAX_SIZE = 65536;
     // Properties
     public static final boolean ENABLE_ELEMENT_LABEL = true;
     public static final boolean ENABLE_ELEMENT_TIME_SET = true;
@@ -87,6 +104,7 @@ public final class GraphStoreConfiguration {
     public static final float SPATIAL_INDEX_DIMENSION_BOUNDARY = 1e6f;
     public static final boolean SPATIAL_INDEX_APPROXIMATE_AREA_SEARCH = false;
     public static final float SPATIAL_INDEX_LOCAL_ITERATOR_THRESHOLD = 0.3f;
+    public static final int SPATIAL_INDEX_PARALLEL_BUILD_THRESHOLD = 16384;
     // Miscellaneous
     public static final double TIMESTAMP_STORE_GROWING_FACTOR = 1.1;
     public static final double INTERVAL_STORE_GROWING_FACTOR = 1.1;
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import java.util.Arrays;
+import org.gephi.graph.api.GraphTransaction;
+
+/**
+ * State of the write transaction of a store.
+ * <p>
+ * The transaction owns the write lock and puts the graph and view versions in deferred mode. Index updates of static
+ * attribute columns are recorded as the first old value of each modified column per element, and applied once at commit
+ * time along with a single version increment per modified column. Columns with view indexes are updated immediately.
+ * <p>
+ * Nested transactions share the same state, the deferred updates are applied when the outermost one commits.
+ */
+public class GraphTransactionImpl {
+
+    // Marks columns without pending update
+    private static final Object UNSET = new Object();
+    // Store
+    protected final GraphStore graphStore;
+    protected final Thread owner;
+    protected int depth;
+    // Deferred versions
+    protected GraphVersion[] versions;
+    protected int versionsCount;
+    // Pending index updates
+    protected final Reference2ObjectOpenHashMap<ElementImpl, Object[]> pendingValues;
+    protected final ReferenceOpenHashSet<ColumnImpl> changedColumns;
+
+    private GraphTransactionImpl(GraphStore graphStore) {
+        this.graphStore = graphStore;
+        this.owner = Thread.currentThread();
+        this.pendingValues = new Reference2ObjectOpenHashMap<>();
+        this.changedColumns = new ReferenceOpenHashSet<>();
+
+        GraphViewImpl[] views = graphStore.viewStore.views;
+        GraphVersion[] list = new GraphVersion[views.length + 1];
+        int count = 0;
+        if (graphStore.version != null) {
+            list[count++] = graphStore.version;
+        }
+        for (GraphViewImpl view : views) {
+            if (view != null && view.version != null) {
+                list[count++] = view.version;
+            }
+        }
+        this.versions = list;
+        this.versionsCount = count;
+        for (int i = 0; i < count; i++) {
+            list[i].defer();
+        }
+    }
+
+    // Called with the write lock held
+    protected static GraphTransaction begin(GraphStore graphStore) {
+        if (graphStore.transaction == null) {
+            graphStore.transaction = new GraphTransactionImpl(graphStore);
+        }
+        GraphTransactionImpl transaction = graphStore.transaction;
+        transaction.depth++;
+        return transaction.new Handle();
+    }
+
+    // Defers the version of a view created during the transaction
+    protected void defer(GraphVersion version) {
+        if (versionsCount == versions.length) {
+            versions = Arrays.copyOf(versions, versionsCount * 2 + 1);
+        }
+        versions[versionsCount++] = version;
+        version.defer();
+    }
+
+    protected boolean isOwner() {
+        return owner == Thread.currentThread();
+    }
+
+    /**
+     * Records the index update of the given element and column, if it can be deferred.
+     *
+     * @return true if deferred, false if the index should be updated right away
+     */
+    protected boolean deferIndex(ElementImpl element, ColumnImpl column, Object oldValue) {
+        if (!isOwner() || column.isDynamic()) {
+            return false;
+        }
+        ColumnStore columnStore = element.getColumnStore();
+        if (columnStore == null || columnStore.indexStore == null || !columnStore.indexStore.viewIndexes.isEmpty()) {
+            return false;
+        }
+        int index = column.getIndex();
+        Object[] oldValues = pendingValues.get(element);
+        if (oldValues == null || index >= oldValues.length) {
+            int length = Math.max(index + 1, columnStore.length);
+            Object[] newValues = new Object[length];
+            Arrays.fill(newValues, UNSET);
+            if (oldValues != null) {
+                System.arraycopy(oldValues, 0, newValues, 0, oldValues.length);
+            }
+            oldValues = newValues;
+            pendingValues.put(element, oldValues);
+        }
+        if (oldValues[index] == UNSET) {
+            oldValues[index] = oldValue;
+        }
+        changedColumns.add(column);
+        return true;
+    }
+
+    // Applies the pending updates of an element before it's removed from the indexes
+    protected void flush(ElementImpl element) {
+        if (isOwner()) {
+            Object[] oldValues = pendingValues.remove(element);
+            if (oldValues != null) {
+                flush(element, oldValues);
+            }
+        }
+    }
+
+    protected void flush() {
+        if (isOwner()) {
+            for (Reference2ObjectMap.Entry<ElementImpl, Object[]> entry : pendingValues.reference2ObjectEntrySet()) {
+                flush(entry.getKey(), entry.getValue());
+            }
+            pendingValues.clear();
+        }
+    }
+
+    private void flush(ElementImpl element, Object[] oldValues) {
+        if (!element.isValid()) {
+            return;
+        }
+        ColumnStore columnStore = element.getColumnStore();
+        for (int i = 0; i < oldValues.length && i < columnStore.length; i++) {
+            ColumnImpl column = columnStore.columns[i];
+            if (oldValues[i] != UNSET && column != null) {
+                columnStore.indexStore.set(column, oldValues[i], element.attributes.getAttribute(i), element);
+                column.notifyObservers(element);
+            }
+        }
+    }
+
+    // Versions are committed even if the index updates fail, otherwise later changes would never be seen
+    private void commit() {
+        try {
+            flush();
+        } finally {
+            try {
+                pendingValues.clear();
+                for (ColumnImpl column : changedColumns) {
+                    column.version.incrementAndGetVersion();
+                }
+                changedColumns.clear();
+            } finally {
+                for (int i = 0; i < versionsCount; i++) {
+                    versions[i].commit();
+                }
+                graphStore.transaction = null;
+            }
+        }
+    }
+
+    protected final class Handle implements GraphTransaction {
+
+        private boolean active = true;
+
+        @Override
+        public void commit() {
+            if (!active) {
+                throw new IllegalStateException("The transaction is already committed");
+            }
+            if (!isOwner()) {
+                throw new IllegalStateException("The transaction should be committed by the thread that began it");
+            }
+            active = false;
+            try {
+                if (--depth == 0) {
+                    GraphTransactionImpl.this.commit();
+                }
+            } finally {
+                graphStore.lock.writeUnlock();
+            }
+        }
+
+        @Override
+        public boolean isActive() {
+            return active;
+        }
+
+        @Override
+        public void close() {
+            if (active) {
+                commit();
+            }
+        }
+    }
+}
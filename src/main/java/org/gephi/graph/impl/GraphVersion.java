@@ -15,6 +15,7 @@
  */
 package org.gephi.graph.impl;
 
+import java.util.BitSet;
 import org.gephi.graph.api.Graph;
 
 public class GraphVersion {
@@ -22,24 +23,50 @@ public class GraphVersion {
     protected final Graph graph;
     protected int nodeVersion = Integer.MIN_VALUE + 1;
     protected int edgeVersion = Integer.MIN_VALUE + 1;
+    // Journal
+    protected ChangeJournal nodeJournal;
+    protected ChangeJournal edgeJournal;
+    // Increments deferred until the end of a transaction
+    protected boolean deferred;
+    protected boolean nodeChanged;
+    protected boolean edgeChanged;
+    // Modification counts, incremented on every change even when deferred, for fail-fast iterators
+    protected int nodeModCount;
+    protected int edgeModCount;
 
     public GraphVersion(Graph graph) {
         this.graph = graph;
     }
 
     public int incrementAndGetNodeVersion() {
+        nodeModCount++;
+        if (deferred) {
+            nodeChanged = true;
+            return nodeVersion + 1;
+        }
         nodeVersion++;
         if (nodeVersion == Integer.MAX_VALUE) {
             nodeVersion = Integer.MIN_VALUE + 1;
+            if (nodeJournal != null) {
+                nodeJournal.invalidate(nodeVersion);
+            }
             handleNodeReset();
         }
         return nodeVersion;
     }
 
     public int incrementAndGetEdgeVersion() {
+        edgeModCount++;
+        if (deferred) {
+            edgeChanged = true;
+            return edgeVersion + 1;
+        }
         edgeVersion++;
         if (edgeVersion == Integer.MAX_VALUE) {
             edgeVersion = Integer.MIN_VALUE + 1;
+            if (edgeJournal != null) {
+                edgeJournal.invalidate(edgeVersion);
+            }
             handleEdgeReset();
         }
         return edgeVersion;
@@ -53,6 +80,82 @@ public class GraphVersion {
         return edgeVersion;
     }
 
+    public int getNodeModCount() {
+        return nodeModCount;
+    }
+
+    public int getEdgeModCount() {
+        return edgeModCount;
+    }
+
+    public void defer() {
+        deferred = true;
+    }
+
+    public void commit() {
+        deferred = false;
+        if (nodeChanged) {
+            nodeChanged = false;
+            incrementAndGetNodeVersion();
+        }
+        if (edgeChanged) {
+            edgeChanged = false;
+            incrementAndGetEdgeVersion();
+        }
+    }
+
+    // Version the journal entries are recorded at, which is the pending version during a transaction
+    private int journalNodeVersion() {
+        return nodeChanged ? nodeVersion + 1 : nodeVersion;
+    }
+
+    private int journalEdgeVersion() {
+        return edgeChanged ? edgeVersion + 1 : edgeVersion;
+    }
+
+    public synchronized void enableJournal() {
+        if (nodeJournal == null) {
+            nodeJournal = new ChangeJournal(nodeVersion);
+            edgeJournal = new ChangeJournal(edgeVersion);
+        }
+    }
+
+    public void journalNode(int storeId) {
+        if (nodeJournal != null) {
+            nodeJournal.add(journalNodeVersion(), storeId);
+        }
+    }
+
+    public void journalNodes(BitSet storeIds) {
+        if (nodeJournal != null) {
+            nodeJournal.addAll(journalNodeVersion(), storeIds);
+        }
+    }
+
+    public void journalEdge(int storeId) {
+        if (edgeJournal != null) {
+            edgeJournal.add(journalEdgeVersion(), storeId);
+        }
+    }
+
+    public void journalEdges(BitSet storeIds) {
+        if (edgeJournal != null) {
+            edgeJournal.addAll(journalEdgeVersion(), storeIds);
+        }
+    }
+
+    public void invalidateNodeJournal() {
+        if (nodeJournal != null) {
+            nodeJournal.invalidate(journalNodeVersion());
+        }
+    }
+
+    public void invalidateEdgeJournal() {
+        if (edgeJournal != null) {
+            edgeJournal.invalidate(journalEdgeVersion());
+        }
+    }
+
     private void handleNodeReset() {
         if (graph != null) {
             if (graph.getView().isMainView()) {
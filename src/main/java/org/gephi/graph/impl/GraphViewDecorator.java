@@ -22,6 +22,7 @@ import java.util.Spliterator;
 import java.util.ConcurrentModificationException;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.IntConsumer;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
@@ -50,13 +51,20 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
 
     @Override
     public Edge getEdge(Node node1, Node node2) {
+        final long stamp = graphStore.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final EdgeImpl edge = edgeInView(graphStore.edgeStore.get(node1, node2, undirected));
+                if (graphStore.validateOptimisticRead(stamp)) {
+                    return edge;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         graphStore.autoReadLock();
         try {
-            EdgeImpl edge = graphStore.edgeStore.get(node1, node2, undirected);
-            if (edge != null && view.containsEdge(edge)) {
-                return edge;
-            }
-            return null;
+            return edgeInView(graphStore.edgeStore.get(node1, node2, undirected));
         } finally {
             graphStore.autoReadUnlock();
         }
@@ -71,13 +79,20 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
 
     @Override
     public Edge getEdge(Node node1, Node node2, int type) {
+        final long stamp = graphStore.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final EdgeImpl edge = edgeInView(graphStore.edgeStore.get(node1, node2, type, undirected));
+                if (graphStore.validateOptimisticRead(stamp)) {
+                    return edge;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         graphStore.autoReadLock();
         try {
-            EdgeImpl edge = graphStore.edgeStore.get(node1, node2, type, undirected);
-            if (edge != null && view.containsEdge(edge)) {
-                return edge;
-            }
-            return null;
+            return edgeInView(graphStore.edgeStore.get(node1, node2, type, undirected));
         } finally {
             graphStore.autoReadUnlock();
         }
@@ -92,13 +107,20 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
 
     @Override
     public Edge getMutualEdge(Edge e) {
+        final long stamp = graphStore.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final EdgeImpl edge = edgeInView(graphStore.edgeStore.getMutualEdge(e));
+                if (graphStore.validateOptimisticRead(stamp)) {
+                    return edge;
+                }
+            } catch (RuntimeException ex) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         graphStore.autoReadLock();
         try {
-            EdgeImpl edge = graphStore.edgeStore.getMutualEdge(e);
-            if (edge != null && view.containsEdge(edge)) {
-                return edge;
-            }
-            return null;
+            return edgeInView(graphStore.edgeStore.getMutualEdge(e));
         } finally {
             graphStore.autoReadUnlock();
         }
@@ -164,14 +186,185 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
                 graphStore.getAutoLock());
     }
 
+    @Override
+    public void forEachNeighbor(Node node, IntConsumer consumer) {
+        checkValidInViewNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            graphStore.edgeStore
+                    .forEachNeighbor((NodeImpl) node, EdgeStore.ANY_TYPE, true, true, view.edgeBitVector, consumer);
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachNeighbor(Node node, int type, IntConsumer consumer) {
+        checkValidInViewNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            graphStore.edgeStore.forEachNeighbor((NodeImpl) node, type, true, true, view.edgeBitVector, consumer);
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachEdge(Node node, Consumer<? super Edge> consumer) {
+        checkValidInViewNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            graphStore.edgeStore
+                    .forEachEdge((NodeImpl) node, EdgeStore.ANY_TYPE, true, true, undirected, view.edgeBitVector, consumer);
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachEdge(Node node, int type, Consumer<? super Edge> consumer) {
+        checkValidInViewNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            graphStore.edgeStore
+                    .forEachEdge((NodeImpl) node, type, true, true, undirected, view.edgeBitVector, consumer);
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public int neighborStoreIds(Node node, int[] buffer) {
+        checkValidInViewNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            return graphStore.edgeStore.neighborStoreIds((NodeImpl) node, view.edgeBitVector, buffer);
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public NodeIterable getCommonNeighbors(final Node node1, final Node node2) {
+        checkValidInViewNodeObject(node1);
+        checkValidInViewNodeObject(node2);
+        return new NodeIterableWrapper(
+                () -> graphStore.commonNeighborIterator(node1, node2, view.neighborIndex, view.edgeBitVector),
+                graphStore.getAutoLock());
+    }
+
+    @Override
+    public int countCommonNeighbors(Node node1, Node node2) {
+        checkValidInViewNodeObject(node1);
+        checkValidInViewNodeObject(node2);
+        graphStore.autoReadLock();
+        try {
+            return graphStore.edgeStore.commonNeighbors(node1, node2, view.neighborIndex, view.edgeBitVector, null);
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public int commonNeighborStoreIds(Node node1, Node node2, int[] buffer) {
+        checkValidInViewNodeObject(node1);
+        checkValidInViewNodeObject(node2);
+        graphStore.autoReadLock();
+        try {
+            return graphStore.edgeStore.commonNeighbors(node1, node2, view.neighborIndex, view.edgeBitVector, buffer);
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachSuccessor(Node node, IntConsumer consumer) {
+        checkValidInViewNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            graphStore.edgeStore
+                    .forEachNeighbor((NodeImpl) node, EdgeStore.ANY_TYPE, true, false, view.edgeBitVector, consumer);
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachPredecessor(Node node, IntConsumer consumer) {
+        checkValidInViewNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            graphStore.edgeStore
+                    .forEachNeighbor((NodeImpl) node, EdgeStore.ANY_TYPE, false, true, view.edgeBitVector, consumer);
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachOutEdge(Node node, Consumer<? super Edge> consumer) {
+        checkValidInViewNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            graphStore.edgeStore
+                    .forEachEdge((NodeImpl) node, EdgeStore.ANY_TYPE, true, false, false, view.edgeBitVector, consumer);
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachOutEdge(Node node, int type, Consumer<? super Edge> consumer) {
+        checkValidInViewNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            graphStore.edgeStore.forEachEdge((NodeImpl) node, type, true, false, false, view.edgeBitVector, consumer);
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachInEdge(Node node, Consumer<? super Edge> consumer) {
+        checkValidInViewNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            graphStore.edgeStore
+                    .forEachEdge((NodeImpl) node, EdgeStore.ANY_TYPE, false, true, false, view.edgeBitVector, consumer);
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachInEdge(Node node, int type, Consumer<? super Edge> consumer) {
+        checkValidInViewNodeObject(node);
+        graphStore.autoReadLock();
+        try {
+            graphStore.edgeStore.forEachEdge((NodeImpl) node, type, false, true, false, view.edgeBitVector, consumer);
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
     @Override
     public boolean isAdjacent(Node source, Node target) {
         checkValidInViewNodeObject(source);
         checkValidInViewNodeObject(target);
+        final long stamp = graphStore.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final boolean adjacent = edgeInView(graphStore.edgeStore.get(source, target, undirected)) != null;
+                if (graphStore.validateOptimisticRead(stamp)) {
+                    return adjacent;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         graphStore.autoReadLock();
         try {
-            EdgeImpl edge = graphStore.edgeStore.get(source, target, undirected);
-            return edge != null && view.containsEdge(edge);
+            return edgeInView(graphStore.edgeStore.get(source, target, undirected)) != null;
         } finally {
             graphStore.autoReadUnlock();
         }
@@ -181,10 +374,20 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
     public boolean isAdjacent(Node source, Node target, int type) {
         checkValidInViewNodeObject(source);
         checkValidInViewNodeObject(target);
+        final long stamp = graphStore.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final boolean adjacent = edgeInView(graphStore.edgeStore.get(source, target, type, undirected)) != null;
+                if (graphStore.validateOptimisticRead(stamp)) {
+                    return adjacent;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         graphStore.autoReadLock();
         try {
-            EdgeImpl edge = graphStore.edgeStore.get(source, target, type, undirected);
-            return edge != null && view.containsEdge(edge);
+            return edgeInView(graphStore.edgeStore.get(source, target, type, undirected)) != null;
         } finally {
             graphStore.autoReadUnlock();
         }
@@ -298,6 +501,17 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
     @Override
     public boolean contains(Node node) {
         checkValidNodeObject(node);
+        final long stamp = graphStore.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final boolean contains = view.containsNode(node);
+                if (graphStore.validateOptimisticRead(stamp)) {
+                    return contains;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         graphStore.autoReadLock();
         try {
             return view.containsNode(node);
@@ -309,6 +523,17 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
     @Override
     public boolean contains(Edge edge) {
         checkValidEdgeObject(edge);
+        final long stamp = graphStore.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final boolean contains = view.containsEdge((EdgeImpl) edge);
+                if (graphStore.validateOptimisticRead(stamp)) {
+                    return contains;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         graphStore.autoReadLock();
         try {
             return view.containsEdge((EdgeImpl) edge);
@@ -319,13 +544,41 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
 
     @Override
     public Node getNode(Object id) {
+        final long stamp = graphStore.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final NodeImpl node = nodeInView(graphStore.getNode(id));
+                if (graphStore.validateOptimisticRead(stamp)) {
+                    return node;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         graphStore.autoReadLock();
         try {
-            NodeImpl node = graphStore.getNode(id);
-            if (node != null && view.containsNode(node)) {
-                return node;
+            return nodeInView(graphStore.getNode(id));
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public Node getNode(long id) {
+        final long stamp = graphStore.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final NodeImpl node = nodeInView(graphStore.nodeStore.getById(id));
+                if (graphStore.validateOptimisticRead(stamp)) {
+                    return node;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
             }
-            return null;
+        }
+        graphStore.autoReadLock();
+        try {
+            return nodeInView(graphStore.nodeStore.getById(id));
         } finally {
             graphStore.autoReadUnlock();
         }
@@ -333,13 +586,20 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
 
     @Override
     public Node getNodeByStoreId(int id) {
+        final long stamp = graphStore.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final NodeImpl node = nodeInView(graphStore.getNodeByStoreId(id));
+                if (graphStore.validateOptimisticRead(stamp)) {
+                    return node;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         graphStore.autoReadLock();
         try {
-            NodeImpl node = graphStore.getNodeByStoreId(id);
-            if (node != null && view.containsNode(node)) {
-                return node;
-            }
-            return null;
+            return nodeInView(graphStore.getNodeByStoreId(id));
         } finally {
             graphStore.autoReadUnlock();
         }
@@ -352,13 +612,41 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
 
     @Override
     public Edge getEdge(Object id) {
+        final long stamp = graphStore.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final EdgeImpl edge = edgeInView(graphStore.getEdge(id));
+                if (graphStore.validateOptimisticRead(stamp)) {
+                    return edge;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         graphStore.autoReadLock();
         try {
-            EdgeImpl edge = graphStore.getEdge(id);
-            if (edge != null && view.containsEdge(edge)) {
-                return edge;
+            return edgeInView(graphStore.getEdge(id));
+        } finally {
+            graphStore.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public Edge getEdge(long id) {
+        final long stamp = graphStore.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final EdgeImpl edge = edgeInView(graphStore.edgeStore.getById(id));
+                if (graphStore.validateOptimisticRead(stamp)) {
+                    return edge;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
             }
-            return null;
+        }
+        graphStore.autoReadLock();
+        try {
+            return edgeInView(graphStore.edgeStore.getById(id));
         } finally {
             graphStore.autoReadUnlock();
         }
@@ -366,13 +654,20 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
 
     @Override
     public Edge getEdgeByStoreId(int id) {
+        final long stamp = graphStore.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                final EdgeImpl edge = edgeInView(graphStore.getEdgeByStoreId(id));
+                if (graphStore.validateOptimisticRead(stamp)) {
+                    return edge;
+                }
+            } catch (RuntimeException e) {
+                // The read saw inconsistent state, or fails again under the lock
+            }
+        }
         graphStore.autoReadLock();
         try {
-            EdgeImpl edge = graphStore.getEdgeByStoreId(id);
-            if (edge != null && view.containsEdge(edge)) {
-                return edge;
-            }
-            return null;
+            return edgeInView(graphStore.getEdgeByStoreId(id));
         } finally {
             graphStore.autoReadUnlock();
         }
@@ -509,57 +804,38 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
 
     @Override
     public int getDegree(Node node) {
-        if (undirected) {
-            int count = 0;
-            EdgeStore.EdgeInOutIterator itr = graphStore.edgeStore.edgeIterator(node, true);
-            while (itr.hasNext()) {
-                EdgeImpl edge = itr.next();
-                if (view.containsEdge(edge) && !isUndirectedToIgnore(edge)) {
-                    count++;
-                    if (edge.isSelfLoop()) {
-                        count++;
-                    }
-                }
-            }
-            return count;
-        } else {
-            int count = 0;
-            EdgeStore.EdgeInOutIterator itr = graphStore.edgeStore.edgeIterator(node, true);
-            while (itr.hasNext()) {
-                EdgeImpl edge = itr.next();
-                if (view.containsEdge(edge)) {
-                    count++;
-                    if (edge.isSelfLoop()) {
-                        count++;
-                    }
-                }
+        graphStore.autoReadLock();
+        try {
+            checkValidDegreeNodeObject(node);
+            if (undirected) {
+                return view.getUndirectedDegree(node);
             }
-            return count;
+            return view.getDegree(node);
+        } finally {
+            graphStore.autoReadUnlock();
         }
     }
 
     @Override
     public int getInDegree(Node node) {
-        int count = 0;
-        EdgeStore.EdgeInIterator itr = graphStore.edgeStore.edgeInIterator(node);
-        while (itr.hasNext()) {
-            if (view.containsEdge(itr.next())) {
-                count++;
-            }
+        graphStore.autoReadLock();
+        try {
+            checkValidDegreeNodeObject(node);
+            return view.getInDegree(node);
+        } finally {
+            graphStore.autoReadUnlock();
         }
-        return count;
     }
 
     @Override
     public int getOutDegree(Node node) {
-        int count = 0;
-        EdgeStore.EdgeOutIterator itr = graphStore.edgeStore.edgeOutIterator(node);
-        while (itr.hasNext()) {
-            if (view.containsEdge(itr.next())) {
-                count++;
-            }
+        graphStore.autoReadLock();
+        try {
+            checkValidDegreeNodeObject(node);
+            return view.getOutDegree(node);
+        } finally {
+            graphStore.autoReadUnlock();
         }
-        return count;
     }
 
     @Override
@@ -809,6 +1085,15 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
         }
     }
 
+    // Returns the node if it's in the view, null otherwise
+    private NodeImpl nodeInView(final NodeImpl node) {
+        return node != null && view.containsNode(node) ? node : null;
+    }
+
+    private EdgeImpl edgeInView(final EdgeImpl edge) {
+        return edge != null && view.containsEdge(edge) ? edge : null;
+    }
+
     void checkValidNodeObject(final Node n) {
         if (n == null) {
             throw new NullPointerException();
@@ -829,6 +1114,13 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
         }
     }
 
+    // The view degrees are indexed by store id only, so the node must be the one stored at that id. Nodes outside
+    // the view are accepted and have a zero degree.
+    void checkValidDegreeNodeObject(final Node n) {
+        checkValidNodeObject(n);
+        graphStore.nodeStore.checkNodeExists((NodeImpl) n);
+    }
+
     void checkValidEdgeObject(final Edge n) {
         if (n == null) {
             throw new NullPointerException();
@@ -960,6 +1252,30 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
         graphStore.spatialIndex.spatialIndexReadUnlock();
     }
 
+    @Override
+    public void beginBatch() {
+        if (graphStore.spatialIndex == null) {
+            throw new UnsupportedOperationException("Spatial index is disabled (from Configuration)");
+        }
+        graphStore.spatialIndex.beginBatch();
+    }
+
+    @Override
+    public void commitBatch() {
+        if (graphStore.spatialIndex == null) {
+            throw new UnsupportedOperationException("Spatial index is disabled (from Configuration)");
+        }
+        graphStore.spatialIndex.commitBatch();
+    }
+
+    @Override
+    public boolean isBatch() {
+        if (graphStore.spatialIndex == null) {
+            throw new UnsupportedOperationException("Spatial index is disabled (from Configuration)");
+        }
+        return graphStore.spatialIndex.isBatch();
+    }
+
     private final class NodeViewSpliterator implements Spliterator<Node> {
 
         private final int endBlockExclusive;
@@ -981,7 +1297,7 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
         NodeViewSpliterator(int startBlock, int endBlockExclusive) {
             this.blockIndex = startBlock;
             this.endBlockExclusive = endBlockExclusive;
-            this.expectedVersion = graphStore.version != null ? graphStore.version.getNodeVersion() : 0;
+            this.expectedVersion = graphStore.version != null ? graphStore.version.getNodeModCount() : 0;
             this.consumed = 0;
 
             // Root spliterator uses the exact view count; sub-ranges fall back to an estimate.
@@ -1020,7 +1336,7 @@ public class GraphViewDecorator implements DirectedSubgraph, UndirectedSubgraph,
         }
 
         private void checkForComodification() {
-            if (graphStore.version != null && expectedVersion != graphStore.version.getNodeVersion()) {
+            if (graphStore.version != null && expectedVersion != graphStore.version.getNodeModCount()) {
                 throw new ConcurrentModificationException();
             }
         }
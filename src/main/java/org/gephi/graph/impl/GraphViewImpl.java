@@ -45,6 +45,7 @@ public class GraphViewImpl implements GraphView {
     // Version
     protected final GraphVersion version;
     protected final List<GraphObserverImpl> observers;
+    protected final NeighborIndexImpl neighborIndex;
     // Decorators
     protected final GraphViewDecorator directedDecorator;
     protected final GraphViewDecorator undirectedDecorator;
@@ -54,6 +55,10 @@ public class GraphViewImpl implements GraphView {
     protected int[] typeCounts;
     protected int[] mutualEdgeTypeCounts;
     protected int mutualEdgesCount;
+    // Degrees
+    protected int[] inDegrees;
+    protected int[] outDegrees;
+    protected int[] mutualDegrees;
     // Dynamic
     protected Interval interval;
 
@@ -70,11 +75,15 @@ public class GraphViewImpl implements GraphView {
         this.edgeBitVector = new BitSet(store.edgeStore.maxStoreId());
         this.typeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         this.mutualEdgeTypeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
+        this.inDegrees = new int[store.nodeStore.maxStoreId()];
+        this.outDegrees = new int[store.nodeStore.maxStoreId()];
+        this.mutualDegrees = new int[store.nodeStore.maxStoreId()];
 
         this.directedDecorator = new GraphViewDecorator(graphStore, this, false);
         this.undirectedDecorator = new GraphViewDecorator(graphStore, this, true);
-        this.version = graphStore.version != null ? new GraphVersion(directedDecorator) : null;
+        this.version = graphStore.version != null ? newVersion() : null;
         this.observers = graphStore.version != null ? new ArrayList<>() : null;
+        this.neighborIndex = graphStore.configuration.isEnableNeighborIndex() ? new NeighborIndexImpl() : null;
         this.interval = Interval.INFINITY_INTERVAL;
     }
 
@@ -113,13 +122,16 @@ public class GraphViewImpl implements GraphView {
 
             edgeBitVector.set(edge.getStoreId());
             int type = edge.getType();
+            ensureTypeCountArrayCapacity(type);
             typeCounts[type]++;
             count++;
+            incrementDegrees((EdgeImpl) edge);
 
             if (((EdgeImpl) edge).isMutual() && !edge.isSelfLoop() && containsEdge(graphStore.edgeStore
                     .get(edge.getTarget(), edge.getSource(), type, false))) {
                 mutualEdgeTypeCounts[type]++;
                 mutualEdgesCount++;
+                incrementMutualDegrees((EdgeImpl) edge);
             }
         }
         edgeCount = count;
@@ -143,13 +155,27 @@ public class GraphViewImpl implements GraphView {
         this.mutualEdgeTypeCounts = new int[view.mutualEdgeTypeCounts.length];
         System.arraycopy(view.mutualEdgeTypeCounts, 0, mutualEdgeTypeCounts, 0, view.mutualEdgeTypeCounts.length);
         this.mutualEdgesCount = view.mutualEdgesCount;
+        this.inDegrees = view.inDegrees.clone();
+        this.outDegrees = view.outDegrees.clone();
+        this.mutualDegrees = view.mutualDegrees.clone();
         this.directedDecorator = new GraphViewDecorator(graphStore, this, false);
         this.undirectedDecorator = new GraphViewDecorator(graphStore, this, true);
-        this.version = graphStore.version != null ? new GraphVersion(directedDecorator) : null;
+        this.version = graphStore.version != null ? newVersion() : null;
         this.observers = graphStore.version != null ? new ArrayList<>() : null;
+        this.neighborIndex = graphStore.configuration.isEnableNeighborIndex() ? new NeighborIndexImpl() : null;
         this.interval = view.interval;
     }
 
+    // Views created during a transaction have their increments deferred like the others
+    private GraphVersion newVersion() {
+        GraphVersion graphVersion = new GraphVersion(directedDecorator);
+        GraphTransactionImpl transaction = graphStore.transaction;
+        if (transaction != null) {
+            transaction.defer(graphVersion);
+        }
+        return graphVersion;
+    }
+
     protected DirectedSubgraph getDirectedGraph() {
         return directedDecorator;
     }
@@ -170,6 +196,7 @@ public class GraphViewImpl implements GraphView {
             nodeBitVector.set(id);
             nodeCount++;
             incrementNodeVersion();
+            journalNode(id);
 
             IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
             if (indexStore != null) {
@@ -267,6 +294,7 @@ public class GraphViewImpl implements GraphView {
             nodeBitVector.clear(id);
             nodeCount--;
             incrementNodeVersion();
+            journalNode(id);
 
             IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
             if (indexStore != null) {
@@ -410,6 +438,8 @@ public class GraphViewImpl implements GraphView {
         if (edgeCount > 0) {
             incrementEdgeVersion();
         }
+        invalidateNodeJournal();
+        invalidateEdgeJournal();
         if (nodeView) {
             nodeBitVector.clear();
         }
@@ -419,6 +449,9 @@ public class GraphViewImpl implements GraphView {
         typeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         mutualEdgeTypeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         mutualEdgesCount = 0;
+        Arrays.fill(inDegrees, 0);
+        Arrays.fill(outDegrees, 0);
+        Arrays.fill(mutualDegrees, 0);
 
         if (nodeView) {
             IndexStore<Node> nodeIndexStore = graphStore.nodeTable.store.indexStore;
@@ -444,11 +477,15 @@ public class GraphViewImpl implements GraphView {
         if (edgeCount > 0) {
             incrementEdgeVersion();
         }
+        invalidateEdgeJournal();
         edgeBitVector.clear();
         edgeCount = 0;
         typeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         mutualEdgeTypeCounts = new int[GraphStoreConfiguration.VIEW_DEFAULT_TYPE_COUNT];
         mutualEdgesCount = 0;
+        Arrays.fill(inDegrees, 0);
+        Arrays.fill(outDegrees, 0);
+        Arrays.fill(mutualDegrees, 0);
 
         IndexStore<Edge> edgeIndexStore = graphStore.edgeTable.store.indexStore;
         if (edgeIndexStore != null) {
@@ -474,6 +511,7 @@ public class GraphViewImpl implements GraphView {
         this.mutualEdgeTypeCounts = new int[graphStore.edgeStore.mutualEdgesTypeSize.length];
         System.arraycopy(graphStore.edgeStore.mutualEdgesTypeSize, 0, this.mutualEdgeTypeCounts, 0, this.mutualEdgeTypeCounts.length);
         this.mutualEdgesCount = graphStore.edgeStore.mutualEdgesSize;
+        copyStoreDegrees();
 
         if (edgeCount > 0) {
             incrementEdgeVersion();
@@ -481,6 +519,8 @@ public class GraphViewImpl implements GraphView {
         if (nodeCount > 0) {
             incrementNodeVersion();
         }
+        invalidateNodeJournal();
+        invalidateEdgeJournal();
 
         if (nodeView) {
             IndexStore<Node> nodeIndexStore = graphStore.nodeTable.store.indexStore;
@@ -582,7 +622,7 @@ public class GraphViewImpl implements GraphView {
         this.edgeCount = graphStore.edgeStore.size() - this.edgeCount;
 
         // Ensure type count arrays are sized to match the store
-        int storeTypeLength = graphStore.edgeStore.longDictionary.length;
+        int storeTypeLength = graphStore.edgeStore.typeSize.length;
         if (typeCounts.length < storeTypeLength) {
             int[] newTypeCounts = new int[storeTypeLength];
             System.arraycopy(typeCounts, 0, newTypeCounts, 0, typeCounts.length);
@@ -632,6 +672,11 @@ public class GraphViewImpl implements GraphView {
             }
         }
 
+        // Recompute degrees as mutual pairs can't be derived from the complement
+        rebuildDegrees();
+        invalidateNodeJournal();
+        invalidateEdgeJournal();
+
         // Rebuild indexes (necessary for NOT operation as the view content has
         // completely changed)
         if (nodeView) {
@@ -699,6 +744,7 @@ public class GraphViewImpl implements GraphView {
         nodeBitVector.andNot(nodesToRemove);
         nodeCount -= removedCount;
         incrementNodeVersion();
+        journalNodes(nodesToRemove);
 
         // Bulk update indexes
         IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
@@ -729,6 +775,7 @@ public class GraphViewImpl implements GraphView {
         nodeBitVector.or(nodesToAdd);
         nodeCount += addedCount;
         incrementNodeVersion();
+        journalNodes(nodesToAdd);
 
         // Bulk update indexes
         IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
@@ -775,6 +822,26 @@ public class GraphViewImpl implements GraphView {
         }
     }
 
+    // Called by the store before it removes the nodes
+    protected void removeNodes(BitSet nodeIds) {
+        if (nodeView) {
+            BitSet nodesToRemove = (BitSet) nodeBitVector.clone();
+            nodesToRemove.and(nodeIds);
+            if (!nodesToRemove.isEmpty()) {
+                bulkRemoveNodes(nodesToRemove);
+            }
+        }
+    }
+
+    // Called by the store before it removes the edges
+    protected void removeEdges(BitSet edgeIds) {
+        BitSet edgesToRemove = (BitSet) edgeBitVector.clone();
+        edgesToRemove.and(edgeIds);
+        if (!edgesToRemove.isEmpty()) {
+            bulkRemoveEdges(edgesToRemove);
+        }
+    }
+
     /**
      * Bulk remove edges from the view. This is more efficient than removing edges one by one as it updates stats in
      * bulk and increments version only once.
@@ -795,17 +862,22 @@ public class GraphViewImpl implements GraphView {
             int type = edge.type;
             ensureTypeCountArrayCapacity(type);
             typeCounts[type]--;
+            decrementDegrees(edge);
 
             if (edge.isMutual() && !edge.isSelfLoop()) {
                 EdgeImpl reverseEdge = graphStore.edgeStore.get(edge.target, edge.source, edge.type, false);
-                if (reverseEdge != null && containsEdge(reverseEdge)) {
+                // Pairs removed together are only counted once, on their second edge
+                if (reverseEdge != null && (containsEdge(reverseEdge) || (reverseEdge.storeId < i && edgesToRemove
+                        .get(reverseEdge.storeId)))) {
                     mutualEdgeTypeCounts[type]--;
                     mutualEdgesCount--;
+                    decrementMutualDegrees(edge);
                 }
             }
         }
 
         incrementEdgeVersion();
+        journalEdges(edgesToRemove);
 
         // Bulk update indexes
         IndexStore<Edge> indexStore = graphStore.edgeTable.store.indexStore;
@@ -846,17 +918,22 @@ public class GraphViewImpl implements GraphView {
             int type = edge.type;
             ensureTypeCountArrayCapacity(type);
             typeCounts[type]++;
+            incrementDegrees(edge);
 
             if (edge.isMutual() && !edge.isSelfLoop()) {
                 EdgeImpl reverseEdge = graphStore.edgeStore.get(edge.target, edge.source, edge.type, false);
-                if (reverseEdge != null && containsEdge(reverseEdge)) {
+                // Pairs added together are only counted once, on their second edge
+                if (reverseEdge != null && containsEdge(reverseEdge) && (reverseEdge.storeId < i || !edgesToAdd
+                        .get(reverseEdge.storeId))) {
                     mutualEdgeTypeCounts[type]++;
                     mutualEdgesCount++;
+                    incrementMutualDegrees(edge);
                 }
             }
         }
 
         incrementEdgeVersion();
+        journalEdges(edgesToAdd);
 
         // Bulk update indexes
         IndexStore<Edge> indexStore = graphStore.edgeTable.store.indexStore;
@@ -900,14 +977,15 @@ public class GraphViewImpl implements GraphView {
 
             if (edge.isMutual() && !edge.isSelfLoop()) {
                 EdgeImpl reverseEdge = graphStore.edgeStore.get(edge.target, edge.source, edge.type, false);
-                if (reverseEdge != null && containsEdge(reverseEdge)) {
+                if (reverseEdge != null && (containsEdge(reverseEdge) || (reverseEdge.storeId < i && edgesToRemove
+                        .get(reverseEdge.storeId)))) {
                     mutualEdgeTypeCounts[type]--;
                     mutualEdgesCount--;
                 }
             }
         }
-        // Note: Version increment and index updates are handled by the caller (not()
-        // method)
+        // Note: Version increment, degrees and index updates are handled by the caller
+        // (not() method)
     }
 
     public int getNodeCount() {
@@ -939,6 +1017,38 @@ public class GraphViewImpl implements GraphView {
         return typeCounts[type] - mutualEdgeTypeCounts[type];
     }
 
+    public int getDegree(final Node node) {
+        int id = node.getStoreId();
+        if (id < 0 || id >= inDegrees.length) {
+            return 0;
+        }
+        return inDegrees[id] + outDegrees[id];
+    }
+
+    public int getInDegree(final Node node) {
+        int id = node.getStoreId();
+        if (id < 0 || id >= inDegrees.length) {
+            return 0;
+        }
+        return inDegrees[id];
+    }
+
+    public int getOutDegree(final Node node) {
+        int id = node.getStoreId();
+        if (id < 0 || id >= outDegrees.length) {
+            return 0;
+        }
+        return outDegrees[id];
+    }
+
+    public int getUndirectedDegree(final Node node) {
+        int id = node.getStoreId();
+        if (id < 0 || id >= inDegrees.length) {
+            return 0;
+        }
+        return inDegrees[id] + outDegrees[id] - mutualDegrees[id];
+    }
+
     @Override
     public GraphModelImpl getGraphModel() {
         return graphStore.graphModel;
@@ -1015,18 +1125,21 @@ public class GraphViewImpl implements GraphView {
             if (wasMutual && containsEdge(graphStore.edgeStore.get(edgeImpl.target, edgeImpl.source, oldType, false))) {
                 mutualEdgeTypeCounts[oldType]--;
                 mutualEdgesCount--;
+                decrementMutualDegrees(edgeImpl);
             }
 
             if (edgeImpl.isMutual() && containsEdge(graphStore.edgeStore
                     .get(edgeImpl.target, edgeImpl.source, edgeImpl.type, false))) {
                 mutualEdgeTypeCounts[edgeImpl.type]++;
                 mutualEdgesCount++;
+                incrementMutualDegrees(edgeImpl);
             }
         }
     }
 
     private void addEdge(EdgeImpl edgeImpl) {
         incrementEdgeVersion();
+        journalEdge(edgeImpl.storeId);
 
         edgeBitVector.set(edgeImpl.storeId);
         edgeCount++;
@@ -1035,11 +1148,13 @@ public class GraphViewImpl implements GraphView {
         ensureTypeCountArrayCapacity(type);
 
         typeCounts[type]++;
+        incrementDegrees(edgeImpl);
 
         if (edgeImpl.isMutual() && !edgeImpl.isSelfLoop() && containsEdge(graphStore.edgeStore
                 .get(edgeImpl.target, edgeImpl.source, edgeImpl.type, false))) {
             mutualEdgeTypeCounts[type]++;
             mutualEdgesCount++;
+            incrementMutualDegrees(edgeImpl);
         }
 
         IndexStore<Edge> indexStore = graphStore.edgeTable.store.indexStore;
@@ -1054,15 +1169,18 @@ public class GraphViewImpl implements GraphView {
 
     private void removeEdge(EdgeImpl edgeImpl) {
         incrementEdgeVersion();
+        journalEdge(edgeImpl.storeId);
 
         edgeBitVector.clear(edgeImpl.storeId);
         edgeCount--;
         typeCounts[edgeImpl.type]--;
+        decrementDegrees(edgeImpl);
 
         if (edgeImpl.isMutual() && !edgeImpl.isSelfLoop() && containsEdge(graphStore.edgeStore
                 .get(edgeImpl.target, edgeImpl.source, edgeImpl.type, false))) {
             mutualEdgeTypeCounts[edgeImpl.type]--;
             mutualEdgesCount--;
+            decrementMutualDegrees(edgeImpl);
         }
 
         IndexStore<Edge> indexStore = graphStore.edgeTable.store.indexStore;
@@ -1095,6 +1213,91 @@ public class GraphViewImpl implements GraphView {
         }
     }
 
+    private void ensureDegreeArrayCapacity(int id) {
+        if (id >= inDegrees.length) {
+            int newLength = Math.max(id + 1, inDegrees.length + (inDegrees.length >> 1));
+            inDegrees = Arrays.copyOf(inDegrees, newLength);
+            outDegrees = Arrays.copyOf(outDegrees, newLength);
+            mutualDegrees = Arrays.copyOf(mutualDegrees, newLength);
+        }
+    }
+
+    private void incrementDegrees(EdgeImpl edgeImpl) {
+        int sourceId = edgeImpl.source.storeId;
+        int targetId = edgeImpl.target.storeId;
+        ensureDegreeArrayCapacity(Math.max(sourceId, targetId));
+        outDegrees[sourceId]++;
+        inDegrees[targetId]++;
+    }
+
+    private void decrementDegrees(EdgeImpl edgeImpl) {
+        outDegrees[edgeImpl.source.storeId]--;
+        inDegrees[edgeImpl.target.storeId]--;
+    }
+
+    private void incrementMutualDegrees(EdgeImpl edgeImpl) {
+        mutualDegrees[edgeImpl.source.storeId]++;
+        mutualDegrees[edgeImpl.target.storeId]++;
+    }
+
+    private void decrementMutualDegrees(EdgeImpl edgeImpl) {
+        mutualDegrees[edgeImpl.source.storeId]--;
+        mutualDegrees[edgeImpl.target.storeId]--;
+    }
+
+    private void copyStoreDegrees() {
+        int length = graphStore.nodeStore.maxStoreId();
+        inDegrees = new int[length];
+        outDegrees = new int[length];
+        mutualDegrees = new int[length];
+        for (Node n : graphStore.nodeStore) {
+            NodeImpl node = (NodeImpl) n;
+            int id = node.storeId;
+            inDegrees[id] = node.inDegree;
+            outDegrees[id] = node.outDegree;
+            mutualDegrees[id] = node.mutualDegree;
+        }
+    }
+
+    protected void rebuildDegrees() {
+        int length = graphStore.nodeStore.maxStoreId();
+        inDegrees = new int[length];
+        outDegrees = new int[length];
+        mutualDegrees = new int[length];
+        for (int i = edgeBitVector.nextSetBit(0); i >= 0; i = edgeBitVector.nextSetBit(i + 1)) {
+            EdgeImpl edge = graphStore.edgeStore.getForGetByStoreId(i);
+            if (edge == null) {
+                continue; // SAFETY: Skip if edge no longer exists in store
+            }
+            incrementDegrees(edge);
+            if (edge.isMutual() && !edge.isSelfLoop() && edge.source.storeId < edge.target.storeId) {
+                EdgeImpl reverseEdge = graphStore.edgeStore.get(edge.target, edge.source, edge.type, false);
+                if (reverseEdge != null && containsEdge(reverseEdge)) {
+                    incrementMutualDegrees(edge);
+                }
+            }
+        }
+    }
+
+    // Called after the store is compacted
+    protected void remap(int[] nodeRemap, int[] edgeRemap) {
+        if (nodeRemap != null) {
+            if (nodeView) {
+                nodeBitVector = StoreIdRemappingImpl.remap(nodeBitVector, nodeRemap);
+            }
+            int length = graphStore.nodeStore.maxStoreId();
+            inDegrees = StoreIdRemappingImpl.remap(inDegrees, nodeRemap, length);
+            outDegrees = StoreIdRemappingImpl.remap(outDegrees, nodeRemap, length);
+            mutualDegrees = StoreIdRemappingImpl.remap(mutualDegrees, nodeRemap, length);
+        }
+        if (edgeRemap != null) {
+            edgeBitVector = StoreIdRemappingImpl.remap(edgeBitVector, edgeRemap);
+        }
+        if (neighborIndex != null) {
+            neighborIndex.incrementVersion();
+        }
+    }
+
     public int deepHashCode() {
         int hash = 5;
         hash = 17 * hash + (this.nodeView ? 1 : 0);
@@ -1157,12 +1360,51 @@ public class GraphViewImpl implements GraphView {
     }
 
     private int incrementEdgeVersion() {
+        if (neighborIndex != null) {
+            neighborIndex.incrementVersion();
+        }
         if (version != null) {
             return version.incrementAndGetEdgeVersion();
         }
         return 0;
     }
 
+    private void journalNode(int id) {
+        if (version != null) {
+            version.journalNode(id);
+        }
+    }
+
+    private void journalNodes(BitSet ids) {
+        if (version != null) {
+            version.journalNodes(ids);
+        }
+    }
+
+    private void journalEdge(int id) {
+        if (version != null) {
+            version.journalEdge(id);
+        }
+    }
+
+    private void journalEdges(BitSet ids) {
+        if (version != null) {
+            version.journalEdges(ids);
+        }
+    }
+
+    private void invalidateNodeJournal() {
+        if (version != null) {
+            version.invalidateNodeJournal();
+        }
+    }
+
+    private void invalidateEdgeJournal() {
+        if (version != null) {
+            version.invalidateEdgeJournal();
+        }
+    }
+
     private void checkNodeView() {
         if (!nodeView) {
             throw new RuntimeException("This method should only be used on a view with nodes enabled");
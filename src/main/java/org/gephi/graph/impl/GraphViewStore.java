@@ -17,6 +17,7 @@ package org.gephi.graph.impl;
 
 import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
 import it.unimi.dsi.fastutil.ints.IntSortedSet;
+import java.util.BitSet;
 import java.util.function.Predicate;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
@@ -282,6 +283,22 @@ public class GraphViewStore {
         }
     }
 
+    protected void removeNodes(BitSet nodeIds) {
+        for (GraphViewImpl view : views) {
+            if (view != null) {
+                view.removeNodes(nodeIds);
+            }
+        }
+    }
+
+    protected void removeEdges(BitSet edgeIds) {
+        for (GraphViewImpl view : views) {
+            if (view != null) {
+                view.removeEdges(edgeIds);
+            }
+        }
+    }
+
     protected int addView(final GraphViewImpl view) {
         checkNonNullViewObject(view);
 
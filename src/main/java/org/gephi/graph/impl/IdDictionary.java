@@ -0,0 +1,373 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+/**
+ * Dictionary from element ids to store ids.
+ * <p>
+ * When the configured id type is <code>Integer</code> or <code>Long</code> the ids are kept as primitive keys so they
+ * are never boxed. <code>String</code> ids are kept as handles in the {@link StringPool} when one is given. Other id
+ * types use an object map. Lookups with an id of another class return {@link #NULL_ID}.
+ */
+public abstract class IdDictionary {
+
+    // Const
+    protected static final int NULL_ID = -1;
+
+    /**
+     * Creates a dictionary for the given id type, without string pool.
+     *
+     * @param idType id type, or null for any type
+     * @param expected expected number of ids
+     * @param loadFactor load factor
+     * @return new dictionary
+     */
+    public static IdDictionary create(Class idType, int expected, float loadFactor) {
+        return create(idType, null, expected, loadFactor);
+    }
+
+    /**
+     * Creates a dictionary for the given id type.
+     *
+     * @param idType id type, or null for any type
+     * @param stringPool string pool, or null
+     * @param expected expected number of ids
+     * @param loadFactor load factor
+     * @return new dictionary
+     */
+    public static IdDictionary create(Class idType, StringPool stringPool, int expected, float loadFactor) {
+        if (String.class.equals(idType) && stringPool != null) {
+            return new PooledIdDictionary(stringPool, expected, loadFactor);
+        } else if (Integer.class.equals(idType)) {
+            return new IntIdDictionary(expected, loadFactor);
+        } else if (Long.class.equals(idType)) {
+            return new LongIdDictionary(expected, loadFactor);
+        }
+        return new ObjectIdDictionary(expected, loadFactor);
+    }
+
+    public abstract int get(Object id);
+
+    public abstract int get(long id);
+
+    /**
+     * Maps the id to the store id.
+     *
+     * @return the previous store id or {@link #NULL_ID}
+     */
+    public abstract int put(Object id, int storeId);
+
+    /**
+     * Removes the id.
+     *
+     * @return the previous store id or {@link #NULL_ID}
+     */
+    public abstract int remove(Object id);
+
+    public boolean containsKey(Object id) {
+        return get(id) != NULL_ID;
+    }
+
+    /**
+     * Returns true if ids of this class can be stored.
+     */
+    public abstract boolean isValidKey(Object id);
+
+    public abstract int size();
+
+    public abstract void ensureCapacity(int capacity);
+
+    public abstract void trim(int n);
+
+    public abstract void clear();
+
+    protected static class ObjectIdDictionary extends IdDictionary {
+
+        private final Object2IntOpenHashMap<Object> map;
+
+        public ObjectIdDictionary(int expected, float loadFactor) {
+            map = new Object2IntOpenHashMap<>(expected, loadFactor);
+            map.defaultReturnValue(NULL_ID);
+        }
+
+        @Override
+        public int get(Object id) {
+            return map.getInt(id);
+        }
+
+        @Override
+        public int get(long id) {
+            // Ids of untyped stores may be integers or longs
+            if (id >= Integer.MIN_VALUE && id <= Integer.MAX_VALUE) {
+                int storeId = map.getInt((int) id);
+                if (storeId != NULL_ID) {
+                    return storeId;
+                }
+            }
+            return map.getInt(id);
+        }
+
+        @Override
+        public int put(Object id, int storeId) {
+            return map.put(id, storeId);
+        }
+
+        @Override
+        public int remove(Object id) {
+            return map.removeInt(id);
+        }
+
+        @Override
+        public boolean containsKey(Object id) {
+            return map.containsKey(id);
+        }
+
+        @Override
+        public boolean isValidKey(Object id) {
+            return true;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public void ensureCapacity(int capacity) {
+            map.ensureCapacity(capacity);
+        }
+
+        @Override
+        public void trim(int n) {
+            map.trim(n);
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+    }
+
+    protected static class IntIdDictionary extends IdDictionary {
+
+        private final Int2IntOpenHashMap map;
+
+        public IntIdDictionary(int expected, float loadFactor) {
+            map = new Int2IntOpenHashMap(expected, loadFactor);
+            map.defaultReturnValue(NULL_ID);
+        }
+
+        @Override
+        public int get(Object id) {
+            if (id instanceof Integer) {
+                return map.get(((Integer) id).intValue());
+            }
+            return NULL_ID;
+        }
+
+        @Override
+        public int get(long id) {
+            if (id >= Integer.MIN_VALUE && id <= Integer.MAX_VALUE) {
+                return map.get((int) id);
+            }
+            return NULL_ID;
+        }
+
+        @Override
+        public int put(Object id, int storeId) {
+            return map.put(((Integer) id).intValue(), storeId);
+        }
+
+        @Override
+        public int remove(Object id) {
+            if (id instanceof Integer) {
+                return map.remove(((Integer) id).intValue());
+            }
+            return NULL_ID;
+        }
+
+        @Override
+        public boolean isValidKey(Object id) {
+            return id instanceof Integer;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public void ensureCapacity(int capacity) {
+            map.ensureCapacity(capacity);
+        }
+
+        @Override
+        public void trim(int n) {
+            map.trim(n);
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+    }
+
+    protected static class LongIdDictionary extends IdDictionary {
+
+        private final Long2IntOpenHashMap map;
+
+        public LongIdDictionary(int expected, float loadFactor) {
+            map = new Long2IntOpenHashMap(expected, loadFactor);
+            map.defaultReturnValue(NULL_ID);
+        }
+
+        @Override
+        public int get(Object id) {
+            if (id instanceof Long) {
+                return map.get(((Long) id).longValue());
+            }
+            return NULL_ID;
+        }
+
+        @Override
+        public int get(long id) {
+            return map.get(id);
+        }
+
+        @Override
+        public int put(Object id, int storeId) {
+            return map.put(((Long) id).longValue(), storeId);
+        }
+
+        @Override
+        public int remove(Object id) {
+            if (id instanceof Long) {
+                return map.remove(((Long) id).longValue());
+            }
+            return NULL_ID;
+        }
+
+        @Override
+        public boolean isValidKey(Object id) {
+            return id instanceof Long;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public void ensureCapacity(int capacity) {
+            map.ensureCapacity(capacity);
+        }
+
+        @Override
+        public void trim(int n) {
+            map.trim(n);
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+    }
+
+    protected static class PooledIdDictionary extends IdDictionary {
+
+        private final StringPool pool;
+        // Handles to store ids, each key holds a reference in the pool
+        private final Int2IntOpenHashMap map;
+
+        public PooledIdDictionary(StringPool pool, int expected, float loadFactor) {
+            this.pool = pool;
+            map = new Int2IntOpenHashMap(expected, loadFactor);
+            map.defaultReturnValue(NULL_ID);
+        }
+
+        @Override
+        public int get(Object id) {
+            if (id instanceof String) {
+                int handle = pool.find((String) id);
+                if (handle != StringPool.NULL_HANDLE) {
+                    return map.get(handle);
+                }
+            }
+            return NULL_ID;
+        }
+
+        @Override
+        public int get(long id) {
+            return NULL_ID;
+        }
+
+        @Override
+        public int put(Object id, int storeId) {
+            String str = (String) id;
+            int handle = pool.find(str);
+            if (handle != StringPool.NULL_HANDLE && map.containsKey(handle)) {
+                return map.put(handle, storeId);
+            }
+            return map.put(pool.acquire(str), storeId);
+        }
+
+        @Override
+        public int remove(Object id) {
+            if (id instanceof String) {
+                int handle = pool.find((String) id);
+                if (handle != StringPool.NULL_HANDLE && map.containsKey(handle)) {
+                    int storeId = map.remove(handle);
+                    pool.release(handle);
+                    return storeId;
+                }
+            }
+            return NULL_ID;
+        }
+
+        @Override
+        public boolean isValidKey(Object id) {
+            return id instanceof String;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public void ensureCapacity(int capacity) {
+            map.ensureCapacity(capacity);
+        }
+
+        @Override
+        public void trim(int n) {
+            map.trim(n);
+        }
+
+        @Override
+        public void clear() {
+            for (IntIterator itr = map.keySet().iterator(); itr.hasNext();) {
+                pool.release(itr.nextInt());
+            }
+            map.clear();
+        }
+    }
+}
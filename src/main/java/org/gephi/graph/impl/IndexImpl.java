@@ -25,6 +25,7 @@ import org.gephi.graph.api.ColumnIndex;
 import org.gephi.graph.api.Element;
 import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.Index;
+import org.gephi.graph.impl.utils.IntBitmap;
 
 public class IndexImpl<T extends Element> implements Index<T> {
 
@@ -92,6 +93,26 @@ public class IndexImpl<T extends Element> implements Index<T> {
         return get(columnStore.getColumn(key), value);
     }
 
+    @Override
+    public Iterable<T> getAll(Column[] columns, Object[] values) {
+        return new ColumnBitmapIndexImpl.ElementIterable<>(combine(columns, values, true), columnStore);
+    }
+
+    @Override
+    public int countAll(Column[] columns, Object[] values) {
+        return combine(columns, values, true).cardinality();
+    }
+
+    @Override
+    public Iterable<T> getAny(Column[] columns, Object[] values) {
+        return new ColumnBitmapIndexImpl.ElementIterable<>(combine(columns, values, false), columnStore);
+    }
+
+    @Override
+    public int countAny(Column[] columns, Object[] values) {
+        return combine(columns, values, false).cardinality();
+    }
+
     @Override
     public boolean isSortable(Column column) {
         checkNonNullColumnObject(column);
@@ -125,6 +146,61 @@ public class IndexImpl<T extends Element> implements Index<T> {
         return null;
     }
 
+    @Override
+    public Iterable<T> get(Column column, Object from, Object to, boolean inclusive) {
+        checkNonNullColumnObject(column);
+
+        ColumnIndexImpl index = getIndex(column);
+        if (index != null) {
+            return index.get(from, to, inclusive);
+        }
+        return Collections.EMPTY_LIST;
+    }
+
+    @Override
+    public int countRange(Column column, Object from, Object to, boolean inclusive) {
+        checkNonNullColumnObject(column);
+
+        ColumnIndexImpl index = getIndex(column);
+        if (index != null) {
+            return index.countRange(from, to, inclusive);
+        }
+        return 0;
+    }
+
+    @Override
+    public Iterable<T> getTop(Column column, int k) {
+        checkNonNullColumnObject(column);
+
+        ColumnIndexImpl index = getIndex(column);
+        if (index != null) {
+            return index.getTop(k);
+        }
+        return Collections.EMPTY_LIST;
+    }
+
+    @Override
+    public Iterable<T> getBottom(Column column, int k) {
+        checkNonNullColumnObject(column);
+
+        ColumnIndexImpl index = getIndex(column);
+        if (index != null) {
+            return index.getBottom(k);
+        }
+        return Collections.EMPTY_LIST;
+    }
+
+    @Override
+    public Number getQuantile(Column column, double quantile) {
+        checkNonNullColumnObject(column);
+
+        ColumnIndexImpl index = getIndex(column);
+        if (index != null) {
+            return index.getQuantile(quantile);
+        }
+        return null;
+    }
+
     public Iterable<Map.Entry<Object, Set<T>>> get(Column column) {
         checkNonNullColumnObject(column);
 
@@ -206,6 +282,14 @@ public class IndexImpl<T extends Element> implements Index<T> {
         }
     }
 
+    protected void remap(int[] remap) {
+        for (ColumnIndexImpl ai : columns) {
+            if (ai instanceof ColumnBitmapIndexImpl) {
+                ((ColumnBitmapIndexImpl) ai).remap(remap);
+            }
+        }
+    }
+
     protected void addColumn(ColumnImpl col) {
         ensureColumnSize(col.storeId);
         ColumnIndexImpl index = createIndex(col);
@@ -279,10 +363,26 @@ public class IndexImpl<T extends Element> implements Index<T> {
     }
 
     ColumnIndexImpl createIndex(ColumnImpl col) {
+        if (col.isIndexed() && isBitmapIndexed(col)) {
+            return new ColumnBitmapIndexImpl<>(col, columnStore);
+        }
+        if (col.isIndexed() && isConcurrentIndexed(col)) {
+            return new ColumnConcurrentIndexImpl<>(col);
+        }
         return col.isIndexed() && ColumnStandardIndexImpl.isSupportedType(col) ? createStandardIndex(col)
                 : createNoIndex(col, graph);
     }
 
+    boolean isBitmapIndexed(ColumnImpl col) {
+        return columnStore.graphStore != null && columnStore.configuration
+                .isEnableBitmapIndex() && ColumnBitmapIndexImpl.isSupportedType(col);
+    }
+
+    boolean isConcurrentIndexed(ColumnImpl col) {
+        return columnStore.graphStore != null && columnStore.configuration
+                .isEnableConcurrentIndex() && ColumnConcurrentIndexImpl.isSupportedType(col);
+    }
+
     ColumnNoIndexImpl createNoIndex(ColumnImpl column, Graph graph) {
         return new ColumnNoIndexImpl(column, graph, columnStore.elementType);
     }
@@ -352,6 +452,41 @@ public class IndexImpl<T extends Element> implements Index<T> {
         return new ColumnStandardIndexImpl.DefaultStandardIndex<T>(column);
     }
 
+    private IntBitmap combine(Column[] columns, Object[] values, boolean intersect) {
+        checkNonNullObject(columns);
+        checkNonNullObject(values);
+        if (columns.length != values.length) {
+            throw new IllegalArgumentException("The columns and values arrays should have the same length");
+        }
+
+        IntBitmap result = null;
+        for (int i = 0; i < columns.length; i++) {
+            checkNonNullColumnObject(columns[i]);
+
+            ColumnIndexImpl index = getIndex(columns[i]);
+            if (index instanceof ColumnBitmapIndexImpl) {
+                ColumnBitmapIndexImpl bitmapIndex = (ColumnBitmapIndexImpl) index;
+                result = intersect ? bitmapIndex.and(result, values[i]) : bitmapIndex.or(result, values[i]);
+            } else {
+                IntBitmap bitmap = new IntBitmap();
+                if (index != null) {
+                    for (Object element : index.get(values[i])) {
+                        bitmap.add(((Element) element).getStoreId());
+                    }
+                }
+                if (result == null) {
+                    result = bitmap;
+                } else {
+                    result = intersect ? IntBitmap.and(result, bitmap) : IntBitmap.or(result, bitmap);
+                }
+            }
+            if (intersect && result.isEmpty()) {
+                break;
+            }
+        }
+        return result != null ? result : new IntBitmap();
+    }
+
     private void ensureColumnSize(int index) {
         if (index >= columns.length) {
             ColumnIndexImpl[] newArray = new ColumnIndexImpl[index + 1];
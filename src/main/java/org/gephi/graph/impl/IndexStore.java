@@ -281,6 +281,21 @@ public class IndexStore<T extends Element> {
         }
     }
 
+    // Called after the store is compacted, only bitmap indexes are keyed by store id
+    public void remap(int[] remap) {
+        lock();
+        try {
+            mainIndex.remap(remap);
+            synchronized (viewIndexes) {
+                for (IndexImpl index : viewIndexes.values()) {
+                    index.remap(remap);
+                }
+            }
+        } finally {
+            unlock();
+        }
+    }
+
     private void lock() {
         if (lock != null) {
             lock.lock();
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event emitted when an instrumented lock is released.
+ */
+@Name("org.gephi.graph.Lock")
+@Label("Graph Lock")
+@Category({ "Gephi", "Graphstore" })
+@Description("Outermost hold of a graph, table or spatial index lock")
+class LockEvent extends jdk.jfr.Event {
+
+    @Label("Lock")
+    String lock;
+
+    @Label("Wait Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long waitTime;
+
+    @Label("Hold Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long holdTime;
+
+    @Label("Contended")
+    boolean contended;
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import org.gephi.graph.api.LockMetrics;
+import org.gephi.graph.api.LockStatistics;
+
+public class LockMetricsImpl implements LockMetrics {
+
+    // Graph lock
+    protected final LockStatisticsImpl graphReadLock = new LockStatisticsImpl("graph.read");
+    protected final LockStatisticsImpl graphWriteLock = new LockStatisticsImpl("graph.write");
+    // Table locks
+    protected final LockStatisticsImpl tableLock = new LockStatisticsImpl("table");
+    // Spatial index lock
+    protected final LockStatisticsImpl spatialIndexReadLock = new LockStatisticsImpl("spatialIndex.read");
+    protected final LockStatisticsImpl spatialIndexWriteLock = new LockStatisticsImpl("spatialIndex.write");
+
+    protected static LockStatisticsImpl getTableLockStatistics(GraphStore graphStore) {
+        if (graphStore == null || graphStore.lockMetrics == null) {
+            return null;
+        }
+        return graphStore.lockMetrics.tableLock;
+    }
+
+    @Override
+    public LockStatistics getGraphReadLockStatistics() {
+        return graphReadLock;
+    }
+
+    @Override
+    public LockStatistics getGraphWriteLockStatistics() {
+        return graphWriteLock;
+    }
+
+    @Override
+    public LockStatistics getTableLockStatistics() {
+        return tableLock;
+    }
+
+    @Override
+    public LockStatistics getSpatialIndexReadLockStatistics() {
+        return spatialIndexReadLock;
+    }
+
+    @Override
+    public LockStatistics getSpatialIndexWriteLockStatistics() {
+        return spatialIndexWriteLock;
+    }
+
+    @Override
+    public void reset() {
+        graphReadLock.reset();
+        graphWriteLock.reset();
+        tableLock.reset();
+        spatialIndexReadLock.reset();
+        spatialIndexWriteLock.reset();
+    }
+}
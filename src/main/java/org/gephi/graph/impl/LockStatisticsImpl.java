@@ -0,0 +1,215 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.gephi.graph.api.LockStatistics;
+
+/**
+ * Records the wait and hold times of a lock.
+ * <p>
+ * Lock implementations call {@link #recordAcquisition(long, boolean)} after their outermost acquisition and
+ * {@link #recordRelease()} before their outermost release, on the same thread. Locks without statistics don't call
+ * anything.
+ * <p>
+ * The acquisition state of these two methods is kept per thread, so a thread can't hold two locks sharing the same
+ * statistics. Exclusive locks which may nest with each other keep their own state and call
+ * {@link #recordAcquisition(long, long, boolean)} and {@link #recordRelease(long, long, boolean)} instead.
+ */
+public class LockStatisticsImpl implements LockStatistics {
+
+    protected static final int BUCKETS = 64;
+
+    protected final String name;
+    // Counters
+    protected final LongAdder acquisitions = new LongAdder();
+    protected final LongAdder contendedAcquisitions = new LongAdder();
+    protected final LongAdder failedUpgrades = new LongAdder();
+    protected final LongAdder totalWaitTime = new LongAdder();
+    protected final LongAdder totalHoldTime = new LongAdder();
+    protected final LongAccumulator maxWaitTime = new LongAccumulator(Math::max, 0);
+    protected final LongAccumulator maxHoldTime = new LongAccumulator(Math::max, 0);
+    // Histograms
+    protected final AtomicLongArray waitHistogram = new AtomicLongArray(BUCKETS);
+    protected final AtomicLongArray holdHistogram = new AtomicLongArray(BUCKETS);
+    // Hold time by thread name
+    protected final Map<String, LongAdder> holders = new ConcurrentHashMap<>();
+    // Acquisition time, wait time and contention of the current thread
+    private final ThreadLocal<long[]> acquisition = ThreadLocal.withInitial(() -> new long[3]);
+
+    public LockStatisticsImpl(String name) {
+        this.name = name;
+    }
+
+    protected void recordAcquisition(long startTime, boolean contended) {
+        long now = System.nanoTime();
+        long[] current = acquisition.get();
+        current[0] = now;
+        current[1] = now - startTime;
+        current[2] = contended ? 1 : 0;
+        recordAcquisition(startTime, now, contended);
+    }
+
+    protected void recordRelease() {
+        long[] current = acquisition.get();
+        recordRelease(current[0], current[1], current[2] != 0);
+    }
+
+    protected void recordAcquisition(long startTime, long acquisitionTime, boolean contended) {
+        long waitTime = acquisitionTime - startTime;
+
+        acquisitions.increment();
+        if (contended) {
+            contendedAcquisitions.increment();
+        }
+        totalWaitTime.add(waitTime);
+        maxWaitTime.accumulate(waitTime);
+        waitHistogram.incrementAndGet(bucket(waitTime));
+    }
+
+    protected void recordRelease(long acquisitionTime, long waitTime, boolean contended) {
+        long holdTime = System.nanoTime() - acquisitionTime;
+
+        totalHoldTime.add(holdTime);
+        maxHoldTime.accumulate(holdTime);
+        holdHistogram.incrementAndGet(bucket(holdTime));
+        holders.computeIfAbsent(Thread.currentThread().getName(), k -> new LongAdder()).add(holdTime);
+
+        LockEvent event = new LockEvent();
+        if (event.isEnabled()) {
+            event.lock = name;
+            event.waitTime = waitTime;
+            event.holdTime = holdTime;
+            event.contended = contended;
+            event.commit();
+        }
+    }
+
+    protected void recordFailedUpgrade() {
+        failedUpgrades.increment();
+    }
+
+    protected void reset() {
+        acquisitions.reset();
+        contendedAcquisitions.reset();
+        failedUpgrades.reset();
+        totalWaitTime.reset();
+        totalHoldTime.reset();
+        maxWaitTime.reset();
+        maxHoldTime.reset();
+        for (int i = 0; i < BUCKETS; i++) {
+            waitHistogram.set(i, 0);
+            holdHistogram.set(i, 0);
+        }
+        holders.clear();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getAcquisitionCount() {
+        return acquisitions.sum();
+    }
+
+    @Override
+    public long getContendedAcquisitionCount() {
+        return contendedAcquisitions.sum();
+    }
+
+    @Override
+    public long getFailedUpgradeCount() {
+        return failedUpgrades.sum();
+    }
+
+    @Override
+    public long getTotalWaitTime() {
+        return totalWaitTime.sum();
+    }
+
+    @Override
+    public long getMaxWaitTime() {
+        return maxWaitTime.get();
+    }
+
+    @Override
+    public long getTotalHoldTime() {
+        return totalHoldTime.sum();
+    }
+
+    @Override
+    public long getMaxHoldTime() {
+        return maxHoldTime.get();
+    }
+
+    @Override
+    public long[] getWaitTimeHistogram() {
+        return toArray(waitHistogram);
+    }
+
+    @Override
+    public long[] getHoldTimeHistogram() {
+        return toArray(holdHistogram);
+    }
+
+    @Override
+    public Map<String, Long> getTopHolders(int count) {
+        checkCount(count);
+
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(holders.size());
+        holders.forEach((thread, time) -> entries.add(Map.entry(thread, time.sum())));
+        entries.sort(Map.Entry.<String, Long> comparingByValue().reversed());
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size() && i < count; i++) {
+            Map.Entry<String, Long> entry = entries.get(i);
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (acquisitions=" + getAcquisitionCount() + ", contended=" + getContendedAcquisitionCount() + ", wait=" + getTotalWaitTime() + "ns, hold=" + getTotalHoldTime() + "ns)";
+    }
+
+    protected static int bucket(long duration) {
+        return duration <= 0 ? 0 : Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(duration));
+    }
+
+    private static long[] toArray(AtomicLongArray histogram) {
+        long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            result[i] = histogram.get(i);
+        }
+        return result;
+    }
+
+    private static void checkCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The count should be positive");
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Sorted neighbor store ids per node, used by common neighbor queries.
+ * <p>
+ * A row holds the distinct store ids of the nodes connected to a node by an edge of any type and direction, excluding
+ * the node itself. Rows are built lazily and all discarded once the version is incremented, which the owning store or
+ * view does on every edge change.
+ */
+public class NeighborIndexImpl {
+
+    protected static final int[] EMPTY_ROW = new int[0];
+    // Size ratio above which the smaller row gallops through the larger one instead of merging
+    protected static final int GALLOP_RATIO = 16;
+    // Version
+    protected int version;
+    private int rowsVersion;
+    // Rows
+    private int[][] rows = new int[0][];
+    private int[] buffer = EMPTY_ROW;
+
+    protected void incrementVersion() {
+        version++;
+    }
+
+    protected synchronized int[] getRow(EdgeStore edgeStore, NodeImpl node, BitSet edgeFilter) {
+        if (rowsVersion != version) {
+            Arrays.fill(rows, null);
+            rowsVersion = version;
+        }
+        int id = node.storeId;
+        if (id >= rows.length) {
+            rows = Arrays.copyOf(rows, Math.max(id + 1, rows.length * 2));
+        }
+        int[] row = rows[id];
+        if (row == null) {
+            int count = edgeStore.neighborStoreIds(node, edgeFilter, buffer);
+            if (count > buffer.length) {
+                buffer = new int[count];
+                edgeStore.neighborStoreIds(node, edgeFilter, buffer);
+            }
+            row = toRow(node.storeId, buffer, count);
+            rows[id] = row;
+        }
+        return row;
+    }
+
+    protected static int[] buildRow(EdgeStore edgeStore, NodeImpl node, BitSet edgeFilter) {
+        int[] neighbors = new int[edgeStore.neighborStoreIds(node, edgeFilter, EMPTY_ROW)];
+        edgeStore.neighborStoreIds(node, edgeFilter, neighbors);
+        return toRow(node.storeId, neighbors, neighbors.length);
+    }
+
+    // Sorts the neighbors in place and returns them without duplicates and without the node itself
+    protected static int[] toRow(int storeId, int[] neighbors, int count) {
+        if (count == 0) {
+            return EMPTY_ROW;
+        }
+        Arrays.sort(neighbors, 0, count);
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            int id = neighbors[i];
+            if (id != storeId && (length == 0 || neighbors[length - 1] != id)) {
+                neighbors[length++] = id;
+            }
+        }
+        return Arrays.copyOf(neighbors, length);
+    }
+
+    /**
+     * Intersects two sorted rows of distinct ids.
+     * <p>
+     * Rows of similar sizes are merged linearly. Otherwise each id of the smaller row is searched in the larger row by
+     * galloping from the previous match, which is logarithmic in the distance between consecutive matches.
+     *
+     * @param a first sorted row
+     * @param b second sorted row
+     * @param buffer destination or <code>null</code> to only count, ids past its length are counted but not copied
+     * @return the number of common ids
+     */
+    protected static int intersect(int[] a, int[] b, int[] buffer) {
+        if (a.length > b.length) {
+            int[] tmp = a;
+            a = b;
+            b = tmp;
+        }
+        if (a.length == 0) {
+            return 0;
+        }
+        if (b.length / a.length >= GALLOP_RATIO) {
+            return gallop(a, b, buffer);
+        }
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            int x = a[i];
+            int y = b[j];
+            if (x < y) {
+                i++;
+            } else if (x > y) {
+                j++;
+            } else {
+                count = emit(x, count, buffer);
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private static int gallop(int[] small, int[] large, int[] buffer) {
+        int count = 0;
+        int low = 0;
+        for (int i = 0; i < small.length && low < large.length; i++) {
+            int x = small[i];
+            int bound = 1;
+            while (low + bound < large.length && large[low + bound] < x) {
+                bound <<= 1;
+            }
+            int pos = Arrays.binarySearch(large, low + (bound >> 1), Math.min(low + bound + 1, large.length), x);
+            if (pos >= 0) {
+                count = emit(x, count, buffer);
+                low = pos + 1;
+            } else {
+                low = -pos - 1;
+            }
+        }
+        return count;
+    }
+
+    private static int emit(int id, int count, int[] buffer) {
+        if (buffer != null && count < buffer.length) {
+            buffer[count] = id;
+        }
+        return count + 1;
+    }
+}
@@ -108,17 +108,17 @@ public class NodeImpl extends ElementImpl implements Node {
 
     @Override
     public float x() {
-        return properties.x;
+        return properties.x();
     }
 
     @Override
     public float y() {
-        return properties.y;
+        return properties.y();
     }
 
     @Override
     public float z() {
-        return properties.z;
+        return properties.z();
     }
 
     @Override
@@ -153,7 +153,7 @@ public class NodeImpl extends ElementImpl implements Node {
 
     @Override
     public float size() {
-        return properties.size;
+        return properties.size();
     }
 
     @Override
@@ -186,11 +186,9 @@ public class NodeImpl extends ElementImpl implements Node {
     }
 
     protected void setNodeProperties(NodePropertiesImpl nodeProperties) {
-        properties.x = nodeProperties.x;
-        properties.y = nodeProperties.y;
-        properties.z = nodeProperties.z;
+        properties.setPosition(nodeProperties.x(), nodeProperties.y(), nodeProperties.z());
         properties.rgba = nodeProperties.rgba;
-        properties.size = nodeProperties.size;
+        properties.setSize(nodeProperties.size());
         properties.fixed = nodeProperties.fixed;
         if (properties.textProperties != null) {
             properties.setTextProperties(nodeProperties.textProperties);
@@ -316,6 +314,9 @@ public class NodeImpl extends ElementImpl implements Node {
         protected boolean fixed;
         protected LayoutData layoutData;
         protected SpatialNodeDataImpl spatialData;
+        // Position store (optional), replaces the x, y, z and size fields while set
+        protected NodePositionStore positionStore;
+        protected int positionId = NodeStore.NULL_ID;
 
         public NodePropertiesImpl() {
             this.textProperties = new TextPropertiesImpl();
@@ -324,16 +325,28 @@ public class NodeImpl extends ElementImpl implements Node {
 
         @Override
         public float x() {
+            final NodePositionStore store = positionStore;
+            if (store != null) {
+                return store.x(positionId);
+            }
             return x;
         }
 
         @Override
         public float y() {
+            final NodePositionStore store = positionStore;
+            if (store != null) {
+                return store.y(positionId);
+            }
             return y;
         }
 
         @Override
         public float z() {
+            final NodePositionStore store = positionStore;
+            if (store != null) {
+                return store.z(positionId);
+            }
             return z;
         }
 
@@ -369,6 +382,10 @@ public class NodeImpl extends ElementImpl implements Node {
 
         @Override
         public float size() {
+            final NodePositionStore store = positionStore;
+            if (store != null) {
+                return store.size(positionId);
+            }
             return size;
         }
 
@@ -396,30 +413,45 @@ public class NodeImpl extends ElementImpl implements Node {
 
         @Override
         public void setX(float x) {
-            this.x = x;
+            final NodePositionStore store = positionStore;
+            if (store != null) {
+                store.setX(positionId, x);
+            } else {
+                this.x = x;
+            }
         }
 
         @Override
         public void setY(float y) {
-            this.y = y;
+            final NodePositionStore store = positionStore;
+            if (store != null) {
+                store.setY(positionId, y);
+            } else {
+                this.y = y;
+            }
         }
 
         @Override
         public void setZ(float z) {
-            this.z = z;
+            final NodePositionStore store = positionStore;
+            if (store != null) {
+                store.setZ(positionId, z);
+            } else {
+                this.z = z;
+            }
         }
 
         @Override
         public void setPosition(float x, float y) {
-            this.x = x;
-            this.y = y;
+            setX(x);
+            setY(y);
         }
 
         @Override
         public void setPosition(float x, float y, float z) {
-            this.x = x;
-            this.y = y;
-            this.z = z;
+            setX(x);
+            setY(y);
+            setZ(z);
         }
 
         @Override
@@ -449,7 +481,12 @@ public class NodeImpl extends ElementImpl implements Node {
 
         @Override
         public void setSize(float size) {
-            this.size = size;
+            final NodePositionStore store = positionStore;
+            if (store != null) {
+                store.setSize(positionId, size);
+            } else {
+                this.size = size;
+            }
         }
 
         @Override
@@ -470,13 +507,43 @@ public class NodeImpl extends ElementImpl implements Node {
             this.spatialData = spatialData;
         }
 
+        // Called when the node is added to the store
+        protected void attach(NodePositionStore store, int storeId) {
+            store.set(storeId, x, y, z, size);
+            positionId = storeId;
+            positionStore = store;
+        }
+
+        // Called when the node is removed from the store
+        protected void detach() {
+            final NodePositionStore store = positionStore;
+            if (store != null) {
+                x = store.x(positionId);
+                y = store.y(positionId);
+                z = store.z(positionId);
+                size = store.size(positionId);
+                positionStore = null;
+                positionId = NodeStore.NULL_ID;
+            }
+        }
+
+        // Called when the store renumbers the node, values are moved in ascending store id order
+        protected void move(int storeId) {
+            final NodePositionStore store = positionStore;
+            if (store != null && positionId != storeId) {
+                store.set(storeId, store.x(positionId), store.y(positionId), store.z(positionId), store
+                        .size(positionId));
+                positionId = storeId;
+            }
+        }
+
         public int deepHashCode() {
             int hash = 3;
-            hash = 53 * hash + Float.floatToIntBits(this.x);
-            hash = 53 * hash + Float.floatToIntBits(this.y);
-            hash = 53 * hash + Float.floatToIntBits(this.z);
+            hash = 53 * hash + Float.floatToIntBits(this.x());
+            hash = 53 * hash + Float.floatToIntBits(this.y());
+            hash = 53 * hash + Float.floatToIntBits(this.z());
             hash = 53 * hash + this.rgba;
-            hash = 53 * hash + Float.floatToIntBits(this.size);
+            hash = 53 * hash + Float.floatToIntBits(this.size());
             hash = 53 * hash + (this.fixed ? 1 : 0);
             hash = 53 * hash + (this.layoutData != null ? this.layoutData.hashCode() : 0);
             hash = 53 * hash + (this.textProperties != null ? this.textProperties.deepHashCode() : 0);
@@ -487,19 +554,19 @@ public class NodeImpl extends ElementImpl implements Node {
             if (obj == null) {
                 return false;
             }
-            if (Float.floatToIntBits(this.x) != Float.floatToIntBits(obj.x)) {
+            if (Float.floatToIntBits(this.x()) != Float.floatToIntBits(obj.x())) {
                 return false;
             }
-            if (Float.floatToIntBits(this.y) != Float.floatToIntBits(obj.y)) {
+            if (Float.floatToIntBits(this.y()) != Float.floatToIntBits(obj.y())) {
                 return false;
             }
-            if (Float.floatToIntBits(this.z) != Float.floatToIntBits(obj.z)) {
+            if (Float.floatToIntBits(this.z()) != Float.floatToIntBits(obj.z())) {
                 return false;
             }
             if (this.rgba != obj.rgba) {
                 return false;
             }
-            if (Float.floatToIntBits(this.size) != Float.floatToIntBits(obj.size)) {
+            if (Float.floatToIntBits(this.size()) != Float.floatToIntBits(obj.size())) {
                 return false;
             }
             if (this.fixed != obj.fixed) {
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Arrays;
+
+/**
+ * Node positions and sizes stored in <code>float</code> arrays indexed by store id.
+ * <p>
+ * Arrays are allocated in blocks with the same size as the node store blocks so the storage grows with the store. Nodes
+ * only use this storage while they belong to the store, see
+ * {@link NodeImpl.NodePropertiesImpl#attach(NodePositionStore, int)} and {@link NodeImpl.NodePropertiesImpl#detach()}.
+ * The values at store ids not assigned to a node are unspecified.
+ */
+public class NodePositionStore {
+
+    // Config
+    protected final int blockSize;
+    // Data, indexed by block
+    protected float[][] x;
+    protected float[][] y;
+    protected float[][] z;
+    protected float[][] size;
+
+    public NodePositionStore() {
+        this(GraphStoreConfiguration.NODESTORE_BLOCK_SIZE);
+    }
+
+    public NodePositionStore(int blockSize) {
+        this.blockSize = blockSize;
+        clear();
+    }
+
+    public float x(int storeId) {
+        return x[storeId / blockSize][storeId % blockSize];
+    }
+
+    public float y(int storeId) {
+        return y[storeId / blockSize][storeId % blockSize];
+    }
+
+    public float z(int storeId) {
+        return z[storeId / blockSize][storeId % blockSize];
+    }
+
+    public float size(int storeId) {
+        return size[storeId / blockSize][storeId % blockSize];
+    }
+
+    public void setX(int storeId, float value) {
+        x[storeId / blockSize][storeId % blockSize] = value;
+    }
+
+    public void setY(int storeId, float value) {
+        y[storeId / blockSize][storeId % blockSize] = value;
+    }
+
+    public void setZ(int storeId, float value) {
+        z[storeId / blockSize][storeId % blockSize] = value;
+    }
+
+    public void setSize(int storeId, float value) {
+        size[storeId / blockSize][storeId % blockSize] = value;
+    }
+
+    protected void set(int storeId, float xValue, float yValue, float zValue, float sizeValue) {
+        int block = storeId / blockSize;
+        int i = storeId % blockSize;
+        ensureBlock(block);
+        x[block][i] = xValue;
+        y[block][i] = yValue;
+        z[block][i] = zValue;
+        size[block][i] = sizeValue;
+    }
+
+    /**
+     * Copies the positions of the store ids below <code>length</code> into the given arrays.
+     */
+    protected void getPositions(float[] xs, float[] ys, int length) {
+        copyTo(x, xs, length);
+        copyTo(y, ys, length);
+    }
+
+    /**
+     * Copies the positions of the store ids below <code>length</code> from the given arrays.
+     */
+    protected void setPositions(float[] xs, float[] ys, int length) {
+        copyFrom(xs, x, length);
+        copyFrom(ys, y, length);
+    }
+
+    protected void getSizes(float[] sizes, int length) {
+        copyTo(size, sizes, length);
+    }
+
+    // Releases the blocks past the last store id, called once the store is compacted
+    protected void trim(int maxStoreId) {
+        int blocks = Math.max(1, (maxStoreId + blockSize - 1) / blockSize);
+        for (int block = blocks; block < x.length; block++) {
+            x[block] = null;
+            y[block] = null;
+            z[block] = null;
+            size[block] = null;
+        }
+    }
+
+    protected void clear() {
+        x = new float[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+        y = new float[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+        z = new float[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+        size = new float[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS][];
+    }
+
+    private void ensureBlock(int block) {
+        if (block >= x.length) {
+            int length = Math.max(block + 1, x.length * 2);
+            x = Arrays.copyOf(x, length);
+            y = Arrays.copyOf(y, length);
+            z = Arrays.copyOf(z, length);
+            size = Arrays.copyOf(size, length);
+        }
+        if (x[block] == null) {
+            x[block] = new float[blockSize];
+            y[block] = new float[blockSize];
+            z[block] = new float[blockSize];
+            size[block] = new float[blockSize];
+        }
+    }
+
+    private void copyTo(float[][] blocks, float[] dest, int length) {
+        for (int block = 0, offset = 0; offset < length; block++, offset += blockSize) {
+            if (block < blocks.length && blocks[block] != null) {
+                System.arraycopy(blocks[block], 0, dest, offset, Math.min(blockSize, length - offset));
+            }
+        }
+    }
+
+    private void copyFrom(float[] src, float[][] blocks, int length) {
+        for (int block = 0, offset = 0; offset < length; block++, offset += blockSize) {
+            if (block < blocks.length && blocks[block] != null) {
+                System.arraycopy(src, offset, blocks[block], 0, Math.min(blockSize, length - offset));
+            }
+        }
+    }
+}
@@ -16,10 +16,10 @@
 
 package org.gephi.graph.impl;
 
-import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.HashSet;
@@ -46,6 +46,12 @@ public class NodeStore implements Collection<Node>, NodeIterable {
     protected final GraphVersion version;
     // View store
     protected final GraphViewStore viewStore;
+    // Id type, null if not typed
+    protected final Class idType;
+    // String pool (optional)
+    protected final StringPool stringPool;
+    // Position store (optional)
+    protected final NodePositionStore positionStore;
     // Data
     protected int size;
     protected int garbageSize;
@@ -53,9 +59,12 @@ public class NodeStore implements Collection<Node>, NodeIterable {
     protected int currentBlockIndex;
     protected NodeBlock[] blocks;
     protected NodeBlock currentBlock;
-    protected Object2IntOpenHashMap dictionary;
+    protected IdDictionary dictionary;
 
     public NodeStore() {
+        this.idType = null;
+        this.stringPool = null;
+        this.positionStore = null;
         initStore();
         this.lock = null;
         this.edgeStore = null;
@@ -65,6 +74,18 @@ public class NodeStore implements Collection<Node>, NodeIterable {
     }
 
     public NodeStore(final EdgeStore edgeStore, final SpatialIndexImpl spatialIndex, final GraphLockImpl lock, final GraphViewStore viewStore, final GraphVersion graphVersion) {
+        this(edgeStore, spatialIndex, null, null, lock, viewStore, graphVersion);
+    }
+
+    public NodeStore(final EdgeStore edgeStore, final SpatialIndexImpl spatialIndex, final ConfigurationImpl configuration, final GraphLockImpl lock, final GraphViewStore viewStore, final GraphVersion graphVersion) {
+        this(edgeStore, spatialIndex, configuration, null, lock, viewStore, graphVersion);
+    }
+
+    public NodeStore(final EdgeStore edgeStore, final SpatialIndexImpl spatialIndex, final ConfigurationImpl configuration, final StringPool stringPool, final GraphLockImpl lock, final GraphViewStore viewStore, final GraphVersion graphVersion) {
+        this.idType = configuration != null ? configuration.getNodeIdType() : null;
+        this.stringPool = stringPool;
+        this.positionStore = configuration != null && configuration.isEnableColumnarPositions()
+                ? new NodePositionStore() : null;
         initStore();
         this.lock = lock;
         this.edgeStore = edgeStore;
@@ -81,9 +102,8 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         this.blocks = new NodeBlock[GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS];
         this.blocks[0] = new NodeBlock(0);
         this.currentBlock = blocks[currentBlockIndex];
-        this.dictionary = new Object2IntOpenHashMap(GraphStoreConfiguration.NODESTORE_DEFAULT_DICTIONARY_SIZE,
-                GraphStoreConfiguration.NODESTORE_DICTIONARY_LOAD_FACTOR);
-        this.dictionary.defaultReturnValue(NULL_ID);
+        this.dictionary = IdDictionary
+                .create(idType, stringPool, GraphStoreConfiguration.NODESTORE_DEFAULT_DICTIONARY_SIZE, GraphStoreConfiguration.NODESTORE_DICTIONARY_LOAD_FACTOR);
     }
 
     private void ensureCapacity(final int capacity) {
@@ -120,6 +140,26 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         }
     }
 
+    // Releases the trailing blocks left with only garbage
+    private void trimBlocks() {
+        int i = blocksCount - 1;
+        NodeBlock block = blocks[i];
+        while (block.garbageLength == block.nodeLength && i >= 0) {
+            if (i != 0) {
+                blocks[i] = null;
+                blocksCount--;
+                garbageSize -= block.nodeLength;
+                block = blocks[--i];
+                currentBlock = block;
+                currentBlockIndex--;
+            } else {
+                currentBlock.clear();
+                garbageSize = 0;
+                break;
+            }
+        }
+    }
+
     private void trimDictionary() {
         dictionary.trim(Math.max(GraphStoreConfiguration.NODESTORE_BLOCK_SIZE, size * 2));
     }
@@ -139,7 +179,15 @@ public class NodeStore implements Collection<Node>, NodeIterable {
     }
 
     public NodeImpl get(final Object id) {
-        int index = dictionary.getInt(id);
+        int index = dictionary.get(id);
+        if (index != NodeStore.NULL_ID) {
+            return get(index);
+        }
+        return null;
+    }
+
+    public NodeImpl getById(final long id) {
+        int index = dictionary.get(id);
         if (index != NodeStore.NULL_ID) {
             return get(index);
         }
@@ -151,16 +199,25 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         if (!isEmpty()) {
             incrementVersion();
         }
+        if (version != null) {
+            version.invalidateNodeJournal();
+        }
 
         for (NodeStoreIterator itr = new NodeStoreIterator(); itr.hasNext();) {
             NodeImpl node = itr.next();
+            node.attributes.detach();
+            detachProperties(node);
             node.setStoreId(NodeStore.NULL_ID);
         }
+        if (positionStore != null) {
+            positionStore.clear();
+        }
 
         if (this.spatialIndex != null) {
             this.spatialIndex.clearNodes();
         }
 
+        dictionary.clear();
         initStore();
     }
 
@@ -306,10 +363,14 @@ public class NodeStore implements Collection<Node>, NodeIterable {
                 dictionary.put(node.getId(), node.storeId);
             }
             node.indexAttributes();
+            attachProperties(node);
 
             if (spatialIndex != null) {
                 spatialIndex.addNode(node);
             }
+            if (version != null) {
+                version.journalNode(node.storeId);
+            }
 
             size++;
 
@@ -339,8 +400,12 @@ public class NodeStore implements Collection<Node>, NodeIterable {
             }
 
             node.destroyAttributes();
+            detachProperties(node);
 
             incrementVersion();
+            if (version != null) {
+                version.journalNode(id);
+            }
 
             int storeIndex = id / GraphStoreConfiguration.NODESTORE_BLOCK_SIZE;
             NodeBlock block = blocks[storeIndex];
@@ -350,19 +415,8 @@ public class NodeStore implements Collection<Node>, NodeIterable {
             dictionary.remove(node.getId());
             trimDictionary();
 
-            for (int i = storeIndex; i == (blocksCount - 1) && block.garbageLength == block.nodeLength && i >= 0;) {
-                if (i != 0) {
-                    blocks[i] = null;
-                    blocksCount--;
-                    garbageSize -= block.nodeLength;
-                    block = blocks[--i];
-                    currentBlock = block;
-                    currentBlockIndex--;
-                } else {
-                    currentBlock.clear();
-                    garbageSize = 0;
-                    break;
-                }
+            if (storeIndex == blocksCount - 1) {
+                trimBlocks();
             }
 
             return true;
@@ -412,6 +466,11 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         checkCollection(c);
 
         if (!c.isEmpty()) {
+            NodeImpl[] bulkNodes = prepareBulkAdd(c);
+            if (bulkNodes != null && bulkAdd(bulkNodes)) {
+                return true;
+            }
+
             int capacityNeeded = c.size() - garbageSize;
             if (capacityNeeded > 0) {
                 ensureCapacity(capacityNeeded);
@@ -429,6 +488,102 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         return false;
     }
 
+    /**
+     * Returns the nodes as an array if the batch can take the bulk path, or null if it should go through
+     * {@link #add(Node)} one node at a time.
+     * <p>
+     * Ids are validated like in {@link #add(Node)}. A batch with an id of the wrong type or an id already in the store
+     * falls back to the sequential path, which throws the same exception with the same partial addition.
+     */
+    private NodeImpl[] prepareBulkAdd(final Collection<? extends Node> c) {
+        if (c.size() < GraphStoreConfiguration.BULK_LOAD_THRESHOLD || garbageSize > 0) {
+            return null;
+        }
+        NodeImpl[] nodes = new NodeImpl[c.size()];
+        int i = 0;
+        for (Node n : c) {
+            if (!(n instanceof NodeImpl) || i == nodes.length || ((NodeImpl) n).storeId != NULL_ID || !isNewId(n
+                    .getId())) {
+                return null;
+            }
+            nodes[i++] = (NodeImpl) n;
+        }
+        return i == nodes.length ? nodes : null;
+    }
+
+    /**
+     * Adds a batch prepared by {@link #prepareBulkAdd(Collection)}. Blocks and the dictionary are sized once, the
+     * version is incremented once and attribute and spatial indexing are done in one final pass.
+     *
+     * @return false if nothing was changed because of a duplicate id, the caller should then use the sequential path
+     */
+    private boolean bulkAdd(final NodeImpl[] nodes) {
+        int count = nodes.length;
+
+        int savedBlockIndex = currentBlockIndex;
+        int savedBlockLength = currentBlock.nodeLength;
+        int savedBlocksCount = blocksCount;
+        ensureCapacity(count);
+        dictionary.ensureCapacity(size + count);
+        currentBlockIndex = savedBlockIndex;
+        currentBlock = blocks[savedBlockIndex];
+        int firstId = currentBlock.offset + currentBlock.nodeLength;
+        for (int i = 0; i < count; i++) {
+            NodeImpl node = nodes[i];
+            if (node.storeId != NULL_ID) {
+                // Same node twice in the batch
+                rollbackBulkAdd(nodes, i, savedBlockIndex, savedBlockLength, savedBlocksCount);
+                return false;
+            }
+            ensureCapacity(1);
+            currentBlock.add(node);
+            int previous = dictionary.put(node.getId(), node.storeId);
+            if (previous != NULL_ID) {
+                rollbackBulkAdd(nodes, i + 1, savedBlockIndex, savedBlockLength, savedBlocksCount);
+                if (previous < firstId) {
+                    dictionary.put(node.getId(), previous);
+                }
+                return false;
+            }
+        }
+        size += count;
+
+        incrementVersion();
+        if (version != null) {
+            BitSet ids = new BitSet(firstId + count);
+            ids.set(firstId, firstId + count);
+            version.journalNodes(ids);
+        }
+
+        for (NodeImpl node : nodes) {
+            node.indexAttributes();
+            attachProperties(node);
+        }
+        if (spatialIndex != null) {
+            spatialIndex.addNodes(nodes);
+        }
+        return true;
+    }
+
+    private void rollbackBulkAdd(NodeImpl[] nodes, int added, int savedBlockIndex, int savedBlockLength, int savedBlocksCount) {
+        for (int i = 0; i < added; i++) {
+            NodeImpl node = nodes[i];
+            dictionary.remove(node.getId());
+            blocks[node.storeId / GraphStoreConfiguration.NODESTORE_BLOCK_SIZE].backingArray[node.storeId % GraphStoreConfiguration.NODESTORE_BLOCK_SIZE] = null;
+            node.setStoreId(NULL_ID);
+        }
+        for (int i = savedBlockIndex; i <= currentBlockIndex; i++) {
+            blocks[i].nodeLength = i == savedBlockIndex ? savedBlockLength : 0;
+        }
+        // Releases the blocks grown for the batch
+        for (int i = savedBlocksCount; i < blocksCount; i++) {
+            blocks[i] = null;
+        }
+        blocksCount = savedBlocksCount;
+        currentBlockIndex = savedBlockIndex;
+        currentBlock = blocks[savedBlockIndex];
+    }
+
     @Override
     public boolean removeAll(final Collection<?> c) {
         checkCollection(c);
@@ -447,6 +602,40 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         return false;
     }
 
+    /**
+     * Removes the given nodes at once, updating views, the version and the journal a single time.
+     * <p>
+     * The nodes must belong to this store and their edges must have been removed already.
+     *
+     * @param nodes nodes to remove, without duplicates
+     * @param nodeIds store ids of the nodes
+     */
+    protected void removeAll(NodeImpl[] nodes, BitSet nodeIds) {
+        if (viewStore != null) {
+            viewStore.removeNodes(nodeIds);
+        }
+
+        incrementVersion();
+        if (version != null) {
+            version.journalNodes(nodeIds);
+        }
+
+        for (NodeImpl node : nodes) {
+            if (spatialIndex != null) {
+                spatialIndex.removeNode(node);
+            }
+            node.destroyAttributes();
+            detachProperties(node);
+
+            blocks[node.storeId / GraphStoreConfiguration.NODESTORE_BLOCK_SIZE].remove(node);
+            dictionary.remove(node.getId());
+        }
+        size -= nodes.length;
+        garbageSize += nodes.length;
+        trimDictionary();
+        trimBlocks();
+    }
+
     @Override
     public boolean retainAll(final Collection<?> c) {
         checkCollection(c);
@@ -476,6 +665,64 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         return false;
     }
 
+    /**
+     * Renumbers the nodes densely in their current order and releases the empty blocks.
+     * <p>
+     * The columnar attributes follow the nodes but the caller is responsible for the edge store and the structures
+     * indexed by node store id.
+     *
+     * @return the new store id indexed by the old one, or <code>null</code> if the store ids were already dense
+     */
+    protected int[] compact() {
+        int length = maxStoreId();
+        if (size == length) {
+            return null;
+        }
+        int[] remap = new int[length];
+        NodeImpl[] nodes = new NodeImpl[size];
+        int index = 0;
+        for (int i = 0; i < blocksCount; i++) {
+            NodeBlock block = blocks[i];
+            for (int j = 0; j < block.nodeLength; j++) {
+                NodeImpl node = block.backingArray[j];
+                if (node != null) {
+                    remap[block.offset + j] = index;
+                    nodes[index++] = node;
+                } else {
+                    remap[block.offset + j] = NULL_ID;
+                }
+            }
+        }
+
+        int blocksNeeded = Math.max(1, (int) Math.ceil(size / (double) GraphStoreConfiguration.NODESTORE_BLOCK_SIZE));
+        this.garbageSize = 0;
+        this.blocksCount = 1;
+        this.currentBlockIndex = 0;
+        this.blocks = new NodeBlock[Math.max(GraphStoreConfiguration.NODESTORE_DEFAULT_BLOCKS, blocksNeeded)];
+        this.blocks[0] = new NodeBlock(0);
+        this.currentBlock = blocks[0];
+        if (size > 0) {
+            ensureCapacity(size);
+            currentBlockIndex = 0;
+            currentBlock = blocks[0];
+        }
+        // Ascending order, the new store id is never used by a node not moved yet
+        for (NodeImpl node : nodes) {
+            ensureCapacity(1);
+            currentBlock.add(node);
+            dictionary.put(node.getId(), node.storeId);
+            node.attributes.move(node.storeId);
+            if (positionStore != null) {
+                node.properties.move(node.storeId);
+            }
+        }
+        trimDictionary();
+        if (positionStore != null) {
+            positionStore.trim(maxStoreId());
+        }
+        return remap;
+    }
+
     public int deepHashCode() {
         int hash = 7;
         hash = 67 * hash + this.size;
@@ -530,11 +777,19 @@ public class NodeStore implements Collection<Node>, NodeIterable {
     }
 
     private void checkIdDoesntExist(Object id) {
+        if (!dictionary.isValidKey(id)) {
+            throw new IllegalArgumentException("The id class does not match with the expected type");
+        }
         if (dictionary.containsKey(id)) {
             throw new IllegalArgumentException("The node id already exist");
         }
     }
 
+    // Same validation as checkIdDoesntExist, without throwing
+    private boolean isNewId(Object id) {
+        return dictionary.isValidKey(id) && !dictionary.containsKey(id);
+    }
+
     private int incrementVersion() {
         if (version != null) {
             return version.incrementAndGetNodeVersion();
@@ -570,6 +825,24 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         }
     }
 
+    private void checkArrayLength(final float[] array, final int length) {
+        if (array == null) {
+            throw new NullPointerException();
+        }
+        if (array.length < length) {
+            throw new IllegalArgumentException(
+                    "The array length (" + array.length + ") should be at least the max store id (" + length + ")");
+        }
+    }
+
+    private void checkNotNaN(final float[] array, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (Float.isNaN(array[i])) {
+                throw new IllegalArgumentException("The position at store id " + i + " cannot be NaN");
+            }
+        }
+    }
+
     private void checkValidId(final int id) {
         if (id < 0 || !isValidIndex(id)) {
             throw new IllegalArgumentException("Node id=" + id + " is invalid");
@@ -586,13 +859,98 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         return currentBlock.offset + currentBlock.nodeLength;
     }
 
+    /**
+     * Copies the node positions into the given arrays, indexed by store id.
+     *
+     * @param xs x positions, at least {@link #maxStoreId()} long
+     * @param ys y positions, at least {@link #maxStoreId()} long
+     */
+    protected void getPositions(float[] xs, float[] ys) {
+        int length = maxStoreId();
+        checkArrayLength(xs, length);
+        checkArrayLength(ys, length);
+        if (positionStore != null) {
+            positionStore.getPositions(xs, ys, length);
+        } else {
+            for (NodeStoreIterator itr = new NodeStoreIterator(); itr.hasNext();) {
+                NodeImpl node = itr.next();
+                xs[node.storeId] = node.x();
+                ys[node.storeId] = node.y();
+            }
+        }
+    }
+
+    /**
+     * Sets the node positions from the given arrays, indexed by store id, and updates the spatial index.
+     *
+     * @param xs x positions, at least {@link #maxStoreId()} long
+     * @param ys y positions, at least {@link #maxStoreId()} long
+     */
+    protected void setPositions(float[] xs, float[] ys) {
+        int length = maxStoreId();
+        checkArrayLength(xs, length);
+        checkArrayLength(ys, length);
+        checkNotNaN(xs, length);
+        checkNotNaN(ys, length);
+        if (spatialIndex != null) {
+            // Index all the nodes at once, instead of relocating them one by one
+            spatialIndex.beginBatch();
+        }
+        try {
+            if (positionStore != null) {
+                positionStore.setPositions(xs, ys, length);
+            } else {
+                for (NodeStoreIterator itr = new NodeStoreIterator(); itr.hasNext();) {
+                    NodeImpl node = itr.next();
+                    node.properties.setPosition(xs[node.storeId], ys[node.storeId]);
+                }
+            }
+        } finally {
+            if (spatialIndex != null) {
+                spatialIndex.commitBatch();
+            }
+        }
+    }
+
+    /**
+     * Copies the node sizes into the given array, indexed by store id.
+     *
+     * @param sizes sizes, at least {@link #maxStoreId()} long
+     */
+    protected void getSizes(float[] sizes) {
+        int length = maxStoreId();
+        checkArrayLength(sizes, length);
+        if (positionStore != null) {
+            positionStore.getSizes(sizes, length);
+        } else {
+            for (NodeStoreIterator itr = new NodeStoreIterator(); itr.hasNext();) {
+                NodeImpl node = itr.next();
+                sizes[node.storeId] = node.size();
+            }
+        }
+    }
+
+    private void attachProperties(NodeImpl node) {
+        if (positionStore != null) {
+            node.properties.attach(positionStore, node.storeId);
+        }
+    }
+
+    private void detachProperties(NodeImpl node) {
+        if (positionStore != null) {
+            node.properties.detach();
+        }
+    }
+
     protected static class NodeBlock {
 
         protected final int offset;
         protected final short[] garbageArray;
-        protected final NodeImpl[] backingArray;
+        protected NodeImpl[] backingArray;
         protected int nodeLength;
         protected int garbageLength;
+        // Snapshots sharing the backing array, copied before the next write
+        protected GraphSnapshotStore sharedWith;
 
         public NodeBlock(int index) {
             this.offset = index * GraphStoreConfiguration.NODESTORE_BLOCK_SIZE;
@@ -612,12 +970,14 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         }
 
         public void add(NodeImpl k) {
+            copyOnWrite();
             int i = nodeLength++;
             backingArray[i] = k;
             k.setStoreId(i + offset);
         }
 
         public void set(NodeImpl k) {
+            copyOnWrite();
             int i = garbageArray[--garbageLength] - Short.MIN_VALUE;
             backingArray[i] = k;
             k.setStoreId(i + offset);
@@ -628,6 +988,7 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         }
 
         public void remove(NodeImpl k) {
+            copyOnWrite();
             int i = k.getStoreId() - offset;
             backingArray[i] = null;
             garbageArray[garbageLength++] = (short) (i + Short.MIN_VALUE);
@@ -638,6 +999,20 @@ public class NodeStore implements Collection<Node>, NodeIterable {
             nodeLength = 0;
             garbageLength = 0;
         }
+
+        public NodeImpl[] share(GraphSnapshotStore snapshotStore) {
+            sharedWith = snapshotStore;
+            return backingArray;
+        }
+
+        private void copyOnWrite() {
+            if (sharedWith != null) {
+                if (sharedWith.isOpen()) {
+                    backingArray = backingArray.clone();
+                }
+                sharedWith = null;
+            }
+        }
     }
 
     protected final class NodeStoreIterator implements Iterator<Node> {
@@ -708,7 +1083,7 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         NodeSpliterator(int startBlock, int endBlockExclusive) {
             this.blockIndex = startBlock;
             this.endBlockExclusive = endBlockExclusive;
-            this.expectedVersion = version != null ? version.getNodeVersion() : 0;
+            this.expectedVersion = version != null ? version.getNodeModCount() : 0;
             this.consumed = 0;
 
             // Use the total store size for the root spliterator (covering all blocks)
@@ -758,7 +1133,7 @@ public class NodeStore implements Collection<Node>, NodeIterable {
         }
 
         private void checkForComodification() {
-            if (version != null && expectedVersion != version.getNodeVersion()) {
+            if (version != null && expectedVersion != version.getNodeModCount()) {
                 throw new ConcurrentModificationException();
             }
         }
@@ -15,6 +15,8 @@
  */
 package org.gephi.graph.impl;
 
+import it.unimi.dsi.fastutil.Arrays;
+import it.unimi.dsi.fastutil.longs.LongArrays;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -27,6 +29,7 @@ import java.util.Set;
 import java.util.Spliterator;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 import java.util.ConcurrentModificationException;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
@@ -41,11 +44,17 @@ import org.gephi.graph.api.Rect2D;
  */
 public class NodesQuadTree {
 
-    protected final GraphLockImpl lock = new GraphLockImpl();
+    // Morton keys hold the cell code in the high bits and the cell level in the low bits
+    private static final int MORTON_LEVEL_BITS = 5;
+    private static final int MORTON_MAX_LEVELS = (Long.SIZE - 1 - MORTON_LEVEL_BITS) / 2;
+
+    protected final GraphLockImpl lock;
 
     private final QuadTreeNode quadTreeRoot;
     private final int maxLevels;
     private final int maxObjectsPerNode;
+    // Depth of the bulk-built trees, limited by the Morton key size
+    private final int buildLevels;
     private final GraphStore graphStore;
     private int version = 0;
 
@@ -62,7 +71,14 @@ public class NodesQuadTree {
         this.quadTreeRoot = new QuadTreeNode(rect);
         this.maxLevels = maxLevels;
         this.maxObjectsPerNode = maxObjectsPerNode;
+        this.buildLevels = Math.min(maxLevels, MORTON_MAX_LEVELS);
         this.graphStore = store;
+        if (store != null && store.lockMetrics != null) {
+            this.lock = new GraphLockImpl(store.lockMetrics.spatialIndexReadLock,
+                    store.lockMetrics.spatialIndexWriteLock);
+        } else {
+            this.lock = new GraphLockImpl();
+        }
     }
 
     public Rect2D quadRect() {
@@ -153,6 +169,163 @@ public class NodesQuadTree {
         }
     }
 
+    /**
+     * Adds the given nodes. If there are at least as many new nodes as nodes already indexed, the whole tree is rebuilt
+     * in bulk. Otherwise the nodes are inserted one by one.
+     *
+     * @param items nodes to add
+     * @return true if at least one node was added
+     */
+    public boolean addNodes(NodeImpl[] items) {
+        writeLock();
+        try {
+            final NodeImpl[] added = new NodeImpl[items.length];
+            int count = 0;
+            for (NodeImpl item : items) {
+                if (item.getSpatialData() == null) {
+                    final float x = item.x();
+                    final float y = item.y();
+                    final float size = item.size();
+                    item.setSpatialData(new SpatialNodeDataImpl(x - size, y - size, x + size, y + size));
+                    added[count++] = item;
+                }
+            }
+            if (count == 0) {
+                return false;
+            }
+            final int indexed = quadTreeRoot.size;
+            if (count < indexed) {
+                for (int i = 0; i < count; i++) {
+                    quadTreeRoot.insert(added[i]);
+                }
+            } else {
+                final NodeImpl[] all = new NodeImpl[indexed + count];
+                collectNodes(all);
+                System.arraycopy(added, 0, all, indexed, count);
+                build(all);
+            }
+            version++;
+            return true;
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    /**
+     * Recomputes the boundaries of all indexed nodes from their current position and size and rebuilds the tree in
+     * bulk.
+     */
+    public void rebuild() {
+        writeLock();
+        try {
+            final int count = quadTreeRoot.size;
+            if (count == 0) {
+                return;
+            }
+            final NodeImpl[] items = new NodeImpl[count];
+            collectNodes(items);
+            for (NodeImpl item : items) {
+                final float x = item.x();
+                final float y = item.y();
+                final float size = item.size();
+                item.getSpatialData().updateBoundaries(x - size, y - size, x + size, y + size);
+            }
+            build(items);
+            version++;
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    private void collectNodes(NodeImpl[] items) {
+        int index = 0;
+        for (Node node : getAllNodes()) {
+            items[index++] = (NodeImpl) node;
+        }
+    }
+
+    // Replaces the tree with the given items, the boundaries must be up to date
+    private void build(final NodeImpl[] items) {
+        final int count = items.length;
+        final boolean parallel = count >= GraphStoreConfiguration.SPATIAL_INDEX_PARALLEL_BUILD_THRESHOLD;
+        quadTreeRoot.clear();
+
+        // Sort by Morton key, so the items of every cell are contiguous
+        final long[] keys = new long[count];
+        if (parallel) {
+            IntStream.range(0, count).parallel().forEach(i -> keys[i] = mortonKey(items[i]));
+            Arrays.parallelQuickSort(0, count, (a, b) -> Long
+                    .compare(keys[a], keys[b]), (a, b) -> swap(items, keys, a, b));
+        } else {
+            for (int i = 0; i < count; i++) {
+                keys[i] = mortonKey(items[i]);
+            }
+            Arrays.quickSort(0, count, (a, b) -> Long.compare(keys[a], keys[b]), (a, b) -> swap(items, keys, a, b));
+        }
+        quadTreeRoot.build(items, keys, 0, count, 0L, parallel);
+    }
+
+    private static void swap(NodeImpl[] items, long[] keys, int a, int b) {
+        final NodeImpl item = items[a];
+        items[a] = items[b];
+        items[b] = item;
+        final long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+    }
+
+    /**
+     * Returns the Morton key of the smallest cell containing the item boundaries. The cell is found by descending the
+     * quadrants in the same order as {@link QuadTreeNode#getDestinationTree(NodeImpl)}, so the key always agrees with
+     * incremental insertion. Items outside the tree bounds belong to the root.
+     */
+    private long mortonKey(NodeImpl item) {
+        final SpatialNodeDataImpl spatialData = item.getSpatialData();
+        final Rect2D rect = quadTreeRoot.rect;
+        if (!rect.contains(spatialData.minX, spatialData.minY, spatialData.maxX, spatialData.maxY)) {
+            return 0L;
+        }
+        float minX = rect.minX;
+        float minY = rect.minY;
+        float maxX = rect.maxX;
+        float maxY = rect.maxY;
+        long code = 0L;
+        int level = 0;
+        while (level < buildLevels) {
+            final float halfX = (minX + maxX) / 2;
+            final float halfY = (minY + maxY) / 2;
+            final int quadrant;
+            if (contains(minX, minY, halfX, halfY, spatialData)) {
+                quadrant = 0;
+            } else if (contains(halfX, minY, maxX, halfY, spatialData)) {
+                quadrant = 1;
+            } else if (contains(minX, halfY, halfX, maxY, spatialData)) {
+                quadrant = 2;
+            } else if (contains(halfX, halfY, maxX, maxY, spatialData)) {
+                quadrant = 3;
+            } else {
+                break;
+            }
+            if ((quadrant & 1) == 0) {
+                maxX = halfX;
+            } else {
+                minX = halfX;
+            }
+            if ((quadrant & 2) == 0) {
+                maxY = halfY;
+            } else {
+                minY = halfY;
+            }
+            code = code << 2 | quadrant;
+            level++;
+        }
+        return code << (2 * (buildLevels - level) + MORTON_LEVEL_BITS) | level;
+    }
+
+    private static boolean contains(float minX, float minY, float maxX, float maxY, SpatialNodeDataImpl spatialData) {
+        return minX <= spatialData.minX && minY <= spatialData.minY && maxX >= spatialData.maxX && maxY >= spatialData.maxY;
+    }
+
     public void clear() {
         writeLock();
         try {
@@ -428,8 +601,7 @@ public class NodesQuadTree {
             return size;
         }
 
-        private void subdivide() {
-            // We've reached capacity, subdivide...
+        private void createChildren() {
             final float minX = rect.minX;
             final float halfX = (rect.minX + rect.maxX) / 2;
             final float maxX = rect.maxX;
@@ -442,6 +614,11 @@ public class NodesQuadTree {
             childTR = new QuadTreeNode(this, level + 1, new Rect2D(halfX, minY, maxX, halfY));
             childBL = new QuadTreeNode(this, level + 1, new Rect2D(minX, halfY, halfX, maxY));
             childBR = new QuadTreeNode(this, level + 1, new Rect2D(halfX, halfY, maxX, maxY));
+        }
+
+        private void subdivide() {
+            // We've reached capacity, subdivide...
+            createChildren();
 
             // Keep track of objects that couldn't be moved
             NodeImpl[] remainingObjects = new NodeImpl[objectCount];
@@ -479,6 +656,58 @@ public class NodesQuadTree {
             objectCount = remainingCount;
         }
 
+        // Items are sorted by Morton key and the ones in [from, to) are the items of this cell and its descendants
+        private void build(NodeImpl[] items, long[] keys, int from, int to, long cellKey, boolean parallel) {
+            size = to - from;
+            if (size <= maxObjectsPerNode || level >= buildLevels) {
+                // Room for all the items, keep them here
+                setObjects(items, from, to);
+                return;
+            }
+            createChildren();
+            final QuadTreeNode[] children = { childTL, childTR, childBL, childBR };
+
+            // Items that don't fit in any child come first, then the items of each child in Morton order
+            int start = from;
+            while (start < to && keys[start] == (cellKey | level)) {
+                start++;
+            }
+            setObjects(items, from, start);
+
+            final long childSpan = 1L << (2 * (buildLevels - level - 1) + MORTON_LEVEL_BITS);
+            final int[] offsets = new int[children.length + 1];
+            offsets[0] = start;
+            for (int j = 1; j < children.length; j++) {
+                int index = LongArrays.binarySearch(keys, offsets[j - 1], to, cellKey + j * childSpan);
+                offsets[j] = index >= 0 ? index : -index - 1;
+            }
+            offsets[children.length] = to;
+
+            if (parallel) {
+                IntStream.range(0, children.length).parallel().forEach(j -> children[j]
+                        .build(items, keys, offsets[j], offsets[j + 1], cellKey + j * childSpan, false));
+            } else {
+                for (int j = 0; j < children.length; j++) {
+                    children[j].build(items, keys, offsets[j], offsets[j + 1], cellKey + j * childSpan, false);
+                }
+            }
+        }
+
+        private void setObjects(NodeImpl[] items, int from, int to) {
+            final int count = to - from;
+            if (count == 0) {
+                return;
+            }
+            objects = new NodeImpl[Math.max(count, maxObjectsPerNode / 16)];
+            System.arraycopy(items, from, objects, 0, count);
+            for (int i = 0; i < count; i++) {
+                SpatialNodeDataImpl spatialData = objects[i].getSpatialData();
+                spatialData.setQuadTreeNode(this);
+                spatialData.setArrayIndex(i);
+            }
+            objectCount = count;
+        }
+
         private QuadTreeNode getDestinationTree(NodeImpl item) {
             // If a child can't contain an object, it will live in this Quad
             final QuadTreeNode destTree;
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.gephi.graph.impl;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Graph lock that runs short reads optimistically.
+ * <p>
+ * Read and write locks keep the reentrant semantics of {@link GraphLockImpl}. In addition, the outermost write lock
+ * hold also holds the write lock of a <code>StampedLock</code>, which serves as a sequence counter. Reads passed to
+ * {@link #read(Supplier)} run without locking and are validated against that counter afterwards, and only run again
+ * under the read lock if a writer was active in between. The short reads of the graph store use
+ * {@link #tryOptimisticRead()} and {@link #validate(long)} directly, so they don't allocate.
+ */
+public class OptimisticGraphLockImpl extends GraphLockImpl {
+
+    protected final StampedLock stampedLock;
+    // Only accessed by the write lock holder
+    private long writeStamp;
+
+    public OptimisticGraphLockImpl() {
+        this(null, null);
+    }
+
+    public OptimisticGraphLockImpl(LockStatisticsImpl readStatistics, LockStatisticsImpl writeStatistics) {
+        super(readStatistics, writeStatistics);
+        stampedLock = new StampedLock();
+    }
+
+    @Override
+    public void writeLock() {
+        super.writeLock();
+        if (readWriteLock.getWriteHoldCount() == 1) {
+            writeStamp = stampedLock.writeLock();
+        }
+    }
+
+    @Override
+    public void writeUnlock() {
+        if (readWriteLock.isWriteLockedByCurrentThread() && readWriteLock.getWriteHoldCount() == 1) {
+            stampedLock.unlockWrite(writeStamp);
+        }
+        super.writeUnlock();
+    }
+
+    /**
+     * Returns a stamp for an optimistic read, or zero if a writer holds the lock.
+     *
+     * @return stamp
+     */
+    public long tryOptimisticRead() {
+        return stampedLock.tryOptimisticRead();
+    }
+
+    /**
+     * Returns true if no writer acquired the lock since the stamp was issued.
+     *
+     * @param stamp stamp from {@link #tryOptimisticRead()}
+     * @return true if the optimistic read is valid
+     */
+    public boolean validate(long stamp) {
+        return stampedLock.validate(stamp);
+    }
+
+    @Override
+    public <V> V read(Supplier<V> reader) {
+        long stamp = stampedLock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                V result = reader.get();
+                if (stampedLock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // The read may have seen inconsistent state, only rethrow if it didn't
+                if (stampedLock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        return super.read(reader);
+    }
+}
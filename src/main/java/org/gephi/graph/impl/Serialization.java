@@ -98,7 +98,7 @@ import org.gephi.graph.impl.utils.LongPacker;
 // Greatly inspired from JDBM https://github.com/jankotek/JDBM3
 public class Serialization {
 
-    final static float VERSION = 0.5f;
+    final static float VERSION = 0.6f;
     final static int NULL_ID = -1;
     final static int NULL = 0;
     final static int NORMAL = 1;
@@ -217,10 +217,14 @@ public class Serialization {
     final static int SET = 230;
     final static int MAP = 231;
     final static int INSTANT = 232;
+    final static int POOLED_STRING = 233;
     // Store
     protected final Int2IntMap idMap;
     protected GraphModelImpl model;
     protected float readVersion = VERSION;
+    // String pool, set while the graph store is written or read
+    protected StringPool writePool;
+    protected String[] readPool;
     // Deserialized configuration
     protected GraphStoreConfigurationVersion graphStoreConfigurationVersion;
 
@@ -299,6 +303,70 @@ public class Serialization {
     }
 
     public void serializeGraphStore(DataOutput out, GraphStore store) throws IOException {
+        serializeGraphStoreHeader(out, store);
+
+        // String pool
+        serializeStringPool(out, store.stringPool);
+
+        // Nodes + Edges
+        int nodesAndEdges = store.nodeStore.size() + store.edgeStore.size();
+        serialize(out, nodesAndEdges);
+
+        writePool = store.stringPool;
+        try {
+            for (Node node : store.nodeStore) {
+                serialize(out, node);
+            }
+            for (Edge edge : store.edgeStore) {
+                serialize(out, edge);
+            }
+        } finally {
+            writePool = null;
+        }
+
+        // Views
+        serialize(out, store.viewStore);
+    }
+
+    public GraphStore deserializeGraphStore(DataInput is) throws IOException, ClassNotFoundException {
+        if (!model.store.nodeStore.isEmpty()) { // TODO test other stores
+            throw new IOException("The store is not empty");
+        }
+
+        idMap.clear();
+
+        deserializeGraphStoreHeader(is);
+
+        // String pool
+        if (readVersion >= 0.6f) {
+            readPool = deserializeStringPool(is);
+        }
+
+        // Nodes and edges, the spatial index is built once all nodes are read
+        SpatialIndexImpl spatialIndex = model.store.spatialIndex;
+        if (spatialIndex != null) {
+            spatialIndex.beginLoad();
+        }
+        try {
+            int nodesAndEdges = (Integer) deserialize(is);
+            for (int i = 0; i < nodesAndEdges; i++) {
+                deserialize(is);
+            }
+        } finally {
+            readPool = null;
+            if (spatialIndex != null) {
+                spatialIndex.endLoad();
+            }
+        }
+
+        // ViewStore
+        deserialize(is);
+
+        return model.store;
+    }
+
+    // Everything but nodes, edges and views, shared with the snapshot format
+    protected void serializeGraphStoreHeader(DataOutput out, GraphStore store) throws IOException {
         // Configuration
         serializeGraphStoreConfiguration(out);
 
@@ -327,29 +395,9 @@ public class Serialization {
 
         // Time zone
         serialize(out, store.timeZone);
-
-        // Nodes + Edges
-        int nodesAndEdges = store.nodeStore.size() + store.edgeStore.size();
-        serialize(out, nodesAndEdges);
-
-        for (Node node : store.nodeStore) {
-            serialize(out, node);
-        }
-        for (Edge edge : store.edgeStore) {
-            serialize(out, edge);
-        }
-
-        // Views
-        serialize(out, store.viewStore);
     }
 
-    public GraphStore deserializeGraphStore(DataInput is) throws IOException, ClassNotFoundException {
-        if (!model.store.nodeStore.isEmpty()) { // TODO test other stores
-            throw new IOException("The store is not empty");
-        }
-
-        idMap.clear();
-
+    protected void deserializeGraphStoreHeader(DataInput is) throws IOException, ClassNotFoundException {
         // Store Configuration
         deserialize(is);
 
@@ -380,23 +428,51 @@ public class Serialization {
 
         // Time zone
         deserialize(is);
+    }
 
-        // Nodes and edges
-        int nodesAndEdges = (Integer) deserialize(is);
-        for (int i = 0; i < nodesAndEdges; i++) {
-            deserialize(is);
+    // Each string is written once, elements then refer to it by handle
+    private void serializeStringPool(DataOutput out, StringPool pool) throws IOException {
+        if (pool == null) {
+            LongPacker.packInt(out, 0);
+            return;
         }
+        synchronized (pool) {
+            LongPacker.packInt(out, pool.handlesLength);
+            for (int handle = 0; handle < pool.handlesLength; handle++) {
+                if (pool.refCounts[handle] == 0) {
+                    out.write(NULL);
+                } else {
+                    int length = pool.getLength(handle);
+                    out.write(pool.getEncoding(handle) + 1);
+                    LongPacker.packInt(out, length);
+                    out.write(pool.getPage(handle), pool.getOffset(handle), length);
+                }
+            }
+        }
+    }
 
-        // ViewStore
-        deserialize(is);
-
-        return model.store;
+    private String[] deserializeStringPool(DataInput is) throws IOException {
+        int length = LongPacker.unpackInt(is);
+        String[] strings = new String[length];
+        byte[] buffer = new byte[0];
+        for (int handle = 0; handle < length; handle++) {
+            int encoding = is.readUnsignedByte();
+            if (encoding != NULL) {
+                int byteLength = LongPacker.unpackInt(is);
+                if (buffer.length < byteLength) {
+                    buffer = new byte[byteLength];
+                }
+                is.readFully(buffer, 0, byteLength);
+                strings[handle] = StringPool.decode(buffer, 0, byteLength, encoding - 1);
+            }
+        }
+        return strings;
     }
 
     private void serializeNode(DataOutput out, NodeImpl node) throws IOException {
         serialize(out, node.getId());
         serialize(out, node.storeId);
-        serialize(out, node.attributes.attributes);
+        serializeAttributes(out, node.attributes);
         serialize(out, node.properties);
     }
 
@@ -411,10 +487,24 @@ public class Serialization {
             serialize(out, GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT);
         }
         serialize(out, edge.isDirected());
-        serialize(out, edge.attributes.attributes);
+        serializeAttributes(out, edge.attributes);
         serialize(out, edge.properties);
     }
 
+    // Same output as an Object[] but columnar values are written directly instead of being copied to a new array
+    private void serializeAttributes(DataOutput out, AttributesImpl attributes) throws IOException {
+        if (attributes.columnarId == ColumnarStore.NULL_ID) {
+            serialize(out, attributes.getBackingArray());
+            return;
+        }
+        int length = Math.max(attributes.attributes.length, attributes.columnarStore.length);
+        out.write(ARRAY_OBJECT);
+        LongPacker.packInt(out, length);
+        for (int i = 0; i < length; i++) {
+            serialize(out, attributes.getAttribute(i));
+        }
+    }
+
     private NodeImpl deserializeNode(DataInput is) throws IOException, ClassNotFoundException {
         Object id = deserialize(is);
         int storeId = (Integer) deserialize(is);
@@ -687,6 +777,7 @@ public class Serialization {
         view.typeCounts = typeCounts;
         view.mutualEdgesCount = mutualEdgesCount;
         view.mutualEdgeTypeCounts = mutualEdgeTypeCounts;
+        view.rebuildDegrees();
 
         view.version.nodeVersion = version.nodeVersion;
         view.version.edgeVersion = version.edgeVersion;
@@ -768,11 +859,11 @@ public class Serialization {
     }
 
     private void serializeNodeProperties(final DataOutput out, final NodePropertiesImpl nodeProperties) throws IOException {
-        serialize(out, nodeProperties.x);
-        serialize(out, nodeProperties.y);
-        serialize(out, nodeProperties.z);
+        serialize(out, nodeProperties.x());
+        serialize(out, nodeProperties.y());
+        serialize(out, nodeProperties.z());
         serialize(out, nodeProperties.rgba);
-        serialize(out, nodeProperties.size);
+        serialize(out, nodeProperties.size());
         serialize(out, nodeProperties.fixed);
         serialize(out, nodeProperties.textProperties);
     }
@@ -1474,8 +1565,12 @@ public class Serialization {
 
         } else if (clazz == String.class) {
             String s = (String) obj;
+            int handle;
             if (s.length() == 0) {
                 out.write(STRING_EMPTY);
+            } else if (writePool != null && (handle = writePool.find(s)) != StringPool.NULL_HANDLE) {
+                out.write(POOLED_STRING);
+                LongPacker.packInt(out, handle);
             } else {
                 out.write(STRING);
                 serializeString(out, s);
@@ -2077,6 +2172,9 @@ public class Serialization {
             case STRING_EMPTY:
                 ret = EMPTY_STRING;
                 break;
+            case POOLED_STRING:
+                ret = readPool[LongPacker.unpackInt(is)];
+                break;
             case CLASS:
                 ret = deserializeClass(is);
                 break;
@@ -0,0 +1,943 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Interval;
+import org.gephi.graph.api.Node;
+
+/**
+ * Versioned binary snapshot of a graph model, meant for large graphs.
+ * <p>
+ * Unlike {@link Serialization}, which writes every element as a tagged object and re-inserts them one by one, the
+ * structure is written as contiguous little-endian sections: edge endpoints, types, flags and adjacency links, node
+ * heads and degrees, node and edge properties, primitive attribute columns and view bit sets. Reading maps each section
+ * with {@link FileChannel#map} and copies whole arrays, the adjacency lists are restored as they were instead of being
+ * rebuilt. The configuration, tables, time store, non-primitive attribute values and text properties still go through
+ * {@link Serialization} in stream sections.
+ * <p>
+ * Store ids are compacted on write, so a read graph has no garbage.
+ * <p>
+ * The file starts with the magic number, the format version and the offset of the section table. Sections are aligned
+ * on 8 bytes and the table lists the kind, argument, offset and length of each of them. Offsets are relative to the
+ * position of the channel when writing started.
+ */
+public class SnapshotSerialization {
+
+    // Header
+    static final int MAGIC = 0x47534E50;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int SECTION_ENTRY_SIZE = 24;
+    // Stream sections
+    static final int MODEL = 1;
+    static final int ELEMENTS = 2;
+    static final int VIEWS = 3;
+    // Node sections
+    static final int NODE_IN_DEGREE = 10;
+    static final int NODE_OUT_DEGREE = 11;
+    static final int NODE_MUTUAL_DEGREE = 12;
+    static final int NODE_HEAD_OUT = 13;
+    static final int NODE_HEAD_IN = 14;
+    static final int NODE_POSITION = 15;
+    static final int NODE_COLOR = 16;
+    static final int NODE_FIXED = 17;
+    // Edge sections
+    static final int EDGE_SOURCE = 20;
+    static final int EDGE_TARGET = 21;
+    static final int EDGE_TYPE = 22;
+    static final int EDGE_FLAGS = 23;
+    static final int EDGE_NEXT_OUT = 24;
+    static final int EDGE_NEXT_IN = 25;
+    static final int EDGE_PREVIOUS_OUT = 26;
+    static final int EDGE_PREVIOUS_IN = 27;
+    static final int EDGE_COLOR = 28;
+    // Column sections, the argument is the column index
+    static final int NODE_COLUMN = 30;
+    static final int NODE_COLUMN_PRESENT = 31;
+    static final int EDGE_COLUMN = 32;
+    static final int EDGE_COLUMN_PRESENT = 33;
+    // View sections, the argument is the view store id
+    static final int VIEW_NODES = 40;
+    static final int VIEW_EDGES = 41;
+    // Buffer
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Returns true if the channel, at its current position, starts with a snapshot. The position is left unchanged.
+     *
+     * @param channel channel to check
+     * @return true if a snapshot, false otherwise
+     * @throws IOException if an io error occurs
+     */
+    public static boolean isSnapshot(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        long position = channel.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return false;
+            }
+        }
+        return buffer.getInt(0) == MAGIC;
+    }
+
+    public void write(FileChannel channel, GraphModelImpl model) throws IOException {
+        GraphStore store = model.store;
+        SectionWriter writer = new SectionWriter(channel);
+        Serialization serialization = new Serialization(model);
+
+        // Compact store ids
+        NodeImpl[] nodes = new NodeImpl[store.nodeStore.size()];
+        int[] nodeIndex = new int[store.nodeStore.maxStoreId()];
+        Arrays.fill(nodeIndex, EdgeStore.NULL_ID);
+        int nodeCount = 0;
+        for (Node n : store.nodeStore) {
+            NodeImpl node = (NodeImpl) n;
+            nodeIndex[node.storeId] = nodeCount;
+            nodes[nodeCount++] = node;
+        }
+        EdgeImpl[] edges = new EdgeImpl[store.edgeStore.size()];
+        int[] edgeIndex = new int[store.edgeStore.maxStoreId()];
+        Arrays.fill(edgeIndex, EdgeStore.NULL_ID);
+        int edgeCount = 0;
+        for (Edge e : store.edgeStore) {
+            EdgeImpl edge = (EdgeImpl) e;
+            edgeIndex[edge.storeId] = edgeCount;
+            edges[edgeCount++] = edge;
+        }
+        int headLength = 0;
+        for (NodeImpl node : nodes) {
+            headLength = Math.max(headLength, Math.max(node.headOut.length, node.headIn.length));
+        }
+
+        // Model
+        DataOutputStream out = writer.beginStream(MODEL, 0);
+        serialization.serialize(out, Serialization.VERSION);
+        serialization.serialize(out, model.configuration);
+        serialization.serializeGraphStoreHeader(out, store);
+        serialization.serialize(out, nodeCount);
+        serialization.serialize(out, edgeCount);
+        serialization.serialize(out, headLength);
+        writer.endStream(out);
+
+        // Nodes
+        int[] ints = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            ints[i] = nodes[i].inDegree;
+        }
+        writer.writeInts(NODE_IN_DEGREE, 0, ints);
+        for (int i = 0; i < nodeCount; i++) {
+            ints[i] = nodes[i].outDegree;
+        }
+        writer.writeInts(NODE_OUT_DEGREE, 0, ints);
+        for (int i = 0; i < nodeCount; i++) {
+            ints[i] = nodes[i].mutualDegree;
+        }
+        writer.writeInts(NODE_MUTUAL_DEGREE, 0, ints);
+        int[] heads = new int[nodeCount * headLength];
+        for (int i = 0; i < nodeCount; i++) {
+            fillHeads(heads, i * headLength, headLength, nodes[i].headOut, edgeIndex);
+        }
+        writer.writeInts(NODE_HEAD_OUT, 0, heads);
+        for (int i = 0; i < nodeCount; i++) {
+            fillHeads(heads, i * headLength, headLength, nodes[i].headIn, edgeIndex);
+        }
+        writer.writeInts(NODE_HEAD_IN, 0, heads);
+        heads = null;
+        if (model.configuration.isEnableNodeProperties()) {
+            float[] positions = new float[nodeCount * 4];
+            BitSet fixed = new BitSet(nodeCount);
+            for (int i = 0; i < nodeCount; i++) {
+                NodeImpl.NodePropertiesImpl properties = nodes[i].properties;
+                positions[i * 4] = properties.x();
+                positions[i * 4 + 1] = properties.y();
+                positions[i * 4 + 2] = properties.z();
+                positions[i * 4 + 3] = properties.size();
+                ints[i] = properties.rgba;
+                fixed.set(i, properties.fixed);
+            }
+            writer.writeFloats(NODE_POSITION, 0, positions);
+            writer.writeInts(NODE_COLOR, 0, ints);
+            writer.writeLongs(NODE_FIXED, 0, fixed.toLongArray());
+        }
+
+        // Edges
+        ints = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            ints[i] = nodeIndex[edges[i].source.storeId];
+        }
+        writer.writeInts(EDGE_SOURCE, 0, ints);
+        for (int i = 0; i < edgeCount; i++) {
+            ints[i] = nodeIndex[edges[i].target.storeId];
+        }
+        writer.writeInts(EDGE_TARGET, 0, ints);
+        for (int i = 0; i < edgeCount; i++) {
+            ints[i] = edges[i].type;
+        }
+        writer.writeInts(EDGE_TYPE, 0, ints);
+        byte[] flags = new byte[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            flags[i] = edges[i].flags;
+        }
+        writer.writeBytes(EDGE_FLAGS, 0, flags);
+        for (int i = 0; i < edgeCount; i++) {
+            ints[i] = remap(edges[i].nextOutEdge, edgeIndex);
+        }
+        writer.writeInts(EDGE_NEXT_OUT, 0, ints);
+        for (int i = 0; i < edgeCount; i++) {
+            ints[i] = remap(edges[i].nextInEdge, edgeIndex);
+        }
+        writer.writeInts(EDGE_NEXT_IN, 0, ints);
+        for (int i = 0; i < edgeCount; i++) {
+            ints[i] = remap(edges[i].previousOutEdge, edgeIndex);
+        }
+        writer.writeInts(EDGE_PREVIOUS_OUT, 0, ints);
+        for (int i = 0; i < edgeCount; i++) {
+            ints[i] = remap(edges[i].previousInEdge, edgeIndex);
+        }
+        writer.writeInts(EDGE_PREVIOUS_IN, 0, ints);
+        if (model.configuration.isEnableEdgeProperties()) {
+            for (int i = 0; i < edgeCount; i++) {
+                ints[i] = edges[i].properties.rgba;
+            }
+            writer.writeInts(EDGE_COLOR, 0, ints);
+        }
+        ints = null;
+
+        // Primitive columns
+        ColumnStore nodeColumnStore = store.nodeTable.store;
+        ColumnStore edgeColumnStore = store.edgeTable.store;
+        writeColumns(writer, NODE_COLUMN, NODE_COLUMN_PRESENT, nodeColumnStore, nodes);
+        writeColumns(writer, EDGE_COLUMN, EDGE_COLUMN_PRESENT, edgeColumnStore, edges);
+
+        // Other values
+        out = writer.beginStream(ELEMENTS, 0);
+        int[] nodeObjectColumns = objectColumns(nodeColumnStore);
+        for (NodeImpl node : nodes) {
+            for (int index : nodeObjectColumns) {
+                serialization.serialize(out, node.attributes.getAttribute(index));
+            }
+            if (node.properties != null) {
+                serialization.serialize(out, node.properties.textProperties);
+            }
+        }
+        int[] edgeObjectColumns = objectColumns(edgeColumnStore);
+        for (EdgeImpl edge : edges) {
+            for (int index : edgeObjectColumns) {
+                serialization.serialize(out, edge.attributes.getAttribute(index));
+            }
+            if (edge.properties != null) {
+                serialization.serialize(out, edge.properties.textProperties);
+            }
+        }
+        writer.endStream(out);
+
+        // Views
+        GraphViewStore viewStore = store.viewStore;
+        out = writer.beginStream(VIEWS, 0);
+        serialization.serialize(out, viewStore.length);
+        serialization.serialize(out, viewStore.views.length);
+        serialization.serialize(out, viewStore.garbageQueue.toIntArray());
+        for (GraphViewImpl view : viewStore.views) {
+            serialization.serialize(out, view != null);
+            if (view != null) {
+                serialization.serialize(out, view.nodeView);
+                serialization.serialize(out, view.edgeView);
+                serialization.serialize(out, view.storeId);
+                serialization.serialize(out, view.nodeCount);
+                serialization.serialize(out, view.edgeCount);
+                serialization.serialize(out, view.typeCounts);
+                serialization.serialize(out, view.mutualEdgeTypeCounts);
+                serialization.serialize(out, view.mutualEdgesCount);
+                serialization.serialize(out, view.version);
+                serialization.serialize(out, view.attributes);
+                serialization.serialize(out, view.interval);
+            }
+        }
+        writer.endStream(out);
+        for (GraphViewImpl view : viewStore.views) {
+            if (view != null) {
+                if (view.nodeView) {
+                    writer.writeLongs(VIEW_NODES, view.storeId, remap(view.nodeBitVector, nodeIndex).toLongArray());
+                }
+                writer.writeLongs(VIEW_EDGES, view.storeId, remap(view.edgeBitVector, edgeIndex).toLongArray());
+            }
+        }
+
+        writer.finish();
+    }
+
+    public GraphModelImpl read(FileChannel channel) throws IOException, ClassNotFoundException {
+        SectionReader reader = new SectionReader(channel);
+        Serialization serialization = new Serialization();
+
+        // Model
+        DataInputStream in = reader.stream(MODEL, 0);
+        serialization.readVersion = (Float) serialization.deserialize(in);
+        ConfigurationImpl config = (ConfigurationImpl) serialization.deserialize(in);
+        GraphModelImpl model = new GraphModelImpl(config.toConfiguration());
+        serialization.model = model;
+        serialization.deserializeGraphStoreHeader(in);
+        int nodeCount = (Integer) serialization.deserialize(in);
+        int edgeCount = (Integer) serialization.deserialize(in);
+        int headLength = (Integer) serialization.deserialize(in);
+        GraphStore store = model.store;
+        int nodeVersion = store.version.nodeVersion;
+        int edgeVersion = store.version.edgeVersion;
+
+        // Attributes
+        ColumnStore nodeColumnStore = store.nodeTable.store;
+        ColumnStore edgeColumnStore = store.edgeTable.store;
+        Object[][] nodeValues = readColumns(reader, NODE_COLUMN, NODE_COLUMN_PRESENT, nodeColumnStore, nodeCount);
+        Object[][] edgeValues = readColumns(reader, EDGE_COLUMN, EDGE_COLUMN_PRESENT, edgeColumnStore, edgeCount);
+        in = reader.stream(ELEMENTS, 0);
+
+        // Nodes
+        NodeImpl[] nodes = new NodeImpl[nodeCount];
+        int[] nodeObjectColumns = objectColumns(nodeColumnStore);
+        boolean nodeProperties = config.isEnableNodeProperties();
+        float[] positions = nodeProperties ? reader.readFloats(NODE_POSITION, 0, nodeCount * 4) : null;
+        int[] colors = nodeProperties ? reader.readInts(NODE_COLOR, 0, nodeCount) : null;
+        BitSet fixed = nodeProperties ? BitSet.valueOf(reader.readLongs(NODE_FIXED, 0)) : null;
+        for (int i = 0; i < nodeCount; i++) {
+            Object[] values = nodeValues[i];
+            for (int index : nodeObjectColumns) {
+                values[index] = serialization.deserialize(in);
+            }
+            NodeImpl node = (NodeImpl) store.factory.newNode(values[GraphStoreConfiguration.ELEMENT_ID_INDEX]);
+            node.attributes.setBackingArray(values);
+            if (nodeProperties) {
+                NodeImpl.NodePropertiesImpl properties = node.properties;
+                properties.x = positions[i * 4];
+                properties.y = positions[i * 4 + 1];
+                properties.z = positions[i * 4 + 2];
+                properties.size = positions[i * 4 + 3];
+                properties.rgba = colors[i];
+                properties.fixed = fixed.get(i);
+                properties.setTextProperties((TextPropertiesImpl) serialization.deserialize(in));
+            }
+            nodes[i] = node;
+        }
+        nodeValues = null;
+        positions = null;
+        store.nodeStore.addAll(Arrays.asList(nodes));
+
+        // Edges
+        EdgeImpl[] edges = new EdgeImpl[edgeCount];
+        int[] edgeObjectColumns = objectColumns(edgeColumnStore);
+        boolean edgeProperties = config.isEnableEdgeProperties();
+        int[] sources = reader.readInts(EDGE_SOURCE, 0, edgeCount);
+        int[] targets = reader.readInts(EDGE_TARGET, 0, edgeCount);
+        int[] types = reader.readInts(EDGE_TYPE, 0, edgeCount);
+        byte[] flags = reader.readBytes(EDGE_FLAGS, 0, edgeCount);
+        colors = edgeProperties ? reader.readInts(EDGE_COLOR, 0, edgeCount) : null;
+        for (int i = 0; i < edgeCount; i++) {
+            Object[] values = edgeValues[i];
+            for (int index : edgeObjectColumns) {
+                values[index] = serialization.deserialize(in);
+            }
+            EdgeImpl edge = (EdgeImpl) store.factory
+                    .newEdge(values[GraphStoreConfiguration.ELEMENT_ID_INDEX], nodes[sources[i]], nodes[targets[i]], types[i], GraphStoreConfiguration.DEFAULT_EDGE_WEIGHT, (flags[i] & EdgeImpl.DIRECTED_BYTE) != 0);
+            edge.attributes.setBackingArray(values);
+            edge.flags = flags[i];
+            if (edgeProperties) {
+                edge.properties.rgba = colors[i];
+                edge.properties.setTextProperties((TextPropertiesImpl) serialization.deserialize(in));
+            }
+            edges[i] = edge;
+        }
+        edgeValues = null;
+        sources = null;
+        targets = null;
+        types = null;
+        flags = null;
+
+        // Adjacency
+        int[] links = reader.readInts(EDGE_NEXT_OUT, 0, edgeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            edges[i].nextOutEdge = links[i];
+        }
+        reader.readInts(EDGE_NEXT_IN, 0, links);
+        for (int i = 0; i < edgeCount; i++) {
+            edges[i].nextInEdge = links[i];
+        }
+        reader.readInts(EDGE_PREVIOUS_OUT, 0, links);
+        for (int i = 0; i < edgeCount; i++) {
+            edges[i].previousOutEdge = links[i];
+        }
+        reader.readInts(EDGE_PREVIOUS_IN, 0, links);
+        for (int i = 0; i < edgeCount; i++) {
+            edges[i].previousInEdge = links[i];
+        }
+        links = null;
+        int[] degrees = reader.readInts(NODE_IN_DEGREE, 0, nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i].inDegree = degrees[i];
+        }
+        reader.readInts(NODE_OUT_DEGREE, 0, degrees);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i].outDegree = degrees[i];
+        }
+        reader.readInts(NODE_MUTUAL_DEGREE, 0, degrees);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i].mutualDegree = degrees[i];
+        }
+        degrees = null;
+        int[] heads = reader.readInts(NODE_HEAD_OUT, 0, nodeCount * headLength);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i].headOut = toHeads(heads, i * headLength, headLength, edges);
+        }
+        reader.readInts(NODE_HEAD_IN, 0, heads);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i].headIn = toHeads(heads, i * headLength, headLength, edges);
+        }
+        heads = null;
+        store.edgeStore.addLinked(edges);
+
+        // Views
+        GraphViewStore viewStore = store.viewStore;
+        in = reader.stream(VIEWS, 0);
+        viewStore.length = (Integer) serialization.deserialize(in);
+        viewStore.views = new GraphViewImpl[(Integer) serialization.deserialize(in)];
+        for (int garbage : (int[]) serialization.deserialize(in)) {
+            viewStore.garbageQueue.add(garbage);
+        }
+        for (int i = 0; i < viewStore.views.length; i++) {
+            if ((Boolean) serialization.deserialize(in)) {
+                boolean nodeView = (Boolean) serialization.deserialize(in);
+                boolean edgeView = (Boolean) serialization.deserialize(in);
+                GraphViewImpl view = new GraphViewImpl(store, nodeView, edgeView);
+                view.storeId = (Integer) serialization.deserialize(in);
+                view.nodeCount = (Integer) serialization.deserialize(in);
+                view.edgeCount = (Integer) serialization.deserialize(in);
+                view.typeCounts = (int[]) serialization.deserialize(in);
+                view.mutualEdgeTypeCounts = (int[]) serialization.deserialize(in);
+                view.mutualEdgesCount = (Integer) serialization.deserialize(in);
+                GraphVersion version = (GraphVersion) serialization.deserialize(in);
+                view.version.nodeVersion = version.nodeVersion;
+                view.version.edgeVersion = version.edgeVersion;
+                view.attributes.setGraphAttributes((GraphAttributesImpl) serialization.deserialize(in));
+                view.interval = (Interval) serialization.deserialize(in);
+                if (nodeView) {
+                    view.nodeBitVector = BitSet.valueOf(reader.readLongs(VIEW_NODES, view.storeId));
+                }
+                view.edgeBitVector = BitSet.valueOf(reader.readLongs(VIEW_EDGES, view.storeId));
+                view.rebuildDegrees();
+                viewStore.views[i] = view;
+            }
+        }
+
+        store.version.nodeVersion = nodeVersion;
+        store.version.edgeVersion = edgeVersion;
+        return model;
+    }
+
+    private static int remap(int storeId, int[] index) {
+        return storeId == EdgeStore.NULL_ID ? EdgeStore.NULL_ID : index[storeId];
+    }
+
+    private static BitSet remap(BitSet bitSet, int[] index) {
+        BitSet res = new BitSet(index.length);
+        for (int i = bitSet.nextSetBit(0); i >= 0 && i < index.length; i = bitSet.nextSetBit(i + 1)) {
+            if (index[i] != EdgeStore.NULL_ID) {
+                res.set(index[i]);
+            }
+        }
+        return res;
+    }
+
+    private static void fillHeads(int[] heads, int offset, int length, EdgeImpl[] nodeHeads, int[] edgeIndex) {
+        for (int type = 0; type < length; type++) {
+            EdgeImpl head = type < nodeHeads.length ? nodeHeads[type] : null;
+            heads[offset + type] = head != null ? edgeIndex[head.storeId] : EdgeStore.NULL_ID;
+        }
+    }
+
+    private static EdgeImpl[] toHeads(int[] heads, int offset, int length, EdgeImpl[] edges) {
+        EdgeImpl[] res = new EdgeImpl[Math.max(length, GraphStoreConfiguration.EDGESTORE_DEFAULT_TYPE_COUNT)];
+        for (int type = 0; type < length; type++) {
+            int id = heads[offset + type];
+            res[type] = id != EdgeStore.NULL_ID ? edges[id] : null;
+        }
+        return res;
+    }
+
+    // Columns
+
+    private static boolean isPrimitiveColumn(ColumnImpl column) {
+        Class type = column.getTypeClass();
+        return type == Integer.class || type == Long.class || type == Double.class || type == Float.class || type == Short.class || type == Byte.class || type == Boolean.class || type == Character.class;
+    }
+
+    private static int[] objectColumns(ColumnStore columnStore) {
+        IntList res = new IntArrayList();
+        for (int i = 0; i < columnStore.length; i++) {
+            ColumnImpl column = columnStore.columns[i];
+            if (column != null && !isPrimitiveColumn(column)) {
+                res.add(i);
+            }
+        }
+        return res.toIntArray();
+    }
+
+    private static void writeColumns(SectionWriter writer, int kind, int presentKind, ColumnStore columnStore, ElementImpl[] elements) throws IOException {
+        int count = elements.length;
+        for (int index = 0; index < columnStore.length; index++) {
+            ColumnImpl column = columnStore.columns[index];
+            if (column == null || !isPrimitiveColumn(column)) {
+                continue;
+            }
+            Class type = column.getTypeClass();
+            BitSet present = new BitSet(count);
+            if (type == Integer.class) {
+                int[] values = new int[count];
+                for (int i = 0; i < count; i++) {
+                    Object value = elements[i].attributes.getAttribute(index);
+                    if (value != null) {
+                        values[i] = (Integer) value;
+                        present.set(i);
+                    }
+                }
+                writer.writeInts(kind, index, values);
+            } else if (type == Long.class) {
+                long[] values = new long[count];
+                for (int i = 0; i < count; i++) {
+                    Object value = elements[i].attributes.getAttribute(index);
+                    if (value != null) {
+                        values[i] = (Long) value;
+                        present.set(i);
+                    }
+                }
+                writer.writeLongs(kind, index, values);
+            } else if (type == Double.class) {
+                double[] values = new double[count];
+                for (int i = 0; i < count; i++) {
+                    Object value = elements[i].attributes.getAttribute(index);
+                    if (value != null) {
+                        values[i] = (Double) value;
+                        present.set(i);
+                    }
+                }
+                writer.writeDoubles(kind, index, values);
+            } else if (type == Float.class) {
+                float[] values = new float[count];
+                for (int i = 0; i < count; i++) {
+                    Object value = elements[i].attributes.getAttribute(index);
+                    if (value != null) {
+                        values[i] = (Float) value;
+                        present.set(i);
+                    }
+                }
+                writer.writeFloats(kind, index, values);
+            } else if (type == Short.class) {
+                short[] values = new short[count];
+                for (int i = 0; i < count; i++) {
+                    Object value = elements[i].attributes.getAttribute(index);
+                    if (value != null) {
+                        values[i] = (Short) value;
+                        present.set(i);
+                    }
+                }
+                writer.writeShorts(kind, index, values);
+            } else if (type == Byte.class) {
+                byte[] values = new byte[count];
+                for (int i = 0; i < count; i++) {
+                    Object value = elements[i].attributes.getAttribute(index);
+                    if (value != null) {
+                        values[i] = (Byte) value;
+                        present.set(i);
+                    }
+                }
+                writer.writeBytes(kind, index, values);
+            } else if (type == Character.class) {
+                char[] values = new char[count];
+                for (int i = 0; i < count; i++) {
+                    Object value = elements[i].attributes.getAttribute(index);
+                    if (value != null) {
+                        values[i] = (Character) value;
+                        present.set(i);
+                    }
+                }
+                writer.writeChars(kind, index, values);
+            } else {
+                BitSet values = new BitSet(count);
+                for (int i = 0; i < count; i++) {
+                    Object value = elements[i].attributes.getAttribute(index);
+                    if (value != null) {
+                        values.set(i, (Boolean) value);
+                        present.set(i);
+                    }
+                }
+                writer.writeLongs(kind, index, values.toLongArray());
+            }
+            writer.writeLongs(presentKind, index, present.toLongArray());
+        }
+    }
+
+    private static Object[][] readColumns(SectionReader reader, int kind, int presentKind, ColumnStore columnStore, int count) throws IOException {
+        Object[][] res = new Object[count][];
+        for (int i = 0; i < count; i++) {
+            res[i] = new Object[columnStore.length];
+        }
+        for (int index = 0; index < columnStore.length; index++) {
+            ColumnImpl column = columnStore.columns[index];
+            if (column == null || !isPrimitiveColumn(column)) {
+                continue;
+            }
+            Class type = column.getTypeClass();
+            BitSet present = BitSet.valueOf(reader.readLongs(presentKind, index));
+            if (type == Integer.class) {
+                int[] values = reader.readInts(kind, index, count);
+                for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+                    res[i][index] = values[i];
+                }
+            } else if (type == Long.class) {
+                long[] values = reader.readLongs(kind, index);
+                for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+                    res[i][index] = values[i];
+                }
+            } else if (type == Double.class) {
+                double[] values = reader.readDoubles(kind, index, count);
+                for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+                    res[i][index] = values[i];
+                }
+            } else if (type == Float.class) {
+                float[] values = reader.readFloats(kind, index, count);
+                for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+                    res[i][index] = values[i];
+                }
+            } else if (type == Short.class) {
+                short[] values = reader.readShorts(kind, index, count);
+                for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+                    res[i][index] = values[i];
+                }
+            } else if (type == Byte.class) {
+                byte[] values = reader.readBytes(kind, index, count);
+                for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+                    res[i][index] = values[i];
+                }
+            } else if (type == Character.class) {
+                char[] values = reader.readChars(kind, index, count);
+                for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+                    res[i][index] = values[i];
+                }
+            } else {
+                BitSet values = BitSet.valueOf(reader.readLongs(kind, index));
+                for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+                    res[i][index] = values.get(i);
+                }
+            }
+        }
+        return res;
+    }
+
+    // Sections
+
+    private static final class SectionWriter {
+
+        private final FileChannel channel;
+        private final long start;
+        private final ByteBuffer buffer;
+        private final IntArrayList kinds = new IntArrayList();
+        private final IntArrayList args = new IntArrayList();
+        private final LongArrayList offsets = new LongArrayList();
+        private final LongArrayList lengths = new LongArrayList();
+        private long sectionOffset;
+
+        private SectionWriter(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.start = channel.position();
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            buffer.putInt(FORMAT_VERSION);
+            buffer.putLong(0L);
+            flush();
+        }
+
+        private void begin(int kind, int arg) throws IOException {
+            long position = channel.position() - start;
+            int padding = (int) ((8 - (position & 7)) & 7);
+            if (padding > 0) {
+                buffer.put(new byte[padding]);
+                flush();
+            }
+            sectionOffset = channel.position() - start;
+            kinds.add(kind);
+            args.add(arg);
+        }
+
+        private void end() throws IOException {
+            flush();
+            offsets.add(sectionOffset);
+            lengths.add(channel.position() - start - sectionOffset);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private DataOutputStream beginStream(int kind, int arg) throws IOException {
+            begin(kind, arg);
+            return new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+        }
+
+        private void endStream(DataOutputStream out) throws IOException {
+            out.flush();
+            end();
+        }
+
+        private void writeInts(int kind, int arg, int[] values) throws IOException {
+            begin(kind, arg);
+            for (int i = 0; i < values.length;) {
+                int length = Math.min(values.length - i, BUFFER_SIZE / Integer.BYTES);
+                buffer.asIntBuffer().put(values, i, length);
+                buffer.position(length * Integer.BYTES);
+                flush();
+                i += length;
+            }
+            end();
+        }
+
+        private void writeLongs(int kind, int arg, long[] values) throws IOException {
+            begin(kind, arg);
+            for (int i = 0; i < values.length;) {
+                int length = Math.min(values.length - i, BUFFER_SIZE / Long.BYTES);
+                buffer.asLongBuffer().put(values, i, length);
+                buffer.position(length * Long.BYTES);
+                flush();
+                i += length;
+            }
+            end();
+        }
+
+        private void writeFloats(int kind, int arg, float[] values) throws IOException {
+            begin(kind, arg);
+            for (int i = 0; i < values.length;) {
+                int length = Math.min(values.length - i, BUFFER_SIZE / Float.BYTES);
+                buffer.asFloatBuffer().put(values, i, length);
+                buffer.position(length * Float.BYTES);
+                flush();
+                i += length;
+            }
+            end();
+        }
+
+        private void writeDoubles(int kind, int arg, double[] values) throws IOException {
+            begin(kind, arg);
+            for (int i = 0; i < values.length;) {
+                int length = Math.min(values.length - i, BUFFER_SIZE / Double.BYTES);
+                buffer.asDoubleBuffer().put(values, i, length);
+                buffer.position(length * Double.BYTES);
+                flush();
+                i += length;
+            }
+            end();
+        }
+
+        private void writeShorts(int kind, int arg, short[] values) throws IOException {
+            begin(kind, arg);
+            for (int i = 0; i < values.length;) {
+                int length = Math.min(values.length - i, BUFFER_SIZE / Short.BYTES);
+                buffer.asShortBuffer().put(values, i, length);
+                buffer.position(length * Short.BYTES);
+                flush();
+                i += length;
+            }
+            end();
+        }
+
+        private void writeChars(int kind, int arg, char[] values) throws IOException {
+            begin(kind, arg);
+            for (int i = 0; i < values.length;) {
+                int length = Math.min(values.length - i, BUFFER_SIZE / Character.BYTES);
+                buffer.asCharBuffer().put(values, i, length);
+                buffer.position(length * Character.BYTES);
+                flush();
+                i += length;
+            }
+            end();
+        }
+
+        private void writeBytes(int kind, int arg, byte[] values) throws IOException {
+            begin(kind, arg);
+            for (int i = 0; i < values.length;) {
+                int length = Math.min(values.length - i, BUFFER_SIZE);
+                buffer.put(values, i, length);
+                flush();
+                i += length;
+            }
+            end();
+        }
+
+        // Writes the section table and patches its offset in the header
+        private void finish() throws IOException {
+            begin(0, 0);
+            kinds.popInt();
+            args.popInt();
+            long tableOffset = sectionOffset;
+            buffer.putInt(kinds.size());
+            for (int i = 0; i < kinds.size(); i++) {
+                if (buffer.remaining() < SECTION_ENTRY_SIZE) {
+                    flush();
+                }
+                buffer.putInt(kinds.getInt(i));
+                buffer.putInt(args.getInt(i));
+                buffer.putLong(offsets.getLong(i));
+                buffer.putLong(lengths.getLong(i));
+            }
+            flush();
+            long end = channel.position();
+            buffer.putLong(tableOffset);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, start + 8 + buffer.position());
+            }
+            buffer.clear();
+            channel.position(end);
+        }
+    }
+
+    private static final class SectionReader {
+
+        private final FileChannel channel;
+        private final long start;
+        private final Long2ObjectOpenHashMap<long[]> sections = new Long2ObjectOpenHashMap<>();
+
+        private SectionReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.start = channel.position();
+            ByteBuffer header = read(0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("The input is not a graph snapshot");
+            }
+            int version = header.getInt();
+            if (version > FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+            long tableOffset = header.getLong();
+            int count = read(tableOffset, Integer.BYTES).getInt();
+            ByteBuffer table = read(tableOffset + Integer.BYTES, count * SECTION_ENTRY_SIZE);
+            for (int i = 0; i < count; i++) {
+                int kind = table.getInt();
+                int arg = table.getInt();
+                sections.put(key(kind, arg), new long[] { table.getLong(), table.getLong() });
+            }
+        }
+
+        private static long key(int kind, int arg) {
+            return ((long) kind << 32) | (arg & 0xFFFFFFFFL);
+        }
+
+        private ByteBuffer read(long offset, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of snapshot");
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        private long[] section(int kind, int arg) throws IOException {
+            long[] section = sections.get(key(kind, arg));
+            if (section == null) {
+                throw new IOException("Missing snapshot section " + kind + " (" + arg + ")");
+            }
+            return section;
+        }
+
+        private ByteBuffer map(int kind, int arg, long expectedLength) throws IOException {
+            long[] section = section(kind, arg);
+            if (expectedLength >= 0 && section[1] != expectedLength) {
+                throw new IOException("Invalid snapshot section " + kind + " (" + arg + ") length: " + section[1]);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start + section[0], section[1]);
+            return buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        private DataInputStream stream(int kind, int arg) throws IOException {
+            channel.position(start + section(kind, arg)[0]);
+            return new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+        }
+
+        private int[] readInts(int kind, int arg, int count) throws IOException {
+            return readInts(kind, arg, new int[count]);
+        }
+
+        private int[] readInts(int kind, int arg, int[] values) throws IOException {
+            map(kind, arg, (long) values.length * Integer.BYTES).asIntBuffer().get(values);
+            return values;
+        }
+
+        private long[] readLongs(int kind, int arg) throws IOException {
+            ByteBuffer buffer = map(kind, arg, -1);
+            long[] values = new long[buffer.remaining() / Long.BYTES];
+            buffer.asLongBuffer().get(values);
+            return values;
+        }
+
+        private float[] readFloats(int kind, int arg, int count) throws IOException {
+            float[] values = new float[count];
+            map(kind, arg, (long) count * Float.BYTES).asFloatBuffer().get(values);
+            return values;
+        }
+
+        private double[] readDoubles(int kind, int arg, int count) throws IOException {
+            double[] values = new double[count];
+            map(kind, arg, (long) count * Double.BYTES).asDoubleBuffer().get(values);
+            return values;
+        }
+
+        private short[] readShorts(int kind, int arg, int count) throws IOException {
+            short[] values = new short[count];
+            map(kind, arg, (long) count * Short.BYTES).asShortBuffer().get(values);
+            return values;
+        }
+
+        private char[] readChars(int kind, int arg, int count) throws IOException {
+            char[] values = new char[count];
+            map(kind, arg, (long) count * Character.BYTES).asCharBuffer().get(values);
+            return values;
+        }
+
+        private byte[] readBytes(int kind, int arg, int count) throws IOException {
+            byte[] values = new byte[count];
+            map(kind, arg, count).get(values);
+            return values;
+        }
+    }
+}
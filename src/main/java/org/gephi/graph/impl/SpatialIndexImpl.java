@@ -1,5 +1,8 @@
 package org.gephi.graph.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.Predicate;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
@@ -16,6 +19,10 @@ import org.gephi.graph.api.SpatialIndex;
 public class SpatialIndexImpl implements SpatialIndex {
 
     protected final NodesQuadTree nodesTree;
+    // Batch
+    protected volatile int batchDepth;
+    // Bulk load
+    protected List<NodeImpl> loadedNodes;
 
     public SpatialIndexImpl(GraphStore store) {
         float boundaries = GraphStoreConfiguration.SPATIAL_INDEX_DIMENSION_BOUNDARY;
@@ -82,24 +89,77 @@ public class SpatialIndexImpl implements SpatialIndex {
     }
 
     protected void addNode(final NodeImpl node) {
+        if (loadedNodes != null) {
+            loadedNodes.add(node);
+            return;
+        }
         nodesTree.addNode(node);
     }
 
+    protected void addNodes(final NodeImpl[] nodes) {
+        if (loadedNodes != null) {
+            loadedNodes.addAll(Arrays.asList(nodes));
+            return;
+        }
+        nodesTree.addNodes(nodes);
+    }
+
     protected void removeNode(final NodeImpl node) {
+        if (loadedNodes != null && loadedNodes.remove(node)) {
+            return;
+        }
         nodesTree.removeNode(node);
     }
 
-    protected void moveNode(final NodeImpl node) {
-        final float x = node.x();
-        final float y = node.y();
-        final float size = node.size();
+    // Nodes added until endLoad() are indexed all at once, used when a store is loaded
+    protected void beginLoad() {
+        loadedNodes = new ArrayList<>();
+    }
 
-        final float minX = x - size;
-        final float minY = y - size;
-        final float maxX = x + size;
-        final float maxY = y + size;
+    protected void endLoad() {
+        NodeImpl[] nodes = loadedNodes.toArray(new NodeImpl[0]);
+        loadedNodes = null;
+        nodesTree.addNodes(nodes);
+    }
+
+    @Override
+    public synchronized void beginBatch() {
+        batchDepth++;
+    }
 
-        nodesTree.updateNode(node, minX, minY, maxX, maxY);
+    @Override
+    public synchronized void commitBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("No batch in progress");
+        }
+        if (--batchDepth == 0) {
+            nodesTree.rebuild();
+        }
+    }
+
+    @Override
+    public boolean isBatch() {
+        return batchDepth > 0;
+    }
+
+    protected void moveNode(final NodeImpl node) {
+        // Locked like commitBatch() so a move is never skipped after the batch has been rebuilt
+        synchronized (this) {
+            if (batchDepth > 0) {
+                // The node is indexed again when the batch commits
+                return;
+            }
+            final float x = node.x();
+            final float y = node.y();
+            final float size = node.size();
+
+            final float minX = x - size;
+            final float minY = y - size;
+            final float maxX = x + size;
+            final float maxY = y + size;
+
+            nodesTree.updateNode(node, minX, minY, maxX, maxY);
+        }
     }
 
     @Override
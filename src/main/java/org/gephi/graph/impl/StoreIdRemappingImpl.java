@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.BitSet;
+import org.gephi.graph.api.StoreIdRemapping;
+
+public class StoreIdRemappingImpl implements StoreIdRemapping {
+
+    // New store ids indexed by the old ones, null if unchanged
+    protected final int[] nodeRemap;
+    protected final int[] edgeRemap;
+    // Store ids length, used when unchanged
+    protected final int nodeLength;
+    protected final int edgeLength;
+
+    public StoreIdRemappingImpl(int[] nodeRemap, int[] edgeRemap, int nodeLength, int edgeLength) {
+        this.nodeRemap = nodeRemap;
+        this.edgeRemap = edgeRemap;
+        this.nodeLength = nodeLength;
+        this.edgeLength = edgeLength;
+    }
+
+    @Override
+    public boolean hasNodeChanges() {
+        return nodeRemap != null;
+    }
+
+    @Override
+    public boolean hasEdgeChanges() {
+        return edgeRemap != null;
+    }
+
+    @Override
+    public int getNodeStoreId(int oldStoreId) {
+        return get(nodeRemap, nodeLength, oldStoreId);
+    }
+
+    @Override
+    public int getEdgeStoreId(int oldStoreId) {
+        return get(edgeRemap, edgeLength, oldStoreId);
+    }
+
+    private static int get(int[] remap, int length, int oldStoreId) {
+        if (remap == null) {
+            return oldStoreId >= 0 && oldStoreId < length ? oldStoreId : -1;
+        }
+        return oldStoreId >= 0 && oldStoreId < remap.length ? remap[oldStoreId] : -1;
+    }
+
+    protected static BitSet remap(BitSet bitSet, int[] remap) {
+        BitSet result = new BitSet(bitSet.size());
+        for (int i = bitSet.nextSetBit(0); i >= 0 && i < remap.length; i = bitSet.nextSetBit(i + 1)) {
+            int id = remap[i];
+            if (id != -1) {
+                result.set(id);
+            }
+        }
+        return result;
+    }
+
+    protected static int[] remap(int[] values, int[] remap, int length) {
+        int[] result = new int[length];
+        int max = Math.min(values.length, remap.length);
+        for (int i = 0; i < max; i++) {
+            int id = remap[i];
+            if (id != -1) {
+                result[id] = values[i];
+            }
+        }
+        return result;
+    }
+}
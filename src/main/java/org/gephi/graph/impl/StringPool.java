@@ -0,0 +1,503 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.Hash;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Pool of deduplicated strings stored as bytes in large shared pages.
+ * <p>
+ * Each distinct string is stored once and referred to by an int handle, counted for each reference. Strings are encoded
+ * in Latin-1 when possible, in UTF-8 otherwise, and in UTF-16 if they contain unpaired surrogates so they always read
+ * back unchanged. A <code>String</code> is only created when {@link #get(int)} is called.
+ * <p>
+ * Handles stay valid until their last reference is released. The bytes of released strings are reclaimed by compacting
+ * the pages once they make up half of the pool.
+ * <p>
+ * Reads with {@link #get(int)} and {@link #getHash(int)} don't lock the pool. They go through an {@link Entries}
+ * snapshot of the arrays, republished by every change. Arrays read by a snapshot are copied rather than rewritten when
+ * they grow or when strings move.
+ */
+public class StringPool {
+
+    // Const
+    protected static final int NULL_HANDLE = -1;
+    protected static final int PAGE_SIZE = 1 << 16;
+    protected static final int LATIN1 = 0;
+    protected static final int UTF8 = 1;
+    protected static final int UTF16 = 2;
+    private static final int ENCODING_SHIFT = 30;
+    private static final int LENGTH_MASK = (1 << ENCODING_SHIFT) - 1;
+    private static final int EMPTY = -1;
+    // Pages
+    protected byte[][] pages;
+    protected int pagesCount;
+    protected int pageLength;
+    protected long usedBytes;
+    protected long garbageBytes;
+    // Entries, indexed by handle
+    protected long[] addresses;
+    protected int[] lengths;
+    protected int[] hashes;
+    protected int[] refCounts;
+    protected int handlesLength;
+    protected int size;
+    protected final IntArrayList freeHandles;
+    // Table of handles
+    protected int[] table;
+    protected int mask;
+    protected int maxFill;
+    // Arrays for the reads without lock
+    protected volatile Entries entries;
+
+    public StringPool() {
+        this.freeHandles = new IntArrayList();
+        init();
+    }
+
+    private void init() {
+        pages = new byte[4][];
+        pagesCount = 0;
+        pageLength = 0;
+        usedBytes = 0;
+        garbageBytes = 0;
+        addresses = new long[16];
+        lengths = new int[16];
+        hashes = new int[16];
+        refCounts = new int[16];
+        handlesLength = 0;
+        size = 0;
+        freeHandles.clear();
+        allocateTable(HashCommon.arraySize(16, Hash.DEFAULT_LOAD_FACTOR));
+        entries = new Entries(this);
+    }
+
+    // Publishes the changes to the reads without lock, with new arrays if they were replaced
+    private void publish() {
+        final Entries e = entries;
+        if (e.pages != pages || e.addresses != addresses || e.lengths != lengths || e.hashes != hashes || e.refCounts != refCounts) {
+            entries = new Entries(this);
+        } else {
+            entries = e;
+        }
+    }
+
+    /**
+     * Adds a reference to the string, storing it if it isn't in the pool yet.
+     *
+     * @param str string
+     * @return string handle
+     */
+    public synchronized int acquire(String str) {
+        int hash = str.hashCode();
+        int pos = find(str, hash);
+        if (pos != -1) {
+            refCounts[table[pos]]++;
+            publish();
+            return table[pos];
+        }
+        int handle = freeHandles.isEmpty() ? newHandle() : freeHandles.popInt();
+        write(handle, str);
+        hashes[handle] = hash;
+        refCounts[handle] = 1;
+        insert(handle, hash);
+        size++;
+        publish();
+        return handle;
+    }
+
+    /**
+     * Returns the handle of the string or {@link #NULL_HANDLE} if it isn't in the pool. Nothing is allocated.
+     *
+     * @param str string
+     * @return string handle or {@link #NULL_HANDLE}
+     */
+    public synchronized int find(String str) {
+        int pos = find(str, str.hashCode());
+        return pos == -1 ? NULL_HANDLE : table[pos];
+    }
+
+    /**
+     * Adds a reference to an existing handle.
+     *
+     * @param handle string handle
+     */
+    public synchronized void retain(int handle) {
+        checkHandle(refCounts, handle);
+        refCounts[handle]++;
+        publish();
+    }
+
+    /**
+     * Removes a reference to the handle, the string is removed with its last reference.
+     *
+     * @param handle string handle
+     */
+    public synchronized void release(int handle) {
+        checkHandle(refCounts, handle);
+        if (--refCounts[handle] == 0) {
+            int pos = HashCommon.mix(hashes[handle]) & mask;
+            while (table[pos] != handle) {
+                pos = (pos + 1) & mask;
+            }
+            shiftKeys(pos);
+            garbageBytes += lengths[handle] & LENGTH_MASK;
+            usedBytes -= lengths[handle] & LENGTH_MASK;
+            freeHandles.add(handle);
+            size--;
+            if (size == 0) {
+                init();
+            } else if (garbageBytes >= PAGE_SIZE && garbageBytes > usedBytes) {
+                compactPages();
+            }
+        }
+        publish();
+    }
+
+    /**
+     * Materializes the string.
+     *
+     * @param handle string handle
+     * @return string
+     */
+    public String get(int handle) {
+        final Entries e = entries;
+        checkHandle(e.refCounts, handle);
+        final long address = e.addresses[handle];
+        final int length = e.lengths[handle];
+        return decode(e.pages[(int) (address >>> 32)], (int) address, length & LENGTH_MASK, length >>> ENCODING_SHIFT);
+    }
+
+    /**
+     * Returns the hash code of the string, equal to <code>String.hashCode()</code>. Unlike {@link #get(int)} this
+     * doesn't allocate.
+     *
+     * @param handle string handle
+     * @return string hash code
+     */
+    public int getHash(int handle) {
+        return entries.hashes[handle];
+    }
+
+    // Raw accessors, used by serialization
+    protected int getLength(int handle) {
+        return lengths[handle] & LENGTH_MASK;
+    }
+
+    protected int getEncoding(int handle) {
+        return lengths[handle] >>> ENCODING_SHIFT;
+    }
+
+    protected byte[] getPage(int handle) {
+        return pages[(int) (addresses[handle] >>> 32)];
+    }
+
+    protected int getOffset(int handle) {
+        return (int) addresses[handle];
+    }
+
+    protected static String decode(byte[] bytes, int offset, int length, int encoding) {
+        switch (encoding) {
+            case LATIN1:
+                return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+            case UTF8:
+                return new String(bytes, offset, length, StandardCharsets.UTF_8);
+            case UTF16:
+                char[] chars = new char[length / 2];
+                for (int i = 0; i < chars.length; i++) {
+                    chars[i] = (char) ((bytes[offset + 2 * i] & 0xFF) << 8 | bytes[offset + 2 * i + 1] & 0xFF);
+                }
+                return new String(chars);
+            default:
+                throw new IllegalArgumentException("Unknown encoding " + encoding);
+        }
+    }
+
+    public synchronized int getRefCount(int handle) {
+        checkHandle(refCounts, handle);
+        return refCounts[handle];
+    }
+
+    /**
+     * Returns the number of distinct strings.
+     *
+     * @return string count
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes used by the strings, not counting released strings not yet reclaimed.
+     *
+     * @return byte count
+     */
+    public synchronized long getByteSize() {
+        return usedBytes;
+    }
+
+    public synchronized void clear() {
+        init();
+    }
+
+    private int newHandle() {
+        if (handlesLength == addresses.length) {
+            int capacity = handlesLength * 2;
+            addresses = Arrays.copyOf(addresses, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            refCounts = Arrays.copyOf(refCounts, capacity);
+        }
+        return handlesLength++;
+    }
+
+    private static void checkHandle(int[] refCounts, int handle) {
+        if (handle < 0 || handle >= refCounts.length || refCounts[handle] == 0) {
+            throw new IllegalArgumentException("The handle " + handle + " is not in the pool");
+        }
+    }
+
+    // Encoding
+    private void write(int handle, String str) {
+        int encoding = encoding(str);
+        int strLength = str.length();
+        byte[] bytes = null;
+        int length;
+        if (encoding == LATIN1) {
+            length = strLength;
+        } else if (encoding == UTF8) {
+            bytes = str.getBytes(StandardCharsets.UTF_8);
+            length = bytes.length;
+        } else {
+            length = strLength * 2;
+        }
+        if (length > LENGTH_MASK) {
+            throw new IllegalArgumentException("The string is too long for the pool");
+        }
+        int offset = reserve(length);
+        byte[] page = pages[pagesCount - 1];
+        if (encoding == LATIN1) {
+            for (int i = 0; i < strLength; i++) {
+                page[offset + i] = (byte) str.charAt(i);
+            }
+        } else if (encoding == UTF8) {
+            System.arraycopy(bytes, 0, page, offset, length);
+        } else {
+            for (int i = 0; i < strLength; i++) {
+                char c = str.charAt(i);
+                page[offset + 2 * i] = (byte) (c >>> 8);
+                page[offset + 2 * i + 1] = (byte) c;
+            }
+        }
+        addresses[handle] = ((long) (pagesCount - 1) << 32) | offset;
+        lengths[handle] = encoding << ENCODING_SHIFT | length;
+        usedBytes += length;
+    }
+
+    private static int encoding(String str) {
+        int encoding = LATIN1;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < str.length() && Character.isLowSurrogate(str.charAt(i + 1))) {
+                encoding = UTF8;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                return UTF16;
+            } else if (c > 0xFF) {
+                encoding = UTF8;
+            }
+        }
+        return encoding;
+    }
+
+    // Returns the offset in the last page where the bytes can be written
+    private int reserve(int length) {
+        if (pagesCount == 0 || pageLength + length > pages[pagesCount - 1].length) {
+            if (pagesCount == pages.length) {
+                pages = Arrays.copyOf(pages, pagesCount * 2);
+            }
+            pages[pagesCount++] = new byte[Math.max(PAGE_SIZE, length)];
+            pageLength = 0;
+        }
+        int offset = pageLength;
+        pageLength += length;
+        return offset;
+    }
+
+    private boolean equals(int handle, String str) {
+        long address = addresses[handle];
+        byte[] page = pages[(int) (address >>> 32)];
+        int offset = (int) address;
+        int length = lengths[handle] & LENGTH_MASK;
+        int strLength = str.length();
+        switch (lengths[handle] >>> ENCODING_SHIFT) {
+            case LATIN1:
+                if (length != strLength) {
+                    return false;
+                }
+                for (int i = 0; i < length; i++) {
+                    if ((page[offset + i] & 0xFF) != str.charAt(i)) {
+                        return false;
+                    }
+                }
+                return true;
+            case UTF8:
+                int i = 0;
+                int end = offset + length;
+                for (int p = offset; p < end;) {
+                    int b = page[p++] & 0xFF;
+                    int codePoint;
+                    if (b < 0x80) {
+                        codePoint = b;
+                    } else if (b < 0xE0) {
+                        codePoint = (b & 0x1F) << 6 | page[p++] & 0x3F;
+                    } else if (b < 0xF0) {
+                        codePoint = (b & 0x0F) << 12 | (page[p++] & 0x3F) << 6 | page[p++] & 0x3F;
+                    } else {
+                        codePoint = (b & 0x07) << 18 | (page[p++] & 0x3F) << 12 | (page[p++] & 0x3F) << 6 | page[p++] & 0x3F;
+                    }
+                    if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                        if (i >= strLength || str.charAt(i++) != codePoint) {
+                            return false;
+                        }
+                    } else if (i + 1 >= strLength || str.charAt(i++) != Character.highSurrogate(codePoint) || str
+                            .charAt(i++) != Character.lowSurrogate(codePoint)) {
+                        return false;
+                    }
+                }
+                return i == strLength;
+            default:
+                if (length != strLength * 2) {
+                    return false;
+                }
+                for (int j = 0; j < strLength; j++) {
+                    if (((page[offset + 2 * j] & 0xFF) << 8 | page[offset + 2 * j + 1] & 0xFF) != str.charAt(j)) {
+                        return false;
+                    }
+                }
+                return true;
+        }
+    }
+
+    // Rewrites the live strings in new pages, handles are unchanged
+    private void compactPages() {
+        byte[][] oldPages = pages;
+        // Readers may still use the old pages with the old addresses
+        addresses = addresses.clone();
+        pages = new byte[4][];
+        pagesCount = 0;
+        pageLength = 0;
+        for (int handle = 0; handle < handlesLength; handle++) {
+            if (refCounts[handle] > 0) {
+                long address = addresses[handle];
+                int length = lengths[handle] & LENGTH_MASK;
+                int offset = reserve(length);
+                System.arraycopy(oldPages[(int) (address >>> 32)], (int) address, pages[pagesCount - 1], offset, length);
+                addresses[handle] = ((long) (pagesCount - 1) << 32) | offset;
+            }
+        }
+        garbageBytes = 0;
+    }
+
+    // Table
+    private void allocateTable(int capacity) {
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        mask = capacity - 1;
+        maxFill = HashCommon.maxFill(capacity, Hash.DEFAULT_LOAD_FACTOR);
+    }
+
+    private int find(String str, int hash) {
+        int pos = HashCommon.mix(hash) & mask;
+        int handle;
+        while ((handle = table[pos]) != EMPTY) {
+            if (hashes[handle] == hash && equals(handle, str)) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(int handle, int hash) {
+        int pos = HashCommon.mix(hash) & mask;
+        while (table[pos] != EMPTY) {
+            pos = (pos + 1) & mask;
+        }
+        table[pos] = handle;
+        if (size + 1 >= maxFill) {
+            rehash(HashCommon.arraySize(size + 2, Hash.DEFAULT_LOAD_FACTOR));
+        }
+    }
+
+    private void shiftKeys(int pos) {
+        int last;
+        int slot;
+        while (true) {
+            pos = ((last = pos) + 1) & mask;
+            while (true) {
+                if (table[pos] == EMPTY) {
+                    table[last] = EMPTY;
+                    return;
+                }
+                slot = HashCommon.mix(hashes[table[pos]]) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            table[last] = table[pos];
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] oldTable = table;
+        allocateTable(capacity);
+        for (int handle : oldTable) {
+            if (handle != EMPTY) {
+                int pos = HashCommon.mix(hashes[handle]) & mask;
+                while (table[pos] != EMPTY) {
+                    pos = (pos + 1) & mask;
+                }
+                table[pos] = handle;
+            }
+        }
+    }
+
+    /**
+     * Arrays read by {@link #get(int)} and {@link #getHash(int)} without locking.
+     */
+    protected static final class Entries {
+
+        protected final byte[][] pages;
+        protected final long[] addresses;
+        protected final int[] lengths;
+        protected final int[] hashes;
+        protected final int[] refCounts;
+
+        private Entries(StringPool pool) {
+            this.pages = pool.pages;
+            this.addresses = pool.addresses;
+            this.lengths = pool.lengths;
+            this.hashes = pool.hashes;
+            this.refCounts = pool.refCounts;
+        }
+    }
+}
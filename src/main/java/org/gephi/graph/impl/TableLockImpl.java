@@ -21,18 +21,44 @@ import org.gephi.graph.api.TableLock;
 public class TableLockImpl implements TableLock {
 
     protected final ReentrantLock lock;
+    // Statistics (optional)
+    protected final LockStatisticsImpl statistics;
+    // Outermost acquisition, only accessed by the holder. Kept here as table locks sharing statistics can nest
+    private long acquisitionTime;
+    private long waitTime;
+    private boolean contended;
 
     public TableLockImpl() {
+        this(null);
+    }
+
+    public TableLockImpl(LockStatisticsImpl statistics) {
         lock = new ReentrantLock();
+        this.statistics = statistics;
     }
 
     @Override
     public void lock() {
-        lock.lock();
+        if (statistics == null || lock.isHeldByCurrentThread()) {
+            lock.lock();
+            return;
+        }
+        long startTime = System.nanoTime();
+        boolean waited = !lock.tryLock();
+        if (waited) {
+            lock.lock();
+        }
+        acquisitionTime = System.nanoTime();
+        waitTime = acquisitionTime - startTime;
+        contended = waited;
+        statistics.recordAcquisition(startTime, acquisitionTime, waited);
     }
 
     @Override
     public void unlock() {
+        if (statistics != null && lock.getHoldCount() == 1) {
+            statistics.recordRelease(acquisitionTime, waitTime, contended);
+        }
         lock.unlock();
     }
 
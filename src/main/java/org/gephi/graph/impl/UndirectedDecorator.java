@@ -17,6 +17,8 @@ package org.gephi.graph.impl;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
 import org.gephi.graph.api.Graph;
@@ -111,6 +113,11 @@ public class UndirectedDecorator implements UndirectedGraph, UndirectedSubgraph
         return store.getNode(id);
     }
 
+    @Override
+    public Node getNode(long id) {
+        return store.getNode(id);
+    }
+
     @Override
     public Node getNodeByStoreId(int id) {
         return store.getNodeByStoreId(id);
@@ -126,6 +133,11 @@ public class UndirectedDecorator implements UndirectedGraph, UndirectedSubgraph
         return store.getEdge(id);
     }
 
+    @Override
+    public Edge getEdge(long id) {
+        return store.getEdge(id);
+    }
+
     @Override
     public Edge getEdgeByStoreId(int storeId) {
         return store.getEdgeByStoreId(storeId);
@@ -211,6 +223,83 @@ public class UndirectedDecorator implements UndirectedGraph, UndirectedSubgraph
         return new EdgeIterableWrapper(() -> store.edgeStore.edgeUndirectedIterator(node, type), store.getAutoLock());
     }
 
+    @Override
+    public void forEachNeighbor(Node node, IntConsumer consumer) {
+        store.autoReadLock();
+        try {
+            store.edgeStore.forEachNeighbor((NodeImpl) node, EdgeStore.ANY_TYPE, true, true, null, consumer);
+        } finally {
+            store.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachNeighbor(Node node, int type, IntConsumer consumer) {
+        store.autoReadLock();
+        try {
+            store.edgeStore.forEachNeighbor((NodeImpl) node, type, true, true, null, consumer);
+        } finally {
+            store.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachEdge(Node node, Consumer<? super Edge> consumer) {
+        store.autoReadLock();
+        try {
+            store.edgeStore.forEachEdge((NodeImpl) node, EdgeStore.ANY_TYPE, true, true, true, null, consumer);
+        } finally {
+            store.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public void forEachEdge(Node node, int type, Consumer<? super Edge> consumer) {
+        store.autoReadLock();
+        try {
+            store.edgeStore.forEachEdge((NodeImpl) node, type, true, true, true, null, consumer);
+        } finally {
+            store.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public int neighborStoreIds(Node node, int[] buffer) {
+        store.autoReadLock();
+        try {
+            return store.edgeStore.neighborStoreIds((NodeImpl) node, null, buffer);
+        } finally {
+            store.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public NodeIterable getCommonNeighbors(final Node node1, final Node node2) {
+        return new NodeIterableWrapper(
+                () -> store.commonNeighborIterator(node1, node2, store.edgeStore.neighborIndex, null),
+                store.getAutoLock());
+    }
+
+    @Override
+    public int countCommonNeighbors(Node node1, Node node2) {
+        store.autoReadLock();
+        try {
+            return store.edgeStore.commonNeighbors(node1, node2, store.edgeStore.neighborIndex, null, null);
+        } finally {
+            store.autoReadUnlock();
+        }
+    }
+
+    @Override
+    public int commonNeighborStoreIds(Node node1, Node node2, int[] buffer) {
+        store.autoReadLock();
+        try {
+            return store.edgeStore.commonNeighbors(node1, node2, store.edgeStore.neighborIndex, null, buffer);
+        } finally {
+            store.autoReadUnlock();
+        }
+    }
+
     @Override
     public int getNodeCount() {
         return store.getNodeCount();
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl.utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Input stream reading the chunks written by {@link ChunkedOutputStream}.
+ * <p>
+ * Chunks are decompressed and their checksum verified as they are read, memory use is bounded by the chunk size.
+ */
+public final class ChunkedInputStream extends InputStream {
+
+    // Channel
+    private final ReadableByteChannel channel;
+    private final boolean checksum;
+    // Buffers
+    private final byte[] chunk;
+    private final ByteBuffer input;
+    private final Inflater inflater;
+    private final CRC32 crc;
+    private int position;
+    private int length;
+    private boolean finished;
+
+    public ChunkedInputStream(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(ChunkedOutputStream.HEADER_SIZE);
+        readFully(header);
+        if (header.getInt() != ChunkedOutputStream.MAGIC) {
+            throw new IOException("The input is not a chunked stream");
+        }
+        byte version = header.get();
+        if (version > ChunkedOutputStream.VERSION) {
+            throw new IOException("Unsupported chunked stream version: " + version);
+        }
+        byte flags = header.get();
+        int chunkSize = header.getInt();
+        if (chunkSize <= 0) {
+            throw new IOException("Invalid chunk size: " + chunkSize);
+        }
+        this.checksum = (flags & ChunkedOutputStream.CHECKSUM) != 0;
+        this.chunk = new byte[chunkSize];
+        this.input = ByteBuffer.allocate(ChunkedOutputStream.CHUNK_HEADER_SIZE + chunkSize);
+        this.inflater = (flags & ChunkedOutputStream.COMPRESSED) != 0 ? new Inflater() : null;
+        this.crc = checksum ? new CRC32() : null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == length && !readChunk()) {
+            return -1;
+        }
+        return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position == length && !readChunk()) {
+            return -1;
+        }
+        int n = Math.min(len, length - position);
+        System.arraycopy(chunk, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return length - position;
+    }
+
+    /**
+     * Releases the decompression resources. The underlying channel is left open.
+     */
+    @Override
+    public void close() {
+        if (inflater != null) {
+            inflater.end();
+        }
+    }
+
+    private boolean readChunk() throws IOException {
+        if (finished) {
+            return false;
+        }
+        input.clear().limit(ChunkedOutputStream.CHUNK_HEADER_SIZE);
+        readFully(input);
+        int rawLength = input.getInt();
+        int storedLength = input.getInt();
+        int expectedCrc = input.getInt();
+        if (rawLength == 0) {
+            finished = true;
+            return false;
+        }
+        if (rawLength < 0 || rawLength > chunk.length || storedLength <= 0 || storedLength > rawLength) {
+            throw new IOException("Invalid chunk length: " + rawLength + " (" + storedLength + ")");
+        }
+        input.clear().limit(storedLength);
+        readFully(input);
+        if (storedLength < rawLength) {
+            if (inflater == null) {
+                throw new IOException("Unexpected compressed chunk");
+            }
+            inflater.reset();
+            inflater.setInput(input.array(), 0, storedLength);
+            try {
+                if (inflater.inflate(chunk, 0, rawLength) != rawLength || !inflater.finished()) {
+                    throw new IOException("Invalid compressed chunk");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            }
+        } else {
+            System.arraycopy(input.array(), 0, chunk, 0, rawLength);
+        }
+        if (checksum) {
+            crc.reset();
+            crc.update(chunk, 0, rawLength);
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Chunk checksum mismatch");
+            }
+        }
+        position = 0;
+        length = rawLength;
+        return true;
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of chunked stream");
+            }
+        }
+        buffer.flip();
+    }
+}
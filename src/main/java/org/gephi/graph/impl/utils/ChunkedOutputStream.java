@@ -0,0 +1,168 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream writing fixed-size chunks to a channel, with optional per-chunk compression and checksums.
+ * <p>
+ * Memory use is bounded by the chunk size whatever the amount of data written. The stream starts with a header (magic
+ * number, format version, flags and chunk size) and each chunk with its raw length, stored length and, if enabled, the
+ * CRC32 of its raw bytes. A chunk is stored uncompressed when compression doesn't make it smaller. The stream ends with
+ * an empty chunk. Read back with {@link ChunkedInputStream}.
+ */
+public final class ChunkedOutputStream extends OutputStream {
+
+    // Format
+    static final int MAGIC = 0x4753434B;
+    static final byte VERSION = 1;
+    static final byte COMPRESSED = 1;
+    static final byte CHECKSUM = 1 << 1;
+    static final int HEADER_SIZE = 10;
+    static final int CHUNK_HEADER_SIZE = 12;
+    // Channel
+    private final WritableByteChannel channel;
+    private final boolean compress;
+    private final boolean checksum;
+    // Buffers
+    private final byte[] chunk;
+    private final ByteBuffer output;
+    private final Deflater deflater;
+    private final CRC32 crc;
+    private int length;
+    private boolean closed;
+
+    public ChunkedOutputStream(WritableByteChannel channel, int chunkSize, boolean compress, boolean checksum) throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size should be positive");
+        }
+        this.channel = channel;
+        this.compress = compress;
+        this.checksum = checksum;
+        this.chunk = new byte[chunkSize];
+        this.output = ByteBuffer.allocate(CHUNK_HEADER_SIZE + chunkSize);
+        this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        this.crc = checksum ? new CRC32() : null;
+
+        output.putInt(MAGIC);
+        output.put(VERSION);
+        output.put((byte) ((compress ? COMPRESSED : 0) | (checksum ? CHECKSUM : 0)));
+        output.putInt(chunkSize);
+        writeOutput();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (length == chunk.length) {
+            writeChunk();
+        }
+        chunk[length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (length == chunk.length) {
+                writeChunk();
+            }
+            int n = Math.min(len, chunk.length - length);
+            System.arraycopy(b, off, chunk, length, n);
+            length += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Writes the pending bytes as a chunk, even if smaller than the chunk size.
+     *
+     * @throws IOException if an io error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        if (length > 0) {
+            writeChunk();
+        }
+    }
+
+    /**
+     * Writes the pending bytes and the end of stream marker. The underlying channel is left open.
+     *
+     * @throws IOException if an io error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            flush();
+            output.putInt(0);
+            output.putInt(0);
+            output.putInt(0);
+            writeOutput();
+            if (deflater != null) {
+                deflater.end();
+            }
+            closed = true;
+        }
+    }
+
+    private void writeChunk() throws IOException {
+        if (closed) {
+            throw new IOException("The stream is closed");
+        }
+        output.putInt(length);
+        int storedLengthPosition = output.position();
+        output.putInt(length);
+        if (checksum) {
+            crc.reset();
+            crc.update(chunk, 0, length);
+            output.putInt((int) crc.getValue());
+        } else {
+            output.putInt(0);
+        }
+        int stored = 0;
+        if (compress) {
+            deflater.reset();
+            deflater.setInput(chunk, 0, length);
+            deflater.finish();
+            stored = deflater.deflate(output.array(), output.position(), length);
+            if (!deflater.finished() || stored >= length) {
+                stored = 0;
+            }
+        }
+        if (stored > 0) {
+            output.putInt(storedLengthPosition, stored);
+            output.position(output.position() + stored);
+        } else {
+            output.put(chunk, 0, length);
+        }
+        writeOutput();
+        length = 0;
+    }
+
+    private void writeOutput() throws IOException {
+        output.flip();
+        while (output.hasRemaining()) {
+            channel.write(output);
+        }
+        output.clear();
+    }
+}
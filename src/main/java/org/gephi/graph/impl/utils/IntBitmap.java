@@ -0,0 +1,684 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl.utils;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed bitmap of non-negative integers, in the spirit of Roaring bitmaps.
+ * <p>
+ * Values are partitioned by their upper 16 bits into containers holding the lower 16 bits, either as a sorted
+ * <code>char</code> array when sparse or as a 65536-bit bitmap when dense. Intersections, unions and differences are
+ * computed container by container and return new bitmaps.
+ */
+public final class IntBitmap {
+
+    // Containers
+    static final int MAX_ARRAY_SIZE = 4096;
+    static final int BITMAP_WORDS = 1024;
+    // Data
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+    private int cardinality;
+
+    public IntBitmap() {
+        this(4);
+    }
+
+    private IntBitmap(int capacity) {
+        keys = new char[Math.max(capacity, 1)];
+        containers = new Container[Math.max(capacity, 1)];
+    }
+
+    public boolean add(int value) {
+        checkValue(value);
+
+        char high = (char) (value >>> 16);
+        int index = indexOf(high);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, high, new ArrayContainer());
+        }
+        Container container = containers[index];
+        int before = container.cardinality;
+        container = container.add((char) value);
+        containers[index] = container;
+        if (container.cardinality != before) {
+            cardinality++;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean remove(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        Container container = containers[index];
+        int before = container.cardinality;
+        container = container.remove((char) value);
+        if (container.cardinality == before) {
+            return false;
+        }
+        cardinality--;
+        if (container.cardinality == 0) {
+            removeContainer(index);
+        } else {
+            containers[index] = container;
+        }
+        return true;
+    }
+
+    public void addAll(IntBitmap other) {
+        for (int i = 0; i < other.size; i++) {
+            char key = other.keys[i];
+            int index = indexOf(key);
+            if (index < 0) {
+                insertContainer(-index - 1, key, other.containers[i].copy());
+                cardinality += other.containers[i].cardinality;
+            } else {
+                Container container = containers[index];
+                cardinality -= container.cardinality;
+                container = container.or(other.containers[i]);
+                cardinality += container.cardinality;
+                containers[index] = container;
+            }
+        }
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(containers, 0, size, null);
+        size = 0;
+        cardinality = 0;
+    }
+
+    public IntBitmap copy() {
+        IntBitmap copy = new IntBitmap(size);
+        for (int i = 0; i < size; i++) {
+            copy.append(keys[i], containers[i].copy());
+        }
+        return copy;
+    }
+
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    public IntIterator iterator() {
+        return new BitmapIterator();
+    }
+
+    public int[] toArray() {
+        int[] array = new int[cardinality];
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            offset = containers[i].toArray(keys[i] << 16, array, offset);
+        }
+        return array;
+    }
+
+    public static IntBitmap and(IntBitmap a, IntBitmap b) {
+        IntBitmap result = new IntBitmap(Math.min(a.size, b.size));
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            char ka = a.keys[i];
+            char kb = b.keys[j];
+            if (ka < kb) {
+                i++;
+            } else if (ka > kb) {
+                j++;
+            } else {
+                Container c = a.containers[i++].and(b.containers[j++]);
+                if (c.cardinality > 0) {
+                    result.append(ka, c);
+                }
+            }
+        }
+        return result;
+    }
+
+    public static int andCardinality(IntBitmap a, IntBitmap b) {
+        int count = 0;
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            char ka = a.keys[i];
+            char kb = b.keys[j];
+            if (ka < kb) {
+                i++;
+            } else if (ka > kb) {
+                j++;
+            } else {
+                count += a.containers[i++].andCardinality(b.containers[j++]);
+            }
+        }
+        return count;
+    }
+
+    public static IntBitmap or(IntBitmap a, IntBitmap b) {
+        IntBitmap result = new IntBitmap(a.size + b.size);
+        int i = 0, j = 0;
+        while (i < a.size || j < b.size) {
+            if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.append(a.keys[i], a.containers[i++].copy());
+            } else if (i >= a.size || b.keys[j] < a.keys[i]) {
+                result.append(b.keys[j], b.containers[j++].copy());
+            } else {
+                result.append(a.keys[i], a.containers[i++].or(b.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    public static IntBitmap andNot(IntBitmap a, IntBitmap b) {
+        IntBitmap result = new IntBitmap(a.size);
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            char ka = a.keys[i];
+            while (j < b.size && b.keys[j] < ka) {
+                j++;
+            }
+            Container c = j < b.size && b.keys[j] == ka ? a.containers[i].andNot(b.containers[j])
+                    : a.containers[i].copy();
+            if (c.cardinality > 0) {
+                result.append(ka, c);
+            }
+        }
+        return result;
+    }
+
+    private int indexOf(char key) {
+        // Fast path for appends in increasing order
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        ensureCapacity(size + 1);
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        containers[--size] = null;
+    }
+
+    private void append(char key, Container container) {
+        ensureCapacity(size + 1);
+        keys[size] = key;
+        containers[size++] = container;
+        cardinality += container.cardinality;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newLength = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, newLength);
+            containers = Arrays.copyOf(containers, newLength);
+        }
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("The value can't be negative");
+        }
+    }
+
+    private abstract static class Container {
+
+        protected int cardinality;
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract Container and(Container other);
+
+        abstract int andCardinality(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        abstract void forEach(int high, IntConsumer consumer);
+
+        abstract int toArray(int high, int[] array, int offset);
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        private char[] content;
+
+        ArrayContainer() {
+            content = new char[4];
+        }
+
+        ArrayContainer(char[] content, int cardinality) {
+            this.content = content;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(content, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality >= MAX_ARRAY_SIZE) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == content.length) {
+                content = Arrays.copyOf(content, Math.min(MAX_ARRAY_SIZE, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(content, index, content, index + 1, cardinality - index);
+            content[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(content, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(content, index + 1, content, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(content, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.min(cardinality, other.cardinality)];
+            int count = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                int i = 0, j = 0;
+                while (i < cardinality && j < o.cardinality) {
+                    char a = content[i];
+                    char b = o.content[j];
+                    if (a < b) {
+                        i++;
+                    } else if (a > b) {
+                        j++;
+                    } else {
+                        result[count++] = a;
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(content[i])) {
+                        result[count++] = content[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            int count = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                int i = 0, j = 0;
+                while (i < cardinality && j < o.cardinality) {
+                    char a = content[i];
+                    char b = o.content[j];
+                    if (a < b) {
+                        i++;
+                    } else if (a > b) {
+                        j++;
+                    } else {
+                        count++;
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(content[i])) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer o = (ArrayContainer) other;
+            char[] result = new char[cardinality + o.cardinality];
+            int count = 0;
+            int i = 0, j = 0;
+            while (i < cardinality || j < o.cardinality) {
+                if (j >= o.cardinality || (i < cardinality && content[i] < o.content[j])) {
+                    result[count++] = content[i++];
+                } else if (i >= cardinality || o.content[j] < content[i]) {
+                    result[count++] = o.content[j++];
+                } else {
+                    result[count++] = content[i++];
+                    j++;
+                }
+            }
+            if (count > MAX_ARRAY_SIZE) {
+                return new ArrayContainer(result, count).toBitmap();
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(content[i])) {
+                    result[count++] = content[i];
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(content, Math.max(cardinality, 1)), cardinality);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < cardinality; i++) {
+                consumer.accept(high | content[i]);
+            }
+        }
+
+        @Override
+        int toArray(int high, int[] array, int offset) {
+            for (int i = 0; i < cardinality; i++) {
+                array[offset++] = high | content[i];
+            }
+            return offset;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                char value = content[i];
+                bitmap.words[value >>> 6] |= 1L << value;
+            }
+            bitmap.cardinality = cardinality;
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words;
+
+        BitmapContainer() {
+            words = new long[BITMAP_WORDS];
+        }
+
+        BitmapContainer(long[] words) {
+            this.words = words;
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            this.cardinality = count;
+        }
+
+        @Override
+        Container add(char value) {
+            long mask = 1L << value;
+            int index = value >>> 6;
+            if ((words[index] & mask) == 0) {
+                words[index] |= mask;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long mask = 1L << value;
+            int index = value >>> 6;
+            if ((words[index] & mask) != 0) {
+                words[index] &= ~mask;
+                cardinality--;
+                // Shrink with some hysteresis to avoid flipping at the threshold
+                if (cardinality < MAX_ARRAY_SIZE / 2) {
+                    return toArrayContainer();
+                }
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] o = ((BitmapContainer) other).words;
+            long[] result = new long[BITMAP_WORDS];
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result[i] = words[i] & o[i];
+            }
+            return new BitmapContainer(result).normalize();
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.andCardinality(this);
+            }
+            long[] o = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                count += Long.bitCount(words[i] & o[i]);
+            }
+            return count;
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                for (int i = 0; i < o.cardinality; i++) {
+                    char value = o.content[i];
+                    result[value >>> 6] |= 1L << value;
+                }
+            } else {
+                long[] o = ((BitmapContainer) other).words;
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result[i] |= o[i];
+                }
+            }
+            return new BitmapContainer(result);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] result = words.clone();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                for (int i = 0; i < o.cardinality; i++) {
+                    char value = o.content[i];
+                    result[value >>> 6] &= ~(1L << value);
+                }
+            } else {
+                long[] o = ((BitmapContainer) other).words;
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    result[i] &= ~o[i];
+                }
+            }
+            return new BitmapContainer(result).normalize();
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone());
+        }
+
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(high | (i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        int toArray(int high, int[] array, int offset) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    array[offset++] = high | (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return offset;
+        }
+
+        Container normalize() {
+            return cardinality <= MAX_ARRAY_SIZE ? toArrayContainer() : this;
+        }
+
+        ArrayContainer toArrayContainer() {
+            char[] content = new char[Math.max(cardinality, 1)];
+            int count = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    content[count++] = (char) ((i << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(content, count);
+        }
+    }
+
+    private final class BitmapIterator implements IntIterator {
+
+        private int index = -1;
+        private int high;
+        private ArrayContainer array;
+        private int position;
+        private BitmapContainer bitmap;
+        private int wordIndex;
+        private long word;
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                if (array != null) {
+                    if (position < array.cardinality) {
+                        return true;
+                    }
+                } else if (bitmap != null) {
+                    while (word == 0 && ++wordIndex < BITMAP_WORDS) {
+                        word = bitmap.words[wordIndex];
+                    }
+                    if (word != 0) {
+                        return true;
+                    }
+                }
+                array = null;
+                bitmap = null;
+                if (++index >= size) {
+                    index = size;
+                    return false;
+                }
+                high = keys[index] << 16;
+                Container container = containers[index];
+                if (container instanceof ArrayContainer) {
+                    array = (ArrayContainer) container;
+                    position = 0;
+                } else {
+                    bitmap = (BitmapContainer) container;
+                    wordIndex = 0;
+                    word = bitmap.words[0];
+                }
+            }
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (array != null) {
+                return high | array.content[position++];
+            }
+            int value = high | (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            return value;
+        }
+    }
+}
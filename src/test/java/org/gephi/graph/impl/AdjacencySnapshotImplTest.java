@@ -0,0 +1,265 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.Arrays;
+import org.gephi.graph.api.AdjacencySnapshot;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class AdjacencySnapshotImplTest {
+
+    @Test
+    public void testEmpty() {
+        GraphStore graphStore = GraphGenerator.generateEmptyGraphStore();
+        AdjacencySnapshot snapshot = graphStore.graphModel.createAdjacencySnapshot();
+
+        Assert.assertEquals(snapshot.getNodeCount(), 0);
+        Assert.assertEquals(snapshot.getEdgeCount(), 0);
+        Assert.assertEquals(snapshot.getOutOffsets(), new int[] { 0 });
+        Assert.assertEquals(snapshot.getInOffsets(), new int[] { 0 });
+        Assert.assertSame(snapshot.getView(), graphStore.getView());
+    }
+
+    @Test
+    public void testTiny() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        AdjacencySnapshot snapshot = graphStore.graphModel.createAdjacencySnapshot();
+
+        Assert.assertEquals(snapshot.getNodeCount(), 2);
+        Assert.assertEquals(snapshot.getEdgeCount(), 1);
+        Edge edge = graphStore.getEdges().toArray()[0];
+        int source = snapshot.getIndex(edge.getSource().getStoreId());
+        int target = snapshot.getIndex(edge.getTarget().getStoreId());
+        Assert.assertEquals(snapshot.getOutDegree(source), 1);
+        Assert.assertEquals(snapshot.getOutDegree(target), 0);
+        Assert.assertEquals(snapshot.getInDegree(target), 1);
+        Assert.assertEquals(snapshot.getOutTargets()[snapshot.getOutOffsets()[source]], target);
+        Assert.assertEquals(snapshot.getInSources()[snapshot.getInOffsets()[target]], source);
+        Assert.assertEquals(snapshot.getOutEdgeStoreIds()[0], edge.getStoreId());
+        Assert.assertFalse(snapshot.hasWeights());
+        Assert.assertNull(snapshot.getOutWeights());
+    }
+
+    @Test
+    public void testStoreIdMapping() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        graphStore.removeNode(graphStore.getNode("1"));
+        AdjacencySnapshot snapshot = graphStore.graphModel.createAdjacencySnapshot();
+
+        Assert.assertEquals(snapshot.getNodeCount(), graphStore.getNodeCount());
+        for (int i = 0; i < snapshot.getNodeCount(); i++) {
+            Assert.assertEquals(snapshot.getIndex(snapshot.getStoreId(i)), i);
+        }
+        Assert.assertEquals(snapshot.getIndex(1), -1);
+        Assert.assertEquals(snapshot.getIndex(Integer.MAX_VALUE), -1);
+        Assert.assertEquals(snapshot.getIndex(-1), -1);
+    }
+
+    @Test
+    public void testDirected() {
+        assertSnapshot(GraphGenerator.generateSmallGraphStore(), null);
+    }
+
+    @Test
+    public void testUndirected() {
+        assertSnapshot(GraphGenerator.generateSmallUndirectedGraphStore(), null);
+    }
+
+    @Test
+    public void testMixed() {
+        assertSnapshot(GraphGenerator.generateSmallMixedGraphStore(), null);
+    }
+
+    @Test
+    public void testMultiType() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        AdjacencySnapshot snapshot = assertSnapshot(graphStore, null);
+        Assert.assertEquals(snapshot.getTypeCount(), graphStore.edgeTypeStore.length);
+    }
+
+    @Test
+    public void testSelfLoop() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStoreWithSelfLoop();
+        assertSnapshot(graphStore, null);
+    }
+
+    @Test
+    public void testLarge() {
+        GraphStore graphStore = new GraphModelImpl().store;
+        graphStore.addAllNodes(Arrays
+                .asList(GraphGenerator.generateNodeList(GraphStoreConfiguration.NODESTORE_BLOCK_SIZE * 3, graphStore)));
+        graphStore.addAllEdges(Arrays
+                .asList(GraphGenerator.generateEdgeList(graphStore.nodeStore, 100000, 0, true, true, false)));
+        assertSnapshot(graphStore, null);
+    }
+
+    @Test
+    public void testView() {
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        GraphView view = graphStore.viewStore.createView(n -> n.getStoreId() % 3 != 0, e -> e.getStoreId() % 2 == 0);
+        AdjacencySnapshot snapshot = assertSnapshot(graphStore, (GraphViewImpl) view);
+
+        Assert.assertSame(snapshot.getView(), view);
+        Assert.assertEquals(snapshot.getNodeCount(), view.getGraphModel().getGraph(view).getNodeCount());
+        Assert.assertEquals(snapshot.getEdgeCount(), view.getGraphModel().getGraph(view).getEdgeCount());
+    }
+
+    @Test
+    public void testNodeView() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphView view = graphStore.viewStore.createView(true, false);
+        graphStore.viewStore.getDirectedGraph(view).addNode(graphStore.getNode("1"));
+        graphStore.viewStore.getDirectedGraph(view).addNode(graphStore.getNode("2"));
+        assertSnapshot(graphStore, (GraphViewImpl) view);
+    }
+
+    @Test
+    public void testWeights() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        double w = 1.0;
+        for (Edge e : graphStore.getEdges().toArray()) {
+            e.setWeight(w++);
+        }
+        AdjacencySnapshot snapshot = graphStore.graphModel.createAdjacencySnapshot(graphStore.getView(), true);
+
+        Assert.assertTrue(snapshot.hasWeights());
+        int[] outEdges = snapshot.getOutEdgeStoreIds();
+        for (int i = 0; i < outEdges.length; i++) {
+            Assert.assertEquals(snapshot.getOutWeights()[i], graphStore.getEdgeByStoreId(outEdges[i]).getWeight());
+        }
+        int[] inEdges = snapshot.getInEdgeStoreIds();
+        for (int i = 0; i < inEdges.length; i++) {
+            Assert.assertEquals(snapshot.getInWeights()[i], graphStore.getEdgeByStoreId(inEdges[i]).getWeight());
+        }
+    }
+
+    @Test
+    public void testImmutable() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        AdjacencySnapshot snapshot = graphStore.graphModel.createAdjacencySnapshot();
+        int edgeCount = snapshot.getEdgeCount();
+
+        graphStore.clearEdges();
+        Assert.assertEquals(snapshot.getEdgeCount(), edgeCount);
+        Assert.assertEquals(snapshot.getOutOffsets()[snapshot.getNodeCount()], edgeCount);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidIndex() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        graphStore.graphModel.createAdjacencySnapshot().getOutDegree(2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidType() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        graphStore.graphModel.createAdjacencySnapshot().getOutStart(0, 5);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDestroyedView() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        GraphView view = graphStore.graphModel.createView();
+        graphStore.graphModel.destroyView(view);
+        graphStore.graphModel.createAdjacencySnapshot(view, false);
+    }
+
+    // Utility
+
+    private AdjacencySnapshot assertSnapshot(GraphStore graphStore, GraphViewImpl view) {
+        GraphView graphView = view != null ? view : graphStore.getView();
+        AdjacencySnapshot snapshot = graphStore.graphModel.createAdjacencySnapshot(graphView, false);
+        int nodeCount = snapshot.getNodeCount();
+        int typeCount = snapshot.getTypeCount();
+
+        // Reference rows, as edge store ids
+        IntArrayList[] out = new IntArrayList[nodeCount];
+        IntArrayList[] in = new IntArrayList[nodeCount];
+        int expectedNodes = 0;
+        for (Node n : graphStore.nodeStore) {
+            if (view == null || view.containsNode(n)) {
+                int index = snapshot.getIndex(n.getStoreId());
+                Assert.assertTrue(index >= 0);
+                out[index] = new IntArrayList();
+                in[index] = new IntArrayList();
+                expectedNodes++;
+            } else {
+                Assert.assertEquals(snapshot.getIndex(n.getStoreId()), -1);
+            }
+        }
+        Assert.assertEquals(nodeCount, expectedNodes);
+
+        int expectedEdges = 0;
+        for (Edge e : graphStore.edgeStore) {
+            if (view == null || view.containsEdge(e)) {
+                int source = snapshot.getIndex(e.getSource().getStoreId());
+                int target = snapshot.getIndex(e.getTarget().getStoreId());
+                out[source].add(e.getStoreId());
+                in[target].add(e.getStoreId());
+                if (!e.isDirected() && !e.isSelfLoop()) {
+                    out[target].add(e.getStoreId());
+                    in[source].add(e.getStoreId());
+                }
+                expectedEdges++;
+            }
+        }
+        Assert.assertEquals(snapshot.getEdgeCount(), expectedEdges);
+
+        for (int i = 0; i < nodeCount; i++) {
+            assertRow(graphStore, snapshot, i, out[i], snapshot.getOutOffsets(), snapshot.getOutTargets(), snapshot
+                    .getOutEdgeStoreIds(), true);
+            assertRow(graphStore, snapshot, i, in[i], snapshot.getInOffsets(), snapshot.getInSources(), snapshot
+                    .getInEdgeStoreIds(), false);
+            for (int t = 0; t < typeCount; t++) {
+                for (int j = snapshot.getOutStart(i, t); j < snapshot.getOutEnd(i, t); j++) {
+                    Assert.assertEquals(graphStore.getEdgeByStoreId(snapshot.getOutEdgeStoreIds()[j]).getType(), t);
+                }
+                for (int j = snapshot.getInStart(i, t); j < snapshot.getInEnd(i, t); j++) {
+                    Assert.assertEquals(graphStore.getEdgeByStoreId(snapshot.getInEdgeStoreIds()[j]).getType(), t);
+                }
+            }
+            Assert.assertEquals(snapshot.getOutStart(i, 0), snapshot.getOutOffsets()[i]);
+            Assert.assertEquals(snapshot.getOutEnd(i, typeCount - 1), snapshot.getOutOffsets()[i + 1]);
+        }
+        return snapshot;
+    }
+
+    private void assertRow(GraphStore graphStore, AdjacencySnapshot snapshot, int index, IntArrayList expected, int[] offsets, int[] neighbors, int[] edgeIds, boolean out) {
+        int start = offsets[index];
+        int end = offsets[index + 1];
+        int[] actual = Arrays.copyOfRange(edgeIds, start, end);
+        int[] expectedArray = expected.toIntArray();
+        Arrays.sort(actual);
+        Arrays.sort(expectedArray);
+        Assert.assertEquals(actual, expectedArray);
+
+        int storeId = snapshot.getStoreId(index);
+        for (int j = start; j < end; j++) {
+            Edge edge = graphStore.getEdgeByStoreId(edgeIds[j]);
+            Node self = graphStore.getNodeByStoreId(storeId);
+            Node neighbor = graphStore.getNodeByStoreId(snapshot.getStoreId(neighbors[j]));
+            Assert.assertEquals(graphStore.getOpposite(self, edge), neighbor);
+            if (edge.isDirected()) {
+                Assert.assertEquals(out ? edge.getTarget() : edge.getSource(), neighbor);
+            }
+        }
+    }
+}
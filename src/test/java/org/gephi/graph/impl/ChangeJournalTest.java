@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.BitSet;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ChangeJournalTest {
+
+    @Test
+    public void testEmpty() {
+        ChangeJournal journal = new ChangeJournal(5);
+        IntArrayList ids = new IntArrayList();
+        Assert.assertTrue(journal.replay(5, ids));
+        Assert.assertTrue(ids.isEmpty());
+        Assert.assertFalse(journal.covers(4));
+        Assert.assertFalse(journal.replay(4, ids));
+    }
+
+    @Test
+    public void testReplay() {
+        ChangeJournal journal = new ChangeJournal(0);
+        journal.add(1, 10);
+        journal.add(2, 20);
+        journal.add(2, 21);
+        journal.add(3, 30);
+
+        IntArrayList ids = new IntArrayList();
+        Assert.assertTrue(journal.replay(0, ids));
+        Assert.assertEquals(ids.toIntArray(), new int[] { 10, 20, 21, 30 });
+
+        ids.clear();
+        Assert.assertTrue(journal.replay(1, ids));
+        Assert.assertEquals(ids.toIntArray(), new int[] { 20, 21, 30 });
+
+        ids.clear();
+        Assert.assertTrue(journal.replay(3, ids));
+        Assert.assertTrue(ids.isEmpty());
+    }
+
+    @Test
+    public void testGrow() {
+        ChangeJournal journal = new ChangeJournal(0, 1000);
+        for (int i = 1; i <= 1000; i++) {
+            journal.add(i, i);
+        }
+        Assert.assertEquals(journal.size(), 1000);
+
+        IntArrayList ids = new IntArrayList();
+        Assert.assertTrue(journal.replay(990, ids));
+        Assert.assertEquals(ids.toIntArray(), new int[] { 991, 992, 993, 994, 995, 996, 997, 998, 999, 1000 });
+    }
+
+    @Test
+    public void testOverflow() {
+        ChangeJournal journal = new ChangeJournal(0, 4);
+        for (int i = 1; i <= 6; i++) {
+            journal.add(i, i * 10);
+        }
+        Assert.assertEquals(journal.size(), 4);
+        Assert.assertFalse(journal.covers(1));
+        Assert.assertTrue(journal.covers(2));
+
+        IntArrayList ids = new IntArrayList();
+        Assert.assertFalse(journal.replay(0, ids));
+        Assert.assertTrue(journal.replay(2, ids));
+        Assert.assertEquals(ids.toIntArray(), new int[] { 30, 40, 50, 60 });
+    }
+
+    @Test
+    public void testAddAll() {
+        ChangeJournal journal = new ChangeJournal(0, 4);
+        BitSet bitSet = new BitSet();
+        bitSet.set(3);
+        bitSet.set(7);
+        journal.addAll(1, bitSet);
+
+        IntArrayList ids = new IntArrayList();
+        Assert.assertTrue(journal.replay(0, ids));
+        Assert.assertEquals(ids.toIntArray(), new int[] { 3, 7 });
+
+        bitSet.set(0, 10);
+        journal.addAll(2, bitSet);
+        Assert.assertEquals(journal.size(), 0);
+        Assert.assertFalse(journal.covers(1));
+        Assert.assertTrue(journal.covers(2));
+    }
+
+    @Test
+    public void testInvalidate() {
+        ChangeJournal journal = new ChangeJournal(0);
+        journal.add(1, 10);
+        journal.invalidate(2);
+        Assert.assertEquals(journal.size(), 0);
+        Assert.assertFalse(journal.covers(1));
+
+        journal.add(3, 30);
+        IntArrayList ids = new IntArrayList();
+        Assert.assertTrue(journal.replay(2, ids));
+        Assert.assertEquals(ids.toIntArray(), new int[] { 30 });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        new ChangeJournal(0, 0);
+    }
+}
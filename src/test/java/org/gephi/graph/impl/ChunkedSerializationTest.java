@@ -0,0 +1,178 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.impl.utils.ChunkedInputStream;
+import org.gephi.graph.impl.utils.ChunkedOutputStream;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ChunkedSerializationTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (int flags = 0; flags < 4; flags++) {
+            byte[] data = generateData(100000, flags % 2 == 0);
+            boolean compress = (flags & 1) != 0;
+            boolean checksum = (flags & 2) != 0;
+            byte[] written = writeChunked(data, 4096, compress, checksum);
+            Assert.assertEquals(readChunked(written), data);
+        }
+    }
+
+    @Test
+    public void testCompression() throws IOException {
+        byte[] compressible = generateData(100000, true);
+        Assert.assertTrue(writeChunked(compressible, 4096, true, false).length < compressible.length / 2);
+
+        byte[] random = generateData(100000, false);
+        byte[] written = writeChunked(random, 4096, true, false);
+        Assert.assertTrue(written.length < random.length + random.length / 100);
+        Assert.assertEquals(readChunked(written), random);
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        Assert.assertEquals(readChunked(writeChunked(new byte[0], 16, true, true)), new byte[0]);
+    }
+
+    @Test
+    public void testFlush() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChunkedOutputStream out = new ChunkedOutputStream(Channels.newChannel(bytes), 1024, false, true);
+        out.write(new byte[] { 1, 2, 3 });
+        out.flush();
+        int flushed = bytes.size();
+        Assert.assertTrue(flushed > 3);
+        out.write(4);
+        out.close();
+        Assert.assertEquals(readChunked(bytes.toByteArray()), new byte[] { 1, 2, 3, 4 });
+    }
+
+    @Test
+    public void testChecksumMismatch() throws IOException {
+        byte[] written = writeChunked(generateData(10000, false), 4096, false, true);
+        written[written.length / 2]++;
+        try {
+            readChunked(written);
+            Assert.fail("Expected checksum failure");
+        } catch (IOException e) {
+            Assert.assertEquals(e.getMessage(), "Chunk checksum mismatch");
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testTruncated() throws IOException {
+        byte[] written = writeChunked(generateData(10000, false), 4096, false, false);
+        readChunked(Arrays.copyOf(written, written.length - 20));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testInvalidHeader() throws IOException {
+        readChunked(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidChunkSize() throws IOException {
+        new ChunkedOutputStream(Channels.newChannel(new ByteArrayOutputStream()), 0, false, false);
+    }
+
+    @Test
+    public void testGraphModel() throws IOException {
+        GraphModelImpl graphModel = new GraphModelImpl(Configuration.builder().enableColumnarAttributes(true).build());
+        GraphStore store = graphModel.store;
+        Column column = store.nodeTable.addColumn("text", String.class);
+        Column doubleColumn = store.nodeTable.addColumn("double", Double.class);
+        NodeImpl[] nodes = GraphGenerator.generateNodeList(5000, store);
+        char[] text = new char[GraphStoreConfiguration.SERIALIZATION_CHUNK_SIZE * 2];
+        Arrays.fill(text, 'x');
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i].setAttribute(doubleColumn, i / 3.0);
+        }
+        nodes[0].setAttribute(column, new String(text));
+        store.addAllNodes(Arrays.asList(nodes));
+        store.addAllEdges(Arrays.asList(GraphGenerator.generateEdgeList(store.nodeStore, 10000, 0, true, true, false)));
+
+        for (int flags = 0; flags < 4; flags++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            GraphModel.Serialization.writeChunked(bytes, graphModel, (flags & 1) != 0, (flags & 2) != 0);
+            GraphModelImpl read = (GraphModelImpl) GraphModel.Serialization
+                    .readChunked(new ByteArrayInputStream(bytes.toByteArray()));
+
+            Assert.assertTrue(store.nodeStore.deepEquals(read.store.nodeStore));
+            Assert.assertTrue(store.edgeStore.deepEquals(read.store.edgeStore));
+            for (Node node : store.getNodes()) {
+                Assert.assertTrue(Arrays
+                        .deepEquals(node.getAttributes(), read.store.getNode(node.getId()).getAttributes()));
+            }
+            for (Edge edge : store.getEdges()) {
+                Assert.assertEquals(read.store.getEdge(edge.getId()).getWeight(), edge.getWeight());
+            }
+        }
+    }
+
+    private static byte[] generateData(int length, boolean compressible) {
+        byte[] data = new byte[length];
+        Random random = new Random(42);
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (compressible ? i % 7 : random.nextInt());
+        }
+        return data;
+    }
+
+    private static byte[] writeChunked(byte[] data, int chunkSize, boolean compress, boolean checksum) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ChunkedOutputStream out = new ChunkedOutputStream(Channels.newChannel(bytes), chunkSize, compress,
+                checksum)) {
+            // Mix single byte and array writes
+            int i = 0;
+            while (i < data.length) {
+                if (i % 3 == 0) {
+                    out.write(data[i++]);
+                } else {
+                    int length = Math.min(data.length - i, 1000);
+                    out.write(data, i, length);
+                    i += length;
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] readChunked(byte[] written) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ChunkedInputStream in = new ChunkedInputStream(Channels.newChannel(new ByteArrayInputStream(written)))) {
+            byte[] buffer = new byte[777];
+            int read;
+            while ((read = in.read(buffer, 0, buffer.length)) >= 0) {
+                bytes.write(buffer, 0, read);
+            }
+            Assert.assertEquals(in.read(), -1);
+        }
+        return bytes.toByteArray();
+    }
+}
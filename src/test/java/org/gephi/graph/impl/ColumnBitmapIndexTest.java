@@ -0,0 +1,337 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphView;
+import org.gephi.graph.api.Index;
+import org.gephi.graph.api.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ColumnBitmapIndexTest {
+
+    @Test
+    public void testBitmapIndexSelected() {
+        GraphModelImpl graphModel = generateGraph(0);
+        Column col = graphModel.getNodeTable().getColumn("category");
+        Assert.assertTrue(graphModel.getNodeIndex().getColumnIndex(col) instanceof ColumnBitmapIndexImpl);
+
+        GraphModelImpl standardModel = new GraphModelImpl();
+        Column standardCol = standardModel.getNodeTable().addColumn("category", String.class);
+        Assert.assertTrue(standardModel.getNodeIndex().getColumnIndex(standardCol) instanceof ColumnStandardIndexImpl);
+    }
+
+    @Test
+    public void testArrayColumnNotBitmapIndexed() {
+        GraphModelImpl graphModel = generateGraph(0);
+        Column col = graphModel.getNodeTable().addColumn("array", int[].class);
+        Assert.assertTrue(graphModel.getNodeIndex().getColumnIndex(col) instanceof ColumnStandardIndexImpl);
+    }
+
+    @Test
+    public void testCountAndGet() {
+        GraphModelImpl graphModel = generateGraph(500);
+        Index<Node> index = graphModel.getNodeIndex();
+        for (String key : new String[] { "category", "flag", "level" }) {
+            Column col = graphModel.getNodeTable().getColumn(key);
+            int total = 0;
+            for (Object value : index.values(col)) {
+                Set<Node> expected = filter(graphModel.getGraph(), col, value);
+                Assert.assertEquals(index.count(col, value), expected.size());
+                Assert.assertEquals(new ObjectOpenHashSet<>(index.get(col, value).iterator()), expected);
+                total += expected.size();
+            }
+            Assert.assertEquals(total, 500);
+            Assert.assertEquals(index.countElements(col), 500);
+        }
+        Column level = graphModel.getNodeTable().getColumn("level");
+        Assert.assertEquals(index.count(level, 42), 0);
+        Assert.assertFalse(index.get(level, 42).iterator().hasNext());
+    }
+
+    @Test
+    public void testNullValues() {
+        GraphModelImpl graphModel = generateGraph(100);
+        Column col = graphModel.getNodeTable().getColumn("category");
+        Index<Node> index = graphModel.getNodeIndex();
+        Set<Node> expected = filter(graphModel.getGraph(), col, null);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(index.count(col, null), expected.size());
+        Assert.assertTrue(index.values(col).contains(null));
+    }
+
+    @Test
+    public void testEntries() {
+        GraphModelImpl graphModel = generateGraph(200);
+        Column col = graphModel.getNodeTable().getColumn("category");
+        int values = 0;
+        for (Map.Entry<Object, ? extends Set<Node>> entry : (ColumnBitmapIndexImpl<Object, Node>) graphModel
+                .getNodeIndex().getColumnIndex(col)) {
+            Set<Node> expected = filter(graphModel.getGraph(), col, entry.getKey());
+            Assert.assertEquals(entry.getValue(), expected);
+            for (Node node : expected) {
+                Assert.assertTrue(entry.getValue().contains(node));
+            }
+            values++;
+        }
+        Assert.assertEquals(values, graphModel.getNodeIndex().countValues(col));
+    }
+
+    @Test
+    public void testMinMaxValue() {
+        GraphModelImpl graphModel = generateGraph(100);
+        Column col = graphModel.getNodeTable().getColumn("level");
+        Index<Node> index = graphModel.getNodeIndex();
+        Assert.assertTrue(index.isSortable(col));
+        Assert.assertEquals(index.getMinValue(col), 0);
+        Assert.assertEquals(index.getMaxValue(col), 9);
+        Assert.assertFalse(index.isSortable(graphModel.getNodeTable().getColumn("category")));
+    }
+
+    @Test
+    public void testRange() {
+        GraphModelImpl graphModel = generateGraph(500);
+        Column col = graphModel.getNodeTable().getColumn("level");
+        Index<Node> index = graphModel.getNodeIndex();
+
+        Set<Node> expected = new ObjectOpenHashSet<>();
+        for (int i = 3; i <= 6; i++) {
+            expected.addAll(filter(graphModel.getGraph(), col, i));
+        }
+        Assert.assertEquals(new ObjectOpenHashSet<>(index.get(col, 3, 6, true).iterator()), expected);
+        Assert.assertEquals(index.countRange(col, 3, 6, true), expected.size());
+
+        expected.removeAll(filter(graphModel.getGraph(), col, 3));
+        expected.removeAll(filter(graphModel.getGraph(), col, 6));
+        Assert.assertEquals(new ObjectOpenHashSet<>(index.get(col, 3, 6, false).iterator()), expected);
+        Assert.assertEquals(index.countRange(col, 3, 6, false), expected.size());
+
+        Assert.assertEquals(index.countRange(col, null, null, true), 500);
+        Assert.assertEquals(index.countRange(col, 6, 3, true), 0);
+    }
+
+    @Test
+    public void testTopBottomQuantile() {
+        GraphModelImpl graphModel = generateGraph(500);
+        Column col = graphModel.getNodeTable().getColumn("level");
+        Index<Node> index = graphModel.getNodeIndex();
+
+        int nines = index.count(col, 9);
+        int previous = Integer.MAX_VALUE;
+        int i = 0;
+        for (Node node : index.getTop(col, nines + 1)) {
+            int value = (Integer) node.getAttribute(col);
+            Assert.assertTrue(value <= previous);
+            Assert.assertEquals(value, i < nines ? 9 : 8);
+            previous = value;
+            i++;
+        }
+        Assert.assertEquals(i, nines + 1);
+
+        for (Node node : index.getBottom(col, 3)) {
+            Assert.assertEquals(node.getAttribute(col), 0);
+        }
+
+        int[] values = new int[500];
+        int j = 0;
+        for (Node node : graphModel.getGraph().getNodes()) {
+            values[j++] = (Integer) node.getAttribute(col);
+        }
+        Arrays.sort(values);
+        Assert.assertEquals(index.getQuantile(col, 0.5), values[249]);
+        Assert.assertEquals(index.getQuantile(col, 0.9), values[449]);
+        Assert.assertEquals(index.getQuantile(col, 0.0), values[0]);
+    }
+
+    @Test
+    public void testSetAttribute() {
+        GraphModelImpl graphModel = generateGraph(100);
+        Column col = graphModel.getNodeTable().getColumn("level");
+        Index<Node> index = graphModel.getNodeIndex();
+        Node node = graphModel.getGraph().getNode("0");
+        int before = index.count(col, 100);
+        node.setAttribute(col, 100);
+        Assert.assertEquals(index.count(col, 100), before + 1);
+        Assert.assertEquals(index.get(col, 100).iterator().next(), node);
+        node.setAttribute(col, 3);
+        Assert.assertEquals(index.count(col, 100), before);
+        Assert.assertFalse(index.values(col).contains(100));
+    }
+
+    @Test
+    public void testRemoveAndReuseStoreId() {
+        GraphModelImpl graphModel = generateGraph(100);
+        Graph graph = graphModel.getGraph();
+        Column col = graphModel.getNodeTable().getColumn("flag");
+        Index<Node> index = graphModel.getNodeIndex();
+
+        Node node = graph.getNode("5");
+        int storeId = node.getStoreId();
+        Boolean value = (Boolean) node.getAttribute(col);
+        int count = index.count(col, value);
+        graph.removeNode(node);
+        Assert.assertEquals(index.count(col, value), count - 1);
+        Assert.assertEquals(index.countElements(col), 99);
+
+        Node other = graphModel.factory().newNode("new");
+        other.setAttribute(col, !value);
+        graph.addNode(other);
+        Assert.assertEquals(other.getStoreId(), storeId);
+        Assert.assertEquals(index.count(col, value), count - 1);
+        Assert.assertTrue(new ObjectOpenHashSet<>(index.get(col, !value).iterator()).contains(other));
+    }
+
+    @Test
+    public void testGetAllAny() {
+        GraphModelImpl graphModel = generateGraph(1000);
+        Graph graph = graphModel.getGraph();
+        Column category = graphModel.getNodeTable().getColumn("category");
+        Column flag = graphModel.getNodeTable().getColumn("flag");
+        Column level = graphModel.getNodeTable().getColumn("level");
+        Index<Node> index = graphModel.getNodeIndex();
+
+        Column[] columns = { category, flag, level };
+        Object[] values = { "b", Boolean.TRUE, 4 };
+
+        Set<Node> all = filter(graph, category, "b");
+        all.retainAll(filter(graph, flag, Boolean.TRUE));
+        all.retainAll(filter(graph, level, 4));
+        Assert.assertFalse(all.isEmpty());
+        Assert.assertEquals(new ObjectOpenHashSet<>(index.getAll(columns, values).iterator()), all);
+        Assert.assertEquals(index.countAll(columns, values), all.size());
+
+        Set<Node> any = filter(graph, category, "b");
+        any.addAll(filter(graph, flag, Boolean.TRUE));
+        any.addAll(filter(graph, level, 4));
+        Assert.assertEquals(new ObjectOpenHashSet<>(index.getAny(columns, values).iterator()), any);
+        Assert.assertEquals(index.countAny(columns, values), any.size());
+
+        Assert.assertEquals(index.countAll(new Column[] { category, category }, new Object[] { "a", "b" }), 0);
+        Assert.assertEquals(index.countAll(new Column[0], new Object[0]), 0);
+    }
+
+    @Test
+    public void testGetAllMixedIndexes() {
+        GraphModelImpl graphModel = generateGraph(300);
+        Graph graph = graphModel.getGraph();
+        Column category = graphModel.getNodeTable().getColumn("category");
+        Column label = graphModel.getNodeTable().getColumn("label");
+        Assert.assertFalse(graphModel.getNodeIndex().getColumnIndex(label) instanceof ColumnBitmapIndexImpl);
+
+        Node node = graph.getNode("7");
+        Object value = node.getAttribute(category);
+        Iterable<Node> result = graphModel.getNodeIndex()
+                .getAll(new Column[] { category, label }, new Object[] { value, node.getLabel() });
+        Assert.assertEquals(new ObjectOpenHashSet<>(result.iterator()), new ObjectOpenHashSet<>(new Node[] { node }));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testGetAllDifferentLengths() {
+        GraphModelImpl graphModel = generateGraph(10);
+        Column category = graphModel.getNodeTable().getColumn("category");
+        graphModel.getNodeIndex().getAll(new Column[] { category }, new Object[0]);
+    }
+
+    @Test
+    public void testViewIndex() {
+        GraphModelImpl graphModel = generateGraph(200);
+        Column col = graphModel.getNodeTable().getColumn("category");
+        GraphView view = graphModel.createView();
+        Graph subgraph = graphModel.getGraph(view);
+        for (Node node : graphModel.getGraph().getNodes().toArray()) {
+            if (Integer.parseInt((String) node.getId()) % 2 == 0) {
+                subgraph.addNode(node);
+            }
+        }
+        Index<Node> index = graphModel.getNodeIndex(view);
+        Assert.assertTrue(index.getColumnIndex(col) instanceof ColumnBitmapIndexImpl);
+        for (Object value : new Object[] { "a", "b", "c", null }) {
+            Assert.assertEquals(new ObjectOpenHashSet<>(
+                    index.get(col, value).iterator()), filter(subgraph, col, value));
+        }
+        Assert.assertEquals(index
+                .countAny(new Column[] { col, col }, new Object[] { "a", "b" }), filter(subgraph, col, "a")
+                        .size() + filter(subgraph, col, "b").size());
+    }
+
+    @Test
+    public void testEdges() {
+        GraphModelImpl graphModel = generateGraph(50);
+        Column col = graphModel.getEdgeTable().addColumn("kind", Integer.class);
+        Graph graph = graphModel.getGraph();
+        Node[] nodes = graph.getNodes().toArray();
+        for (int i = 0; i < nodes.length - 1; i++) {
+            Edge edge = graphModel.factory().newEdge(nodes[i], nodes[i + 1]);
+            edge.setAttribute(col, i % 3);
+            graph.addEdge(edge);
+        }
+        Index<Edge> index = graphModel.getEdgeIndex();
+        Assert.assertTrue(index.getColumnIndex(col) instanceof ColumnBitmapIndexImpl);
+        for (Edge edge : index.get(col, 1)) {
+            Assert.assertEquals(edge.getAttribute(col), 1);
+        }
+        Assert.assertEquals(index.count(col, 0) + index.count(col, 1) + index.count(col, 2), nodes.length - 1);
+    }
+
+    @Test
+    public void testClear() {
+        GraphModelImpl graphModel = generateGraph(100);
+        Column col = graphModel.getNodeTable().getColumn("category");
+        graphModel.getGraph().clear();
+        Assert.assertEquals(graphModel.getNodeIndex().countElements(col), 0);
+        Assert.assertEquals(graphModel.getNodeIndex().countValues(col), 0);
+    }
+
+    // UTILITY
+    private static GraphModelImpl generateGraph(int nodeCount) {
+        GraphModelImpl graphModel = new GraphModelImpl(Configuration.builder().enableBitmapIndex(true).build());
+        Column category = graphModel.getNodeTable().addColumn("category", String.class);
+        Column flag = graphModel.getNodeTable().addColumn("flag", Boolean.class);
+        Column level = graphModel.getNodeTable().addColumn("level", Integer.class);
+        Random random = new Random(123);
+        String[] categories = { "a", "b", "c", null };
+        Graph graph = graphModel.getGraph();
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = graphModel.factory().newNode(String.valueOf(i));
+            node.setLabel("n" + i);
+            node.setAttribute(category, categories[i % categories.length]);
+            node.setAttribute(flag, random.nextBoolean());
+            node.setAttribute(level, random.nextInt(10));
+            graph.addNode(node);
+        }
+        return graphModel;
+    }
+
+    private static Set<Node> filter(Graph graph, Column column, Object value) {
+        Set<Node> result = new ObjectOpenHashSet<>();
+        for (Node node : graph.getNodes()) {
+            Object v = node.getAttribute(column);
+            if (v == null ? value == null : v.equals(value)) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Index;
+import org.gephi.graph.api.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ColumnConcurrentIndexTest {
+
+    @Test
+    public void testConcurrentIndexSelected() {
+        GraphModelImpl graphModel = generateGraph(0);
+        Column col = graphModel.getNodeTable().getColumn("category");
+        Assert.assertTrue(graphModel.getNodeIndex().getColumnIndex(col) instanceof ColumnConcurrentIndexImpl);
+
+        Column array = graphModel.getNodeTable().addColumn("array", int[].class);
+        Assert.assertTrue(graphModel.getNodeIndex().getColumnIndex(array) instanceof ColumnStandardIndexImpl);
+
+        GraphModelImpl bitmapModel = new GraphModelImpl(
+                Configuration.builder().enableConcurrentIndex(true).enableBitmapIndex(true).build());
+        Column bitmapCol = bitmapModel.getNodeTable().addColumn("category", String.class);
+        Assert.assertTrue(bitmapModel.getNodeIndex().getColumnIndex(bitmapCol) instanceof ColumnBitmapIndexImpl);
+    }
+
+    @Test
+    public void testCountAndGet() {
+        GraphModelImpl graphModel = generateGraph(500);
+        Index<Node> index = graphModel.getNodeIndex();
+        for (String key : new String[] { "category", "flag", "level", "score" }) {
+            Column col = graphModel.getNodeTable().getColumn(key);
+            int total = 0;
+            for (Object value : index.values(col)) {
+                Set<Node> expected = filter(graphModel.getGraph(), col, value);
+                Assert.assertEquals(index.count(col, value), expected.size());
+                Assert.assertEquals(new ObjectOpenHashSet<>(index.get(col, value).iterator()), expected);
+                total += expected.size();
+            }
+            Assert.assertEquals(total, 500);
+            Assert.assertEquals(index.countElements(col), 500);
+        }
+        Column level = graphModel.getNodeTable().getColumn("level");
+        Assert.assertEquals(index.count(level, 42), 0);
+        Assert.assertFalse(index.get(level, 42).iterator().hasNext());
+    }
+
+    @Test
+    public void testNullValues() {
+        GraphModelImpl graphModel = generateGraph(100);
+        Column col = graphModel.getNodeTable().getColumn("category");
+        Index<Node> index = graphModel.getNodeIndex();
+        Set<Node> expected = filter(graphModel.getGraph(), col, null);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(index.count(col, null), expected.size());
+        Assert.assertTrue(index.values(col).contains(null));
+        Assert.assertEquals(index.countValues(col), 4);
+    }
+
+    @Test
+    public void testEntries() {
+        GraphModelImpl graphModel = generateGraph(200);
+        Column col = graphModel.getNodeTable().getColumn("category");
+        int values = 0;
+        for (Map.Entry<Object, ? extends Set<Node>> entry : (ColumnConcurrentIndexImpl<Object, Node>) graphModel
+                .getNodeIndex().getColumnIndex(col)) {
+            Assert.assertEquals(entry.getValue(), filter(graphModel.getGraph(), col, entry.getKey()));
+            values++;
+        }
+        Assert.assertEquals(values, graphModel.getNodeIndex().countValues(col));
+    }
+
+    @Test
+    public void testMinMaxValue() {
+        GraphModelImpl graphModel = generateGraph(100);
+        Column col = graphModel.getNodeTable().getColumn("level");
+        Index<Node> index = graphModel.getNodeIndex();
+        Assert.assertTrue(index.isSortable(col));
+        Assert.assertEquals(index.getMinValue(col), 0);
+        Assert.assertEquals(index.getMaxValue(col), 9);
+        Assert.assertFalse(index.isSortable(graphModel.getNodeTable().getColumn("category")));
+
+        graphModel.getGraph().clear();
+        Assert.assertNull(index.getMinValue(col));
+        Assert.assertNull(index.getMaxValue(col));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testMinValueNotSortable() {
+        GraphModelImpl graphModel = generateGraph(10);
+        graphModel.getNodeIndex().getMinValue(graphModel.getNodeTable().getColumn("category"));
+    }
+
+    @Test
+    public void testRange() {
+        GraphModelImpl graphModel = generateGraph(500);
+        Column col = graphModel.getNodeTable().getColumn("level");
+        Index<Node> index = graphModel.getNodeIndex();
+
+        Set<Node> expected = new ObjectOpenHashSet<>();
+        for (int i = 3; i <= 6; i++) {
+            expected.addAll(filter(graphModel.getGraph(), col, i));
+        }
+        Assert.assertEquals(new ObjectOpenHashSet<>(index.get(col, 3, 6, true).iterator()), expected);
+        Assert.assertEquals(index.countRange(col, 3, 6, true), expected.size());
+
+        expected.removeAll(filter(graphModel.getGraph(), col, 3));
+        expected.removeAll(filter(graphModel.getGraph(), col, 6));
+        Assert.assertEquals(new ObjectOpenHashSet<>(index.get(col, 3, 6, false).iterator()), expected);
+        Assert.assertEquals(index.countRange(col, 3, 6, false), expected.size());
+
+        Assert.assertEquals(index.countRange(col, null, null, true), 500);
+        Assert.assertEquals(index.countRange(col, 6, 3, true), 0);
+    }
+
+    @Test
+    public void testTopBottomQuantile() {
+        GraphModelImpl graphModel = generateGraph(500);
+        Column col = graphModel.getNodeTable().getColumn("score");
+        Index<Node> index = graphModel.getNodeIndex();
+
+        double[] values = new double[500];
+        int j = 0;
+        for (Node node : graphModel.getGraph().getNodes()) {
+            values[j++] = (Double) node.getAttribute(col);
+        }
+        Arrays.sort(values);
+
+        int i = 0;
+        for (Node node : index.getTop(col, 5)) {
+            Assert.assertEquals(node.getAttribute(col), values[499 - i]);
+            i++;
+        }
+        Assert.assertEquals(i, 5);
+        i = 0;
+        for (Node node : index.getBottom(col, 5)) {
+            Assert.assertEquals(node.getAttribute(col), values[i]);
+            i++;
+        }
+        Assert.assertEquals(i, 5);
+
+        Assert.assertEquals(index.getQuantile(col, 0.5), values[249]);
+        Assert.assertEquals(index.getQuantile(col, 0.9), values[449]);
+        Assert.assertEquals(index.getQuantile(col, 0.0), values[0]);
+        Assert.assertEquals(index.getQuantile(col, 1.0), values[499]);
+    }
+
+    @Test
+    public void testSetAttribute() {
+        GraphModelImpl graphModel = generateGraph(100);
+        Column col = graphModel.getNodeTable().getColumn("level");
+        Index<Node> index = graphModel.getNodeIndex();
+        Node node = graphModel.getGraph().getNode("0");
+        int version = index.getColumnIndex(col).getVersion();
+        node.setAttribute(col, 100);
+        Assert.assertEquals(index.count(col, 100), 1);
+        Assert.assertEquals(index.get(col, 100).iterator().next(), node);
+        Assert.assertNotEquals(index.getColumnIndex(col).getVersion(), version);
+        node.setAttribute(col, 3);
+        Assert.assertEquals(index.count(col, 100), 0);
+        Assert.assertFalse(index.values(col).contains(100));
+        Assert.assertEquals(index.countElements(col), 100);
+    }
+
+    @Test
+    public void testRemoveNode() {
+        GraphModelImpl graphModel = generateGraph(100);
+        Graph graph = graphModel.getGraph();
+        Column col = graphModel.getNodeTable().getColumn("flag");
+        Index<Node> index = graphModel.getNodeIndex();
+
+        Node node = graph.getNode("5");
+        Boolean value = (Boolean) node.getAttribute(col);
+        int count = index.count(col, value);
+        graph.removeNode(node);
+        Assert.assertEquals(index.count(col, value), count - 1);
+        Assert.assertEquals(index.countElements(col), 99);
+    }
+
+    @Test
+    public void testClear() {
+        GraphModelImpl graphModel = generateGraph(100);
+        Column col = graphModel.getNodeTable().getColumn("category");
+        graphModel.getGraph().clear();
+        Assert.assertEquals(graphModel.getNodeIndex().countElements(col), 0);
+        Assert.assertEquals(graphModel.getNodeIndex().countValues(col), 0);
+    }
+
+    @Test
+    public void testParallelUpdates() {
+        GraphModelImpl graphModel = generateGraph(5000);
+        Column col = graphModel.getNodeTable().getColumn("level");
+        Index<Node> index = graphModel.getNodeIndex();
+        int version = index.getColumnIndex(col).getVersion();
+
+        Arrays.stream(graphModel.getGraph().getNodes().toArray()).parallel().forEach(node -> {
+            int id = Integer.parseInt((String) node.getId());
+            node.setAttribute(col, id % 100);
+        });
+
+        Assert.assertEquals(index.countElements(col), 5000);
+        Assert.assertEquals(index.countValues(col), 100);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(index.count(col, i), 50);
+        }
+        Assert.assertEquals(index.countRange(col, null, null, true), 5000);
+        Assert.assertTrue(index.getColumnIndex(col).getVersion() - version >= 5000);
+    }
+
+    @Test
+    public void testParallelSameValue() throws Exception {
+        GraphModelImpl graphModel = generateGraph(0);
+        Column col = graphModel.getNodeTable().getColumn("level");
+        ColumnConcurrentIndexImpl<Integer, Node> index = (ColumnConcurrentIndexImpl<Integer, Node>) graphModel
+                .getNodeIndex().getColumnIndex(col);
+        NodeImpl[] nodes = new NodeImpl[1000];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new NodeImpl(String.valueOf(i));
+        }
+
+        // Values are repeatedly emptied and filled again from several threads
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future[4];
+            for (int t = 0; t < futures.length; t++) {
+                final int offset = t;
+                futures[t] = executor.submit(() -> {
+                    for (int round = 0; round < 50; round++) {
+                        for (int i = offset; i < nodes.length; i += 4) {
+                            index.putValue(nodes[i], i % 2);
+                        }
+                        for (int i = offset; i < nodes.length; i += 4) {
+                            index.removeValue(nodes[i], i % 2);
+                        }
+                    }
+                    for (int i = offset; i < nodes.length; i += 4) {
+                        index.putValue(nodes[i], i % 2);
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        Assert.assertEquals(index.countElements(), 1000);
+        Assert.assertEquals(index.count(0), 500);
+        Assert.assertEquals(index.count(1), 500);
+        Assert.assertEquals(index.countValues(), 2);
+    }
+
+    // UTILITY
+    private static GraphModelImpl generateGraph(int nodeCount) {
+        GraphModelImpl graphModel = new GraphModelImpl(Configuration.builder().enableConcurrentIndex(true).build());
+        Column category = graphModel.getNodeTable().addColumn("category", String.class);
+        Column flag = graphModel.getNodeTable().addColumn("flag", Boolean.class);
+        Column level = graphModel.getNodeTable().addColumn("level", Integer.class);
+        Column score = graphModel.getNodeTable().addColumn("score", Double.class);
+        Random random = new Random(123);
+        String[] categories = { "a", "b", "c", null };
+        Graph graph = graphModel.getGraph();
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = graphModel.factory().newNode(String.valueOf(i));
+            node.setAttribute(category, categories[i % categories.length]);
+            node.setAttribute(flag, random.nextBoolean());
+            node.setAttribute(level, random.nextInt(10));
+            node.setAttribute(score, random.nextDouble());
+            graph.addNode(node);
+        }
+        return graphModel;
+    }
+
+    private static Set<Node> filter(Graph graph, Column column, Object value) {
+        Set<Node> result = new ObjectOpenHashSet<>();
+        for (Node node : graph.getNodes()) {
+            Object v = node.getAttribute(column);
+            if (v == null ? value == null : v.equals(value)) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+}
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import org.gephi.graph.api.Column;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Element;
@@ -217,6 +218,31 @@ public class ColumnNoIndexTest {
         Assert.assertEquals(priceIndex.values(), Collections.singletonList(125.0));
     }
 
+    @Test
+    public void testRange() {
+        for (int i = 0; i < 10; i++) {
+            addNodeWithAttribute(graphStore, ageIndex.getColumn(), String.valueOf(i), i % 2 == 0 ? i : null);
+        }
+
+        List<Object> values = new ArrayList<>();
+        for (Node n : ageIndex.get(2, 6, true)) {
+            values.add(n.getAttribute(ageIndex.getColumn()));
+        }
+        Assert.assertEquals(values, Arrays.asList(2, 4, 6));
+        Assert.assertEquals(ageIndex.countRange(2, 6, true), 3);
+        Assert.assertEquals(ageIndex.countRange(2, 6, false), 1);
+        Assert.assertEquals(ageIndex.countRange(null, null, false), 5);
+
+        Assert.assertEquals(ageIndex.getTop(2).iterator().next().getAttribute(ageIndex.getColumn()), 8);
+        Assert.assertEquals(ageIndex.getBottom(2).iterator().next().getAttribute(ageIndex.getColumn()), 0);
+        Assert.assertEquals(ageIndex.getQuantile(0.5), 4);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testRangeNotSortable() {
+        fooIndex.countRange("a", "b", true);
+    }
+
     @Test
     public void testVersion() {
         int version = fooIndex.getVersion();
@@ -23,6 +23,7 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -146,6 +147,123 @@ public class ColumnStandardIndexTest {
         Assert.assertEquals(index.getMaxValue(ageCol), max);
     }
 
+    @Test
+    public void testRange() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        NodeImpl[] nodes = generateNodesWithUniqueAttributes(index, true);
+        putAll(nodes, index);
+
+        Column ageCol = index.columnStore.getColumn("age");
+        Integer[][] bounds = { { 10, 20 }, { null, 5 }, { 95, null }, { null, null }, { 30, 30 }, { 40, 35 } };
+        for (Integer[] bound : bounds) {
+            for (boolean inclusive : new boolean[] { true, false }) {
+                List<Integer> expected = new ArrayList<>();
+                for (NodeImpl n : nodes) {
+                    Integer v = (Integer) n.getAttribute(ageCol);
+                    if (v != null && isInRange(v, bound[0], bound[1], inclusive)) {
+                        expected.add(v);
+                    }
+                }
+                expected.sort(null);
+
+                List<Integer> actual = new ArrayList<>();
+                for (Node n : index.get(ageCol, bound[0], bound[1], inclusive)) {
+                    actual.add((Integer) n.getAttribute(ageCol));
+                }
+                Assert.assertEquals(actual, expected);
+                Assert.assertEquals(index.countRange(ageCol, bound[0], bound[1], inclusive), expected.size());
+            }
+        }
+    }
+
+    @Test
+    public void testTopBottom() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        NodeImpl[] nodes = generateNodesWithUniqueAttributes(index, true);
+        putAll(nodes, index);
+
+        Column ageCol = index.columnStore.getColumn("age");
+        List<Integer> values = new ArrayList<>();
+        for (NodeImpl n : nodes) {
+            Integer v = (Integer) n.getAttribute(ageCol);
+            if (v != null) {
+                values.add(v);
+            }
+        }
+        values.sort(null);
+
+        List<Integer> bottom = new ArrayList<>();
+        for (Node n : index.getBottom(ageCol, 5)) {
+            bottom.add((Integer) n.getAttribute(ageCol));
+        }
+        Assert.assertEquals(bottom, values.subList(0, 5));
+
+        List<Integer> top = new ArrayList<>();
+        for (Node n : index.getTop(ageCol, 5)) {
+            top.add((Integer) n.getAttribute(ageCol));
+        }
+        List<Integer> expectedTop = new ArrayList<>(values.subList(values.size() - 5, values.size()));
+        expectedTop.sort(Collections.reverseOrder());
+        Assert.assertEquals(top, expectedTop);
+
+        Assert.assertFalse(index.getTop(ageCol, 0).iterator().hasNext());
+        Assert.assertEquals(getIterable(index.getBottom(ageCol, 1000)).length, values.size());
+    }
+
+    @Test
+    public void testTopWithDuplicates() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        Column ageCol = index.columnStore.getColumn("age");
+        for (int i = 0; i < 10; i++) {
+            NodeImpl n = new NodeImpl(i);
+            n.setAttribute(ageCol, i % 2 == 0 ? 5 : 7);
+            index.put(ageCol, n.getAttribute(ageCol), n);
+        }
+        Node[] top = getIterable(index.getTop(ageCol, 7));
+        Assert.assertEquals(top.length, 7);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(top[i].getAttribute(ageCol), 7);
+        }
+        Assert.assertEquals(top[5].getAttribute(ageCol), 5);
+    }
+
+    @Test
+    public void testQuantile() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        Column ageCol = index.columnStore.getColumn("age");
+        Assert.assertNull(index.getQuantile(ageCol, 0.5));
+
+        NodeImpl[] nodes = generateNodesWithUniqueAttributes(index, true);
+        putAll(nodes, index);
+
+        List<Integer> values = new ArrayList<>();
+        for (NodeImpl n : nodes) {
+            Integer v = (Integer) n.getAttribute(ageCol);
+            if (v != null) {
+                values.add(v);
+            }
+        }
+        values.sort(null);
+        for (double q : new double[] { 0.0, 0.1, 0.25, 0.5, 0.75, 0.9, 1.0 }) {
+            int rank = Math.max(1, (int) Math.ceil(q * values.size()));
+            Assert.assertEquals(index.getQuantile(ageCol, q), values.get(rank - 1));
+        }
+        Assert.assertEquals(index.getQuantile(ageCol, 0.0), index.getMinValue(ageCol));
+        Assert.assertEquals(index.getQuantile(ageCol, 1.0), index.getMaxValue(ageCol));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testQuantileOutOfBounds() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        index.getQuantile(index.columnStore.getColumn("age"), 1.5);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testRangeNotSortable() {
+        IndexImpl<Node> index = generateEmptyIndex();
+        index.get(index.columnStore.getColumn("foo"), "a", "b", true);
+    }
+
     @Test
     public void testMinMaxValueBigInteger() {
         IndexImpl<Node> index = generateEmptyIndex();
@@ -639,6 +757,13 @@ public class ColumnStandardIndexTest {
         return columnStore;
     }
 
+    private static boolean isInRange(int value, Integer from, Integer to, boolean inclusive) {
+        if (from != null && (inclusive ? value < from : value <= from)) {
+            return false;
+        }
+        return to == null || (inclusive ? value <= to : value < to);
+    }
+
     private Node[] getIterable(Iterable<Node> itr) {
         List<Node> list = new ArrayList<>();
         for (Node n : itr) {
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Origin;
+import org.gephi.graph.api.types.TimestampDoubleMap;
+import org.gephi.graph.impl.utils.DataInputOutput;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ColumnarStoreTest {
+
+    @Test
+    public void testSupportedTypes() {
+        Assert.assertTrue(ColumnarStore.isSupported(newColumn(Double.class)));
+        Assert.assertTrue(ColumnarStore.isSupported(newColumn(Integer.class)));
+        Assert.assertTrue(ColumnarStore.isSupported(newColumn(Float.class)));
+        Assert.assertTrue(ColumnarStore.isSupported(newColumn(Long.class)));
+        Assert.assertTrue(ColumnarStore.isSupported(newColumn(Boolean.class)));
+        Assert.assertFalse(ColumnarStore.isSupported(newColumn(String.class)));
+        Assert.assertFalse(ColumnarStore.isSupported(newColumn(Short.class)));
+        Assert.assertFalse(ColumnarStore.isSupported(newColumn(TimestampDoubleMap.class)));
+        Assert.assertFalse(ColumnarStore
+                .isSupported(new ColumnImpl("id", Integer.class, null, null, Origin.PROPERTY, false, true)));
+    }
+
+    @Test
+    public void testSetGet() {
+        ColumnarStore<Node> store = new ColumnarStore<>(Node.class);
+        ColumnImpl[] columns = addColumns(store);
+        Object[] values = new Object[] { 1.0, 2, 3f, 4L, Boolean.TRUE };
+        store.ensureCapacity(42);
+
+        for (int i = 0; i < columns.length; i++) {
+            ColumnarStore.ColumnarColumn c = store.getColumn(columns[i].getIndex());
+            Assert.assertNull(c.get(42));
+            Assert.assertNull(c.set(42, values[i]));
+            Assert.assertTrue(c.has(42));
+            Assert.assertEquals(c.get(42), values[i]);
+            Assert.assertEquals(c.set(42, null), values[i]);
+            Assert.assertFalse(c.has(42));
+            Assert.assertNull(c.get(42));
+        }
+    }
+
+    @Test
+    public void testTrim() {
+        ColumnarStore<Node> store = new ColumnarStore<>(Node.class);
+        ColumnImpl[] columns = addColumns(store);
+        Object[] values = new Object[] { 1.0, 2, 3f, 4L, Boolean.TRUE };
+        int farId = GraphStoreConfiguration.NODESTORE_BLOCK_SIZE * 2 + 1;
+        store.ensureCapacity(farId);
+
+        for (int i = 0; i < columns.length; i++) {
+            ColumnarStore.ColumnarColumn c = store.getColumn(columns[i].getIndex());
+            c.set(1, values[i]);
+            c.set(farId, values[i]);
+        }
+        store.trim(2);
+        for (int i = 0; i < columns.length; i++) {
+            ColumnarStore.ColumnarColumn c = store.getColumn(columns[i].getIndex());
+            Assert.assertEquals(c.get(1), values[i]);
+            Assert.assertFalse(c.has(farId));
+            Assert.assertNull(c.presence[2]);
+        }
+        store.ensureCapacity(farId);
+        for (int i = 0; i < columns.length; i++) {
+            ColumnarStore.ColumnarColumn c = store.getColumn(columns[i].getIndex());
+            c.set(farId, values[i]);
+            Assert.assertEquals(c.get(farId), values[i]);
+        }
+    }
+
+    @Test
+    public void testBoolean() {
+        ColumnarStore<Node> store = new ColumnarStore<>(Node.class);
+        ColumnImpl column = newColumn(Boolean.class);
+        column.setStoreId(0);
+        store.addColumn(column);
+        ColumnarStore.ColumnarColumn c = store.getColumn(0);
+        store.ensureCapacity(3);
+
+        c.set(0, Boolean.TRUE);
+        c.set(1, Boolean.FALSE);
+        c.set(2, Boolean.TRUE);
+        c.set(2, Boolean.FALSE);
+        Assert.assertEquals(c.get(0), Boolean.TRUE);
+        Assert.assertEquals(c.get(1), Boolean.FALSE);
+        Assert.assertEquals(c.get(2), Boolean.FALSE);
+        Assert.assertNull(c.get(3));
+    }
+
+    @Test
+    public void testMultipleBlocks() {
+        ColumnarStore<Node> store = new ColumnarStore<>(Node.class);
+        ColumnImpl column = newColumn(Double.class);
+        column.setStoreId(0);
+        store.addColumn(column);
+        ColumnarStore.ColumnarColumn c = store.getColumn(0);
+
+        int count = GraphStoreConfiguration.NODESTORE_BLOCK_SIZE * 12 + 1;
+        store.ensureCapacity(count);
+        for (int i = 0; i < count; i += 7) {
+            c.set(i, (double) i);
+        }
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(c.get(i), i % 7 == 0 ? (double) i : null);
+        }
+        Assert.assertEquals(((ColumnarStore.DoubleColumn) c).getDouble(7), 7.0);
+    }
+
+    @Test
+    public void testRemoveColumn() {
+        ColumnarStore<Node> store = new ColumnarStore<>(Node.class);
+        ColumnImpl[] columns = addColumns(store);
+
+        store.removeColumn(columns[1]);
+        Assert.assertTrue(store.isColumnar(columns[0].getIndex()));
+        Assert.assertFalse(store.isColumnar(columns[1].getIndex()));
+        Assert.assertNull(store.getColumn(columns[1].getIndex()));
+    }
+
+    @Test
+    public void testClear() {
+        ColumnarStore<Node> store = new ColumnarStore<>(Node.class);
+        ColumnImpl[] columns = addColumns(store);
+        store.ensureCapacity(5);
+        store.getColumn(columns[0].getIndex()).set(5, 1.0);
+
+        store.clear();
+        Assert.assertNull(store.getColumn(columns[0].getIndex()).get(5));
+    }
+
+    @Test
+    public void testStringColumn() {
+        StringPool pool = new StringPool();
+        ColumnarStore<Node> store = new ColumnarStore<>(Node.class, false, pool);
+        ColumnImpl column = newColumn(String.class);
+        column.setStoreId(0);
+        Assert.assertTrue(store.accepts(column));
+        Assert.assertFalse(store.accepts(newColumn(Double.class)));
+        store.addColumn(column);
+        ColumnarStore.StringColumn c = (ColumnarStore.StringColumn) store.getColumn(0);
+        store.ensureCapacity(2);
+
+        c.set(0, "foo");
+        c.set(1, "foo");
+        c.set(2, "bar");
+        Assert.assertEquals(c.get(0), "foo");
+        Assert.assertEquals(c.getHandle(0), c.getHandle(1));
+        Assert.assertEquals(pool.size(), 2);
+        Assert.assertEquals(pool.getRefCount(c.getHandle(0)), 2);
+
+        Assert.assertEquals(c.set(2, "foo"), "bar");
+        Assert.assertEquals(pool.size(), 1);
+        c.set(0, null);
+        c.remove(1);
+        Assert.assertEquals(c.getHandle(0), StringPool.NULL_HANDLE);
+        Assert.assertEquals(pool.getRefCount(c.getHandle(2)), 1);
+    }
+
+    @Test
+    public void testStringColumnRelease() {
+        StringPool pool = new StringPool();
+        ColumnarStore<Node> store = new ColumnarStore<>(Node.class, false, pool);
+        ColumnImpl column = newColumn(String.class);
+        column.setStoreId(0);
+        store.addColumn(column);
+        ColumnarStore.ColumnarColumn c = store.getColumn(0);
+        int farId = GraphStoreConfiguration.NODESTORE_BLOCK_SIZE * 2 + 1;
+        store.ensureCapacity(farId);
+
+        c.set(1, "foo");
+        c.set(farId, "bar");
+        store.trim(2);
+        Assert.assertEquals(pool.size(), 1);
+        store.clear();
+        Assert.assertEquals(pool.size(), 0);
+
+        store.ensureCapacity(1);
+        c.set(1, "foo");
+        store.removeColumn(column);
+        Assert.assertEquals(pool.size(), 0);
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        GraphStore graphStore = new GraphStore();
+        Assert.assertNull(graphStore.nodeTable.store.columnarStore);
+        Assert.assertNull(graphStore.edgeTable.store.columnarStore);
+    }
+
+    @Test
+    public void testEdgeWeight() {
+        GraphStore graphStore = createGraphStore();
+        Assert.assertTrue(graphStore.edgeTable.store.columnarStore
+                .isColumnar(GraphStoreConfiguration.EDGE_WEIGHT_INDEX));
+
+        NodeImpl n1 = new NodeImpl("1", graphStore);
+        NodeImpl n2 = new NodeImpl("2", graphStore);
+        graphStore.addNode(n1);
+        graphStore.addNode(n2);
+        EdgeImpl edge = new EdgeImpl("e", graphStore, n1, n2, 0, 2.5, true);
+        graphStore.addEdge(edge);
+
+        Assert.assertNull(edge.attributes.attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX]);
+        Assert.assertEquals(edge.getWeight(), 2.5);
+        edge.setWeight(3.0);
+        Assert.assertEquals(edge.getWeight(), 3.0);
+        Assert.assertEquals(edge.getAttribute(graphStore.defaultColumns.edgeWeight()), 3.0);
+
+        graphStore.removeEdge(edge);
+        Assert.assertEquals(edge.attributes.attributes[GraphStoreConfiguration.EDGE_WEIGHT_INDEX], 3.0);
+        Assert.assertEquals(edge.getWeight(), 3.0);
+    }
+
+    @Test
+    public void testNodeAttributes() {
+        GraphStore graphStore = createGraphStore();
+        Column age = graphStore.nodeTable.addColumn("age", Integer.class);
+        Column flag = graphStore.nodeTable.addColumn("flag", null, Boolean.class, Boolean.FALSE);
+        Column name = graphStore.nodeTable.addColumn("name", String.class);
+
+        NodeImpl node = new NodeImpl("1", graphStore);
+        node.setAttribute(age, 10);
+        graphStore.addNode(node);
+
+        Assert.assertTrue(graphStore.nodeTable.store.columnarStore.isColumnar(age.getIndex()));
+        Assert.assertFalse(graphStore.nodeTable.store.columnarStore.isColumnar(name.getIndex()));
+        Assert.assertEquals(node.getAttribute(age), 10);
+        Assert.assertEquals(node.getAttribute(flag), Boolean.FALSE);
+
+        node.setAttribute(age, 20);
+        node.setAttribute(flag, Boolean.TRUE);
+        node.setAttribute(name, "foo");
+        Assert.assertEquals(node.getAttribute(age), 20);
+        Assert.assertEquals(node.getAttribute(flag), Boolean.TRUE);
+        Assert.assertEquals(node.getAttribute(name), "foo");
+        Assert.assertEquals(node.getAttributes()[age.getIndex()], 20);
+        Assert.assertNull(node.attributes.attributes[age.getIndex()]);
+
+        node.removeAttribute(age);
+        Assert.assertNull(node.getAttribute(age));
+    }
+
+    @Test
+    public void testAddColumnToExistingNodes() {
+        GraphStore graphStore = createGraphStore();
+        NodeImpl node = new NodeImpl("1", graphStore);
+        graphStore.addNode(node);
+
+        Column score = graphStore.nodeTable.addColumn("score", null, Double.class, 1.0);
+        Assert.assertEquals(node.getAttribute(score), 1.0);
+
+        int index = score.getIndex();
+        graphStore.nodeTable.removeColumn(score);
+        Assert.assertNull(graphStore.nodeTable.store.columnarStore.getColumn(index));
+    }
+
+    @Test
+    public void testStoreIdReuse() {
+        GraphStore graphStore = createGraphStore();
+        Column age = graphStore.nodeTable.addColumn("age", Integer.class);
+
+        NodeImpl n1 = new NodeImpl("1", graphStore);
+        n1.setAttribute(age, 10);
+        graphStore.addNode(n1);
+        graphStore.removeNode(n1);
+
+        NodeImpl n2 = new NodeImpl("2", graphStore);
+        graphStore.addNode(n2);
+        Assert.assertEquals(n2.getStoreId(), 0);
+        Assert.assertNull(n2.getAttribute(age));
+        Assert.assertEquals(n1.getAttribute(age), 10);
+    }
+
+    @Test
+    public void testClearGraph() {
+        GraphStore graphStore = createGraphStore();
+        Column age = graphStore.nodeTable.addColumn("age", Integer.class);
+
+        NodeImpl node = new NodeImpl("1", graphStore);
+        node.setAttribute(age, 10);
+        graphStore.addNode(node);
+        graphStore.clear();
+
+        Assert.assertEquals(node.getAttribute(age), 10);
+    }
+
+    @Test
+    public void testIndex() {
+        GraphStore graphStore = createGraphStore();
+        Column age = graphStore.nodeTable.addColumn("age", Integer.class);
+
+        NodeImpl n1 = new NodeImpl("1", graphStore);
+        n1.setAttribute(age, 10);
+        graphStore.addNode(n1);
+        NodeImpl n2 = new NodeImpl("2", graphStore);
+        graphStore.addNode(n2);
+        n2.setAttribute(age, 10);
+
+        IndexStore<Node> indexStore = graphStore.nodeTable.store.indexStore;
+        Assert.assertEquals(indexStore.getIndex(graphStore).count(age, 10), 2);
+        n1.setAttribute(age, 5);
+        Assert.assertEquals(indexStore.getIndex(graphStore).count(age, 10), 1);
+        Assert.assertEquals(indexStore.getIndex(graphStore).count(age, 5), 1);
+    }
+
+    @Test
+    public void testParallelWritesSameBlock() throws Exception {
+        GraphStore graphStore = createGraphStore();
+        NodeImpl[] nodes = new NodeImpl[1024];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new NodeImpl(String.valueOf(i), graphStore);
+        }
+        graphStore.addAllNodes(Arrays.asList(nodes));
+        // Added after the nodes so values go to blocks allocated with the column
+        Column age = graphStore.nodeTable.addColumn("age", Integer.class);
+        Column flag = graphStore.nodeTable.addColumn("flag", Boolean.class);
+
+        // Neighbouring nodes share presence and boolean words but are written by different threads
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future[threads];
+            for (int t = 0; t < threads; t++) {
+                final int offset = t;
+                futures[t] = executor.submit(() -> {
+                    for (int round = 0; round < 50; round++) {
+                        for (int i = offset; i < nodes.length; i += threads) {
+                            nodes[i].setAttribute(age, round % 2 == 0 ? i : null);
+                            nodes[i].setAttribute(flag, round % 2 == 0);
+                        }
+                    }
+                    for (int i = offset; i < nodes.length; i += threads) {
+                        nodes[i].setAttribute(age, i);
+                        nodes[i].setAttribute(flag, i % 3 == 0);
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int i = 0; i < nodes.length; i++) {
+            Assert.assertEquals(nodes[i].getAttribute(age), i);
+            Assert.assertEquals(nodes[i].getAttribute(flag), i % 3 == 0);
+        }
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl(Configuration.builder().enableColumnarAttributes(true).build());
+        GraphStore graphStore = graphModel.getStore();
+        Column age = graphStore.nodeTable.addColumn("age", Integer.class);
+        NodeImpl n1 = new NodeImpl("1", graphStore);
+        NodeImpl n2 = new NodeImpl("2", graphStore);
+        n1.setAttribute(age, 42);
+        graphStore.addAllNodes(Arrays.asList(n1, n2));
+        graphStore.addEdge(new EdgeImpl("e", graphStore, n1, n2, 0, 4.0, true));
+
+        Serialization ser = new Serialization(graphModel);
+        DataInputOutput dio = new DataInputOutput();
+        ser.serializeGraphModel(dio, graphModel);
+        GraphModelImpl read = new Serialization().deserializeGraphModel(dio.reset(dio.toByteArray()));
+
+        Node node = read.getGraph().getNode("1");
+        Edge edge = read.getGraph().getEdge("e");
+        Assert.assertEquals(node.getAttribute("age"), 42);
+        Assert.assertEquals(edge.getWeight(), 4.0);
+    }
+
+    private GraphStore createGraphStore() {
+        return new GraphModelImpl(Configuration.builder().enableColumnarAttributes(true).build()).getStore();
+    }
+
+    private ColumnImpl[] addColumns(ColumnarStore store) {
+        Class[] types = new Class[] { Double.class, Integer.class, Float.class, Long.class, Boolean.class };
+        ColumnImpl[] columns = new ColumnImpl[types.length];
+        for (int i = 0; i < types.length; i++) {
+            columns[i] = newColumn(types[i]);
+            columns[i].setStoreId(i);
+            store.addColumn(columns[i]);
+        }
+        return columns;
+    }
+
+    private ColumnImpl newColumn(Class type) {
+        return new ColumnImpl("col", type, null, null, Origin.DATA, false, false);
+    }
+}
@@ -141,6 +141,56 @@ public class ConfigurationTest {
         Assert.assertEquals(c.isEnableAutoLocking(), Boolean.FALSE);
     }
 
+    @Test
+    public void testEnableColumnarAttributes() {
+        Configuration c = Configuration.builder().enableColumnarAttributes(true).build();
+        Assert.assertEquals(c.isEnableColumnarAttributes(), Boolean.TRUE);
+    }
+
+    @Test
+    public void testEnableColumnarPositions() {
+        Configuration c = Configuration.builder().enableColumnarPositions(true).build();
+        Assert.assertEquals(c.isEnableColumnarPositions(), Boolean.TRUE);
+    }
+
+    @Test
+    public void testEnableStringPool() {
+        Configuration c = Configuration.builder().enableStringPool(true).build();
+        Assert.assertEquals(c.isEnableStringPool(), Boolean.TRUE);
+    }
+
+    @Test
+    public void testEnableBitmapIndex() {
+        Configuration c = Configuration.builder().enableBitmapIndex(true).build();
+        Assert.assertEquals(c.isEnableBitmapIndex(), Boolean.TRUE);
+    }
+
+    @Test
+    public void testEnableOptimisticLocking() {
+        Configuration c = Configuration.builder().enableOptimisticLocking(true).build();
+        Assert.assertEquals(c.isEnableOptimisticLocking(), Boolean.TRUE);
+    }
+
+    @Test
+    public void testEnableConcurrentIndex() {
+        Configuration c = Configuration.builder().enableConcurrentIndex(true).build();
+        Assert.assertEquals(c.isEnableConcurrentIndex(), Boolean.TRUE);
+    }
+
+    @Test
+    public void testEnableNeighborIndex() {
+        Configuration c = Configuration.builder().enableNeighborIndex(true).build();
+        Assert.assertEquals(c.isEnableNeighborIndex(), Boolean.TRUE);
+        Assert.assertFalse(new Configuration().isEnableNeighborIndex());
+    }
+
+    @Test
+    public void testEnableLockMetrics() {
+        Configuration c = Configuration.builder().enableLockMetrics(true).build();
+        Assert.assertEquals(c.isEnableLockMetrics(), Boolean.TRUE);
+        Assert.assertFalse(new Configuration().isEnableLockMetrics());
+    }
+
     @Test
     public void testDisableTimeIndexing() {
         Configuration c = Configuration.builder().enableIndexTime(false).build();
@@ -285,6 +335,11 @@ public class ConfigurationTest {
         Configuration.builder().enableSpatialIndex(true).enableNodeProperties(false).build();
     }
 
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testExceptionColumnarPositionsWithDisabledNodeProperties() {
+        Configuration.builder().enableColumnarPositions(true).enableNodeProperties(false).build();
+    }
+
     @Test
     public void testToSting() {
         Configuration c = Configuration.builder().build();
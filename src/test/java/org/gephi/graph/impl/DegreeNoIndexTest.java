@@ -52,6 +52,23 @@ public class DegreeNoIndexTest {
         Assert.assertEquals(index.getMaxValue().intValue(), 1);
     }
 
+    @Test
+    public void testRange() {
+        Graph graph = GraphGenerator.generateTinyGraphStore();
+        Node node = graph.getModel().factory().newNode();
+        graph.addNode(node);
+
+        DegreeNoIndexImpl index = new DegreeNoIndexImpl(graph, DegreeNoIndexImpl.DegreeType.DEGREE);
+        Assert.assertEquals(index.countRange(0, 1, true), 3);
+        Assert.assertEquals(index.countRange(0, 1, false), 0);
+        Assert.assertEquals(index.countRange(1, null, true), 2);
+        Assert.assertEquals(index.get(null, 0, true).iterator().next(), node);
+        Assert.assertEquals(index.getBottom(1).iterator().next(), node);
+        Assert.assertNotSame(index.getTop(1).iterator().next(), node);
+        Assert.assertEquals(index.getQuantile(0.0).intValue(), 0);
+        Assert.assertEquals(index.getQuantile(1.0).intValue(), 1);
+    }
+
     @Test
     public void testValues() {
         Graph graph = GraphGenerator.generateTinyGraphStore();
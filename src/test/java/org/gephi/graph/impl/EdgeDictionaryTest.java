@@ -0,0 +1,226 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class EdgeDictionaryTest {
+
+    @Test
+    public void testEmpty() {
+        EdgeDictionary dico = new EdgeDictionary();
+        Assert.assertTrue(dico.isEmpty());
+        Assert.assertEquals(dico.get(0, 1L), EdgeDictionary.NULL_ID);
+        Assert.assertNull(dico.getAll(0, 1L));
+        Assert.assertFalse(dico.containsKey(0, 1L));
+        Assert.assertFalse(dico.remove(0, 1L, 0));
+    }
+
+    @Test
+    public void testAddGet() {
+        EdgeDictionary dico = new EdgeDictionary();
+        dico.add(0, 42L, 7);
+        Assert.assertEquals(dico.size(), 1);
+        Assert.assertTrue(dico.containsKey(0, 42L));
+        Assert.assertEquals(dico.get(0, 42L), 7);
+        Assert.assertEquals(dico.getAll(0, 42L), new int[] { 7 });
+        Assert.assertNull(dico.overflowHeads);
+    }
+
+    @Test
+    public void testTypes() {
+        EdgeDictionary dico = new EdgeDictionary();
+        dico.add(0, 42L, 1);
+        dico.add(1, 42L, 2);
+        Assert.assertEquals(dico.size(), 2);
+        Assert.assertEquals(dico.get(0, 42L), 1);
+        Assert.assertEquals(dico.get(1, 42L), 2);
+        Assert.assertFalse(dico.containsKey(2, 42L));
+
+        Assert.assertTrue(dico.remove(0, 42L, 1));
+        Assert.assertFalse(dico.containsKey(0, 42L));
+        Assert.assertEquals(dico.get(1, 42L), 2);
+    }
+
+    @Test
+    public void testParallel() {
+        EdgeDictionary dico = new EdgeDictionary();
+        dico.add(0, 42L, 1);
+        dico.add(0, 42L, 2);
+        dico.add(0, 42L, 3);
+        Assert.assertEquals(dico.size(), 1);
+        Assert.assertEquals(dico.get(0, 42L), 1);
+        Assert.assertEquals(dico.getAll(0, 42L), new int[] { 1, 2, 3 });
+    }
+
+    @Test
+    public void testRemoveInlinePromotesOverflow() {
+        EdgeDictionary dico = new EdgeDictionary();
+        dico.add(0, 42L, 1);
+        dico.add(0, 42L, 2);
+        dico.add(0, 42L, 3);
+
+        Assert.assertTrue(dico.remove(0, 42L, 1));
+        Assert.assertEquals(dico.get(0, 42L), 2);
+        Assert.assertEquals(dico.getAll(0, 42L), new int[] { 2, 3 });
+        Assert.assertTrue(dico.remove(0, 42L, 2));
+        Assert.assertTrue(dico.remove(0, 42L, 3));
+        Assert.assertFalse(dico.containsKey(0, 42L));
+        Assert.assertTrue(dico.isEmpty());
+    }
+
+    @Test
+    public void testRemoveOverflow() {
+        EdgeDictionary dico = new EdgeDictionary();
+        dico.add(0, 42L, 1);
+        dico.add(0, 42L, 2);
+        dico.add(0, 42L, 3);
+
+        Assert.assertTrue(dico.remove(0, 42L, 2));
+        Assert.assertEquals(dico.getAll(0, 42L), new int[] { 1, 3 });
+        Assert.assertFalse(dico.remove(0, 42L, 2));
+        Assert.assertTrue(dico.remove(0, 42L, 3));
+        Assert.assertEquals(dico.getAll(0, 42L), new int[] { 1 });
+    }
+
+    @Test
+    public void testAppendAfterTailRemoved() {
+        EdgeDictionary dico = new EdgeDictionary();
+        dico.add(0, 42L, 1);
+        dico.add(0, 42L, 2);
+        dico.add(0, 42L, 3);
+
+        Assert.assertTrue(dico.remove(0, 42L, 3));
+        dico.add(0, 42L, 4);
+        Assert.assertEquals(dico.getAll(0, 42L), new int[] { 1, 2, 4 });
+        Assert.assertTrue(dico.remove(0, 42L, 1));
+        Assert.assertTrue(dico.remove(0, 42L, 2));
+        dico.add(0, 42L, 5);
+        Assert.assertEquals(dico.getAll(0, 42L), new int[] { 4, 5 });
+    }
+
+    @Test
+    public void testManyParallel() {
+        EdgeDictionary dico = new EdgeDictionary();
+        int count = 100000;
+        for (int i = 0; i < count; i++) {
+            dico.add(0, 42L, i);
+            dico.add(1, i, i);
+        }
+        int[] all = dico.getAll(0, 42L);
+        Assert.assertEquals(all.length, count);
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(all[i], i);
+        }
+    }
+
+    @Test
+    public void testOverflowReused() {
+        EdgeDictionary dico = new EdgeDictionary();
+        dico.add(0, 42L, 1);
+        dico.add(0, 42L, 2);
+        dico.remove(0, 42L, 2);
+        dico.add(0, 42L, 3);
+        Assert.assertEquals(dico.overflowLength, 1);
+        Assert.assertEquals(dico.getAll(0, 42L), new int[] { 1, 3 });
+    }
+
+    @Test
+    public void testFind() {
+        EdgeDictionary dico = new EdgeDictionary();
+        dico.add(0, 42L, 1);
+        dico.add(0, 42L, 2);
+        dico.add(0, 42L, 3);
+        Assert.assertEquals(dico.find(0, 42L, id -> id > 1), 2);
+        Assert.assertEquals(dico.find(0, 42L, id -> id > 5), EdgeDictionary.NULL_ID);
+        Assert.assertEquals(dico.find(0, 43L, id -> true), EdgeDictionary.NULL_ID);
+    }
+
+    @Test
+    public void testClear() {
+        EdgeDictionary dico = new EdgeDictionary();
+        dico.add(0, 42L, 1);
+        dico.add(0, 42L, 2);
+        dico.clear();
+        Assert.assertTrue(dico.isEmpty());
+        Assert.assertFalse(dico.containsKey(0, 42L));
+        dico.add(0, 42L, 3);
+        Assert.assertEquals(dico.getAll(0, 42L), new int[] { 3 });
+    }
+
+    @Test
+    public void testGrowth() {
+        EdgeDictionary dico = new EdgeDictionary(4, 0.75f);
+        int count = 10000;
+        for (int i = 0; i < count; i++) {
+            dico.add(i % 3, i, i);
+            if (i % 10 == 0) {
+                dico.add(i % 3, i, -i - 1);
+            }
+        }
+        Assert.assertEquals(dico.size(), count);
+        for (int i = 0; i < count; i++) {
+            if (i % 10 == 0) {
+                Assert.assertEquals(dico.getAll(i % 3, i), new int[] { i, -i - 1 });
+            } else {
+                Assert.assertEquals(dico.get(i % 3, i), i);
+            }
+            Assert.assertFalse(dico.containsKey((i + 1) % 3, i));
+        }
+    }
+
+    @Test
+    public void testRandomOperations() {
+        EdgeDictionary dico = new EdgeDictionary(16, 0.7f);
+        Map<Long, IntArrayList> reference = new HashMap<>();
+        Random random = new Random(42);
+        int nextId = 0;
+        for (int i = 0; i < 50000; i++) {
+            int type = random.nextInt(3);
+            long key = random.nextInt(500);
+            long refKey = key * 3 + type;
+            IntArrayList ids = reference.get(refKey);
+            if (random.nextInt(3) != 0 || ids == null) {
+                int id = nextId++;
+                dico.add(type, key, id);
+                reference.computeIfAbsent(refKey, k -> new IntArrayList()).add(id);
+            } else {
+                int id = ids.getInt(random.nextInt(ids.size()));
+                Assert.assertTrue(dico.remove(type, key, id));
+                ids.rem(id);
+                if (ids.isEmpty()) {
+                    reference.remove(refKey);
+                }
+            }
+        }
+        Assert.assertEquals(dico.size(), reference.size());
+        for (int type = 0; type < 3; type++) {
+            for (long key = 0; key < 500; key++) {
+                IntArrayList ids = reference.get(key * 3 + type);
+                if (ids == null) {
+                    Assert.assertFalse(dico.containsKey(type, key));
+                } else {
+                    Assert.assertEquals(dico.getAll(type, key), ids.toIntArray());
+                }
+            }
+        }
+    }
+}
@@ -39,6 +39,7 @@ import java.util.Set;
 import java.util.Spliterator;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
+import org.gephi.graph.api.Column;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.Node;
@@ -2370,4 +2371,164 @@ public class EdgeStoreTest {
         }
         return list;
     }
+
+    @Test
+    public void testBulkAddMatchesSequential() {
+        GraphStore bulkStore = new GraphStore();
+        GraphStore sequentialStore = new GraphStore();
+        List<EdgeImpl> bulkEdges = generateBulkEdges(bulkStore, 0);
+        List<EdgeImpl> sequentialEdges = generateBulkEdges(sequentialStore, 0);
+
+        // Pre-existing edges so new ones are prepended to existing lists
+        bulkStore.addAllEdges(bulkEdges.subList(0, 100));
+        sequentialStore.addAllEdges(sequentialEdges.subList(0, 100));
+        Assert.assertTrue(bulkStore.addAllEdges(bulkEdges.subList(100, bulkEdges.size())));
+        for (EdgeImpl edge : sequentialEdges.subList(100, sequentialEdges.size())) {
+            sequentialStore.addEdge(edge);
+        }
+
+        assertSameStructure(bulkStore, sequentialStore);
+    }
+
+    @Test
+    public void testBulkAddUndirected() {
+        GraphStore bulkStore = new GraphStore();
+        GraphStore sequentialStore = new GraphStore();
+        List<EdgeImpl> bulkEdges = generateBulkEdges(bulkStore, 2);
+        List<EdgeImpl> sequentialEdges = generateBulkEdges(sequentialStore, 2);
+
+        bulkStore.addAllEdges(bulkEdges);
+        for (EdgeImpl edge : sequentialEdges) {
+            sequentialStore.addEdge(edge);
+        }
+
+        assertSameStructure(bulkStore, sequentialStore);
+        Assert.assertTrue(bulkStore.isUndirected());
+    }
+
+    @Test
+    public void testBulkAddDuplicateEdge() {
+        GraphStore store = new GraphStore();
+        List<EdgeImpl> edges = new ArrayList<>(generateBulkEdges(store, 0));
+        edges.add(edges.get(10));
+
+        Assert.assertTrue(store.addAllEdges(edges));
+        Assert.assertEquals(store.getEdgeCount(), edges.size() - 1);
+        for (EdgeImpl edge : edges) {
+            Assert.assertSame(store.edgeStore.get(edge.storeId), edge);
+        }
+    }
+
+    @Test
+    public void testBulkAddDuplicateId() {
+        GraphStore store = new GraphStore();
+        List<EdgeImpl> edges = generateBulkEdges(store, 0);
+        EdgeImpl existing = edges.get(0);
+        store.addEdge(existing);
+        List<EdgeImpl> batch = new ArrayList<>(edges.subList(1, edges.size()));
+        batch.add(100, (EdgeImpl) store.factory
+                .newEdge(existing.getId(), existing.source, existing.target, 0, 1.0, true));
+
+        try {
+            store.addAllEdges(batch);
+            Assert.fail("Expected duplicate id failure");
+        } catch (IllegalArgumentException e) {
+            // Same partial addition as the sequential path
+        }
+        Assert.assertEquals(store.getEdgeCount(), 101);
+        Assert.assertSame(store.getEdge(existing.getId()), existing);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertSame(store.getEdge(batch.get(i).getId()), batch.get(i));
+        }
+        Assert.assertEquals(batch.get(101).storeId, EdgeStore.NULL_ID);
+    }
+
+    @Test
+    public void testBulkAddWithViewAndIndex() {
+        GraphStore store = new GraphStore();
+        Column column = store.edgeTable.addColumn("foo", Integer.class);
+        GraphViewImpl view = store.viewStore.createView(true, false);
+        List<EdgeImpl> edges = generateBulkEdges(store, 0);
+        for (Node n : store.getNodes()) {
+            view.addNode(n);
+        }
+        for (EdgeImpl edge : edges) {
+            edge.setAttribute(column, 42);
+        }
+        store.addAllEdges(edges);
+
+        Assert.assertEquals(view.getEdgeCount(), edges.size());
+        Assert.assertEquals(view.getUndirectedEdgeCount(), store.edgeStore.undirectedSize());
+        Assert.assertEquals(store.edgeTable.store.indexStore.mainIndex.count(column, 42), edges.size());
+    }
+
+    private static List<EdgeImpl> generateBulkEdges(GraphStore store, int mode) {
+        // mode 0: directed with mutual, parallel and self-loop edges on two types, mode 2: undirected
+        store.edgeTypeStore.addType("foo");
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            nodes.add(store.factory.newNode(String.valueOf(i)));
+        }
+        store.addAllNodes(nodes);
+        Random random = new Random(7);
+        List<EdgeImpl> edges = new ArrayList<>();
+        Set<Long> undirectedPairs = new HashSet<>();
+        while (edges.size() < GraphStoreConfiguration.BULK_LOAD_THRESHOLD * 2) {
+            int s = random.nextInt(nodes.size());
+            int t = random.nextInt(nodes.size());
+            int type = random.nextInt(2);
+            if (mode == 2) {
+                long key = ((long) Math.min(s, t) << 32 | Math.max(s, t)) * 2 + type;
+                if (!undirectedPairs.add(key)) {
+                    continue;
+                }
+            }
+            edges.add((EdgeImpl) store.factory
+                    .newEdge("e" + edges.size(), nodes.get(s), nodes.get(t), type, 1.0, mode != 2));
+            if (mode != 2 && random.nextInt(4) == 0) {
+                edges.add((EdgeImpl) store.factory
+                        .newEdge("e" + edges.size(), nodes.get(t), nodes.get(s), type, 1.0, true));
+            }
+        }
+        return edges;
+    }
+
+    private static void assertSameStructure(GraphStore store1, GraphStore store2) {
+        EdgeStore edgeStore1 = store1.edgeStore;
+        EdgeStore edgeStore2 = store2.edgeStore;
+        Assert.assertEquals(edgeStore1.size, edgeStore2.size);
+        Assert.assertEquals(edgeStore1.undirectedSize, edgeStore2.undirectedSize);
+        Assert.assertEquals(edgeStore1.mutualEdgesSize, edgeStore2.mutualEdgesSize);
+        Assert.assertEquals(edgeStore1.typeSize, edgeStore2.typeSize);
+        Assert.assertEquals(edgeStore1.mutualEdgesTypeSize, edgeStore2.mutualEdgesTypeSize);
+        for (Edge e1 : store1.getEdges()) {
+            EdgeImpl edge1 = (EdgeImpl) e1;
+            EdgeImpl edge2 = (EdgeImpl) store2.getEdge(edge1.getId());
+            Assert.assertEquals(edge1.storeId, edge2.storeId);
+            Assert.assertEquals(edge1.isMutual(), edge2.isMutual());
+            Assert.assertEquals(edge1.nextOutEdge, edge2.nextOutEdge);
+            Assert.assertEquals(edge1.previousOutEdge, edge2.previousOutEdge);
+            Assert.assertEquals(edge1.nextInEdge, edge2.nextInEdge);
+            Assert.assertEquals(edge1.previousInEdge, edge2.previousInEdge);
+            Assert.assertEquals(store1.getEdge(edge1.source, edge1.target, edge1.type).getId(), store2
+                    .getEdge(edge2.source, edge2.target, edge2.type).getId());
+        }
+        for (Node n1 : store1.getNodes()) {
+            NodeImpl node1 = (NodeImpl) n1;
+            NodeImpl node2 = (NodeImpl) store2.getNode(node1.getId());
+            Assert.assertEquals(node1.inDegree, node2.inDegree);
+            Assert.assertEquals(node1.outDegree, node2.outDegree);
+            Assert.assertEquals(node1.mutualDegree, node2.mutualDegree);
+            Assert.assertEquals(node1.headOut.length, node2.headOut.length);
+            Assert.assertEquals(node1.headIn.length, node2.headIn.length);
+            for (int type = 0; type < node1.headOut.length; type++) {
+                Assert.assertEquals(node1.headOut[type] == null ? null : node1.headOut[type]
+                        .getId(), node2.headOut[type] == null ? null : node2.headOut[type].getId());
+            }
+            for (int type = 0; type < node1.headIn.length; type++) {
+                Assert.assertEquals(node1.headIn[type] == null ? null
+                        : node1.headIn[type].getId(), node2.headIn[type] == null ? null : node2.headIn[type].getId());
+            }
+        }
+    }
 }
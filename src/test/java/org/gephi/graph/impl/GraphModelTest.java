@@ -31,6 +31,7 @@ import org.gephi.graph.api.GraphObserver;
 import org.gephi.graph.api.GraphView;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.Origin;
+import org.gephi.graph.api.Rect2D;
 import org.gephi.graph.impl.utils.DataInputOutput;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -911,4 +912,162 @@ public class GraphModelTest {
         Assert.assertNotNull(defaultColumns.edgeType());
 
     }
+
+    @Test
+    public void testNodePositions() {
+        assertNodePositions(new GraphModelImpl());
+    }
+
+    @Test
+    public void testNodePositionsColumnar() {
+        assertNodePositions(new GraphModelImpl(Configuration.builder().enableColumnarPositions(true).build()));
+    }
+
+    @Test
+    public void testColumnarPositionsStoredInArrays() {
+        GraphModelImpl graphModel = new GraphModelImpl(Configuration.builder().enableColumnarPositions(true).build());
+        NodeImpl node = (NodeImpl) graphModel.factory().newNode("1");
+        node.setPosition(1f, 2f, 3f);
+        node.setSize(4f);
+        graphModel.store.addNode(node);
+
+        NodePositionStore positionStore = graphModel.store.nodeStore.positionStore;
+        node.setX(5f);
+        Assert.assertEquals(positionStore.x(node.getStoreId()), 5f);
+        Assert.assertEquals(positionStore.y(node.getStoreId()), 2f);
+        Assert.assertEquals(positionStore.z(node.getStoreId()), 3f);
+        Assert.assertEquals(positionStore.size(node.getStoreId()), 4f);
+        Assert.assertEquals(node.properties.x, 1f);
+
+        graphModel.store.removeNode(node);
+        Assert.assertNull(node.properties.positionStore);
+        Assert.assertEquals(node.x(), 5f);
+        Assert.assertEquals(node.properties.x, 5f);
+        node.setY(6f);
+        Assert.assertEquals(node.y(), 6f);
+    }
+
+    @Test
+    public void testColumnarPositionsStoreIdReuse() {
+        GraphModelImpl graphModel = new GraphModelImpl(Configuration.builder().enableColumnarPositions(true).build());
+        Node n1 = graphModel.factory().newNode("1");
+        n1.setPosition(1f, 1f);
+        graphModel.store.addNode(n1);
+        graphModel.store.removeNode(n1);
+
+        Node n2 = graphModel.factory().newNode("2");
+        graphModel.store.addNode(n2);
+        Assert.assertEquals(n2.getStoreId(), 0);
+        Assert.assertEquals(n2.x(), 0f);
+        Assert.assertEquals(n1.x(), 1f);
+    }
+
+    @Test
+    public void testColumnarPositionsCompact() {
+        GraphModelImpl graphModel = new GraphModelImpl(Configuration.builder().enableColumnarPositions(true).build());
+        int count = GraphStoreConfiguration.NODESTORE_BLOCK_SIZE * 3;
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = graphModel.factory().newNode(String.valueOf(i));
+            nodes[i].setPosition(i, -i);
+            nodes[i].setSize(i + 1);
+        }
+        graphModel.store.addAllNodes(Arrays.asList(nodes));
+        for (int i = 0; i < count; i += 2) {
+            graphModel.store.removeNode(nodes[i]);
+        }
+
+        graphModel.compact();
+        for (int i = 1; i < count; i += 2) {
+            Assert.assertEquals(nodes[i].x(), (float) i);
+            Assert.assertEquals(nodes[i].y(), (float) -i);
+            Assert.assertEquals(nodes[i].size(), (float) i + 1);
+        }
+        Assert.assertNull(graphModel.store.nodeStore.positionStore.x[2]);
+    }
+
+    @Test
+    public void testColumnarPositionsClear() {
+        GraphModelImpl graphModel = new GraphModelImpl(Configuration.builder().enableColumnarPositions(true).build());
+        Node node = graphModel.factory().newNode("1");
+        graphModel.store.addNode(node);
+        node.setPosition(1f, 2f);
+
+        graphModel.store.clear();
+        Assert.assertEquals(node.x(), 1f);
+        Assert.assertEquals(node.y(), 2f);
+    }
+
+    @Test
+    public void testSetNodePositionsSpatialIndex() {
+        GraphModelImpl graphModel = new GraphModelImpl(
+                Configuration.builder().enableColumnarPositions(true).enableSpatialIndex(true).build());
+        Node n1 = graphModel.factory().newNode("1");
+        Node n2 = graphModel.factory().newNode("2");
+        graphModel.store.addAllNodes(Arrays.asList(n1, n2));
+
+        float[] xs = new float[] { 100f, -100f };
+        float[] ys = new float[] { 100f, -100f };
+        graphModel.setNodePositions(xs, ys);
+        Assert.assertEquals(graphModel.getGraph().getSpatialIndex().getNodesInArea(new Rect2D(50f, 50f, 150f, 150f))
+                .toCollection(), Arrays.asList(n1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testGetNodePositionsShortArray() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        graphModel.store.addNode(graphModel.factory().newNode("1"));
+        graphModel.getNodePositions(new float[0], new float[1]);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSetNodePositionsNaN() {
+        GraphModelImpl graphModel = new GraphModelImpl(Configuration.builder().enableColumnarPositions(true).build());
+        graphModel.store.addNode(graphModel.factory().newNode("1"));
+        graphModel.setNodePositions(new float[] { Float.NaN }, new float[1]);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testNodePositionsWithoutNodeProperties() {
+        GraphModelImpl graphModel = new GraphModelImpl(
+                Configuration.builder().enableSpatialIndex(false).enableNodeProperties(false).build());
+        graphModel.getNodePositions(new float[0], new float[0]);
+    }
+
+    private void assertNodePositions(GraphModelImpl graphModel) {
+        int count = GraphStoreConfiguration.NODESTORE_BLOCK_SIZE + 10;
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = graphModel.factory().newNode(String.valueOf(i));
+            nodes[i].setPosition(i, i * 2);
+            nodes[i].setSize(i + 1);
+        }
+        graphModel.store.addAllNodes(Arrays.asList(nodes));
+        graphModel.store.removeNode(nodes[3]);
+
+        int length = graphModel.getMaxNodeStoreId();
+        float[] xs = new float[length];
+        float[] ys = new float[length];
+        float[] sizes = new float[length];
+        graphModel.getNodePositions(xs, ys);
+        graphModel.getNodeSizes(sizes);
+        for (Node node : graphModel.getGraph().getNodes()) {
+            Assert.assertEquals(xs[node.getStoreId()], node.x());
+            Assert.assertEquals(ys[node.getStoreId()], node.y());
+            Assert.assertEquals(sizes[node.getStoreId()], node.size());
+        }
+
+        for (int i = 0; i < length; i++) {
+            xs[i] = 10 - xs[i];
+            ys[i] = ys[i] + 1;
+        }
+        graphModel.setNodePositions(xs, ys);
+        for (int i = 0; i < count; i++) {
+            if (i != 3) {
+                Assert.assertEquals(nodes[i].x(), (float) 10 - i);
+                Assert.assertEquals(nodes[i].y(), (float) i * 2 + 1);
+            }
+        }
+        Assert.assertEquals(nodes[3].x(), 3f);
+    }
 }
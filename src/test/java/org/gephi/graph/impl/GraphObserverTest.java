@@ -16,8 +16,14 @@
 package org.gephi.graph.impl;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
+import org.gephi.graph.api.Graph;
 import org.gephi.graph.api.GraphDiff;
 import org.gephi.graph.api.Node;
 import org.gephi.graph.api.NodeIterable;
@@ -489,4 +495,126 @@ public class GraphObserverTest {
         Assert.assertEquals(edgeVersion, Integer.MIN_VALUE + 1);
         Assert.assertEquals(graphObserver.edgeVersion, Integer.MIN_VALUE);
     }
+
+    @Test
+    public void testDiffFromJournal() {
+        GraphStore store = GraphGenerator.generateSmallGraphStore();
+        GraphObserverImpl graphObserver = store.createGraphObserver(store, true);
+        graphObserver.hasGraphChanged();
+
+        Set<Node> nodesBefore = identitySet(store.getNodes().toCollection());
+        Set<Edge> edgesBefore = identitySet(store.getEdges().toCollection());
+
+        Node[] nodes = store.getNodes().toArray();
+        for (int i = 0; i < nodes.length; i += 4) {
+            store.removeNode(nodes[i]);
+        }
+        Edge[] edges = store.getEdges().toArray();
+        for (int i = 0; i < edges.length; i += 3) {
+            store.removeEdge(edges[i]);
+        }
+        for (int i = 0; i < 5; i++) {
+            store.addNode(store.factory.newNode("new" + i));
+        }
+        store.addEdge(store.factory.newEdge(store.getNode("new0"), store.getNode("new1"), 0, true));
+
+        Assert.assertTrue(store.version.nodeJournal.covers(graphObserver.nodeVersion));
+        Assert.assertTrue(store.version.edgeJournal.covers(graphObserver.edgeVersion));
+        Assert.assertTrue(graphObserver.hasGraphChanged());
+        assertDiff(graphObserver.getDiff(), nodesBefore, edgesBefore, store);
+    }
+
+    @Test
+    public void testDiffJournalOverflow() {
+        GraphStore store = GraphGenerator.generateSmallGraphStore();
+        GraphObserverImpl graphObserver = store.createGraphObserver(store, true);
+        graphObserver.hasGraphChanged();
+
+        Set<Node> nodesBefore = identitySet(store.getNodes().toCollection());
+        Set<Edge> edgesBefore = identitySet(store.getEdges().toCollection());
+
+        for (int i = 0; i <= GraphStoreConfiguration.JOURNAL_MAX_SIZE; i++) {
+            store.addNode(store.factory.newNode("new" + i));
+        }
+        store.removeNode(store.getNode("new0"));
+
+        Assert.assertFalse(store.version.nodeJournal.covers(graphObserver.nodeVersion));
+        Assert.assertTrue(graphObserver.hasGraphChanged());
+        assertDiff(graphObserver.getDiff(), nodesBefore, edgesBefore, store);
+    }
+
+    @Test
+    public void testDiffFromJournalAfterClear() {
+        GraphStore store = GraphGenerator.generateSmallGraphStore();
+        GraphObserverImpl graphObserver = store.createGraphObserver(store, true);
+        graphObserver.hasGraphChanged();
+
+        Set<Node> nodesBefore = identitySet(store.getNodes().toCollection());
+        Set<Edge> edgesBefore = identitySet(store.getEdges().toCollection());
+        store.clear();
+        store.addNode(store.factory.newNode("new"));
+
+        Assert.assertTrue(graphObserver.hasGraphChanged());
+        assertDiff(graphObserver.getDiff(), nodesBefore, edgesBefore, store);
+    }
+
+    @Test
+    public void testViewDiffFromJournal() {
+        GraphStore store = GraphGenerator.generateSmallGraphStore();
+        GraphViewImpl view = store.viewStore.createView();
+        DirectedSubgraph graph = store.viewStore.getDirectedGraph(view);
+        Node[] nodes = store.getNodes().toArray();
+        for (int i = 0; i < nodes.length / 2; i++) {
+            graph.addNode(nodes[i]);
+        }
+        GraphObserverImpl graphObserver = store.viewStore.createGraphObserver(graph, true);
+        graphObserver.hasGraphChanged();
+
+        Set<Node> nodesBefore = identitySet(graph.getNodes().toCollection());
+        Set<Edge> edgesBefore = identitySet(graph.getEdges().toCollection());
+        for (int i = nodes.length / 2; i < nodes.length; i++) {
+            graph.addNode(nodes[i]);
+        }
+        for (Edge edge : store.getEdges().toArray()) {
+            if (edge.getStoreId() % 2 == 0) {
+                graph.addEdge(edge);
+            }
+        }
+        graph.removeNode(nodes[0]);
+        GraphViewImpl other = store.viewStore.createView();
+        store.viewStore.getDirectedGraph(other).addNode(nodes[1]);
+        store.viewStore.getDirectedGraph(other).addNode(nodes[nodes.length - 1]);
+        graph.intersection(store.viewStore.getDirectedGraph(other));
+
+        Assert.assertTrue(view.version.nodeJournal.covers(graphObserver.nodeVersion));
+        Assert.assertTrue(graphObserver.hasGraphChanged());
+        assertDiff(graphObserver.getDiff(), nodesBefore, edgesBefore, graph);
+    }
+
+    private static void assertDiff(GraphDiff diff, Set<Node> nodesBefore, Set<Edge> edgesBefore, Graph graph) {
+        Set<Node> nodesAfter = identitySet(graph.getNodes().toCollection());
+        Set<Edge> edgesAfter = identitySet(graph.getEdges().toCollection());
+
+        Set<Node> addedNodes = identitySet(nodesAfter);
+        addedNodes.removeAll(nodesBefore);
+        Set<Node> removedNodes = identitySet(nodesBefore);
+        removedNodes.removeAll(nodesAfter);
+        Set<Edge> addedEdges = identitySet(edgesAfter);
+        addedEdges.removeAll(edgesBefore);
+        Set<Edge> removedEdges = identitySet(edgesBefore);
+        removedEdges.removeAll(edgesAfter);
+
+        Assert.assertEquals(identitySet(diff.getAddedNodes().toCollection()), addedNodes);
+        Assert.assertEquals(identitySet(diff.getRemovedNodes().toCollection()), removedNodes);
+        Assert.assertEquals(identitySet(diff.getAddedEdges().toCollection()), addedEdges);
+        Assert.assertEquals(identitySet(diff.getRemovedEdges().toCollection()), removedEdges);
+        Assert.assertEquals(diff.getAddedNodes().toCollection().size(), addedNodes.size());
+        Assert.assertEquals(diff.getRemovedEdges().toCollection().size(), removedEdges.size());
+    }
+
+    private static <T> Set<T> identitySet(Collection<? extends T> c) {
+        Set<T> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        set.addAll(c);
+        return set;
+    }
 }
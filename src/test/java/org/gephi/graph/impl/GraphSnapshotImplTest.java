@@ -0,0 +1,493 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.GraphSnapshot;
+import org.gephi.graph.api.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class GraphSnapshotImplTest {
+
+    @Test
+    public void testEmpty() {
+        GraphStore graphStore = GraphGenerator.generateEmptyGraphStore();
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+
+        Assert.assertEquals(snapshot.getNodeCount(), 0);
+        Assert.assertEquals(snapshot.getEdgeCount(), 0);
+        Assert.assertFalse(snapshot.getNodes().iterator().hasNext());
+        Assert.assertFalse(snapshot.getEdges().iterator().hasNext());
+        Assert.assertNull(snapshot.getNode("1"));
+        Assert.assertSame(snapshot.getView(), graphStore.getView());
+        Assert.assertSame(snapshot.getModel(), graphStore.graphModel);
+        snapshot.close();
+    }
+
+    @Test
+    public void testSameAsGraph() {
+        assertSameAsGraph(GraphGenerator.generateSmallGraphStore());
+    }
+
+    @Test
+    public void testSameAsUndirectedGraph() {
+        assertSameAsGraph(GraphGenerator.generateSmallUndirectedGraphStore());
+    }
+
+    @Test
+    public void testSameAsMixedGraph() {
+        assertSameAsGraph(GraphGenerator.generateSmallMixedGraphStore());
+    }
+
+    @Test
+    public void testSameAsMultiTypeGraph() {
+        assertSameAsGraph(GraphGenerator.generateSmallMultiTypeGraphStore());
+    }
+
+    @Test
+    public void testSameAsGraphWithSelfLoop() {
+        assertSameAsGraph(GraphGenerator.generateTinyGraphStoreWithSelfLoop());
+    }
+
+    @Test
+    public void testSameAsGraphWithMutualEdges() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStoreWithMutualEdge();
+        Node n1 = graphStore.getNode("1");
+        Node n2 = graphStore.getNode("2");
+        graphStore.addEdge(graphStore.factory.newEdge("2", n1, n2, EdgeTypeStore.NULL_LABEL, 1.0, true));
+        assertSameAsGraph(graphStore);
+    }
+
+    @Test
+    public void testSameAsLargeGraph() {
+        GraphStore graphStore = new GraphModelImpl().store;
+        graphStore.addAllNodes(Arrays.asList(GraphGenerator.generateNodeList(10000, graphStore)));
+        graphStore.addAllEdges(Arrays
+                .asList(GraphGenerator.generateEdgeList(graphStore.nodeStore, 40000, 0, true, true, true)));
+        graphStore.removeNode(graphStore.getNode("1"));
+        assertSameAsGraph(graphStore);
+    }
+
+    @Test
+    public void testGetByLongId() {
+        Configuration configuration = Configuration.builder().nodeIdType(Long.class).edgeIdType(Long.class).build();
+        GraphStore graphStore = new GraphModelImpl(configuration).store;
+        Node n1 = graphStore.factory.newNode(1L);
+        Node n2 = graphStore.factory.newNode(2L);
+        graphStore.addAllNodes(Arrays.asList(n1, n2));
+        Edge e1 = graphStore.factory.newEdge(3L, n1, n2, 0, 1.0, true);
+        graphStore.addEdge(e1);
+
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+        graphStore.removeNode(n1);
+        Assert.assertSame(snapshot.getNode(1L), n1);
+        Assert.assertSame(snapshot.getNode(2), n2);
+        Assert.assertSame(snapshot.getEdge(3L), e1);
+        Assert.assertNull(snapshot.getNode(4L));
+        snapshot.close();
+    }
+
+    @Test
+    public void testNodeRemovalIsolation() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        int nodeCount = graphStore.getNodeCount();
+        int edgeCount = graphStore.getEdgeCount();
+        Node node = graphStore.getNode("1");
+        List<Edge> edges = Arrays.asList(graphStore.getEdges(node).toArray());
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+
+        graphStore.removeNode(node);
+
+        Assert.assertFalse(graphStore.contains(node));
+        Assert.assertTrue(snapshot.contains(node));
+        Assert.assertSame(snapshot.getNode("1"), node);
+        Assert.assertEquals(snapshot.getNodeCount(), nodeCount);
+        Assert.assertEquals(snapshot.getEdgeCount(), edgeCount);
+        Assert.assertEquals(snapshot.getNodes().toArray().length, nodeCount);
+        Assert.assertEquals(snapshot.getEdges().toArray().length, edgeCount);
+        Assert.assertEquals(sortedIds(Arrays.asList(snapshot.getEdges(node).toArray())), sortedIds(edges));
+        for (Edge edge : edges) {
+            Assert.assertTrue(snapshot.contains(edge));
+        }
+        snapshot.close();
+    }
+
+    @Test
+    public void testAdditionIsolation() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+
+        Node n3 = graphStore.factory.newNode("3");
+        graphStore.addNode(n3);
+        Edge edge = graphStore.factory.newEdge("1", graphStore.getNode("1"), n3, 0, 1.0, true);
+        graphStore.addEdge(edge);
+
+        Assert.assertFalse(snapshot.contains(n3));
+        Assert.assertFalse(snapshot.contains(edge));
+        Assert.assertNull(snapshot.getNode("3"));
+        Assert.assertEquals(snapshot.getNodeCount(), 2);
+        Assert.assertEquals(snapshot.getEdgeCount(), 1);
+        Assert.assertEquals(snapshot.getOutDegree(graphStore.getNode("1")), 1);
+        Assert.assertEquals(snapshot.getNodes().toArray().length, 2);
+        snapshot.close();
+    }
+
+    @Test
+    public void testGarbageReuseIsolation() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        Node n1 = graphStore.getNode("1");
+        int storeId = n1.getStoreId();
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+
+        graphStore.removeNode(n1);
+        Node n3 = graphStore.factory.newNode("3");
+        graphStore.addNode(n3);
+
+        Assert.assertEquals(n3.getStoreId(), storeId);
+        Assert.assertSame(snapshot.getNodeByStoreId(storeId), n1);
+        Assert.assertSame(graphStore.getNodeByStoreId(storeId), n3);
+        snapshot.close();
+    }
+
+    @Test
+    public void testAttributeIsolation() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        Column column = graphStore.nodeTable.addColumn("foo", String.class);
+        Node node = graphStore.getNode("1");
+        node.setAttribute(column, "bar");
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+
+        node.setAttribute(column, "baz");
+        node.setAttribute(column, "qux");
+
+        Assert.assertEquals(node.getAttribute(column), "qux");
+        Assert.assertEquals(snapshot.getAttribute(node, column), "bar");
+        Assert.assertEquals(snapshot.getAttribute(graphStore.getNode("2"), column), null);
+        snapshot.close();
+    }
+
+    @Test
+    public void testAttributeIsolationAfterRemoval() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        Column column = graphStore.nodeTable.addColumn("foo", String.class);
+        Node node = graphStore.getNode("1");
+        node.setAttribute(column, "bar");
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+
+        graphStore.removeNode(node);
+        node.setAttribute(column, "baz");
+
+        Assert.assertEquals(snapshot.getAttribute(node, column), "bar");
+        snapshot.close();
+    }
+
+    @Test
+    public void testColumnarAttributeIsolation() {
+        GraphStore graphStore = GraphGenerator
+                .generateTinyGraphStore(Configuration.builder().enableColumnarAttributes(true).build());
+        Column column = graphStore.nodeTable.addColumn("foo", Integer.class);
+        Node node = graphStore.getNode("1");
+        node.setAttribute(column, 1);
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+
+        node.setAttribute(column, 2);
+
+        Assert.assertEquals(node.getAttribute(column), 2);
+        Assert.assertEquals(snapshot.getAttribute(node, column), 1);
+        snapshot.close();
+    }
+
+    @Test
+    public void testWeightIsolation() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        Edge edge = graphStore.getEdge("0");
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+
+        edge.setWeight(5.0);
+
+        Assert.assertEquals(edge.getWeight(), 5.0);
+        Assert.assertEquals(snapshot.getWeight(edge), 1.0);
+        snapshot.close();
+    }
+
+    @Test
+    public void testTypeIsolation() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        Edge edge = graphStore.getEdge("0");
+        Node source = edge.getSource();
+        Node target = edge.getTarget();
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+
+        edge.setType(1);
+
+        Assert.assertEquals(edge.getType(), 1);
+        Assert.assertEquals(snapshot.getType(edge), 0);
+        Assert.assertSame(snapshot.getEdge(source, target), edge);
+        Assert.assertNull(snapshot.getEdge(source, target, 1));
+        Assert.assertEquals(snapshot.getEdges(0).toArray().length, 1);
+        Assert.assertEquals(snapshot.getEdgeCount(0), 1);
+        Assert.assertEquals(snapshot.getEdgeCount(1), 0);
+        snapshot.close();
+    }
+
+    @Test
+    public void testCopyOnWrite() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        NodeImpl[] array = graphStore.nodeStore.blocks[0].backingArray;
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+
+        graphStore.addNode(graphStore.factory.newNode("3"));
+        NodeImpl[] copy = graphStore.nodeStore.blocks[0].backingArray;
+        Assert.assertNotSame(copy, array);
+        Assert.assertNull(array[2]);
+
+        graphStore.addNode(graphStore.factory.newNode("4"));
+        Assert.assertSame(graphStore.nodeStore.blocks[0].backingArray, copy);
+        snapshot.close();
+    }
+
+    @Test
+    public void testNoCopyAfterClose() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+        snapshot.close();
+
+        NodeImpl[] array = graphStore.nodeStore.blocks[0].backingArray;
+        graphStore.addNode(graphStore.factory.newNode("3"));
+        Assert.assertSame(graphStore.nodeStore.blocks[0].backingArray, array);
+        Assert.assertNull(graphStore.nodeStore.blocks[0].sharedWith);
+    }
+
+    @Test
+    public void testNoAttributeCopyWithoutSnapshot() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        Column column = graphStore.nodeTable.addColumn("foo", String.class);
+        GraphSnapshotImpl snapshot = (GraphSnapshotImpl) graphStore.graphModel.snapshot();
+        Node n3 = graphStore.factory.newNode("3");
+        n3.setAttribute(column, "bar");
+        graphStore.addNode(n3);
+        n3.setAttribute(column, "baz");
+
+        Assert.assertTrue(snapshot.savedAttributes.isEmpty());
+        snapshot.close();
+    }
+
+    @Test
+    public void testClose() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        GraphSnapshot snapshot1 = graphStore.graphModel.snapshot();
+        GraphSnapshot snapshot2 = graphStore.graphModel.snapshot();
+        Assert.assertEquals(graphStore.snapshotStore.size(), 2);
+
+        snapshot1.close();
+        snapshot1.close();
+        Assert.assertTrue(snapshot1.isClosed());
+        Assert.assertFalse(snapshot2.isClosed());
+        Assert.assertEquals(graphStore.snapshotStore.size(), 1);
+
+        snapshot2.close();
+        Assert.assertFalse(graphStore.snapshotStore.isOpen());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testReadAfterClose() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+        snapshot.close();
+        snapshot.getNodes();
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testAddNode() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        try (GraphSnapshot snapshot = graphStore.graphModel.snapshot()) {
+            snapshot.addNode(graphStore.factory.newNode("3"));
+        }
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testWriteLock() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        try (GraphSnapshot snapshot = graphStore.graphModel.snapshot()) {
+            snapshot.writeLock();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNodeNotInSnapshot() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        try (GraphSnapshot snapshot = graphStore.graphModel.snapshot()) {
+            Node n3 = graphStore.factory.newNode("3");
+            graphStore.addNode(n3);
+            snapshot.getDegree(n3);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAttributeOfEdgeNotInSnapshot() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        try (GraphSnapshot snapshot = graphStore.graphModel.snapshot()) {
+            Edge edge = graphStore.factory.newEdge(graphStore.getNode("2"), graphStore.getNode("1"));
+            graphStore.addEdge(edge);
+            snapshot.getWeight(edge);
+        }
+    }
+
+    @Test
+    public void testReadWhileWriteLocked() throws InterruptedException {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            graphStore.writeLock();
+            try {
+                graphStore.removeNode(graphStore.getNode("1"));
+                locked.countDown();
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                graphStore.writeUnlock();
+            }
+        });
+        writer.start();
+        locked.await();
+        try {
+            int degrees = 0;
+            for (Node node : snapshot.getNodes()) {
+                degrees += snapshot.getDegree(node);
+            }
+            Assert.assertEquals(degrees, snapshot.getEdgeCount() * 2);
+        } finally {
+            done.countDown();
+            writer.join();
+        }
+        snapshot.close();
+    }
+
+    private static void assertTraversals(GraphSnapshot snapshot, Node node) {
+        List<Edge> edges = new ArrayList<>();
+        snapshot.forEachEdge(node, edges::add);
+        Assert.assertEquals(edges, Arrays.asList(snapshot.getEdges(node).toArray()));
+        edges.clear();
+        snapshot.forEachOutEdge(node, edges::add);
+        Assert.assertEquals(edges, Arrays.asList(snapshot.getOutEdges(node).toArray()));
+        edges.clear();
+        snapshot.forEachInEdge(node, edges::add);
+        Assert.assertEquals(edges, Arrays.asList(snapshot.getInEdges(node).toArray()));
+
+        List<Node> neighbors = new ArrayList<>();
+        snapshot.forEachNeighbor(node, id -> neighbors.add(snapshot.getNodeByStoreId(id)));
+        Assert.assertEquals(neighbors, Arrays.asList(snapshot.getNeighbors(node).toArray()));
+        neighbors.clear();
+        snapshot.forEachSuccessor(node, id -> neighbors.add(snapshot.getNodeByStoreId(id)));
+        Assert.assertEquals(neighbors, Arrays.asList(snapshot.getSuccessors(node).toArray()));
+        neighbors.clear();
+        snapshot.forEachPredecessor(node, id -> neighbors.add(snapshot.getNodeByStoreId(id)));
+        Assert.assertEquals(neighbors, Arrays.asList(snapshot.getPredecessors(node).toArray()));
+
+        int[] buffer = new int[snapshot.getDegree(node)];
+        int count = snapshot.neighborStoreIds(node, buffer);
+        Assert.assertEquals(count, snapshot.getNeighbors(node).toArray().length);
+    }
+
+    private static void assertSameAsGraph(GraphStore graphStore) {
+        GraphSnapshot snapshot = graphStore.graphModel.snapshot();
+        Assert.assertEquals(snapshot.getNodeCount(), graphStore.getNodeCount());
+        Assert.assertEquals(snapshot.getEdgeCount(), graphStore.getEdgeCount());
+        Assert.assertEquals(snapshot.isDirected(), graphStore.isDirected());
+        Assert.assertEquals(snapshot.isUndirected(), graphStore.isUndirected());
+        Assert.assertEquals(snapshot.isMixed(), graphStore.isMixed());
+        Assert.assertEquals(Arrays.asList(snapshot.getNodes().toArray()), Arrays
+                .asList(graphStore.getNodes().toArray()));
+        Assert.assertEquals(Arrays.asList(snapshot.getEdges().toArray()), Arrays
+                .asList(graphStore.getEdges().toArray()));
+        Assert.assertEquals(sortedIds(Arrays.asList(snapshot.getSelfLoops().toArray())), sortedIds(Arrays
+                .asList(graphStore.getSelfLoops().toArray())));
+        int typeCount = graphStore.edgeTypeStore.length;
+        for (int type = 0; type < typeCount; type++) {
+            Assert.assertEquals(snapshot.getEdgeCount(type), graphStore.getEdgeCount(type));
+            Assert.assertEquals(snapshot.getEdges(type).toArray().length, graphStore.getEdgeCount(type));
+        }
+        Node[] nodes = graphStore.getNodes().toArray();
+        for (Node node : nodes) {
+            Assert.assertSame(snapshot.getNode(node.getId()), node);
+            Assert.assertSame(snapshot.getNodeByStoreId(node.getStoreId()), node);
+            Assert.assertEquals(snapshot.getDegree(node), graphStore.getDegree(node));
+            Assert.assertEquals(snapshot.getInDegree(node), graphStore.getInDegree(node));
+            Assert.assertEquals(snapshot.getOutDegree(node), graphStore.getOutDegree(node));
+            Assert.assertEquals(sortedIds(Arrays.asList(snapshot.getNeighbors(node).toArray())), sortedIds(Arrays
+                    .asList(graphStore.getNeighbors(node).toArray())));
+            Assert.assertEquals(sortedIds(Arrays.asList(snapshot.getSuccessors(node).toArray())), sortedIds(Arrays
+                    .asList(graphStore.getSuccessors(node).toArray())));
+            Assert.assertEquals(sortedIds(Arrays.asList(snapshot.getPredecessors(node).toArray())), sortedIds(Arrays
+                    .asList(graphStore.getPredecessors(node).toArray())));
+            Assert.assertEquals(sortedIds(Arrays.asList(snapshot.getEdges(node).toArray())), sortedIds(Arrays
+                    .asList(graphStore.getEdges(node).toArray())));
+            Assert.assertEquals(sortedIds(Arrays.asList(snapshot.getInEdges(node).toArray())), sortedIds(Arrays
+                    .asList(graphStore.getInEdges(node).toArray())));
+            Assert.assertEquals(sortedIds(Arrays.asList(snapshot.getOutEdges(node).toArray())), sortedIds(Arrays
+                    .asList(graphStore.getOutEdges(node).toArray())));
+            for (int type = 0; type < typeCount; type++) {
+                Assert.assertEquals(sortedIds(Arrays.asList(snapshot.getNeighbors(node, type)
+                        .toArray())), sortedIds(Arrays.asList(graphStore.getNeighbors(node, type).toArray())));
+                Assert.assertEquals(sortedIds(Arrays.asList(snapshot.getOutEdges(node, type)
+                        .toArray())), sortedIds(Arrays.asList(graphStore.getOutEdges(node, type).toArray())));
+            }
+            assertTraversals(snapshot, node);
+        }
+        if (nodes.length <= 100) {
+            for (Node n1 : nodes) {
+                for (Node n2 : nodes) {
+                    Assert.assertEquals(snapshot.isAdjacent(n1, n2), graphStore.isAdjacent(n1, n2));
+                    Assert.assertEquals(snapshot.getEdge(n1, n2) != null, graphStore.getEdge(n1, n2) != null);
+                    Assert.assertEquals(Arrays.asList(snapshot.getCommonNeighbors(n1, n2).toArray()), Arrays
+                            .asList(graphStore.getCommonNeighbors(n1, n2).toArray()));
+                    Assert.assertEquals(snapshot.countCommonNeighbors(n1, n2), graphStore.countCommonNeighbors(n1, n2));
+                }
+            }
+        }
+        for (Edge edge : graphStore.getEdges()) {
+            Assert.assertSame(snapshot.getEdge(edge.getId()), edge);
+            Assert.assertSame(snapshot.getEdgeByStoreId(edge.getStoreId()), edge);
+            Assert.assertTrue(snapshot.contains(edge));
+            Assert.assertEquals(snapshot.getType(edge), edge.getType());
+            Assert.assertEquals(snapshot.getWeight(edge), edge.getWeight());
+            if (edge.isDirected()) {
+                Assert.assertEquals(snapshot.getMutualEdge(edge), graphStore.getMutualEdge(edge));
+            }
+        }
+        snapshot.close();
+    }
+
+    private static List<String> sortedIds(List<? extends Element> elements) {
+        List<String> ids = new ArrayList<>();
+        for (Element element : elements) {
+            ids.add(element.getId().toString());
+        }
+        ids.sort(null);
+        return ids;
+    }
+}
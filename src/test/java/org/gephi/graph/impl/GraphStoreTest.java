@@ -16,19 +16,29 @@
 package org.gephi.graph.impl;
 
 import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import java.awt.Color;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Spliterator;
+import java.util.TreeSet;
 import org.gephi.graph.api.Column;
 import org.gephi.graph.api.ColumnIterable;
 import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.DirectedGraph;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
@@ -39,6 +49,14 @@ import org.gephi.graph.api.NodeIterable;
 import org.gephi.graph.api.Table;
 import org.gephi.graph.api.TextProperties;
 import org.gephi.graph.spi.LayoutData;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.GraphDiff;
+import org.gephi.graph.api.GraphObserver;
+import org.gephi.graph.api.Index;
+import org.gephi.graph.api.StoreIdRemapping;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -619,6 +637,142 @@ public class GraphStoreTest {
         Assert.assertFalse(graphStore.hasNode("bar"));
     }
 
+    @Test
+    public void testGetNodeLongId() {
+        Configuration configuration = Configuration.builder().nodeIdType(Long.class).edgeIdType(Long.class).build();
+        GraphStore graphStore = new GraphModelImpl(configuration).store;
+        Node n1 = graphStore.factory.newNode(5000000000L);
+        Node n2 = graphStore.factory.newNode(2L);
+        graphStore.addAllNodes(Arrays.asList(n1, n2));
+        Edge e1 = graphStore.factory.newEdge(7L, n1, n2, 0, 1.0, true);
+        graphStore.addEdge(e1);
+
+        Assert.assertSame(graphStore.getNode(5000000000L), n1);
+        Assert.assertSame(graphStore.getNode(2), n2);
+        Assert.assertSame(graphStore.getNode((Object) 2L), n2);
+        Assert.assertNull(graphStore.getNode((Object) 2));
+        Assert.assertNull(graphStore.getNode(3L));
+        Assert.assertSame(graphStore.getEdge(7L), e1);
+        Assert.assertSame(graphStore.getEdge(7), e1);
+        Assert.assertNull(graphStore.getEdge(8L));
+        Assert.assertSame(graphStore.undirectedDecorator.getNode(2L), n2);
+        Assert.assertSame(graphStore.undirectedDecorator.getEdge(7L), e1);
+
+        graphStore.removeNode(n2);
+        Assert.assertNull(graphStore.getNode(2L));
+        Assert.assertNull(graphStore.getEdge(7L));
+        Assert.assertFalse(graphStore.hasNode(2L));
+    }
+
+    @Test
+    public void testGetNodeIntegerId() {
+        Configuration configuration = Configuration.builder().nodeIdType(Integer.class).edgeIdType(Integer.class)
+                .build();
+        GraphStore graphStore = new GraphModelImpl(configuration).store;
+        Node n1 = graphStore.factory.newNode(1);
+        Node n2 = graphStore.factory.newNode(2);
+        graphStore.addAllNodes(Arrays.asList(n1, n2));
+        Edge e1 = graphStore.factory.newEdge(n1, n2);
+        graphStore.addEdge(e1);
+
+        Assert.assertSame(graphStore.getNode(1), n1);
+        Assert.assertSame(graphStore.getNode(2L), n2);
+        Assert.assertSame(graphStore.getNode((Object) 1), n1);
+        Assert.assertNull(graphStore.getNode((Object) 1L));
+        Assert.assertNull(graphStore.getNode(1L << 32));
+        Assert.assertSame(graphStore.getEdge(((Integer) e1.getId()).longValue()), e1);
+        Assert.assertTrue(graphStore.hasNode(1));
+    }
+
+    @Test
+    public void testGetNodeIntLiteralMatchesLongId() {
+        Configuration configuration = Configuration.builder().nodeIdType(Long.class).build();
+        GraphStore graphStore = new GraphModelImpl(configuration).store;
+        Node n1 = graphStore.factory.newNode(1L);
+        graphStore.addNode(n1);
+
+        // The int literal resolves to getNode(long), the boxed Integer doesn't match
+        Assert.assertSame(graphStore.getNode(1), n1);
+        Assert.assertNull(graphStore.getNode((Object) 1));
+        Assert.assertFalse(graphStore.hasNode(1));
+    }
+
+    @Test
+    public void testGetNodeLongIdDefaults() {
+        Configuration configuration = Configuration.builder().nodeIdType(Long.class).edgeIdType(Integer.class).build();
+        GraphStore graphStore = new GraphModelImpl(configuration).store;
+        Node n1 = graphStore.factory.newNode(1L);
+        Node n2 = graphStore.factory.newNode(2L);
+        graphStore.addAllNodes(Arrays.asList(n1, n2));
+        Edge e = graphStore.factory.newEdge(5, n1, n2, 0, 1.0, true);
+        graphStore.addEdge(e);
+
+        // Only implements the abstract methods, like an external implementation of the API
+        DirectedGraph graph = (DirectedGraph) Proxy.newProxyInstance(getClass()
+                .getClassLoader(), new Class[] { DirectedGraph.class }, (proxy, method, args) -> method.isDefault()
+                        ? InvocationHandler.invokeDefault(proxy, method, args) : method.invoke(graphStore, args));
+        Assert.assertSame(graph.getNode(1), n1);
+        Assert.assertSame(graph.getNode(2L), n2);
+        Assert.assertNull(graph.getNode(3));
+        Assert.assertSame(graph.getEdge(5), e);
+        Assert.assertNull(graph.getEdge(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testGetNodeLongIdView() {
+        Configuration configuration = Configuration.builder().nodeIdType(Long.class).edgeIdType(Long.class).build();
+        GraphStore graphStore = new GraphModelImpl(configuration).store;
+        Node n1 = graphStore.factory.newNode(1L);
+        Node n2 = graphStore.factory.newNode(2L);
+        graphStore.addAllNodes(Arrays.asList(n1, n2));
+        Edge e1 = graphStore.factory.newEdge(3L, n1, n2, 0, 1.0, true);
+        graphStore.addEdge(e1);
+
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.addNode(n1);
+        Graph graph = graphStore.viewStore.getGraph(view);
+        Assert.assertSame(graph.getNode(1L), n1);
+        Assert.assertNull(graph.getNode(2L));
+        Assert.assertNull(graph.getEdge(3L));
+
+        view.addNode(n2);
+        view.addEdge(e1);
+        Assert.assertSame(graph.getEdge(3L), e1);
+    }
+
+    @Test
+    public void testGetNodeStringIdNumber() {
+        GraphStore graphStore = new GraphStore();
+        graphStore.addNode(graphStore.factory.newNode("1"));
+        Assert.assertNull(graphStore.getNode(1L));
+        Assert.assertNull(graphStore.getEdge(1L));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddNodeIdClassMismatch() {
+        Configuration configuration = Configuration.builder().nodeIdType(Long.class).build();
+        GraphStore graphStore = new GraphModelImpl(configuration).store;
+        graphStore.addNode(new NodeImpl(1));
+    }
+
+    @Test
+    public void testAddAllNodesIdClassMismatch() {
+        Configuration configuration = Configuration.builder().nodeIdType(Long.class).build();
+        GraphStore graphStore = new GraphModelImpl(configuration).store;
+        List<Node> nodes = new ArrayList<>();
+        for (long i = 0; i < GraphStoreConfiguration.BULK_LOAD_THRESHOLD; i++) {
+            nodes.add(graphStore.factory.newNode(i));
+        }
+        nodes.add(new NodeImpl("foo"));
+        try {
+            graphStore.addAllNodes(nodes);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        Assert.assertNull(graphStore.getNode("foo"));
+    }
+
     @Test
     public void testGetNodeByStoreId() {
         GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
@@ -1284,4 +1438,795 @@ public class GraphStoreTest {
     // Assert.assertTrue(ids.contains(e.getId()));
     // }
     // }
+
+    @Test
+    public void testCompactNoHoles() {
+        GraphModelImpl graphModel = generateCompactGraph(Configuration.builder().build(), 50, 100);
+        StoreIdRemapping remapping = graphModel.compact();
+        Assert.assertFalse(remapping.hasNodeChanges());
+        Assert.assertFalse(remapping.hasEdgeChanges());
+        Assert.assertEquals(remapping.getNodeStoreId(10), 10);
+        Assert.assertEquals(remapping.getNodeStoreId(50), -1);
+    }
+
+    @Test
+    public void testCompactDenseStoreIds() {
+        GraphModelImpl graphModel = generateCompactGraph(Configuration.builder().build(), 500, 2000);
+        GraphStore store = graphModel.store;
+        removeCompactElements(graphModel);
+        Map<Object, Set<Object>> neighbors = getNeighborIds(store);
+        Map<Object, Integer> degrees = getDegrees(store);
+
+        StoreIdRemapping remapping = graphModel.compact();
+        Assert.assertTrue(remapping.hasNodeChanges());
+        Assert.assertTrue(remapping.hasEdgeChanges());
+        Assert.assertEquals(store.nodeStore.maxStoreId(), store.getNodeCount());
+        Assert.assertEquals(store.edgeStore.maxStoreId(), store.getEdgeCount());
+        Assert.assertEquals(getNeighborIds(store), neighbors);
+        Assert.assertEquals(getDegrees(store), degrees);
+        for (Node n : store.getNodes().toArray()) {
+            Assert.assertSame(store.getNode(n.getId()), n);
+            Assert.assertSame(store.getNodeByStoreId(n.getStoreId()), n);
+        }
+        for (Edge e : store.getEdges().toArray()) {
+            Assert.assertSame(store.getEdge(e.getId()), e);
+            Assert.assertSame(store.getEdge(e.getSource(), e.getTarget(), e.getType()), e);
+            Assert.assertTrue(store.isAdjacent(e.getSource(), e.getTarget(), e.getType()));
+            if (e.isMutual()) {
+                Assert.assertNotNull(store.getMutualEdge(e));
+            }
+        }
+    }
+
+    @Test
+    public void testCompactRemapping() {
+        GraphModelImpl graphModel = generateCompactGraph(Configuration.builder().build(), 200, 500);
+        GraphStore store = graphModel.store;
+        Node removedNode = store.getNode("0");
+        int removedStoreId = removedNode.getStoreId();
+        store.removeNode(removedNode);
+        removeCompactElements(graphModel);
+        Map<Node, Integer> nodeStoreIds = new HashMap<>();
+        for (Node n : store.getNodes()) {
+            nodeStoreIds.put(n, n.getStoreId());
+        }
+        Map<Edge, Integer> edgeStoreIds = new HashMap<>();
+        for (Edge e : store.getEdges()) {
+            edgeStoreIds.put(e, e.getStoreId());
+        }
+
+        StoreIdRemapping remapping = graphModel.compact();
+        for (Map.Entry<Node, Integer> entry : nodeStoreIds.entrySet()) {
+            Assert.assertEquals(remapping.getNodeStoreId(entry.getValue()), entry.getKey().getStoreId());
+        }
+        for (Map.Entry<Edge, Integer> entry : edgeStoreIds.entrySet()) {
+            Assert.assertEquals(remapping.getEdgeStoreId(entry.getValue()), entry.getKey().getStoreId());
+        }
+        Assert.assertEquals(remapping.getNodeStoreId(removedStoreId), -1);
+    }
+
+    @Test
+    public void testCompactReleasesBlocks() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        GraphStore store = graphModel.store;
+        int count = GraphStoreConfiguration.NODESTORE_BLOCK_SIZE * 3;
+        for (int i = 0; i < count; i++) {
+            store.addNode(graphModel.factory().newNode(String.valueOf(i)));
+        }
+        for (int i = 0; i < count - 10; i++) {
+            store.removeNode(store.getNode(String.valueOf(i)));
+        }
+        Assert.assertEquals(store.nodeStore.blocksCount, 3);
+
+        graphModel.compact();
+        Assert.assertEquals(store.nodeStore.blocksCount, 1);
+        Assert.assertEquals(store.nodeStore.maxStoreId(), 10);
+        Assert.assertEquals(store.getNode(String.valueOf(count - 1)).getStoreId(), 9);
+
+        store.addNode(graphModel.factory().newNode("new"));
+        Assert.assertEquals(store.getNode("new").getStoreId(), 10);
+    }
+
+    @Test
+    public void testCompactEmpty() {
+        GraphModelImpl graphModel = generateCompactGraph(Configuration.builder().build(), 50, 100);
+        GraphStore store = graphModel.store;
+        store.removeAllNodes(Arrays.asList(store.getNodes().toArray()));
+
+        graphModel.compact();
+        Assert.assertEquals(store.nodeStore.maxStoreId(), 0);
+        Assert.assertEquals(store.edgeStore.maxStoreId(), 0);
+
+        Node n1 = graphModel.factory().newNode("a");
+        Node n2 = graphModel.factory().newNode("b");
+        store.addNode(n1);
+        store.addNode(n2);
+        store.addEdge(graphModel.factory().newEdge(n1, n2));
+        Assert.assertTrue(store.isAdjacent(n1, n2));
+    }
+
+    @Test
+    public void testCompactView() {
+        GraphModelImpl graphModel = generateCompactGraph(Configuration.builder().build(), 300, 1000);
+        GraphStore store = graphModel.store;
+        GraphView view = graphModel.createView();
+        DirectedSubgraph subgraph = graphModel.getDirectedGraph(view);
+        Node[] nodes = store.getNodes().toArray();
+        for (int i = 0; i < nodes.length; i += 2) {
+            subgraph.addNode(nodes[i]);
+        }
+        for (Edge e : store.getEdges().toArray()) {
+            if (subgraph.contains(e.getSource()) && subgraph.contains(e.getTarget())) {
+                subgraph.addEdge(e);
+            }
+        }
+        removeCompactElements(graphModel);
+        Map<Object, Set<Object>> neighbors = getNeighborIds(subgraph);
+        Map<Object, Integer> degrees = getDegrees(subgraph);
+        int nodeCount = subgraph.getNodeCount();
+        int edgeCount = subgraph.getEdgeCount();
+
+        graphModel.compact();
+        Assert.assertEquals(subgraph.getNodeCount(), nodeCount);
+        Assert.assertEquals(subgraph.getEdgeCount(), edgeCount);
+        Assert.assertEquals(getNeighborIds(subgraph), neighbors);
+        Assert.assertEquals(getDegrees(subgraph), degrees);
+        for (Node n : subgraph.getNodes()) {
+            Assert.assertTrue(subgraph.contains(n));
+        }
+    }
+
+    @Test
+    public void testCompactObserver() {
+        GraphModelImpl graphModel = generateCompactGraph(Configuration.builder().build(), 300, 1000);
+        GraphStore store = graphModel.store;
+        GraphObserver observer = graphModel.createGraphObserver(store, true);
+        removeCompactElements(graphModel);
+        Assert.assertTrue(observer.hasGraphChanged());
+        observer.getDiff();
+
+        graphModel.compact();
+        Assert.assertFalse(observer.hasGraphChanged());
+
+        Node node = store.getNode("3");
+        int removedEdges = store.getDegree(node);
+        store.removeNode(node);
+        Assert.assertTrue(observer.hasGraphChanged());
+        GraphDiff diff = observer.getDiff();
+        Assert.assertEquals(diff.getRemovedNodes().toCollection(), Collections.singleton(node));
+        Assert.assertEquals(diff.getAddedNodes().toCollection().size(), 0);
+        Assert.assertEquals(diff.getRemovedEdges().toCollection().size(), removedEdges);
+        Assert.assertEquals(diff.getAddedEdges().toCollection().size(), 0);
+    }
+
+    @Test
+    public void testCompactObserverPendingChanges() {
+        GraphModelImpl graphModel = generateCompactGraph(Configuration.builder().build(), 300, 1000);
+        GraphStore store = graphModel.store;
+        GraphObserver observer = graphModel.createGraphObserver(store, true);
+        Set<Node> removedNodes = new HashSet<>();
+        Node[] nodes = store.getNodes().toArray();
+        for (int i = 0; i < nodes.length; i += 3) {
+            store.removeNode(nodes[i]);
+            removedNodes.add(nodes[i]);
+        }
+
+        graphModel.compact();
+        Assert.assertTrue(observer.hasGraphChanged());
+        GraphDiff diff = observer.getDiff();
+        Assert.assertEquals(new HashSet<>(diff.getRemovedNodes().toCollection()), removedNodes);
+        Assert.assertEquals(diff.getAddedNodes().toCollection().size(), 0);
+        Assert.assertEquals(diff.getAddedEdges().toCollection().size(), 0);
+    }
+
+    @Test
+    public void testCompactColumnarAttributes() {
+        GraphModelImpl graphModel = generateCompactGraph(Configuration.builder().enableColumnarAttributes(true)
+                .build(), 300, 1000);
+        GraphStore store = graphModel.store;
+        Column score = graphModel.getNodeTable().addColumn("score", Double.class);
+        Column weight = graphModel.getEdgeTable().addColumn("w", Integer.class);
+        for (Node n : store.getNodes()) {
+            n.setAttribute(score, Double.parseDouble((String) n.getId()));
+        }
+        for (Edge e : store.getEdges()) {
+            e.setAttribute(weight, e.getId().hashCode());
+        }
+        removeCompactElements(graphModel);
+
+        graphModel.compact();
+        for (Node n : store.getNodes()) {
+            Assert.assertEquals(n.getAttribute(score), Double.parseDouble((String) n.getId()));
+        }
+        for (Edge e : store.getEdges()) {
+            Assert.assertEquals(e.getAttribute(weight), e.getId().hashCode());
+        }
+    }
+
+    @Test
+    public void testCompactBitmapIndex() {
+        GraphModelImpl graphModel = generateCompactGraph(Configuration.builder().enableBitmapIndex(true)
+                .build(), 300, 1000);
+        GraphStore store = graphModel.store;
+        Column category = graphModel.getNodeTable().addColumn("category", String.class);
+        for (Node n : store.getNodes()) {
+            n.setAttribute(category, "c" + (Integer.parseInt((String) n.getId()) % 4));
+        }
+        removeCompactElements(graphModel);
+        Index<Node> index = graphModel.getNodeIndex();
+        Set<Node> expected = new HashSet<>();
+        for (Node n : index.get(category, "c1")) {
+            expected.add(n);
+        }
+
+        graphModel.compact();
+        Set<Node> actual = new HashSet<>();
+        for (Node n : index.get(category, "c1")) {
+            actual.add(n);
+        }
+        Assert.assertEquals(actual, expected);
+        Assert.assertEquals(index.count(category, "c1"), expected.size());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCompactWithOpenSnapshot() {
+        GraphModelImpl graphModel = generateCompactGraph(Configuration.builder().build(), 50, 100);
+        removeCompactElements(graphModel);
+        graphModel.snapshot();
+        graphModel.compact();
+    }
+
+    @Test
+    public void testStringPool() {
+        GraphStore store = new GraphModelImpl(Configuration.builder().enableStringPool(true).build()).store;
+        NodeImpl n1 = new NodeImpl("1", store);
+        n1.setLabel("foo");
+        NodeImpl n2 = new NodeImpl("2", store);
+        n2.setLabel(new String("foo"));
+        store.addAllNodes(Arrays.asList(n1, n2));
+        EdgeImpl e = new EdgeImpl("e", store, n1, n2, 0, 1.0, true);
+        store.addEdge(e);
+
+        Assert.assertNull(n1.attributes.attributes[GraphStoreConfiguration.ELEMENT_ID_INDEX]);
+        Assert.assertNull(n1.attributes.attributes[GraphStoreConfiguration.ELEMENT_LABEL_INDEX]);
+        Assert.assertEquals(n1.getId(), "1");
+        Assert.assertEquals(n1.getLabel(), "foo");
+        Assert.assertEquals(n2.getLabel(), "foo");
+        Assert.assertSame(store.getNode("2"), n2);
+        Assert.assertSame(store.getEdge("e"), e);
+        // "1", "2", "foo" and "e"
+        Assert.assertEquals(store.stringPool.size(), 4);
+        Assert.assertEquals(store.stringPool.getRefCount(store.stringPool.find("foo")), 2);
+
+        n2.setLabel("bar");
+        Assert.assertEquals(n2.getLabel(), "bar");
+        Assert.assertEquals(store.stringPool.getRefCount(store.stringPool.find("foo")), 1);
+    }
+
+    @Test
+    public void testStringPoolHashCodeEquals() {
+        GraphStore store = new GraphModelImpl(Configuration.builder().enableStringPool(true).build()).store;
+        NodeImpl n1 = new NodeImpl("1", store);
+        NodeImpl n2 = new NodeImpl("2", store);
+        NodeImpl detached = new NodeImpl(new String("1"), store);
+        int hashCode = n1.hashCode();
+        store.addAllNodes(Arrays.asList(n1, n2));
+
+        Assert.assertNotEquals(n1.attributes.getIdHandle(), StringPool.NULL_HANDLE);
+        Assert.assertEquals(detached.attributes.getIdHandle(), StringPool.NULL_HANDLE);
+        Assert.assertEquals(n1.hashCode(), hashCode);
+        Assert.assertEquals(n1.hashCode(), detached.hashCode());
+        Assert.assertEquals(n1, detached);
+        Assert.assertEquals(detached, n1);
+        Assert.assertNotEquals(n1, n2);
+        Assert.assertEquals(n1, store.getNode("1"));
+    }
+
+    @Test
+    public void testStringPoolColumn() {
+        GraphStore store = new GraphModelImpl(Configuration.builder().enableStringPool(true).build()).store;
+        Column name = store.nodeTable.addColumn("name", String.class);
+        Column age = store.nodeTable.addColumn("age", Integer.class);
+        NodeImpl n1 = new NodeImpl("1", store);
+        n1.setAttribute(name, "foo");
+        n1.setAttribute(age, 10);
+        store.addNode(n1);
+
+        Assert.assertTrue(store.nodeTable.store.columnarStore.isColumnar(name.getIndex()));
+        Assert.assertFalse(store.nodeTable.store.columnarStore.isColumnar(age.getIndex()));
+        Assert.assertEquals(n1.getAttribute(name), "foo");
+        Assert.assertEquals(n1.getAttribute(age), 10);
+        Assert.assertEquals(store.nodeTable.store.indexStore.getIndex(store).count(name, "foo"), 1);
+
+        store.nodeTable.removeColumn(name);
+        Assert.assertEquals(store.stringPool.find("foo"), StringPool.NULL_HANDLE);
+    }
+
+    @Test
+    public void testStringPoolRemove() {
+        GraphStore store = new GraphModelImpl(Configuration.builder().enableStringPool(true).build()).store;
+        NodeImpl n1 = new NodeImpl("1", store);
+        n1.setLabel("foo");
+        NodeImpl n2 = new NodeImpl("2", store);
+        store.addAllNodes(Arrays.asList(n1, n2));
+        store.addEdge(new EdgeImpl("e", store, n1, n2, 0, 1.0, true));
+
+        store.removeNode(n1);
+        Assert.assertEquals(n1.getId(), "1");
+        Assert.assertEquals(n1.getLabel(), "foo");
+        Assert.assertNull(store.getNode("1"));
+        Assert.assertNull(store.getEdge("e"));
+        Assert.assertEquals(store.stringPool.size(), 1);
+        Assert.assertSame(store.getNode("2"), n2);
+
+        store.clear();
+        Assert.assertEquals(store.stringPool.size(), 0);
+        Assert.assertEquals(n2.getId(), "2");
+    }
+
+    @Test
+    public void testStringPoolCompact() {
+        GraphModelImpl graphModel = generateCompactGraph(Configuration.builder().enableStringPool(true)
+                .build(), 300, 1000);
+        GraphStore store = graphModel.store;
+        for (Node n : store.getNodes()) {
+            n.setLabel("l" + n.getId());
+        }
+        removeCompactElements(graphModel);
+
+        graphModel.compact();
+        Set<Object> strings = new HashSet<>();
+        for (Node n : store.getNodes()) {
+            Assert.assertEquals(n.getLabel(), "l" + n.getId());
+            Assert.assertSame(store.getNode(n.getId()), n);
+            strings.add(n.getId());
+            strings.add(n.getLabel());
+        }
+        for (Edge e : store.getEdges()) {
+            Assert.assertSame(store.getEdge(e.getId()), e);
+            strings.add(e.getId());
+        }
+        Assert.assertEquals(store.stringPool.size(), strings.size());
+    }
+
+    @Test
+    public void testStringPoolIntegerIds() {
+        GraphStore store = new GraphModelImpl(
+                Configuration.builder().enableStringPool(true).nodeIdType(Integer.class).build()).store;
+        NodeImpl n1 = new NodeImpl(1, store);
+        n1.setLabel("foo");
+        store.addNode(n1);
+
+        Assert.assertSame(store.getNode(1), n1);
+        Assert.assertEquals(n1.getLabel(), "foo");
+        Assert.assertEquals(store.stringPool.size(), 1);
+    }
+
+    private static GraphModelImpl generateCompactGraph(Configuration configuration, int nodeCount, int edgeCount) {
+        GraphModelImpl graphModel = new GraphModelImpl(configuration);
+        GraphStore store = graphModel.store;
+        int type = graphModel.addEdgeType("other");
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = graphModel.factory().newNode(String.valueOf(i));
+        }
+        store.addAllNodes(Arrays.asList(nodes));
+        Random random = new Random(42);
+        for (int i = 0; i < edgeCount; i++) {
+            Node source = nodes[random.nextInt(nodeCount)];
+            Node target = nodes[random.nextInt(nodeCount)];
+            int edgeType = random.nextBoolean() ? 0 : type;
+            boolean directed = random.nextInt(4) != 0;
+            if (!store.edgeStore.contains((NodeImpl) source, (NodeImpl) target, edgeType) && !store.edgeStore
+                    .contains((NodeImpl) target, (NodeImpl) source, edgeType)) {
+                store.addEdge(graphModel.factory().newEdge(source, target, edgeType, directed));
+                if (directed && random.nextBoolean() && source != target) {
+                    store.addEdge(graphModel.factory().newEdge(target, source, edgeType, true));
+                }
+            }
+        }
+        return graphModel;
+    }
+
+    @Test
+    public void testForEachTraversal() {
+        assertTraversals(GraphGenerator.generateSmallMixedGraphStore());
+        assertTraversals(GraphGenerator.generateSmallMultiTypeGraphStore());
+        assertTraversals(GraphGenerator.generateTinyGraphStoreWithMutualEdge());
+        assertTraversals(GraphGenerator.generateTinyGraphStoreWithSelfLoop());
+    }
+
+    @Test
+    public void testForEachTraversalDefaults() {
+        // Only implements the abstract methods, like an external implementation of the API
+        GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
+        DirectedGraph graph = (DirectedGraph) Proxy.newProxyInstance(getClass()
+                .getClassLoader(), new Class[] { DirectedGraph.class }, (proxy, method, args) -> method.isDefault()
+                        ? InvocationHandler.invokeDefault(proxy, method, args) : method.invoke(graphStore, args));
+        assertTraversals(graph);
+    }
+
+    @Test
+    public void testForEachTraversalUndirected() {
+        assertTraversals(GraphGenerator.generateSmallMixedGraphStore().undirectedDecorator);
+        assertTraversals(GraphGenerator.generateSmallMultiTypeGraphStore().undirectedDecorator);
+        assertTraversals(GraphGenerator.generateTinyGraphStoreWithMutualEdge().undirectedDecorator);
+        assertTraversals(GraphGenerator.generateSmallUndirectedGraphStore().undirectedDecorator);
+    }
+
+    @Test
+    public void testForEachTraversalView() {
+        GraphStore graphStore = GraphGenerator.generateSmallMixedGraphStore();
+        GraphViewImpl view = graphStore.viewStore.createView();
+        DirectedSubgraph graph = graphStore.viewStore.getDirectedGraph(view);
+        Random random = new Random(42);
+        for (Node n : graphStore.getNodes().toArray()) {
+            graph.addNode(n);
+        }
+        for (Edge e : graphStore.getEdges().toArray()) {
+            if (random.nextBoolean()) {
+                graph.addEdge(e);
+            }
+        }
+        assertTraversals(graph);
+        assertTraversals(graphStore.viewStore.getUndirectedGraph(view));
+    }
+
+    @Test
+    public void testForEachTraversalViewMutual() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStoreWithMutualEdge();
+        GraphViewImpl view = graphStore.viewStore.createView();
+        DirectedSubgraph graph = graphStore.viewStore.getDirectedGraph(view);
+        graph.addAllNodes(graphStore.getNodes().toCollection());
+        Edge edge = graphStore.getEdges().toArray()[1];
+        graph.addEdge(edge);
+
+        assertTraversals(graph);
+        assertTraversals(graphStore.viewStore.getUndirectedGraph(view));
+
+        int[] buffer = new int[2];
+        Assert.assertEquals(graph.neighborStoreIds(edge.getSource(), buffer), 1);
+        Assert.assertEquals(buffer[0], edge.getTarget().getStoreId());
+    }
+
+    @Test
+    public void testNeighborStoreIdsSmallBuffer() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        for (Node n : graphStore.getNodes()) {
+            int[] expected = toStoreIds(graphStore.getNeighbors(n).toCollection());
+            int[] buffer = new int[expected.length / 2];
+            Assert.assertEquals(graphStore.neighborStoreIds(n, buffer), expected.length);
+            Assert.assertEquals(buffer, Arrays.copyOf(expected, buffer.length));
+            Assert.assertTrue(expected.length <= graphStore.getDegree(n));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testForEachNeighborInvalidNode() {
+        GraphStore graphStore = new GraphStore();
+        NodeImpl n1 = new NodeImpl("0");
+        graphStore.forEachNeighbor(n1, id -> {
+        });
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testForEachNeighborViewInvalidNode() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        GraphViewImpl view = graphStore.viewStore.createView();
+        DirectedSubgraph graph = graphStore.viewStore.getDirectedGraph(view);
+        graph.forEachNeighbor(graphStore.getNode("1"), id -> {
+        });
+    }
+
+    @Test
+    public void testCommonNeighbors() {
+        assertCommonNeighbors(GraphGenerator.generateSmallMixedGraphStore());
+        assertCommonNeighbors(GraphGenerator.generateSmallMultiTypeGraphStore());
+        assertCommonNeighbors(GraphGenerator.generateTinyGraphStoreWithMutualEdge());
+        assertCommonNeighbors(GraphGenerator.generateTinyGraphStoreWithSelfLoop());
+        assertCommonNeighbors(GraphGenerator.generateSmallMixedGraphStore().undirectedDecorator);
+    }
+
+    @Test
+    public void testCommonNeighborsDefaults() {
+        // Only implements the abstract methods, like an external implementation of the API
+        for (GraphStore graphStore : new GraphStore[] { GraphGenerator.generateSmallMixedGraphStore(), GraphGenerator
+                .generateTinyGraphStoreWithSelfLoop() }) {
+            DirectedGraph graph = (DirectedGraph) Proxy.newProxyInstance(getClass()
+                    .getClassLoader(), new Class[] { DirectedGraph.class }, (proxy, method, args) -> method.isDefault()
+                            ? InvocationHandler.invokeDefault(proxy, method, args) : method.invoke(graphStore, args));
+            assertCommonNeighbors(graph);
+        }
+    }
+
+    @Test
+    public void testCommonNeighborsWithIndex() {
+        Configuration config = Configuration.builder().enableNeighborIndex(true).build();
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStoreWithSelfLoop(config);
+        assertCommonNeighbors(graphStore);
+
+        graphStore = new GraphModelImpl(config).store;
+        graphStore.addAllNodes(Arrays.asList(GraphGenerator.generateNodeList(50, graphStore)));
+        graphStore.addAllEdges(Arrays.asList(GraphGenerator.generateMixedEdgeList(graphStore.nodeStore, 200, 0, true)));
+        assertCommonNeighbors(graphStore);
+        for (Edge e : graphStore.getEdges().toArray()) {
+            if (e.getStoreId() % 3 == 0) {
+                graphStore.removeEdge(e);
+            }
+        }
+        assertCommonNeighbors(graphStore);
+        graphStore.removeNode(graphStore.getNode("1"));
+        graphStore.compact();
+        assertCommonNeighbors(graphStore);
+        assertCommonNeighbors(graphStore.undirectedDecorator);
+    }
+
+    @Test
+    public void testCommonNeighborsView() {
+        for (boolean enableIndex : new boolean[] { false, true }) {
+            Configuration config = Configuration.builder().enableNeighborIndex(enableIndex).build();
+            GraphStore graphStore = new GraphModelImpl(config).store;
+            graphStore.addAllNodes(Arrays.asList(GraphGenerator.generateNodeList(50, graphStore)));
+            graphStore.addAllEdges(Arrays
+                    .asList(GraphGenerator.generateMixedEdgeList(graphStore.nodeStore, 200, 0, true)));
+            GraphViewImpl view = graphStore.viewStore.createView();
+            DirectedSubgraph graph = graphStore.viewStore.getDirectedGraph(view);
+            graph.fill();
+            Random random = new Random(3);
+            for (Edge e : graph.getEdges().toArray()) {
+                if (random.nextBoolean()) {
+                    graph.removeEdge(e);
+                }
+            }
+            assertCommonNeighbors(graph);
+            assertCommonNeighbors(graphStore.viewStore.getUndirectedGraph(view));
+            for (Edge e : graph.getEdges().toArray()) {
+                if (random.nextBoolean()) {
+                    graph.removeEdge(e);
+                }
+            }
+            assertCommonNeighbors(graph);
+            graphStore.removeEdge(graph.getEdges().toArray()[0]);
+            assertCommonNeighbors(graph);
+        }
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testCommonNeighborsViewInvalidNode() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        GraphViewImpl view = graphStore.viewStore.createView();
+        DirectedSubgraph graph = graphStore.viewStore.getDirectedGraph(view);
+        graph.countCommonNeighbors(graphStore.getNode("1"), graphStore.getNode("2"));
+    }
+
+    @Test
+    public void testRemoveAllNodesBulkFewNodes() {
+        assertRemoveAllNodesBulk(new int[] { 3, 17, 42 });
+    }
+
+    @Test
+    public void testRemoveAllNodesBulkManyNodes() {
+        int[] ids = new int[60];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 20;
+        }
+        assertRemoveAllNodesBulk(ids);
+    }
+
+    @Test
+    public void testRemoveAllNodesBulkVersion() {
+        GraphStore graphStore = generateRemovalGraphStore();
+        GraphObserver observer = graphStore.createGraphObserver(graphStore, false);
+        int edgeVersion = graphStore.version.getEdgeVersion();
+        int nodeVersion = graphStore.version.getNodeVersion();
+
+        graphStore.removeAllNodes(Arrays.asList(graphStore.getNode("1"), graphStore.getNode("2")));
+        Assert.assertEquals(graphStore.version.getEdgeVersion(), edgeVersion + 1);
+        Assert.assertEquals(graphStore.version.getNodeVersion(), nodeVersion + 1);
+        Assert.assertTrue(observer.hasGraphChanged());
+    }
+
+    @Test
+    public void testRemoveAllNodesDuplicates() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        Node n1 = graphStore.getNode("1");
+        Assert.assertTrue(graphStore.removeAllNodes(Arrays.asList(n1, n1)));
+        Assert.assertFalse(graphStore.contains(n1));
+        Assert.assertEquals(graphStore.getNodeCount(), 1);
+        Assert.assertEquals(graphStore.getEdgeCount(), 0);
+        Assert.assertFalse(graphStore.removeAllNodes(Arrays.asList(n1)));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRemoveAllNodesOtherStore() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStore();
+        GraphStore other = GraphGenerator.generateTinyGraphStore();
+        graphStore.removeAllNodes(Arrays.asList(other.getNode("1")));
+    }
+
+    private static void assertRemoveAllNodesBulk(int[] ids) {
+        GraphStore bulk = generateRemovalGraphStore();
+        GraphStore single = generateRemovalGraphStore();
+        GraphViewImpl bulkView = createRemovalView(bulk);
+        GraphViewImpl singleView = createRemovalView(single);
+
+        List<Node> nodes = new ArrayList<>();
+        for (int id : ids) {
+            nodes.add(bulk.getNode(String.valueOf(id)));
+            single.removeNode(single.getNode(String.valueOf(id)));
+        }
+        Assert.assertTrue(bulk.removeAllNodes(nodes));
+        Assert.assertTrue(bulk.deepEquals(single));
+
+        Assert.assertEquals(bulk.getNodeCount(), single.getNodeCount());
+        Assert.assertEquals(bulk.getEdgeCount(), single.getEdgeCount());
+        Assert.assertEquals(bulk.undirectedDecorator.getEdgeCount(), single.undirectedDecorator.getEdgeCount());
+        for (int type = 0; type < 3; type++) {
+            Assert.assertEquals(bulk.getEdgeCount(type), single.getEdgeCount(type));
+            Assert.assertEquals(bulk.undirectedDecorator.getEdgeCount(type), single.undirectedDecorator
+                    .getEdgeCount(type));
+        }
+        Assert.assertEquals(bulkView.getNodeCount(), singleView.getNodeCount());
+        Assert.assertEquals(bulkView.getEdgeCount(), singleView.getEdgeCount());
+        Assert.assertEquals(bulkView.getUndirectedEdgeCount(), singleView.getUndirectedEdgeCount());
+
+        Graph bulkGraph = bulk.viewStore.getDirectedGraph(bulkView);
+        Graph singleGraph = single.viewStore.getDirectedGraph(singleView);
+        for (Node node : single.getNodes()) {
+            Node other = bulk.getNode(node.getId());
+            Assert.assertEquals(bulk.getDegree(other), single.getDegree(node));
+            Assert.assertEquals(bulk.getInDegree(other), single.getInDegree(node));
+            Assert.assertEquals(bulk.getOutDegree(other), single.getOutDegree(node));
+            Assert.assertEquals(bulk.undirectedDecorator.getDegree(other), single.undirectedDecorator.getDegree(node));
+            Assert.assertEquals(bulkGraph.getDegree(other), singleGraph.getDegree(node));
+        }
+        for (Edge edge : single.getEdges()) {
+            Edge other = bulk.getEdge(edge.getId());
+            Assert.assertNotNull(other);
+            Assert.assertEquals(other.isMutual(), edge.isMutual());
+            Assert.assertSame(bulk.getEdge(other.getSource(), other.getTarget(), other.getType()), other);
+        }
+    }
+
+    private static GraphStore generateRemovalGraphStore() {
+        Configuration configuration = Configuration.builder().enableParallelEdgesSameType(false).build();
+        GraphStore graphStore = new GraphModelImpl(configuration).store;
+        NodeImpl[] nodes = GraphGenerator.generateNodeList(100, graphStore);
+        graphStore.addAllNodes(Arrays.asList(nodes));
+        Random random = new Random(11);
+        for (int i = 0; i < 600; i++) {
+            NodeImpl source = nodes[random.nextInt(nodes.length)];
+            NodeImpl target = nodes[random.nextInt(nodes.length)];
+            int type = random.nextInt(3);
+            graphStore.addEdge(graphStore.factory.newEdge(String.valueOf(i), source, target, type, 1.0, true));
+            if (random.nextInt(3) == 0) {
+                graphStore.addEdge(graphStore.factory.newEdge(i + "r", target, source, type, 1.0, true));
+            }
+        }
+        return graphStore;
+    }
+
+    private static GraphViewImpl createRemovalView(GraphStore graphStore) {
+        GraphViewImpl view = graphStore.viewStore.createView();
+        view.fill();
+        for (Edge edge : graphStore.getEdges().toArray()) {
+            if (edge.getStoreId() % 3 == 0) {
+                view.removeEdge(edge);
+            }
+        }
+        return view;
+    }
+
+    private static void assertCommonNeighbors(Graph graph) {
+        Node[] nodes = graph.getNodes().toArray();
+        for (Node n1 : nodes) {
+            for (Node n2 : nodes) {
+                Set<Node> expected = new TreeSet<>(Comparator.comparingInt(Node::getStoreId));
+                for (Node n : graph.getNeighbors(n1)) {
+                    if (n != n1) {
+                        expected.add(n);
+                    }
+                }
+                Set<Node> neighbors2 = new HashSet<>(graph.getNeighbors(n2).toCollection());
+                neighbors2.remove(n2);
+                expected.retainAll(neighbors2);
+
+                Assert.assertEquals(graph.countCommonNeighbors(n1, n2), expected.size());
+                Assert.assertEquals(new ArrayList<>(graph.getCommonNeighbors(n1, n2).toCollection()), new ArrayList<>(
+                        expected));
+                int[] buffer = new int[expected.size()];
+                Assert.assertEquals(graph.commonNeighborStoreIds(n1, n2, buffer), expected.size());
+                Assert.assertEquals(buffer, toStoreIds(expected));
+            }
+        }
+    }
+
+    private static void assertTraversals(Graph graph) {
+        for (Node n : graph.getNodes().toArray()) {
+            List<Edge> edges = new ArrayList<>();
+            IntList neighbors = new IntArrayList();
+            graph.forEachEdge(n, edges::add);
+            graph.forEachNeighbor(n, neighbors::add);
+            Assert.assertEquals(edges, new ArrayList<>(graph.getEdges(n).toCollection()));
+            Assert.assertEquals(neighbors.toIntArray(), toStoreIds(graph.getNeighbors(n).toCollection()));
+
+            int[] buffer = new int[graph.getDegree(n)];
+            int count = graph.neighborStoreIds(n, buffer);
+            Assert.assertEquals(Arrays.copyOf(buffer, count), neighbors.toIntArray());
+
+            for (int type = 0; type < 3; type++) {
+                edges.clear();
+                neighbors.clear();
+                graph.forEachEdge(n, type, edges::add);
+                graph.forEachNeighbor(n, type, neighbors::add);
+                Assert.assertEquals(edges, new ArrayList<>(graph.getEdges(n, type).toCollection()));
+                Assert.assertEquals(neighbors.toIntArray(), toStoreIds(graph.getNeighbors(n, type).toCollection()));
+            }
+
+            if (graph instanceof DirectedGraph) {
+                DirectedGraph directedGraph = (DirectedGraph) graph;
+                edges.clear();
+                directedGraph.forEachOutEdge(n, edges::add);
+                Assert.assertEquals(edges, new ArrayList<>(directedGraph.getOutEdges(n).toCollection()));
+                edges.clear();
+                directedGraph.forEachInEdge(n, edges::add);
+                Assert.assertEquals(edges, new ArrayList<>(directedGraph.getInEdges(n).toCollection()));
+                for (int type = 0; type < 3; type++) {
+                    edges.clear();
+                    directedGraph.forEachOutEdge(n, type, edges::add);
+                    Assert.assertEquals(edges, new ArrayList<>(directedGraph.getOutEdges(n, type).toCollection()));
+                    edges.clear();
+                    directedGraph.forEachInEdge(n, type, edges::add);
+                    Assert.assertEquals(edges, new ArrayList<>(directedGraph.getInEdges(n, type).toCollection()));
+                }
+
+                neighbors.clear();
+                directedGraph.forEachSuccessor(n, neighbors::add);
+                Assert.assertEquals(neighbors.toIntArray(), toStoreIds(directedGraph.getSuccessors(n).toCollection()));
+                neighbors.clear();
+                directedGraph.forEachPredecessor(n, neighbors::add);
+                Assert.assertEquals(neighbors
+                        .toIntArray(), toStoreIds(directedGraph.getPredecessors(n).toCollection()));
+            }
+        }
+    }
+
+    private static int[] toStoreIds(Collection<Node> nodes) {
+        return nodes.stream().mapToInt(Node::getStoreId).toArray();
+    }
+
+    private static void removeCompactElements(GraphModelImpl graphModel) {
+        GraphStore store = graphModel.store;
+        Random random = new Random(7);
+        for (Node n : store.getNodes().toArray()) {
+            if (random.nextInt(3) == 0) {
+                store.removeNode(n);
+            }
+        }
+        for (Edge e : store.getEdges().toArray()) {
+            if (random.nextInt(4) == 0) {
+                store.removeEdge(e);
+            }
+        }
+    }
+
+    private static Map<Object, Set<Object>> getNeighborIds(Graph graph) {
+        Map<Object, Set<Object>> result = new HashMap<>();
+        for (Node n : graph.getNodes()) {
+            Set<Object> ids = new HashSet<>();
+            for (Node neighbor : graph.getNeighbors(n)) {
+                ids.add(neighbor.getId());
+            }
+            result.put(n.getId(), ids);
+        }
+        return result;
+    }
+
+    private static Map<Object, Integer> getDegrees(Graph graph) {
+        Map<Object, Integer> result = new HashMap<>();
+        for (Node n : graph.getNodes()) {
+            result.put(n.getId(), graph.getDegree(n));
+        }
+        return result;
+    }
 }
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.ColumnObserver;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Element;
+import org.gephi.graph.api.GraphDiff;
+import org.gephi.graph.api.GraphTransaction;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Index;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class GraphTransactionImplTest {
+
+    @Test
+    public void testSingleVersionIncrement() {
+        GraphStore store = new GraphModelImpl().store;
+        int nodeVersion = store.version.nodeVersion;
+        int edgeVersion = store.version.edgeVersion;
+
+        try (GraphTransaction transaction = store.graphModel.beginTransaction()) {
+            Node n1 = store.factory.newNode("1");
+            Node n2 = store.factory.newNode("2");
+            store.addNode(n1);
+            store.addNode(n2);
+            store.addEdge(store.factory.newEdge(n1, n2));
+            store.addEdge(store.factory.newEdge(n2, n1));
+            Assert.assertEquals(store.version.nodeVersion, nodeVersion);
+            Assert.assertEquals(store.version.edgeVersion, edgeVersion);
+        }
+
+        Assert.assertEquals(store.version.nodeVersion, nodeVersion + 1);
+        Assert.assertEquals(store.version.edgeVersion, edgeVersion + 1);
+    }
+
+    @Test
+    public void testSpliteratorFailFastInTransaction() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+
+        try (GraphTransaction transaction = store.graphModel.beginTransaction()) {
+            Spliterator<Node> nodes = store.getNodes().spliterator();
+            store.addNode(store.factory.newNode("3"));
+            Assert.assertThrows(ConcurrentModificationException.class, () -> nodes.tryAdvance(n -> {
+            }));
+
+            Spliterator<Edge> edges = store.getEdges().spliterator();
+            store.removeEdge(store.getEdges().toArray()[0]);
+            Assert.assertThrows(ConcurrentModificationException.class, () -> edges.tryAdvance(e -> {
+            }));
+        }
+    }
+
+    @Test
+    public void testNoIndexVersionInTransaction() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        DegreeNoIndexImpl degreeIndex = new DegreeNoIndexImpl(store, DegreeNoIndexImpl.DegreeType.DEGREE);
+        EdgeTypeNoIndexImpl typeIndex = new EdgeTypeNoIndexImpl(store);
+        int degreeVersion = degreeIndex.getVersion();
+        int typeVersion = typeIndex.getVersion();
+
+        try (GraphTransaction transaction = store.graphModel.beginTransaction()) {
+            store.addNode(store.factory.newNode("3"));
+            Assert.assertNotEquals(degreeIndex.getVersion(), degreeVersion);
+            store.removeEdge(store.getEdges().toArray()[0]);
+            Assert.assertNotEquals(typeIndex.getVersion(), typeVersion);
+        }
+    }
+
+    @Test
+    public void testNoVersionIncrementWithoutChange() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        int version = store.getVersion();
+
+        store.graphModel.beginTransaction().commit();
+
+        Assert.assertEquals(store.getVersion(), version);
+    }
+
+    @Test
+    public void testViewVersionDeferred() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        GraphViewImpl view = store.viewStore.createView();
+        int nodeVersion = view.version.nodeVersion;
+
+        GraphTransaction transaction = store.graphModel.beginTransaction();
+        for (Node node : store.getNodes().toArray()) {
+            view.addNode(node);
+        }
+        Assert.assertEquals(view.version.nodeVersion, nodeVersion);
+        transaction.commit();
+
+        Assert.assertEquals(view.version.nodeVersion, nodeVersion + 1);
+        Assert.assertEquals(view.getNodeCount(), 2);
+    }
+
+    @Test
+    public void testObserverDiff() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        GraphObserverImpl observer = store.createGraphObserver(store, true);
+        Assert.assertFalse(observer.hasGraphChanged());
+
+        GraphTransaction transaction = store.graphModel.beginTransaction();
+        Node n3 = store.factory.newNode("3");
+        Node n4 = store.factory.newNode("4");
+        store.addNode(n3);
+        store.addNode(n4);
+        store.removeNode(store.getNode("1"));
+        transaction.commit();
+
+        Assert.assertTrue(observer.hasGraphChanged());
+        GraphDiff diff = observer.getDiff();
+        Assert.assertEqualsNoOrder(diff.getAddedNodes().toArray(), new Node[] { n3, n4 });
+        Assert.assertEquals(diff.getRemovedNodes().toArray().length, 1);
+        Assert.assertFalse(observer.hasGraphChanged());
+    }
+
+    @Test
+    public void testIndexDeferred() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        Column column = store.nodeTable.addColumn("foo", Integer.class);
+        Index<Node> index = store.graphModel.getNodeIndex();
+        Node n1 = store.getNode("1");
+        Node n2 = store.getNode("2");
+
+        GraphTransaction transaction = store.graphModel.beginTransaction();
+        n1.setAttribute(column, 1);
+        n1.setAttribute(column, 2);
+        n2.setAttribute(column, 2);
+        Assert.assertEquals(index.count(column, 2), 0);
+        Assert.assertEquals(n1.getAttribute(column), 2);
+        transaction.commit();
+
+        Assert.assertEquals(index.count(column, 1), 0);
+        Assert.assertEquals(index.count(column, 2), 2);
+        Assert.assertEquals(index.count(column, null), 0);
+    }
+
+    @Test
+    public void testIndexWithRemovedElement() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        Column column = store.nodeTable.addColumn("foo", Integer.class);
+        Index<Node> index = store.graphModel.getNodeIndex();
+        Node n1 = store.getNode("1");
+
+        GraphTransaction transaction = store.graphModel.beginTransaction();
+        n1.setAttribute(column, 1);
+        store.removeNode(n1);
+        transaction.commit();
+
+        Assert.assertEquals(index.count(column, 1), 0);
+        Assert.assertEquals(index.count(column, null), 1);
+    }
+
+    @Test
+    public void testIndexWithReaddedElement() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        Column column = store.nodeTable.addColumn("foo", Integer.class);
+        Index<Node> index = store.graphModel.getNodeIndex();
+        Node n1 = store.getNode("1");
+
+        GraphTransaction transaction = store.graphModel.beginTransaction();
+        n1.setAttribute(column, 1);
+        store.removeNode(n1);
+        store.addNode(n1);
+        n1.setAttribute(column, 2);
+        transaction.commit();
+
+        Assert.assertEquals(index.count(column, 1), 0);
+        Assert.assertEquals(index.count(column, 2), 1);
+        Assert.assertEquals(index.count(column, null), 1);
+    }
+
+    @Test
+    public void testIndexWithRemovedColumn() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        Column column = store.nodeTable.addColumn("foo", Integer.class);
+        Index<Node> index = store.graphModel.getNodeIndex();
+        Node n1 = store.getNode("1");
+
+        GraphTransaction transaction = store.graphModel.beginTransaction();
+        n1.setAttribute(column, 1);
+        store.nodeTable.removeColumn(column);
+        Column bar = store.nodeTable.addColumn("bar", Integer.class);
+        n1.setAttribute(bar, 3);
+        transaction.commit();
+
+        Assert.assertEquals(index.count(bar, 3), 1);
+        Assert.assertEquals(index.count(bar, null), 1);
+    }
+
+    @Test
+    public void testColumnVersion() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        ColumnImpl column = (ColumnImpl) store.nodeTable.addColumn("foo", Integer.class);
+        ColumnObserver observer = column.createColumnObserver(true);
+        int version = column.version.version.get();
+        Node n1 = store.getNode("1");
+        Node n2 = store.getNode("2");
+
+        GraphTransaction transaction = store.graphModel.beginTransaction();
+        n1.setAttribute(column, 1);
+        n1.setAttribute(column, 2);
+        n2.setAttribute(column, 3);
+        Assert.assertEquals(column.version.version.get(), version);
+        transaction.commit();
+
+        Assert.assertEquals(column.version.version.get(), version + 1);
+        Assert.assertTrue(observer.hasColumnChanged());
+        Assert.assertEqualsNoOrder(observer.getDiff().getTouchedElements().toArray(), new Element[] { n1, n2 });
+    }
+
+    @Test
+    public void testNested() {
+        GraphStore store = new GraphModelImpl().store;
+        int nodeVersion = store.version.nodeVersion;
+
+        GraphTransaction outer = store.graphModel.beginTransaction();
+        GraphTransaction inner = store.graphModel.beginTransaction();
+        store.addNode(store.factory.newNode("1"));
+        inner.commit();
+        Assert.assertFalse(inner.isActive());
+        Assert.assertTrue(outer.isActive());
+        Assert.assertNotNull(store.transaction);
+        Assert.assertEquals(store.version.nodeVersion, nodeVersion);
+        Assert.assertEquals(store.lock.getWriteHoldCount(), 1);
+
+        outer.commit();
+        Assert.assertNull(store.transaction);
+        Assert.assertEquals(store.version.nodeVersion, nodeVersion + 1);
+        Assert.assertEquals(store.lock.getWriteHoldCount(), 0);
+    }
+
+    @Test
+    public void testWriteLockHeld() {
+        GraphStore store = new GraphModelImpl().store;
+        GraphTransaction transaction = store.graphModel.beginTransaction();
+        Assert.assertEquals(store.lock.getWriteHoldCount(), 1);
+        transaction.commit();
+        Assert.assertEquals(store.lock.getWriteHoldCount(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCommitTwice() {
+        GraphStore store = new GraphModelImpl().store;
+        GraphTransaction transaction = store.graphModel.beginTransaction();
+        transaction.commit();
+        transaction.commit();
+    }
+
+    @Test
+    public void testCloseAfterCommit() {
+        GraphStore store = new GraphModelImpl().store;
+        GraphTransaction transaction = store.graphModel.beginTransaction();
+        transaction.commit();
+        transaction.close();
+        Assert.assertEquals(store.lock.getWriteHoldCount(), 0);
+    }
+
+    @Test
+    public void testOtherThreadNotDeferred() throws InterruptedException {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        Column column = store.nodeTable.addColumn("foo", Integer.class);
+        Index<Node> index = store.graphModel.getNodeIndex();
+        Node n1 = store.getNode("1");
+
+        GraphTransaction transaction = store.graphModel.beginTransaction();
+        Thread thread = new Thread(() -> n1.setAttribute(column, 1));
+        thread.start();
+        thread.join();
+        Assert.assertEquals(index.count(column, 1), 1);
+        Assert.assertTrue(store.transaction.pendingValues.isEmpty());
+        transaction.commit();
+    }
+
+    @Test
+    public void testViewCreatedInTransactionDeferred() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+
+        GraphTransaction transaction = store.graphModel.beginTransaction();
+        GraphViewImpl view = store.viewStore.createView();
+        int nodeVersion = view.version.nodeVersion;
+        for (Node node : store.getNodes().toArray()) {
+            view.addNode(node);
+        }
+        Assert.assertEquals(view.version.nodeVersion, nodeVersion);
+        transaction.commit();
+
+        Assert.assertEquals(view.version.nodeVersion, nodeVersion + 1);
+        Assert.assertFalse(view.version.deferred);
+    }
+
+    @Test
+    public void testVersionsCommittedWhenFlushFails() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore();
+        int nodeVersion = store.version.nodeVersion;
+        AtomicBoolean fail = new AtomicBoolean();
+        NodeImpl failing = new NodeImpl("failing", store) {
+            @Override
+            ColumnStore getColumnStore() {
+                if (fail.get()) {
+                    throw new IllegalStateException();
+                }
+                return super.getColumnStore();
+            }
+
+            @Override
+            boolean isValid() {
+                return true;
+            }
+        };
+
+        GraphTransaction transaction = store.graphModel.beginTransaction();
+        store.addNode(store.factory.newNode("3"));
+        fail.set(true);
+        store.transaction.pendingValues.put(failing, new Object[0]);
+        try {
+            transaction.commit();
+            Assert.fail("Expected the flush failure");
+        } catch (IllegalStateException e) {
+            // Thrown by the failing element
+        }
+
+        Assert.assertNull(store.transaction);
+        Assert.assertFalse(store.version.deferred);
+        Assert.assertEquals(store.version.nodeVersion, nodeVersion + 1);
+        Assert.assertEquals(store.lock.getWriteHoldCount(), 0);
+        store.addNode(store.factory.newNode("4"));
+        Assert.assertEquals(store.version.nodeVersion, nodeVersion + 2);
+    }
+}
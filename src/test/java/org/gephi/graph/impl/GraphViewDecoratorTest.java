@@ -126,6 +126,41 @@ public class GraphViewDecoratorTest {
         store.getDirectedGraph(view).addEdge(edge);
     }
 
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testGetDegreeRemovedNode() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView(n -> true, e -> true);
+        DirectedSubgraph graph = store.getDirectedGraph(view);
+
+        Node node = graphStore.getNodes().toArray()[0];
+        graphStore.removeNode(node);
+        graph.getDegree(node);
+    }
+
+    @Test
+    public void testGetDegreeForeignNode() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphStore otherStore = GraphGenerator.generateSmallGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        GraphViewImpl view = store.createView(n -> true, e -> true);
+        DirectedSubgraph graph = store.getDirectedGraph(view);
+
+        Node foreign = otherStore.getNodes().toArray()[0];
+        Assert.assertTrue(view.containsNode(foreign));
+        Assert.assertThrows(IllegalArgumentException.class, () -> graph.getDegree(foreign));
+        Assert.assertThrows(IllegalArgumentException.class, () -> graph.getInDegree(foreign));
+        Assert.assertThrows(IllegalArgumentException.class, () -> graph.getOutDegree(foreign));
+        Assert.assertThrows(IllegalArgumentException.class, () -> store.getUndirectedGraph(view).getDegree(foreign));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testGetDegreeNullNode() {
+        GraphStore graphStore = GraphGenerator.generateSmallGraphStore();
+        GraphViewStore store = graphStore.viewStore;
+        store.getDirectedGraph(store.createView()).getDegree(null);
+    }
+
     @Test
     public void testDirectedAddAll() {
         GraphStore graphStore = GraphGenerator.generateSmallMultiTypeGraphStore();
@@ -21,6 +21,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Spliterator;
 import org.gephi.graph.api.DirectedSubgraph;
 import org.gephi.graph.api.Edge;
@@ -1460,4 +1461,177 @@ public class GraphViewImplTest {
             Assert.assertTrue(view.containsEdge((EdgeImpl) e), "Retained edge should be in view");
         }
     }
+
+    @Test
+    public void testPredicateViewMultiType() {
+        GraphStore graphStore = new GraphStore();
+        graphStore.edgeTypeStore.addType("foo");
+        graphStore.edgeTypeStore.addType("bar");
+        graphStore.addAllNodes(Arrays.asList(GraphGenerator.generateNodeList(50, graphStore)));
+        EdgeImpl[] edges = GraphGenerator.generateMultiTypeEdgeList(graphStore.nodeStore, 100, 3, true, true);
+        graphStore.addAllEdges(Arrays.asList(edges));
+
+        GraphViewImpl view = graphStore.viewStore.createView(n -> true, e -> true);
+        Assert.assertEquals(view.getEdgeCount(), graphStore.getEdgeCount());
+        for (int type = 0; type < 3; type++) {
+            Assert.assertEquals(view.getEdgeCount(type), graphStore.getEdgeCount(type));
+        }
+    }
+
+    @Test
+    public void testDegreesAddRemoveEdge() {
+        GraphStore graphStore = generateMutualGraphStore();
+        GraphViewImpl view = graphStore.viewStore.createView();
+        for (Node n : graphStore.getNodes()) {
+            view.addNode(n);
+        }
+        assertDegrees(view);
+
+        List<Edge> edges = Arrays.asList(graphStore.getEdges().toArray());
+        for (int i = 0; i < edges.size(); i += 2) {
+            view.addEdge(edges.get(i));
+        }
+        assertDegrees(view);
+
+        for (int i = 0; i < edges.size(); i += 4) {
+            view.removeEdge(edges.get(i));
+        }
+        assertDegrees(view);
+
+        view.removeNode(graphStore.getNode("0"));
+        assertDegrees(view);
+    }
+
+    @Test
+    public void testDegreesBulkOperations() {
+        GraphStore graphStore = generateMutualGraphStore();
+        GraphViewImpl view = graphStore.viewStore.createView();
+        GraphViewImpl other = graphStore.viewStore.createView(n -> true, e -> e.getStoreId() % 3 != 0);
+        assertDegrees(other);
+
+        view.union(other);
+        assertDegrees(view);
+        Assert.assertEquals(view.getUndirectedEdgeCount(), other.getUndirectedEdgeCount());
+
+        GraphViewImpl filter = graphStore.viewStore
+                .createView(n -> n.getStoreId() % 5 != 0, e -> e.getStoreId() % 2 == 0);
+        view.intersection(filter);
+        assertDegrees(view);
+
+        view.not();
+        assertDegrees(view);
+
+        view.retainEdges(Arrays.asList(graphStore.getEdges().toArray()).subList(0, 20));
+        assertDegrees(view);
+
+        view.fill();
+        assertDegrees(view);
+
+        GraphViewImpl copy = (GraphViewImpl) graphStore.viewStore.createView(view);
+        assertDegrees(copy);
+
+        view.clearEdges();
+        assertDegrees(view);
+        assertDegrees(copy);
+
+        view.clear();
+        assertDegrees(view);
+    }
+
+    @Test
+    public void testDegreesStoreChanges() {
+        GraphStore graphStore = generateMutualGraphStore();
+        GraphViewImpl view = graphStore.viewStore.createView(n -> true, e -> true);
+
+        graphStore.removeEdge(graphStore.getEdges().toArray()[0]);
+        graphStore.removeNode(graphStore.getNode("1"));
+        assertDegrees(view);
+
+        Node n = graphStore.factory.newNode("new");
+        graphStore.addNode(n);
+        view.addNode(n);
+        Edge e1 = graphStore.factory.newEdge(n, graphStore.getNode("2"), 0, true);
+        Edge e2 = graphStore.factory.newEdge(graphStore.getNode("2"), n, 0, true);
+        graphStore.addEdge(e1);
+        graphStore.addEdge(e2);
+        view.addEdge(e1);
+        view.addEdge(e2);
+        assertDegrees(view);
+        Assert.assertEquals(view.getUndirectedDegree(n), 1);
+    }
+
+    @Test
+    public void testDegreesNodeView() {
+        GraphStore graphStore = generateMutualGraphStore();
+        GraphViewImpl view = graphStore.viewStore.createView(true, false);
+        for (Node n : graphStore.getNodes()) {
+            if (n.getStoreId() % 4 != 0) {
+                view.addNode(n);
+            }
+        }
+        assertDegrees(view);
+
+        Node n = graphStore.factory.newNode("new");
+        graphStore.addNode(n);
+        view.addNode(n);
+        graphStore.addEdge(graphStore.factory.newEdge(n, graphStore.getNode("2"), 0, true));
+        graphStore.addEdge(graphStore.factory.newEdge(graphStore.getNode("2"), n, 0, true));
+        graphStore.addEdge(graphStore.factory.newEdge(n, n, 0, true));
+        assertDegrees(view);
+        Assert.assertEquals(view.getDegree(n), 4);
+        Assert.assertEquals(view.getUndirectedDegree(n), 3);
+
+        view.removeNode(graphStore.getNode("2"));
+        assertDegrees(view);
+    }
+
+    private static GraphStore generateMutualGraphStore() {
+        GraphStore graphStore = new GraphStore();
+        GraphFactory factory = graphStore.factory;
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Node n = factory.newNode(String.valueOf(i));
+            nodes.add(n);
+        }
+        graphStore.addAllNodes(nodes);
+        Random random = new Random(42);
+        for (int i = 0; i < 120; i++) {
+            Node source = nodes.get(random.nextInt(nodes.size()));
+            Node target = nodes.get(random.nextInt(nodes.size()));
+            if (graphStore.getEdge(source, target) == null) {
+                graphStore.addEdge(factory.newEdge(source, target, 0, true));
+            }
+            if (source != target && random.nextBoolean() && graphStore.getEdge(target, source) == null) {
+                graphStore.addEdge(factory.newEdge(target, source, 0, true));
+            }
+        }
+        return graphStore;
+    }
+
+    private static void assertDegrees(GraphViewImpl view) {
+        GraphStore graphStore = view.graphStore;
+        for (Node node : graphStore.getNodes()) {
+            int in = 0, out = 0, undirected = 0;
+            for (Edge edge : graphStore.getEdges(node)) {
+                if (!view.containsEdge(edge)) {
+                    continue;
+                }
+                if (edge.getTarget() == node) {
+                    in++;
+                }
+                if (edge.getSource() == node) {
+                    out++;
+                }
+                if (!view.undirectedDecorator.isUndirectedToIgnore((EdgeImpl) edge)) {
+                    undirected += edge.isSelfLoop() ? 2 : 1;
+                }
+            }
+            Assert.assertEquals(view.getInDegree(node), in);
+            Assert.assertEquals(view.getOutDegree(node), out);
+            Assert.assertEquals(view.getDegree(node), in + out);
+            Assert.assertEquals(view.getUndirectedDegree(node), undirected);
+            Assert.assertEquals(view.getDirectedGraph().getInDegree(node), in);
+            Assert.assertEquals(view.getUndirectedGraph().getDegree(node), undirected);
+        }
+    }
 }
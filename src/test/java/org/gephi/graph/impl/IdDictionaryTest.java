@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class IdDictionaryTest {
+
+    @Test
+    public void testCreate() {
+        Assert.assertTrue(newDictionary(Integer.class) instanceof IdDictionary.IntIdDictionary);
+        Assert.assertTrue(newDictionary(Long.class) instanceof IdDictionary.LongIdDictionary);
+        Assert.assertTrue(newDictionary(String.class) instanceof IdDictionary.ObjectIdDictionary);
+        Assert.assertTrue(newDictionary(null) instanceof IdDictionary.ObjectIdDictionary);
+    }
+
+    @Test
+    public void testLong() {
+        IdDictionary dico = newDictionary(Long.class);
+        Assert.assertEquals(dico.put(5000000000L, 1), IdDictionary.NULL_ID);
+        Assert.assertEquals(dico.put(2L, 2), IdDictionary.NULL_ID);
+        Assert.assertEquals(dico.size(), 2);
+        Assert.assertEquals(dico.get(5000000000L), 1);
+        Assert.assertEquals(dico.get((Object) 5000000000L), 1);
+        Assert.assertEquals(dico.get(2), 2);
+        Assert.assertTrue(dico.containsKey(2L));
+
+        Assert.assertEquals(dico.put(2L, 3), 2);
+        Assert.assertEquals(dico.get(2L), 3);
+        Assert.assertEquals(dico.remove(2L), 3);
+        Assert.assertEquals(dico.get(2L), IdDictionary.NULL_ID);
+        Assert.assertEquals(dico.size(), 1);
+    }
+
+    @Test
+    public void testInt() {
+        IdDictionary dico = newDictionary(Integer.class);
+        dico.put(42, 1);
+        Assert.assertEquals(dico.get(42L), 1);
+        Assert.assertEquals(dico.get((Object) 42), 1);
+        Assert.assertEquals(dico.get(42L + (1L << 32)), IdDictionary.NULL_ID);
+        Assert.assertEquals(dico.remove(42), 1);
+        Assert.assertEquals(dico.size(), 0);
+    }
+
+    @Test
+    public void testOtherKeyClass() {
+        IdDictionary dico = newDictionary(Long.class);
+        dico.put(1L, 1);
+        Assert.assertFalse(dico.isValidKey(1));
+        Assert.assertFalse(dico.isValidKey("1"));
+        Assert.assertTrue(dico.isValidKey(1L));
+        Assert.assertEquals(dico.get((Object) 1), IdDictionary.NULL_ID);
+        Assert.assertEquals(dico.get("1"), IdDictionary.NULL_ID);
+        Assert.assertFalse(dico.containsKey("1"));
+        Assert.assertEquals(dico.remove(1), IdDictionary.NULL_ID);
+        Assert.assertEquals(dico.size(), 1);
+    }
+
+    @Test
+    public void testObject() {
+        IdDictionary dico = newDictionary(null);
+        dico.put("foo", 1);
+        dico.put(2, 2);
+        dico.put(3L, 3);
+        Assert.assertTrue(dico.isValidKey("foo"));
+        Assert.assertEquals(dico.get("foo"), 1);
+        Assert.assertEquals(dico.get(2L), 2);
+        Assert.assertEquals(dico.get(3L), 3);
+        Assert.assertEquals(dico.get(4L), IdDictionary.NULL_ID);
+        Assert.assertEquals(dico.remove("foo"), 1);
+        Assert.assertFalse(dico.containsKey("foo"));
+    }
+
+    @Test
+    public void testTrim() {
+        IdDictionary dico = newDictionary(Long.class);
+        dico.ensureCapacity(1000);
+        for (long i = 0; i < 1000; i++) {
+            dico.put(i, (int) i);
+        }
+        for (long i = 0; i < 990; i++) {
+            dico.remove(i);
+        }
+        dico.trim(16);
+        Assert.assertEquals(dico.size(), 10);
+        for (long i = 990; i < 1000; i++) {
+            Assert.assertEquals(dico.get(i), (int) i);
+        }
+    }
+
+    private static IdDictionary newDictionary(Class idType) {
+        return IdDictionary.create(idType, 16, 0.75f);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
+import it.unimi.dsi.fastutil.ints.IntSortedSet;
+import java.util.Random;
+import org.gephi.graph.impl.utils.IntBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class IntBitmapTest {
+
+    @Test
+    public void testEmpty() {
+        IntBitmap bitmap = new IntBitmap();
+        Assert.assertTrue(bitmap.isEmpty());
+        Assert.assertEquals(bitmap.cardinality(), 0);
+        Assert.assertFalse(bitmap.contains(0));
+        Assert.assertFalse(bitmap.iterator().hasNext());
+        Assert.assertEquals(bitmap.toArray().length, 0);
+    }
+
+    @Test
+    public void testAddRemove() {
+        IntBitmap bitmap = new IntBitmap();
+        Assert.assertTrue(bitmap.add(5));
+        Assert.assertFalse(bitmap.add(5));
+        Assert.assertTrue(bitmap.add(1 << 20));
+        Assert.assertTrue(bitmap.contains(5));
+        Assert.assertTrue(bitmap.contains(1 << 20));
+        Assert.assertFalse(bitmap.contains(6));
+        Assert.assertEquals(bitmap.cardinality(), 2);
+
+        Assert.assertTrue(bitmap.remove(5));
+        Assert.assertFalse(bitmap.remove(5));
+        Assert.assertFalse(bitmap.remove(-1));
+        Assert.assertEquals(bitmap.toArray(), new int[] { 1 << 20 });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddNegative() {
+        new IntBitmap().add(-1);
+    }
+
+    @Test
+    public void testDenseContainer() {
+        IntBitmap bitmap = new IntBitmap();
+        for (int i = 0; i < 20000; i++) {
+            bitmap.add(i * 3);
+        }
+        Assert.assertEquals(bitmap.cardinality(), 20000);
+        for (int i = 0; i < 60000; i++) {
+            Assert.assertEquals(bitmap.contains(i), i % 3 == 0);
+        }
+        for (int i = 0; i < 20000; i++) {
+            Assert.assertTrue(bitmap.remove(i * 3));
+        }
+        Assert.assertTrue(bitmap.isEmpty());
+    }
+
+    @Test
+    public void testIteratorOrder() {
+        Random random = new Random(42);
+        IntSortedSet expected = new IntRBTreeSet();
+        IntBitmap bitmap = new IntBitmap();
+        for (int i = 0; i < 50000; i++) {
+            int value = random.nextInt(1 << 18);
+            expected.add(value);
+            bitmap.add(value);
+        }
+        Assert.assertEquals(bitmap.cardinality(), expected.size());
+        Assert.assertEquals(bitmap.toArray(), expected.toIntArray());
+
+        IntIterator itr = bitmap.iterator();
+        for (int value : expected) {
+            Assert.assertTrue(itr.hasNext());
+            Assert.assertEquals(itr.nextInt(), value);
+        }
+        Assert.assertFalse(itr.hasNext());
+
+        IntOpenHashSet visited = new IntOpenHashSet();
+        bitmap.forEach(visited::add);
+        Assert.assertEquals(visited, expected);
+    }
+
+    @Test
+    public void testCopy() {
+        IntBitmap bitmap = randomBitmap(new Random(1), 10000, 1 << 17);
+        IntBitmap copy = bitmap.copy();
+        Assert.assertEquals(copy.toArray(), bitmap.toArray());
+        copy.add(1 << 25);
+        Assert.assertFalse(bitmap.contains(1 << 25));
+    }
+
+    @Test
+    public void testSetOperations() {
+        Random random = new Random(7);
+        int[][] shapes = { { 100, 1 << 17 }, { 30000, 1 << 17 }, { 60000, 1 << 16 } };
+        for (int[] shapeA : shapes) {
+            for (int[] shapeB : shapes) {
+                IntBitmap a = randomBitmap(random, shapeA[0], shapeA[1]);
+                IntBitmap b = randomBitmap(random, shapeB[0], shapeB[1]);
+
+                IntSortedSet and = new IntRBTreeSet();
+                IntSortedSet or = new IntRBTreeSet(a.toArray());
+                IntSortedSet andNot = new IntRBTreeSet();
+                for (int value : a.toArray()) {
+                    if (b.contains(value)) {
+                        and.add(value);
+                    } else {
+                        andNot.add(value);
+                    }
+                }
+                or.addAll(new IntRBTreeSet(b.toArray()));
+
+                Assert.assertEquals(IntBitmap.and(a, b).toArray(), and.toIntArray());
+                Assert.assertEquals(IntBitmap.and(a, b).cardinality(), and.size());
+                Assert.assertEquals(IntBitmap.andCardinality(a, b), and.size());
+                Assert.assertEquals(IntBitmap.or(a, b).toArray(), or.toIntArray());
+                Assert.assertEquals(IntBitmap.or(a, b).cardinality(), or.size());
+                Assert.assertEquals(IntBitmap.andNot(a, b).toArray(), andNot.toIntArray());
+                Assert.assertEquals(IntBitmap.andNot(a, b).cardinality(), andNot.size());
+            }
+        }
+    }
+
+    @Test
+    public void testClear() {
+        IntBitmap bitmap = randomBitmap(new Random(3), 1000, 1 << 20);
+        bitmap.clear();
+        Assert.assertTrue(bitmap.isEmpty());
+        Assert.assertFalse(bitmap.iterator().hasNext());
+        bitmap.add(3);
+        Assert.assertEquals(bitmap.toArray(), new int[] { 3 });
+    }
+
+    // UTILITY
+    private static IntBitmap randomBitmap(Random random, int count, int bound) {
+        IntBitmap bitmap = new IntBitmap();
+        for (int i = 0; i < count; i++) {
+            bitmap.add(random.nextInt(bound));
+        }
+        return bitmap;
+    }
+}
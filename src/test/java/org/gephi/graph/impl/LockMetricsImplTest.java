@@ -0,0 +1,295 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.LockMetrics;
+import org.gephi.graph.api.LockStatistics;
+import org.gephi.graph.api.Node;
+import org.gephi.graph.api.Rect2D;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LockMetricsImplTest {
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testDisabled() {
+        new GraphModelImpl().getLockMetrics();
+    }
+
+    @Test
+    public void testDisabledLocks() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        Assert.assertNull(graphModel.store.lockMetrics);
+        Assert.assertNull(graphModel.store.lock.readStatistics);
+        Assert.assertNull(graphModel.store.lock.writeStatistics);
+        Assert.assertNull(graphModel.store.nodeTable.store.lock.statistics);
+    }
+
+    @Test
+    public void testWriteLock() {
+        GraphModelImpl graphModel = createGraphModel();
+        LockMetrics metrics = graphModel.getLockMetrics();
+        graphModel.store.addNode(graphModel.factory().newNode("1"));
+
+        LockStatistics statistics = metrics.getGraphWriteLockStatistics();
+        Assert.assertEquals(statistics.getAcquisitionCount(), 1);
+        Assert.assertEquals(statistics.getContendedAcquisitionCount(), 0);
+        Assert.assertEquals(sum(statistics.getWaitTimeHistogram()), 1);
+        Assert.assertEquals(sum(statistics.getHoldTimeHistogram()), 1);
+        Assert.assertTrue(statistics.getTotalHoldTime() >= statistics.getMaxHoldTime());
+        Assert.assertTrue(statistics.getMaxHoldTime() > 0);
+    }
+
+    @Test
+    public void testReentrantAcquisitions() {
+        GraphModelImpl graphModel = createGraphModel();
+        GraphLockImpl lock = graphModel.store.lock;
+        lock.writeLock();
+        lock.writeLock();
+        lock.readLock();
+        lock.readLock();
+        lock.readUnlock();
+        lock.readUnlock();
+        lock.writeUnlock();
+        lock.writeUnlock();
+
+        LockMetrics metrics = graphModel.getLockMetrics();
+        Assert.assertEquals(metrics.getGraphWriteLockStatistics().getAcquisitionCount(), 1);
+        Assert.assertEquals(metrics.getGraphReadLockStatistics().getAcquisitionCount(), 1);
+        Assert.assertEquals(sum(metrics.getGraphReadLockStatistics().getHoldTimeHistogram()), 1);
+    }
+
+    @Test
+    public void testReadUnlockAll() {
+        GraphModelImpl graphModel = createGraphModel();
+        GraphLockImpl lock = graphModel.store.lock;
+        lock.readLock();
+        lock.readLock();
+        lock.readUnlockAll();
+
+        LockStatistics statistics = graphModel.getLockMetrics().getGraphReadLockStatistics();
+        Assert.assertEquals(statistics.getAcquisitionCount(), 1);
+        Assert.assertEquals(sum(statistics.getHoldTimeHistogram()), 1);
+        Assert.assertEquals(lock.getReadHoldCount(), 0);
+    }
+
+    @Test
+    public void testFailedUpgrade() {
+        GraphModelImpl graphModel = createGraphModel();
+        GraphLockImpl lock = graphModel.store.lock;
+        lock.readLock();
+        try {
+            lock.writeLock();
+            Assert.fail();
+        } catch (IllegalMonitorStateException e) {
+            // Expected
+        } finally {
+            lock.readUnlock();
+        }
+
+        LockStatistics statistics = graphModel.getLockMetrics().getGraphWriteLockStatistics();
+        Assert.assertEquals(statistics.getFailedUpgradeCount(), 1);
+        Assert.assertEquals(statistics.getAcquisitionCount(), 0);
+    }
+
+    @Test
+    public void testOptimisticLock() {
+        GraphModelImpl graphModel = new GraphModelImpl(
+                Configuration.builder().enableLockMetrics(true).enableOptimisticLocking(true).build());
+        Assert.assertTrue(graphModel.store.lock instanceof OptimisticGraphLockImpl);
+        graphModel.store.addNode(graphModel.factory().newNode("1"));
+
+        Assert.assertEquals(graphModel.getLockMetrics().getGraphWriteLockStatistics().getAcquisitionCount(), 1);
+    }
+
+    @Test
+    public void testContention() throws InterruptedException {
+        GraphModelImpl graphModel = createGraphModel();
+        GraphLockImpl lock = graphModel.store.lock;
+        CountDownLatch started = new CountDownLatch(1);
+
+        lock.writeLock();
+        Thread thread = new Thread(() -> {
+            started.countDown();
+            lock.readLock();
+            lock.readUnlock();
+        }, "reader");
+        thread.start();
+        started.await();
+        while (!lock.readWriteLock.hasQueuedThreads()) {
+            Thread.yield();
+        }
+        lock.writeUnlock();
+        thread.join();
+
+        LockStatistics statistics = graphModel.getLockMetrics().getGraphReadLockStatistics();
+        Assert.assertEquals(statistics.getAcquisitionCount(), 1);
+        Assert.assertEquals(statistics.getContendedAcquisitionCount(), 1);
+        Assert.assertTrue(statistics.getMaxWaitTime() > 0);
+        Assert.assertEquals(statistics.getTopHolders(10).keySet().iterator().next(), "reader");
+    }
+
+    @Test
+    public void testTopHolders() throws InterruptedException {
+        GraphModelImpl graphModel = createGraphModel();
+        GraphLockImpl lock = graphModel.store.lock;
+
+        Thread thread = new Thread(() -> {
+            lock.writeLock();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.writeUnlock();
+            }
+        }, "writer");
+        thread.start();
+        thread.join();
+        lock.writeLock();
+        lock.writeUnlock();
+
+        Map<String, Long> holders = graphModel.getLockMetrics().getGraphWriteLockStatistics().getTopHolders(10);
+        Assert.assertEquals(holders.size(), 2);
+        Assert.assertEquals(holders.keySet().iterator().next(), "writer");
+        Assert.assertTrue(holders.get("writer") >= 20_000_000L);
+
+        Assert.assertEquals(graphModel.getLockMetrics().getGraphWriteLockStatistics().getTopHolders(1).size(), 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTopHoldersNegativeCount() {
+        createGraphModel().getLockMetrics().getGraphWriteLockStatistics().getTopHolders(-1);
+    }
+
+    @Test
+    public void testTableLock() {
+        GraphModelImpl graphModel = createGraphModel();
+        Column column = graphModel.getNodeTable().addColumn("foo", Integer.class);
+        Node node = graphModel.factory().newNode("1");
+        graphModel.store.addNode(node);
+        graphModel.getLockMetrics().reset();
+
+        node.setAttribute(column, 1);
+
+        LockStatistics statistics = graphModel.getLockMetrics().getTableLockStatistics();
+        Assert.assertTrue(statistics.getAcquisitionCount() > 0);
+        Assert.assertEquals(sum(statistics.getHoldTimeHistogram()), statistics.getAcquisitionCount());
+    }
+
+    @Test
+    public void testNestedTableLocks() throws InterruptedException {
+        LockStatisticsImpl statistics = new LockStatisticsImpl("table");
+        TableLockImpl outer = new TableLockImpl(statistics);
+        TableLockImpl inner = new TableLockImpl(statistics);
+
+        outer.lock();
+        Thread.sleep(20);
+        inner.lock();
+        inner.lock();
+        Thread.sleep(20);
+        inner.unlock();
+        inner.unlock();
+        outer.unlock();
+
+        long millis = 1000000L;
+        Assert.assertEquals(statistics.getAcquisitionCount(), 2);
+        Assert.assertEquals(sum(statistics.getHoldTimeHistogram()), 2);
+        Assert.assertTrue(statistics.getMaxHoldTime() >= 40 * millis);
+        Assert.assertTrue(statistics.getTotalHoldTime() >= 60 * millis);
+    }
+
+    @Test
+    public void testSpatialIndexLock() {
+        GraphModelImpl graphModel = new GraphModelImpl(
+                Configuration.builder().enableLockMetrics(true).enableSpatialIndex(true).build());
+        Node node = graphModel.factory().newNode("1");
+        node.setX(10f);
+        graphModel.store.addNode(node);
+        graphModel.store.getSpatialIndex().getNodesInArea(new Rect2D(0, -10, 20, 10)).toArray();
+
+        LockMetrics metrics = graphModel.getLockMetrics();
+        Assert.assertTrue(metrics.getSpatialIndexWriteLockStatistics().getAcquisitionCount() > 0);
+        Assert.assertTrue(metrics.getSpatialIndexReadLockStatistics().getAcquisitionCount() > 0);
+    }
+
+    @Test
+    public void testReset() {
+        GraphModelImpl graphModel = createGraphModel();
+        graphModel.store.addNode(graphModel.factory().newNode("1"));
+        LockMetrics metrics = graphModel.getLockMetrics();
+        metrics.reset();
+
+        LockStatistics statistics = metrics.getGraphWriteLockStatistics();
+        Assert.assertEquals(statistics.getAcquisitionCount(), 0);
+        Assert.assertEquals(statistics.getTotalHoldTime(), 0);
+        Assert.assertEquals(statistics.getMaxHoldTime(), 0);
+        Assert.assertEquals(sum(statistics.getHoldTimeHistogram()), 0);
+        Assert.assertTrue(statistics.getTopHolders(10).isEmpty());
+    }
+
+    @Test
+    public void testBucket() {
+        Assert.assertEquals(LockStatisticsImpl.bucket(0), 0);
+        Assert.assertEquals(LockStatisticsImpl.bucket(1), 1);
+        Assert.assertEquals(LockStatisticsImpl.bucket(2), 2);
+        Assert.assertEquals(LockStatisticsImpl.bucket(3), 2);
+        Assert.assertEquals(LockStatisticsImpl.bucket(4), 3);
+        Assert.assertEquals(LockStatisticsImpl.bucket(Long.MAX_VALUE), 63);
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        GraphModelImpl graphModel = createGraphModel();
+        Path file = Files.createTempFile("locks", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.gephi.graph.Lock");
+            recording.start();
+            graphModel.store.addNode(graphModel.factory().newNode("1"));
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            Assert.assertTrue(events.stream().anyMatch(e -> "graph.write".equals(e.getString("lock"))));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static GraphModelImpl createGraphModel() {
+        GraphModelImpl graphModel = new GraphModelImpl(Configuration.builder().enableLockMetrics(true).build());
+        graphModel.getLockMetrics().reset();
+        return graphModel;
+    }
+
+    private static long sum(long[] histogram) {
+        long sum = 0;
+        for (long count : histogram) {
+            sum += count;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class NeighborIndexImplTest {
+
+    @Test
+    public void testIntersectEmpty() {
+        Assert.assertEquals(NeighborIndexImpl.intersect(new int[0], new int[] { 1, 2 }, null), 0);
+        Assert.assertEquals(NeighborIndexImpl.intersect(new int[] { 1, 2 }, new int[0], null), 0);
+    }
+
+    @Test
+    public void testIntersectMerge() {
+        int[] buffer = new int[3];
+        int count = NeighborIndexImpl.intersect(new int[] { 1, 3, 5, 7 }, new int[] { 2, 3, 4, 7, 9 }, buffer);
+        Assert.assertEquals(count, 2);
+        Assert.assertEquals(buffer, new int[] { 3, 7, 0 });
+    }
+
+    @Test
+    public void testIntersectGallop() {
+        int[] large = new int[1000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = i * 2;
+        }
+        int[] small = new int[] { -1, 0, 3, 500, 1998, 2000 };
+        int[] buffer = new int[3];
+        Assert.assertEquals(NeighborIndexImpl.intersect(small, large, buffer), 3);
+        Assert.assertEquals(buffer, new int[] { 0, 500, 1998 });
+        Assert.assertEquals(NeighborIndexImpl.intersect(large, small, null), 3);
+    }
+
+    @Test
+    public void testIntersectSmallBuffer() {
+        int[] buffer = new int[1];
+        Assert.assertEquals(NeighborIndexImpl.intersect(new int[] { 1, 2, 3 }, new int[] { 1, 2, 3 }, buffer), 3);
+        Assert.assertEquals(buffer[0], 1);
+    }
+
+    @Test
+    public void testIntersectRandom() {
+        Random random = new Random(7);
+        for (int k = 0; k < 100; k++) {
+            TreeSet<Integer> a = randomSet(random, 1 + random.nextInt(10));
+            TreeSet<Integer> b = randomSet(random, 1 + random.nextInt(1000));
+            TreeSet<Integer> expected = new TreeSet<>(a);
+            expected.retainAll(b);
+
+            int[] buffer = new int[expected.size()];
+            Assert.assertEquals(NeighborIndexImpl.intersect(toArray(a), toArray(b), buffer), expected.size());
+            Assert.assertEquals(buffer, toArray(expected));
+        }
+    }
+
+    @Test
+    public void testToRow() {
+        int[] neighbors = new int[] { 5, 2, 9, 2, 4, 5, 4, 0 };
+        Assert.assertEquals(NeighborIndexImpl.toRow(4, neighbors, 7), new int[] { 2, 5, 9 });
+        Assert.assertSame(NeighborIndexImpl.toRow(4, neighbors, 0), NeighborIndexImpl.EMPTY_ROW);
+    }
+
+    @Test
+    public void testGetRow() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStoreWithMutualEdge();
+        NeighborIndexImpl index = new NeighborIndexImpl();
+        NodeImpl n1 = (NodeImpl) graphStore.getNode("1");
+        NodeImpl n2 = (NodeImpl) graphStore.getNode("2");
+
+        int[] row = index.getRow(graphStore.edgeStore, n1, null);
+        Assert.assertEquals(row, new int[] { n2.storeId });
+        Assert.assertSame(index.getRow(graphStore.edgeStore, n1, null), row);
+    }
+
+    @Test
+    public void testGetRowInvalidated() {
+        GraphStore graphStore = GraphGenerator.generateTinyGraphStoreWithMutualEdge();
+        NeighborIndexImpl index = new NeighborIndexImpl();
+        NodeImpl n1 = (NodeImpl) graphStore.getNode("1");
+        index.getRow(graphStore.edgeStore, n1, null);
+
+        for (Edge edge : graphStore.getEdges().toArray()) {
+            graphStore.removeEdge(edge);
+        }
+        Assert.assertEquals(index.getRow(graphStore.edgeStore, n1, null).length, 1);
+        index.incrementVersion();
+        Assert.assertEquals(index.getRow(graphStore.edgeStore, n1, null).length, 0);
+    }
+
+    @Test
+    public void testStoreIndexInvalidated() {
+        GraphStore graphStore = new GraphModelImpl(Configuration.builder().enableNeighborIndex(true).build()).store;
+        Node[] nodes = GraphGenerator.generateNodeList(3, graphStore);
+        graphStore.addAllNodes(Arrays.asList(nodes));
+        graphStore.addEdge(graphStore.factory.newEdge(nodes[0], nodes[2]));
+        Assert.assertEquals(graphStore.countCommonNeighbors(nodes[0], nodes[1]), 0);
+
+        Edge edge = graphStore.factory.newEdge(nodes[1], nodes[2]);
+        graphStore.addEdge(edge);
+        Assert.assertEquals(graphStore.countCommonNeighbors(nodes[0], nodes[1]), 1);
+
+        graphStore.removeEdge(edge);
+        Assert.assertEquals(graphStore.countCommonNeighbors(nodes[0], nodes[1]), 0);
+    }
+
+    private static TreeSet<Integer> randomSet(Random random, int size) {
+        TreeSet<Integer> set = new TreeSet<>();
+        while (set.size() < size) {
+            set.add(random.nextInt(size * 4));
+        }
+        return set;
+    }
+
+    private static int[] toArray(TreeSet<Integer> set) {
+        return set.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class NodePositionStoreTest {
+
+    @Test
+    public void testSetGet() {
+        NodePositionStore store = new NodePositionStore();
+        store.set(3, 1f, 2f, 3f, 4f);
+        Assert.assertEquals(store.x(3), 1f);
+        Assert.assertEquals(store.y(3), 2f);
+        Assert.assertEquals(store.z(3), 3f);
+        Assert.assertEquals(store.size(3), 4f);
+
+        store.setX(3, 5f);
+        store.setY(3, 6f);
+        store.setZ(3, 7f);
+        store.setSize(3, 8f);
+        Assert.assertEquals(store.x(3), 5f);
+        Assert.assertEquals(store.y(3), 6f);
+        Assert.assertEquals(store.z(3), 7f);
+        Assert.assertEquals(store.size(3), 8f);
+    }
+
+    @Test
+    public void testMultipleBlocks() {
+        NodePositionStore store = new NodePositionStore(64);
+        int count = 64 * 40 + 3;
+        for (int i = 0; i < count; i++) {
+            store.set(i, i, -i, 0f, i * 2);
+        }
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(store.x(i), (float) i);
+            Assert.assertEquals(store.y(i), (float) -i);
+            Assert.assertEquals(store.size(i), (float) i * 2);
+        }
+    }
+
+    @Test
+    public void testGetSetPositions() {
+        NodePositionStore store = new NodePositionStore(64);
+        int count = 64 * 3 + 5;
+        for (int i = 0; i < count; i++) {
+            store.set(i, i, i + 1, 0f, i + 2);
+        }
+        float[] xs = new float[count + 1];
+        float[] ys = new float[count + 1];
+        float[] sizes = new float[count];
+        xs[count] = -1f;
+        store.getPositions(xs, ys, count);
+        store.getSizes(sizes, count);
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(xs[i], (float) i);
+            Assert.assertEquals(ys[i], (float) i + 1);
+            Assert.assertEquals(sizes[i], (float) i + 2);
+        }
+        Assert.assertEquals(xs[count], -1f);
+
+        for (int i = 0; i < count; i++) {
+            xs[i] = -i;
+            ys[i] = i * 10;
+        }
+        store.setPositions(xs, ys, count);
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(store.x(i), (float) -i);
+            Assert.assertEquals(store.y(i), (float) i * 10);
+            Assert.assertEquals(store.size(i), (float) i + 2);
+        }
+    }
+
+    @Test
+    public void testSkipMissingBlocks() {
+        NodePositionStore store = new NodePositionStore(64);
+        store.set(64 * 2, 1f, 2f, 0f, 0f);
+        float[] xs = new float[64 * 3];
+        float[] ys = new float[64 * 3];
+        store.getPositions(xs, ys, xs.length);
+        Assert.assertEquals(xs[64 * 2], 1f);
+        store.setPositions(xs, ys, xs.length);
+        Assert.assertEquals(store.y(64 * 2), 2f);
+    }
+
+    @Test
+    public void testTrim() {
+        NodePositionStore store = new NodePositionStore(64);
+        store.set(1, 1f, 1f, 1f, 1f);
+        store.set(64 * 2 + 1, 2f, 2f, 2f, 2f);
+        store.trim(2);
+        Assert.assertEquals(store.x(1), 1f);
+        Assert.assertNull(store.x[2]);
+        store.set(64 * 2 + 1, 3f, 3f, 3f, 3f);
+        Assert.assertEquals(store.x(64 * 2 + 1), 3f);
+    }
+
+    @Test
+    public void testClear() {
+        NodePositionStore store = new NodePositionStore(64);
+        store.set(1, 1f, 1f, 1f, 1f);
+        store.clear();
+        Assert.assertNull(store.x[0]);
+    }
+}
@@ -27,6 +27,8 @@ import java.util.Random;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.stream.Collectors;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Node;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -744,4 +746,84 @@ public class NodeStoreTest {
         }
         return set.toIntArray();
     }
+
+    @Test
+    public void testBulkAdd() {
+        GraphStore graphStore = new GraphStore();
+        Column column = graphStore.nodeTable.addColumn("foo", Integer.class);
+        NodeStore nodeStore = graphStore.nodeStore;
+        nodeStore.add(graphStore.factory.newNode("first"));
+
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < GraphStoreConfiguration.BULK_LOAD_THRESHOLD * 3; i++) {
+            Node node = graphStore.factory.newNode(String.valueOf(i));
+            node.setAttribute(column, i % 10);
+            nodes.add(node);
+        }
+        Assert.assertTrue(nodeStore.addAll(nodes));
+
+        Assert.assertEquals(nodeStore.size(), nodes.size() + 1);
+        for (int i = 0; i < nodes.size(); i++) {
+            NodeImpl node = (NodeImpl) nodes.get(i);
+            Assert.assertEquals(node.storeId, i + 1);
+            Assert.assertSame(nodeStore.get(node.getId()), node);
+        }
+        Assert.assertEquals(graphStore.nodeTable.store.indexStore.mainIndex.count(column, 3), (nodes.size() + 6) / 10);
+    }
+
+    @Test
+    public void testBulkAddDuplicateNode() {
+        NodeStore nodeStore = new NodeStore();
+        List<NodeImpl> nodes = new ArrayList<>(
+                Arrays.asList(GraphGenerator.generateNodeList(GraphStoreConfiguration.BULK_LOAD_THRESHOLD)));
+        nodes.add(nodes.get(5));
+
+        Assert.assertTrue(nodeStore.addAll(nodes));
+        Assert.assertEquals(nodeStore.size(), nodes.size() - 1);
+    }
+
+    @Test
+    public void testBulkAddDuplicateId() {
+        NodeStore nodeStore = new NodeStore();
+        NodeImpl[] nodes = GraphGenerator.generateNodeList(GraphStoreConfiguration.BULK_LOAD_THRESHOLD);
+        nodeStore.add(nodes[0]);
+        List<NodeImpl> batch = new ArrayList<>(Arrays.asList(nodes).subList(1, nodes.length));
+        batch.add(100, new NodeImpl(nodes[0].getId()));
+
+        try {
+            nodeStore.addAll(batch);
+            Assert.fail("Expected duplicate id failure");
+        } catch (IllegalArgumentException e) {
+            // Same partial addition as the sequential path
+        }
+        Assert.assertEquals(nodeStore.size(), 101);
+        Assert.assertSame(nodeStore.get(nodes[0].getId()), nodes[0]);
+        Assert.assertEquals(batch.get(100).storeId, NodeStore.NULL_ID);
+        Assert.assertEquals(batch.get(101).storeId, NodeStore.NULL_ID);
+    }
+
+    @Test
+    public void testBulkAddInvalidIdType() {
+        GraphStore graphStore = new GraphModelImpl(Configuration.builder().nodeIdType(Integer.class).build())
+                .getStore();
+        NodeStore nodeStore = graphStore.nodeStore;
+        List<NodeImpl> batch = new ArrayList<>();
+        for (int i = 0; i < GraphStoreConfiguration.BULK_LOAD_THRESHOLD; i++) {
+            batch.add(new NodeImpl(i, graphStore));
+        }
+        batch.add(100, new NodeImpl("foo"));
+
+        try {
+            nodeStore.addAll(batch);
+            Assert.fail("Expected id type failure");
+        } catch (IllegalArgumentException e) {
+            // Same partial addition as the sequential path
+        }
+        Assert.assertEquals(nodeStore.size(), 100);
+        Assert.assertEquals(batch.get(100).storeId, NodeStore.NULL_ID);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertSame(nodeStore.get((Object) i), batch.get(i));
+        }
+        Assert.assertEquals(batch.get(101).storeId, NodeStore.NULL_ID);
+    }
 }
@@ -728,6 +728,149 @@ public class NodesQuadTreeTest {
                 .getEdges(new Rect2D(-2000, -2000, -999, -999), false), new EdgeImpl[] { edges[0], edges[0] });
     }
 
+    @Test
+    public void testRebuildEmpty() {
+        NodesQuadTree q = new NodesQuadTree(BOUNDS_RECT);
+        q.rebuild();
+        Assert.assertEquals(q.getObjectCount(), 0);
+        Assert.assertEquals(q.getDepth(), 0);
+    }
+
+    @Test
+    public void testRebuild() {
+        NodesQuadTree q = new NodesQuadTree(null, BOUNDS_RECT, GraphStoreConfiguration.SPATIAL_INDEX_MAX_LEVELS, 64);
+        NodeImpl[] nodes = addRandomNodes(q, 5000, 0);
+
+        // Nodes outside a store don't update the tree when moved
+        Random random = new Random(7L);
+        for (NodeImpl node : nodes) {
+            node.setPosition(random.nextFloat() * BOUNDS, random.nextFloat() * BOUNDS);
+        }
+        q.rebuild();
+
+        Assert.assertEquals(q.getObjectCount(), nodes.length);
+        Assert.assertTrue(q.getDepth() >= 1);
+        assertSameSetAndCount(q.getAllNodes(), nodes);
+        for (int i = 0; i < 20; i++) {
+            float x = random.nextFloat() * BOUNDS;
+            float y = random.nextFloat() * BOUNDS;
+            Rect2D rect = new Rect2D(x - BOUNDS / 10, y - BOUNDS / 10, x + BOUNDS / 10, y + BOUNDS / 10);
+            Node[] expected = Arrays.stream(nodes)
+                    .filter(n -> rect
+                            .intersects(n.x() - n.size(), n.y() - n.size(), n.x() + n.size(), n.y() + n.size()))
+                    .toArray(Node[]::new);
+            if (expected.length > 0) {
+                assertSameSetAndCount(q.getNodes(rect), expected);
+            } else {
+                assertEmpty(q.getNodes(rect));
+            }
+        }
+    }
+
+    @Test
+    public void testRebuildThenUpdate() {
+        NodesQuadTree q = new NodesQuadTree(null, BOUNDS_RECT, GraphStoreConfiguration.SPATIAL_INDEX_MAX_LEVELS, 64);
+        NodeImpl[] nodes = addRandomNodes(q, 1000, 0);
+        q.rebuild();
+
+        Assert.assertTrue(q.updateNode(nodes[0], -BOUNDS, -BOUNDS, -BOUNDS + 1, -BOUNDS + 1));
+        Assert.assertTrue(q.removeNode(nodes[1]));
+        NodeImpl node = new NodeImpl("new");
+        node.setPosition(-BOUNDS + 5, -BOUNDS + 5);
+        Assert.assertTrue(q.addNode(node));
+
+        Assert.assertEquals(q.getObjectCount(), nodes.length);
+        assertSameSetAndCount(q.getNodes(new Rect2D(-BOUNDS, -BOUNDS, -BOUNDS + 10, -BOUNDS + 10)), nodes[0], node);
+        Assert.assertFalse(q.getAllNodes().toSet().contains(nodes[1]));
+    }
+
+    @Test
+    public void testRebuildOutOfBounds() {
+        NodesQuadTree q = new NodesQuadTree(new Rect2D(0, 0, 10, 10));
+        NodeImpl[] nodes = addRandomNodes(q, 100, 0, new Rect2D(0, 0, 10, 10));
+        nodes[0].setPosition(100, 100);
+        q.rebuild();
+
+        Assert.assertEquals(q.getObjectCount(), nodes.length);
+        assertSameSet(q.getNodes(new Rect2D(95, 95, 105, 105)), nodes[0]);
+    }
+
+    @Test
+    public void testAddNodes() {
+        NodesQuadTree q = new NodesQuadTree(null, BOUNDS_RECT, GraphStoreConfiguration.SPATIAL_INDEX_MAX_LEVELS, 64);
+        NodeImpl[] nodes = generateNodes(5000, 0, BOUNDS_RECT);
+        Assert.assertTrue(q.addNodes(nodes));
+
+        Assert.assertEquals(q.getObjectCount(), nodes.length);
+        Assert.assertTrue(q.getDepth() >= 1);
+        assertSameSetAndCount(q.getAllNodes(), nodes);
+        Rect2D rect = new Rect2D(-BOUNDS / 4, -BOUNDS / 4, BOUNDS / 2, BOUNDS / 3);
+        Node[] expected = Arrays.stream(nodes)
+                .filter(n -> rect.intersects(n.x() - n.size(), n.y() - n.size(), n.x() + n.size(), n.y() + n.size()))
+                .toArray(Node[]::new);
+        assertSameSetAndCount(q.getNodes(rect), expected);
+    }
+
+    @Test
+    public void testAddNodesSameAsInsert() {
+        NodesQuadTree incremental = new NodesQuadTree(null, BOUNDS_RECT, 8, 32);
+        NodesQuadTree bulk = new NodesQuadTree(null, BOUNDS_RECT, 8, 32);
+        NodeImpl[] incrementalNodes = generateStructureNodes();
+        NodeImpl[] bulkNodes = generateStructureNodes();
+        for (NodeImpl node : incrementalNodes) {
+            incremental.addNode(node);
+        }
+        bulk.addNodes(bulkNodes);
+
+        Assert.assertEquals(bulk.getObjectCount(), incremental.getObjectCount());
+        Assert.assertEquals(bulk.getDepth(), incremental.getDepth());
+        Assert.assertEquals(bulk.getNodeCount(false), incremental.getNodeCount(false));
+        Assert.assertEquals(bulk.getNodeCount(true), incremental.getNodeCount(true));
+        for (int i = 0; i < bulkNodes.length; i++) {
+            Assert.assertEquals(bulkNodes[i].getSpatialData().quadTreeNode
+                    .quadRect(), incrementalNodes[i].getSpatialData().quadTreeNode.quadRect());
+        }
+    }
+
+    @Test
+    public void testAddNodesParallel() {
+        int count = GraphStoreConfiguration.SPATIAL_INDEX_PARALLEL_BUILD_THRESHOLD;
+        NodesQuadTree q = new NodesQuadTree(null, BOUNDS_RECT, GraphStoreConfiguration.SPATIAL_INDEX_MAX_LEVELS, 64);
+        NodeImpl[] nodes = generateNodes(count, 0, BOUNDS_RECT);
+        q.addNodes(nodes);
+
+        Assert.assertEquals(q.getObjectCount(), count);
+        assertSameSetAndCount(q.getAllNodes(), nodes);
+        for (NodeImpl node : nodes) {
+            SpatialNodeDataImpl spatialData = node.getSpatialData();
+            Assert.assertTrue(spatialData.quadTreeNode.quadRect()
+                    .contains(spatialData.minX, spatialData.minY, spatialData.maxX, spatialData.maxY));
+        }
+    }
+
+    @Test
+    public void testAddNodesToExistingTree() {
+        NodesQuadTree q = new NodesQuadTree(null, BOUNDS_RECT, GraphStoreConfiguration.SPATIAL_INDEX_MAX_LEVELS, 64);
+        NodeImpl[] nodes = addRandomNodes(q, 1000, 0);
+        NodeImpl[] fewer = generateNodes(100, 1000, BOUNDS_RECT);
+        Assert.assertTrue(q.addNodes(fewer));
+        NodeImpl[] more = generateNodes(2000, 1100, BOUNDS_RECT);
+        Assert.assertTrue(q.addNodes(more));
+
+        Assert.assertEquals(q.getObjectCount(), nodes.length + fewer.length + more.length);
+        Assert.assertFalse(q.addNodes(fewer));
+        Assert.assertTrue(q.removeNode(nodes[0]));
+        Assert.assertTrue(q.removeNode(more[0]));
+        Assert.assertEquals(q.getObjectCount(), nodes.length + fewer.length + more.length - 2);
+    }
+
+    @Test
+    public void testAddNodesEmpty() {
+        NodesQuadTree q = new NodesQuadTree(BOUNDS_RECT);
+        Assert.assertFalse(q.addNodes(new NodeImpl[0]));
+        Assert.assertEquals(q.getObjectCount(), 0);
+    }
+
     // Utils
 
     private void assertSameSet(NodeIterable iterable, Node... expected) {
@@ -804,6 +947,21 @@ public class NodesQuadTreeTest {
         return nodes;
     }
 
+    // Small, large and out of bounds nodes, so some nodes don't fit in the leaves
+    private NodeImpl[] generateStructureNodes() {
+        Random rand = new Random(123L);
+        NodeImpl[] nodes = new NodeImpl[3000];
+        for (int i = 0; i < nodes.length; i++) {
+            NodeImpl node = new NodeImpl(String.valueOf(i));
+            float x = (rand.nextFloat() * 2 - 1) * BOUNDS * 1.1f;
+            float y = (rand.nextFloat() * 2 - 1) * BOUNDS * 1.1f;
+            node.setPosition(x, y);
+            node.setSize(i % 10 == 0 ? rand.nextFloat() * BOUNDS / 10 : 1f);
+            nodes[i] = node;
+        }
+        return nodes;
+    }
+
     private EdgeImpl[] addRandomEdges(GraphStore store, NodeImpl[] nodes, int count) {
         Random rand = new Random(789012L);
         for (NodeImpl n : nodes) {
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.gephi.graph.api.Configuration;
+import org.gephi.graph.api.Graph;
+import org.gephi.graph.api.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class OptimisticGraphLockImplTest {
+
+    @Test
+    public void testReentrantWriteLock() {
+        OptimisticGraphLockImpl lock = new OptimisticGraphLockImpl();
+        lock.writeLock();
+        lock.writeLock();
+        Assert.assertTrue(lock.stampedLock.isWriteLocked());
+        lock.writeUnlock();
+        Assert.assertTrue(lock.stampedLock.isWriteLocked());
+        lock.writeUnlock();
+        Assert.assertFalse(lock.stampedLock.isWriteLocked());
+        Assert.assertEquals(lock.getWriteHoldCount(), 0);
+    }
+
+    @Test(expectedExceptions = IllegalMonitorStateException.class)
+    public void testWriteLockAfterReadLock() {
+        OptimisticGraphLockImpl lock = new OptimisticGraphLockImpl();
+        lock.readLock();
+        lock.writeLock();
+    }
+
+    @Test(expectedExceptions = IllegalMonitorStateException.class)
+    public void testWriteUnlockWithoutLock() {
+        OptimisticGraphLockImpl lock = new OptimisticGraphLockImpl();
+        lock.writeUnlock();
+    }
+
+    @Test
+    public void testReadWithoutLocking() {
+        OptimisticGraphLockImpl lock = new OptimisticGraphLockImpl();
+        int holds = lock.read(lock::getReadHoldCount);
+        Assert.assertEquals(holds, 0);
+    }
+
+    @Test
+    public void testReadWhileHoldingWriteLock() {
+        OptimisticGraphLockImpl lock = new OptimisticGraphLockImpl();
+        lock.writeLock();
+        int holds = lock.read(lock::getReadHoldCount);
+        Assert.assertEquals(holds, 1);
+        lock.writeUnlock();
+    }
+
+    @Test
+    public void testReadRetriedAfterConcurrentWrite() {
+        OptimisticGraphLockImpl lock = new OptimisticGraphLockImpl();
+        AtomicInteger calls = new AtomicInteger();
+        int holds = lock.read(() -> {
+            if (calls.incrementAndGet() == 1) {
+                runInOtherThread(() -> {
+                    lock.writeLock();
+                    lock.writeUnlock();
+                });
+            }
+            return lock.getReadHoldCount();
+        });
+        Assert.assertEquals(calls.get(), 2);
+        Assert.assertEquals(holds, 1);
+    }
+
+    @Test
+    public void testExceptionRethrownWhenValid() {
+        OptimisticGraphLockImpl lock = new OptimisticGraphLockImpl();
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            lock.read(() -> {
+                calls.incrementAndGet();
+                throw new IllegalArgumentException("Invalid");
+            });
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(calls.get(), 1);
+        }
+    }
+
+    @Test
+    public void testExceptionRetriedAfterConcurrentWrite() {
+        OptimisticGraphLockImpl lock = new OptimisticGraphLockImpl();
+        AtomicInteger calls = new AtomicInteger();
+        int result = lock.read(() -> {
+            if (calls.incrementAndGet() == 1) {
+                runInOtherThread(() -> {
+                    lock.writeLock();
+                    lock.writeUnlock();
+                });
+                throw new ArrayIndexOutOfBoundsException();
+            }
+            return 42;
+        });
+        Assert.assertEquals(result, 42);
+        Assert.assertEquals(calls.get(), 2);
+    }
+
+    @Test
+    public void testGraphStoreUsesOptimisticLock() {
+        GraphStore store = new GraphStore(null, Configuration.builder().enableOptimisticLocking(true).build());
+        Assert.assertTrue(store.getLock() instanceof OptimisticGraphLockImpl);
+        Assert.assertFalse(new GraphStore().getLock() instanceof OptimisticGraphLockImpl);
+    }
+
+    @Test
+    public void testGraphStoreOptimisticReadStamp() {
+        GraphStore store = new GraphStore(null, Configuration.builder().enableOptimisticLocking(true).build());
+        Assert.assertNotEquals(store.tryOptimisticRead(), 0L);
+        store.writeLock();
+        Assert.assertEquals(store.tryOptimisticRead(), 0L);
+        Assert.assertNull(store.getNode("foo"));
+        store.writeUnlock();
+
+        // Short reads of the default lock and without auto locking never run optimistically
+        Assert.assertEquals(new GraphStore().tryOptimisticRead(), 0L);
+        Assert.assertEquals(new GraphStore(null,
+                Configuration.builder().enableOptimisticLocking(true).enableAutoLocking(false).build())
+                .tryOptimisticRead(), 0L);
+    }
+
+    @Test
+    public void testTryOptimisticReadValidate() {
+        OptimisticGraphLockImpl lock = new OptimisticGraphLockImpl();
+        long stamp = lock.tryOptimisticRead();
+        Assert.assertTrue(lock.validate(stamp));
+        runInOtherThread(() -> {
+            lock.writeLock();
+            lock.writeUnlock();
+        });
+        Assert.assertFalse(lock.validate(stamp));
+    }
+
+    @Test
+    public void testConcurrentReadsAndWrites() throws InterruptedException {
+        GraphModelImpl graphModel = new GraphModelImpl(Configuration.builder().enableOptimisticLocking(true).build());
+        Graph graph = graphModel.getGraph();
+        Node anchor = graphModel.factory().newNode("anchor");
+        graph.addNode(anchor);
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 2000; i++) {
+                    Node node = graphModel.factory().newNode(String.valueOf(i));
+                    graph.addNode(node);
+                    graph.addEdge(graphModel.factory().newEdge(anchor, node));
+                    if (i % 3 == 0) {
+                        graph.removeNode(node);
+                    }
+                }
+            } catch (Throwable t) {
+                error.compareAndSet(null, t);
+            } finally {
+                done.set(true);
+            }
+        });
+        Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                try {
+                    int i = 0;
+                    while (!done.get()) {
+                        String id = String.valueOf(i++ % 2000);
+                        Node node = graph.getNode(id);
+                        if (node != null) {
+                            graph.contains(node);
+                            graph.getEdge(anchor, node);
+                        }
+                        Assert.assertTrue(graph.contains(anchor));
+                    }
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                }
+            });
+        }
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.start();
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        Assert.assertNull(error.get());
+        for (int i = 0; i < 2000; i++) {
+            Node node = graph.getNode(String.valueOf(i));
+            Assert.assertEquals(node != null, i % 3 != 0);
+            Assert.assertEquals(node != null && graph.isAdjacent(anchor, node), i % 3 != 0);
+        }
+    }
+
+    // UTILITY
+    private static void runInOtherThread(Runnable runnable) {
+        CountDownLatch latch = new CountDownLatch(1);
+        new Thread(() -> {
+            runnable.run();
+            latch.countDown();
+        }).start();
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -57,9 +57,13 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.stream.Collectors;
+import org.gephi.graph.api.Column;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
 import org.gephi.graph.api.Origin;
+import org.gephi.graph.api.Rect2D;
 import org.gephi.graph.api.Estimator;
 import org.gephi.graph.api.TimeFormat;
 import org.gephi.graph.api.types.TimestampBooleanMap;
@@ -1271,6 +1275,93 @@ public class SerializationTest {
         Assert.assertTrue(read.deepEquals(gm));
     }
 
+    @Test
+    public void testColumnarPositions() throws Exception {
+        Configuration config = Configuration.builder().enableColumnarPositions(true).build();
+        GraphModelImpl gm = new GraphModelImpl(config);
+        NodeImpl n1 = new NodeImpl("1", gm.store);
+        n1.setPosition(1f, 2f, 3f);
+        n1.setSize(4f);
+        gm.store.addNode(n1);
+        n1.setX(5f);
+
+        Serialization ser = new Serialization(gm);
+        DataInputOutput dio = new DataInputOutput();
+        ser.serializeGraphModel(dio, gm);
+        byte[] bytes = dio.toByteArray();
+
+        GraphModelImpl read = new GraphModelImpl(config);
+        new Serialization().deserializeGraphModel(dio.reset(bytes), read);
+        Assert.assertTrue(read.deepEquals(gm));
+        NodeImpl node = (NodeImpl) read.getGraph().getNode("1");
+        Assert.assertEquals(node.x(), 5f);
+        Assert.assertEquals(node.y(), 2f);
+        Assert.assertEquals(node.z(), 3f);
+        Assert.assertEquals(node.size(), 4f);
+    }
+
+    @Test
+    public void testStringPool() throws Exception {
+        GraphModelImpl gm = new GraphModelImpl(Configuration.builder().enableStringPool(true).build());
+        GraphStore store = gm.getStore();
+        Column name = store.nodeTable.addColumn("name", String.class);
+        NodeImpl n1 = new NodeImpl("1", store);
+        n1.setAttribute(name, "1");
+        NodeImpl n2 = new NodeImpl("2", store);
+        n2.setLabel("日本\ud83d");
+        store.addAllNodes(Arrays.asList(n1, n2));
+        store.addEdge(new EdgeImpl("e", store, n1, n2, 0, 1.0, true));
+        // Leaves a released string in the pool
+        n1.setLabel("released");
+        n1.setLabel("é");
+
+        Serialization ser = new Serialization(gm);
+        DataInputOutput dio = new DataInputOutput();
+        ser.serializeGraphModel(dio, gm);
+        byte[] bytes = dio.toByteArray();
+
+        GraphModelImpl read = new GraphModelImpl(Configuration.builder().enableStringPool(true).build());
+        new Serialization().deserializeGraphModel(dio.reset(bytes), read);
+        Assert.assertTrue(read.deepEquals(gm));
+        Assert.assertEquals(read.getGraph().getNode("1").getLabel(), "é");
+        Assert.assertEquals(read.getGraph().getNode("1").getAttribute("name"), "1");
+        Assert.assertEquals(read.getGraph().getNode("2").getLabel(), "日本\ud83d");
+        Assert.assertNotNull(read.getGraph().getEdge("e"));
+        Assert.assertEquals(read.store.stringPool.size(), gm.store.stringPool.size());
+
+        GraphModelImpl readWithoutPool = new Serialization().deserializeGraphModel(dio.reset(bytes));
+        Assert.assertNull(readWithoutPool.store.stringPool);
+        Assert.assertEquals(readWithoutPool.getGraph().getNode("1").getLabel(), "é");
+        Assert.assertEquals(readWithoutPool.getGraph().getNode("2").getLabel(), "日本\ud83d");
+    }
+
+    @Test
+    public void testSpatialIndex() throws Exception {
+        GraphModelImpl gm = new GraphModelImpl();
+        GraphStore store = gm.getStore();
+        Random random = new Random(42L);
+        for (int i = 0; i < 1000; i++) {
+            NodeImpl node = new NodeImpl(String.valueOf(i), store);
+            node.setPosition(random.nextFloat() * 2000 - 1000, random.nextFloat() * 2000 - 1000);
+            store.addNode(node);
+        }
+
+        Serialization ser = new Serialization(gm);
+        DataInputOutput dio = new DataInputOutput();
+        ser.serializeGraphModel(dio, gm);
+        byte[] bytes = dio.toByteArray();
+
+        GraphModelImpl read = new Serialization().deserializeGraphModel(dio.reset(bytes));
+        SpatialIndexImpl spatialIndex = read.store.spatialIndex;
+        Assert.assertEquals(spatialIndex.getObjectCount(), 1000);
+        Rect2D rect = new Rect2D(-500, -500, 0, 0);
+        Set<Object> expected = gm.store.spatialIndex.getNodesInArea(rect).toCollection().stream().map(Node::getId)
+                .collect(Collectors.toSet());
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(spatialIndex.getNodesInArea(rect).toCollection().stream().map(Node::getId)
+                .collect(Collectors.toSet()), expected);
+    }
+
     @Test
     public void testReuseSerializationInstanceForDeserialization() throws Exception {
         GraphModelImpl gm1 = GraphGenerator.generateSmallGraphStore().graphModel;
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import org.gephi.graph.api.Column;
+import org.gephi.graph.api.Edge;
+import org.gephi.graph.api.GraphModel;
+import org.gephi.graph.api.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class SnapshotSerializationTest {
+
+    @Test
+    public void testEmptyModel() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl();
+
+        GraphModelImpl read = roundTrip(graphModel);
+        Assert.assertEquals(read.store.getNodeCount(), 0);
+        Assert.assertEquals(read.store.getEdgeCount(), 0);
+    }
+
+    @Test
+    public void testGraphModel() throws Exception {
+        GraphModelImpl graphModel = generateGraphModel();
+
+        GraphModelImpl read = roundTrip(graphModel);
+        assertSameGraph(graphModel.store, read.store);
+        Assert.assertTrue(graphModel.store.nodeStore.deepEquals(read.store.nodeStore));
+        Assert.assertTrue(graphModel.store.edgeStore.deepEquals(read.store.edgeStore));
+        Assert.assertTrue(graphModel.store.nodeTable.deepEquals(read.store.nodeTable));
+        Assert.assertTrue(graphModel.store.edgeTable.deepEquals(read.store.edgeTable));
+        Assert.assertTrue(graphModel.store.edgeTypeStore.deepEquals(read.store.edgeTypeStore));
+        Assert.assertTrue(graphModel.store.viewStore.deepEquals(read.store.viewStore));
+        Assert.assertTrue(graphModel.store.version.deepEquals(read.store.version));
+    }
+
+    @Test
+    public void testAttributes() throws Exception {
+        GraphModelImpl graphModel = generateGraphModel();
+
+        GraphModelImpl read = roundTrip(graphModel);
+        for (Node node : graphModel.store.getNodes()) {
+            Node readNode = read.store.getNode(node.getId());
+            Assert.assertTrue(Arrays.deepEquals(node.getAttributes(), readNode.getAttributes()));
+            Assert.assertEquals(readNode.x(), node.x());
+            Assert.assertEquals(readNode.size(), node.size());
+            Assert.assertEquals(readNode.getColor(), node.getColor());
+            Assert.assertEquals(readNode.isFixed(), node.isFixed());
+            Assert.assertEquals(readNode.getTextProperties().getText(), node.getTextProperties().getText());
+        }
+        for (Edge edge : graphModel.store.getEdges()) {
+            Edge readEdge = read.store.getEdge(edge.getId());
+            Assert.assertTrue(Arrays.deepEquals(edge.getAttributes(), readEdge.getAttributes()));
+            Assert.assertEquals(readEdge.getWeight(), edge.getWeight());
+            Assert.assertEquals(readEdge.getColor(), edge.getColor());
+        }
+    }
+
+    @Test
+    public void testColumnarAttributes() throws Exception {
+        GraphModelImpl graphModel = new GraphModelImpl(
+                org.gephi.graph.api.Configuration.builder().enableColumnarAttributes(true).build());
+        generateGraph(graphModel);
+
+        GraphModelImpl read = roundTrip(graphModel);
+        assertSameGraph(graphModel.store, read.store);
+        for (Edge edge : graphModel.store.getEdges()) {
+            Edge readEdge = read.store.getEdge(edge.getId());
+            Assert.assertTrue(Arrays.deepEquals(edge.getAttributes(), readEdge.getAttributes()));
+        }
+    }
+
+    @Test
+    public void testGarbage() throws Exception {
+        GraphModelImpl graphModel = generateGraphModel();
+        GraphStore store = graphModel.store;
+        // Edge-only views don't support node removals
+        store.viewStore.destroyView(store.viewStore.views[1]);
+        GraphViewImpl view = store.viewStore.createView();
+        for (Node node : store.getNodes().toArray()) {
+            if (node.getStoreId() % 3 == 0) {
+                store.removeNode(node);
+            } else if (node.getStoreId() % 2 == 0) {
+                view.addNode(node);
+            }
+        }
+        for (Edge edge : store.getEdges().toArray()) {
+            if (edge.getStoreId() % 5 == 0) {
+                store.removeEdge(edge);
+            } else if (view.containsNode((NodeImpl) edge.getSource()) && view
+                    .containsNode((NodeImpl) edge.getTarget())) {
+                view.addEdge(edge);
+            }
+        }
+
+        GraphModelImpl read = roundTrip(graphModel);
+        assertSameGraph(store, read.store);
+        Assert.assertEquals(read.store.nodeStore.garbageSize, 0);
+        Assert.assertEquals(read.store.edgeStore.garbageSize, 0);
+
+        GraphViewImpl readView = read.store.viewStore.views[view.storeId];
+        Assert.assertEquals(readView.getNodeCount(), view.getNodeCount());
+        Assert.assertEquals(readView.getEdgeCount(), view.getEdgeCount());
+        for (Node node : store.getNodes()) {
+            Assert.assertEquals(readView.containsNode((NodeImpl) read.store.getNode(node.getId())), view
+                    .containsNode((NodeImpl) node));
+            Assert.assertEquals(readView.getDegree(read.store.getNode(node.getId())), view.getDegree(node));
+        }
+        for (Edge edge : store.getEdges()) {
+            Assert.assertEquals(readView.containsEdge((EdgeImpl) read.store.getEdge(edge.getId())), view
+                    .containsEdge((EdgeImpl) edge));
+        }
+    }
+
+    @Test
+    public void testReadWriteAfterLoad() throws Exception {
+        GraphModelImpl graphModel = generateGraphModel();
+
+        GraphModelImpl read = roundTrip(graphModel);
+        Node node = read.store.factory.newNode("new");
+        read.store.addNode(node);
+        Edge edge = read.store.factory.newEdge(node, read.store.getNode("0"), 0, 1.0, true);
+        read.store.addEdge(edge);
+        Assert.assertSame(read.store.getEdge(node, read.store.getNode("0"), 0), edge);
+        Assert.assertEquals(node.getStoreId(), graphModel.store.getNodeCount());
+
+        for (Edge e : read.store.getEdges().toArray()) {
+            read.store.removeEdge(e);
+        }
+        Assert.assertEquals(read.store.getEdgeCount(), 0);
+        Assert.assertEquals(read.store.edgeStore.mutualEdgesSize, 0);
+        for (Node n : read.store.getNodes()) {
+            Assert.assertEquals(read.store.getDegree(n), 0);
+        }
+    }
+
+    @Test
+    public void testFormatSelection() throws Exception {
+        GraphModelImpl graphModel = generateGraphModel();
+
+        for (GraphModel.Serialization.Format format : GraphModel.Serialization.Format.values()) {
+            Path file = Files.createTempFile("graphstore", ".bin");
+            try {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    GraphModel.Serialization.write(channel, graphModel, format);
+                }
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    Assert.assertEquals(SnapshotSerialization
+                            .isSnapshot(channel), format == GraphModel.Serialization.Format.SNAPSHOT);
+                    GraphModelImpl read = (GraphModelImpl) GraphModel.Serialization.read(channel);
+                    assertSameGraph(graphModel.store, read.store);
+                }
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testUnsupportedVersion() throws Exception {
+        Path file = Files.createTempFile("graphstore", ".bin");
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                new SnapshotSerialization().write(channel, generateGraphModel());
+                ByteBuffer version = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+                version.putInt(0, SnapshotSerialization.FORMAT_VERSION + 1);
+                channel.write(version, 4);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                new SnapshotSerialization().read(channel);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static GraphModelImpl roundTrip(GraphModelImpl graphModel) throws Exception {
+        Path file = Files.createTempFile("graphstore", ".snapshot");
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                new SnapshotSerialization().write(channel, graphModel);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return new SnapshotSerialization().read(channel);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static GraphModelImpl generateGraphModel() {
+        GraphModelImpl graphModel = new GraphModelImpl();
+        generateGraph(graphModel);
+        return graphModel;
+    }
+
+    private static void generateGraph(GraphModelImpl graphModel) {
+        GraphStore store = graphModel.store;
+        Column intColumn = store.nodeTable.addColumn("int", Integer.class);
+        Column stringColumn = store.nodeTable.addColumn("string", String.class);
+        Column booleanColumn = store.nodeTable.addColumn("boolean", Boolean.class);
+        Column charColumn = store.nodeTable.addColumn("char", Character.class);
+        Column longColumn = store.edgeTable.addColumn("long", Long.class);
+        Column arrayColumn = store.edgeTable.addColumn("array", int[].class);
+        Column shortColumn = store.edgeTable.addColumn("short", Short.class);
+
+        NodeImpl[] nodes = GraphGenerator.generateNodeList(500, store);
+        for (int i = 0; i < nodes.length; i++) {
+            NodeImpl node = nodes[i];
+            node.setLabel("Node " + i);
+            if (i % 7 != 0) {
+                node.setAttribute(intColumn, i);
+                node.setAttribute(booleanColumn, i % 2 == 0);
+                node.setAttribute(charColumn, (char) ('a' + i % 26));
+            }
+            node.setAttribute(stringColumn, "s" + i);
+            node.setX(i);
+            node.setY(-i);
+            node.setSize(i % 10);
+            node.setColor(new java.awt.Color(i % 256, 0, 0));
+            node.setFixed(i % 3 == 0);
+            node.getTextProperties().setText("t" + i);
+        }
+        store.addAllNodes(Arrays.asList(nodes));
+        EdgeImpl[] edges = GraphGenerator.generateMultiTypeEdgeList(store.nodeStore, 3000, 3, true, true);
+        for (int i = 0; i < edges.length; i++) {
+            EdgeImpl edge = edges[i];
+            edge.setWeight(i / 10.0);
+            if (i % 4 != 0) {
+                edge.setAttribute(longColumn, (long) i);
+                edge.setAttribute(shortColumn, (short) i);
+            }
+            edge.setAttribute(arrayColumn, new int[] { i, i + 1 });
+            edge.setColor(new java.awt.Color(0, i % 256, 0));
+        }
+        store.addAllEdges(Arrays.asList(edges));
+
+        GraphViewImpl view = store.viewStore.createView();
+        for (Node node : store.getNodes()) {
+            if (node.getStoreId() % 2 == 0) {
+                view.addNode(node);
+            }
+        }
+        view.fill();
+        store.viewStore.createView(false, true);
+    }
+
+    private static void assertSameGraph(GraphStore store, GraphStore read) {
+        Assert.assertEquals(read.getNodeCount(), store.getNodeCount());
+        Assert.assertEquals(read.getEdgeCount(), store.getEdgeCount());
+        Assert.assertEquals(read.undirectedDecorator.getEdgeCount(), store.undirectedDecorator.getEdgeCount());
+        Assert.assertEquals(read.edgeStore.mutualEdgesSize, store.edgeStore.mutualEdgesSize);
+        for (Node node : store.getNodes()) {
+            Node readNode = read.getNode(node.getId());
+            Assert.assertNotNull(readNode);
+            Assert.assertEquals(read.getDegree(readNode), store.getDegree(node));
+            Assert.assertEquals(read.undirectedDecorator.getDegree(readNode), store.undirectedDecorator
+                    .getDegree(node));
+            assertSameEdges(store.getOutEdges(node).iterator(), read.getOutEdges(readNode).iterator());
+            assertSameEdges(store.getInEdges(node).iterator(), read.getInEdges(readNode).iterator());
+        }
+        for (Edge edge : store.getEdges()) {
+            Edge readEdge = read.getEdge(edge.getId());
+            Assert.assertEquals(readEdge.getSource().getId(), edge.getSource().getId());
+            Assert.assertEquals(readEdge.getTarget().getId(), edge.getTarget().getId());
+            Assert.assertEquals(readEdge.getType(), edge.getType());
+            Assert.assertEquals(readEdge.isDirected(), edge.isDirected());
+            Assert.assertEquals(((EdgeImpl) readEdge).isMutual(), ((EdgeImpl) edge).isMutual());
+            Assert.assertEquals(read.getEdge(readEdge.getSource(), readEdge.getTarget(), readEdge.getType())
+                    .getId(), store.getEdge(edge.getSource(), edge.getTarget(), edge.getType()).getId());
+        }
+    }
+
+    private static void assertSameEdges(Iterator<Edge> expected, Iterator<Edge> actual) {
+        while (expected.hasNext()) {
+            Assert.assertTrue(actual.hasNext());
+            Assert.assertEquals(actual.next().getId(), expected.next().getId());
+        }
+        Assert.assertFalse(actual.hasNext());
+    }
+}
@@ -15,7 +15,11 @@
  */
 package org.gephi.graph.impl;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 import org.gephi.graph.api.Configuration;
 import org.gephi.graph.api.Edge;
 import org.gephi.graph.api.EdgeIterable;
@@ -109,6 +113,151 @@ public class SpatialIndexImplTest {
         Assert.assertTrue(spatialIndex.getNodesInArea(new Rect2D(-1, -1, 1, 1)).toCollection().isEmpty());
     }
 
+    @Test
+    public void testBatch() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore(getConfig());
+
+        NodeImpl n1 = store.getNode("1");
+        NodeImpl n2 = store.getNode("2");
+        EdgeImpl e = store.getEdge("0");
+
+        SpatialIndexImpl spatialIndex = store.spatialIndex;
+        spatialIndex.beginBatch();
+        Assert.assertTrue(spatialIndex.isBatch());
+        n1.setPosition(300000f, 300000f);
+        assertSame(spatialIndex.getNodesInArea(BOUNDS_RECT), n1, n2);
+        assertSame(spatialIndex.getEdgesInArea(BOUNDS_RECT), e, e);
+
+        spatialIndex.commitBatch();
+        Assert.assertFalse(spatialIndex.isBatch());
+        assertSame(spatialIndex.getNodesInArea(BOUNDS_RECT), n2);
+        assertSame(spatialIndex.getEdgesInArea(BOUNDS_RECT), e);
+        assertSame(spatialIndex.getNodesInArea(new Rect2D(299000f, 299000f, 301000f, 301000f)), n1);
+    }
+
+    @Test
+    public void testBatchNested() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore(getConfig());
+        NodeImpl n1 = store.getNode("1");
+        NodeImpl n2 = store.getNode("2");
+
+        SpatialIndexImpl spatialIndex = store.spatialIndex;
+        spatialIndex.beginBatch();
+        spatialIndex.beginBatch();
+        n1.setPosition(300000f, 300000f);
+        spatialIndex.commitBatch();
+        Assert.assertTrue(spatialIndex.isBatch());
+        assertSame(spatialIndex.getNodesInArea(BOUNDS_RECT), n1, n2);
+
+        spatialIndex.commitBatch();
+        assertSame(spatialIndex.getNodesInArea(BOUNDS_RECT), n2);
+    }
+
+    @Test
+    public void testBatchAddRemoveNode() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore(getConfig());
+        NodeImpl n1 = store.getNode("1");
+        NodeImpl n2 = store.getNode("2");
+
+        SpatialIndexImpl spatialIndex = store.spatialIndex;
+        spatialIndex.beginBatch();
+        NodeImpl n3 = new NodeImpl("3", store);
+        store.addNode(n3);
+        store.removeNode(n1);
+        Assert.assertEquals(spatialIndex.getNodesInArea(BOUNDS_RECT).toSet(), new HashSet<>(Arrays.asList(n2, n3)));
+        n3.setPosition(300000f, 300000f);
+        spatialIndex.commitBatch();
+
+        Assert.assertEquals(spatialIndex.getObjectCount(), 2);
+        assertSame(spatialIndex.getNodesInArea(BOUNDS_RECT), n2);
+    }
+
+    @Test
+    public void testBatchManyNodes() {
+        GraphStore store = new GraphStore(null, getConfig());
+        Random random = new Random(42L);
+        for (int i = 0; i < 2000; i++) {
+            NodeImpl node = new NodeImpl(String.valueOf(i), store);
+            node.setPosition(10 + random.nextFloat() * (BOUNDS - 10), 10 + random.nextFloat() * (BOUNDS - 10));
+            store.addNode(node);
+        }
+
+        SpatialIndexImpl spatialIndex = store.spatialIndex;
+        spatialIndex.beginBatch();
+        for (Node node : store.getNodes().toArray()) {
+            node.setPosition(-node.x(), -node.y());
+        }
+        Assert.assertTrue(spatialIndex.getNodesInArea(new Rect2D(-BOUNDS, -BOUNDS, -1, -1)).toCollection().isEmpty());
+        spatialIndex.commitBatch();
+
+        Assert.assertEquals(spatialIndex.getObjectCount(), store.getNodeCount());
+        Assert.assertEquals(spatialIndex.getNodesInArea(new Rect2D(-BOUNDS - 1, -BOUNDS - 1, 0, 0)).toCollection()
+                .size(), store.getNodeCount());
+        Assert.assertTrue(spatialIndex.getNodesInArea(new Rect2D(1, 1, BOUNDS, BOUNDS)).toCollection().isEmpty());
+    }
+
+    @Test
+    public void testAddAllNodes() {
+        GraphStore store = new GraphStore(null, getConfig());
+        Random random = new Random(42L);
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < GraphStoreConfiguration.BULK_LOAD_THRESHOLD; i++) {
+            NodeImpl node = new NodeImpl(String.valueOf(i), store);
+            node.setPosition(random.nextFloat() * BOUNDS, random.nextFloat() * BOUNDS);
+            nodes.add(node);
+        }
+        store.addAllNodes(nodes);
+
+        SpatialIndexImpl spatialIndex = store.spatialIndex;
+        Assert.assertEquals(spatialIndex.getObjectCount(), nodes.size());
+        Assert.assertEquals(spatialIndex.getNodesInArea(new Rect2D(-1, -1, BOUNDS + 1, BOUNDS + 1))
+                .toSet(), new HashSet<>(nodes));
+    }
+
+    @Test
+    public void testLoad() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore(getConfig());
+        NodeImpl n1 = store.getNode("1");
+        NodeImpl n2 = store.getNode("2");
+
+        SpatialIndexImpl spatialIndex = store.spatialIndex;
+        spatialIndex.beginLoad();
+        NodeImpl n3 = new NodeImpl("3", store);
+        NodeImpl n4 = new NodeImpl("4", store);
+        store.addNode(n3);
+        store.addNode(n4);
+        store.removeNode(n4);
+        Assert.assertEquals(spatialIndex.getObjectCount(), 2);
+        spatialIndex.endLoad();
+
+        Assert.assertEquals(spatialIndex.getObjectCount(), 3);
+        Assert.assertEquals(spatialIndex.getNodesInArea(BOUNDS_RECT).toSet(), new HashSet<>(Arrays.asList(n1, n2, n3)));
+    }
+
+    @Test
+    public void testMoveNodeDuringCommitBatch() throws InterruptedException {
+        GraphStore store = GraphGenerator.generateTinyGraphStore(getConfig());
+        NodeImpl n1 = store.getNode("1");
+        SpatialIndexImpl spatialIndex = store.spatialIndex;
+
+        for (int i = 1; i <= 100; i++) {
+            final float position = 1000f * i;
+            spatialIndex.beginBatch();
+            Thread mover = new Thread(() -> n1.setPosition(position, position));
+            mover.start();
+            spatialIndex.commitBatch();
+            mover.join();
+            assertSame(spatialIndex
+                    .getNodesInArea(new Rect2D(position - 10f, position - 10f, position + 10f, position + 10f)), n1);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCommitBatchWithoutBegin() {
+        GraphStore store = GraphGenerator.generateTinyGraphStore(getConfig());
+        store.spatialIndex.commitBatch();
+    }
+
     private void assertSame(NodeIterable iterable, Node... expected) {
         Assert.assertEquals(iterable.toCollection(), Arrays.asList(expected));
     }
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2012-2013 Gephi Consortium
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.gephi.graph.impl;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class StringPoolTest {
+
+    @Test
+    public void testEmpty() {
+        StringPool pool = new StringPool();
+        Assert.assertEquals(pool.size(), 0);
+        Assert.assertEquals(pool.getByteSize(), 0);
+        Assert.assertEquals(pool.find("foo"), StringPool.NULL_HANDLE);
+    }
+
+    @Test
+    public void testAcquire() {
+        StringPool pool = new StringPool();
+        int handle = pool.acquire("foo");
+        Assert.assertEquals(pool.get(handle), "foo");
+        Assert.assertEquals(pool.find("foo"), handle);
+        Assert.assertEquals(pool.size(), 1);
+        Assert.assertEquals(pool.getByteSize(), 3);
+        Assert.assertEquals(pool.getRefCount(handle), 1);
+    }
+
+    @Test
+    public void testDeduplicate() {
+        StringPool pool = new StringPool();
+        int h1 = pool.acquire("foo");
+        int h2 = pool.acquire(new String("foo"));
+        int h3 = pool.acquire("bar");
+        Assert.assertEquals(h1, h2);
+        Assert.assertNotEquals(h1, h3);
+        Assert.assertEquals(pool.size(), 2);
+        Assert.assertEquals(pool.getRefCount(h1), 2);
+        Assert.assertEquals(pool.getByteSize(), 6);
+    }
+
+    @Test
+    public void testFindDoesntAdd() {
+        StringPool pool = new StringPool();
+        pool.acquire("foo");
+        Assert.assertEquals(pool.find("fo"), StringPool.NULL_HANDLE);
+        Assert.assertEquals(pool.find("fooo"), StringPool.NULL_HANDLE);
+        Assert.assertEquals(pool.size(), 1);
+    }
+
+    @Test
+    public void testRelease() {
+        StringPool pool = new StringPool();
+        int h1 = pool.acquire("foo");
+        int h2 = pool.acquire("bar");
+        pool.retain(h1);
+        pool.release(h1);
+        Assert.assertEquals(pool.get(h1), "foo");
+        pool.release(h1);
+        Assert.assertEquals(pool.find("foo"), StringPool.NULL_HANDLE);
+        Assert.assertEquals(pool.size(), 1);
+        Assert.assertEquals(pool.get(h2), "bar");
+    }
+
+    @Test
+    public void testReleaseReusesHandle() {
+        StringPool pool = new StringPool();
+        int h1 = pool.acquire("foo");
+        pool.acquire("bar");
+        pool.release(h1);
+        Assert.assertEquals(pool.acquire("baz"), h1);
+        Assert.assertEquals(pool.get(h1), "baz");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testGetReleased() {
+        StringPool pool = new StringPool();
+        int handle = pool.acquire("foo");
+        pool.acquire("bar");
+        pool.release(handle);
+        pool.get(handle);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReleaseInvalid() {
+        StringPool pool = new StringPool();
+        pool.release(42);
+    }
+
+    @Test
+    public void testLatin1() {
+        assertRoundTrip("café ÿ", 6);
+    }
+
+    @Test
+    public void testUtf8() {
+        assertRoundTrip("日本", 6);
+        assertRoundTrip("a😀b", 6);
+        assertRoundTrip("Ā", 2);
+    }
+
+    @Test
+    public void testUtf16UnpairedSurrogate() {
+        assertRoundTrip("a\ud83d", 4);
+        assertRoundTrip("\ude00b", 4);
+    }
+
+    @Test
+    public void testSimilarStrings() {
+        StringPool pool = new StringPool();
+        String[] strings = new String[] { "é", "Ā", "\ud83d", "😀", "\ude00\ud83d", "e" };
+        int[] handles = new int[strings.length];
+        for (int i = 0; i < strings.length; i++) {
+            handles[i] = pool.acquire(strings[i]);
+        }
+        Assert.assertEquals(pool.size(), strings.length);
+        for (int i = 0; i < strings.length; i++) {
+            Assert.assertEquals(pool.find(strings[i]), handles[i]);
+            Assert.assertEquals(pool.get(handles[i]), strings[i]);
+        }
+    }
+
+    @Test
+    public void testManyStrings() {
+        StringPool pool = new StringPool();
+        int count = 100000;
+        int[] handles = new int[count];
+        for (int i = 0; i < count; i++) {
+            handles[i] = pool.acquire("s" + i);
+        }
+        Assert.assertEquals(pool.size(), count);
+        Assert.assertTrue(pool.pagesCount > 1);
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(pool.find("s" + i), handles[i]);
+            Assert.assertEquals(pool.get(handles[i]), "s" + i);
+        }
+    }
+
+    @Test
+    public void testCompactPages() {
+        StringPool pool = new StringPool();
+        int count = 100000;
+        int[] handles = new int[count];
+        for (int i = 0; i < count; i++) {
+            handles[i] = pool.acquire("s" + i);
+        }
+        int pages = pool.pagesCount;
+        for (int i = 0; i < count; i++) {
+            if (i % 10 != 0) {
+                pool.release(handles[i]);
+            }
+        }
+        Assert.assertTrue(pool.pagesCount < pages);
+        Assert.assertTrue(pool.garbageBytes < StringPool.PAGE_SIZE || pool.garbageBytes <= pool.usedBytes);
+        for (int i = 0; i < count; i += 10) {
+            Assert.assertEquals(pool.get(handles[i]), "s" + i);
+            Assert.assertEquals(pool.find("s" + i), handles[i]);
+        }
+    }
+
+    @Test
+    public void testCompactPagesKeepsEntries() {
+        StringPool pool = new StringPool();
+        int count = 100000;
+        int[] handles = new int[count];
+        for (int i = 0; i < count; i++) {
+            handles[i] = pool.acquire("s" + i);
+        }
+        StringPool.Entries entries = pool.entries;
+        long address = entries.addresses[handles[0]];
+        for (int i = 1; i < count; i++) {
+            if (i % 10 != 0) {
+                pool.release(handles[i]);
+            }
+        }
+
+        // A read that loaded the entries before the compaction still sees the old bytes
+        Assert.assertNotSame(pool.entries, entries);
+        Assert.assertEquals(entries.addresses[handles[0]], address);
+        Assert.assertEquals(StringPool
+                .decode(entries.pages[(int) (address >>> 32)], (int) address, 2, StringPool.LATIN1), "s0");
+        Assert.assertEquals(pool.get(handles[0]), "s0");
+    }
+
+    @Test
+    public void testConcurrentGet() throws InterruptedException {
+        StringPool pool = new StringPool();
+        int count = 1000;
+        int[] handles = new int[count];
+        for (int i = 0; i < count; i++) {
+            handles[i] = pool.acquire("s" + i);
+        }
+        AtomicBoolean failed = new AtomicBoolean();
+        Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                for (int k = 0; k < 200; k++) {
+                    for (int i = 0; i < count; i++) {
+                        if (!pool.get(handles[i]).equals("s" + i) || pool.getHash(handles[i]) != ("s" + i).hashCode()) {
+                            failed.set(true);
+                        }
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        // Grows the arrays and compacts the pages while the readers run
+        for (int k = 0; k < 20; k++) {
+            int[] others = new int[20000];
+            for (int i = 0; i < others.length; i++) {
+                others[i] = pool.acquire("t" + k + "_" + i);
+            }
+            for (int other : others) {
+                pool.release(other);
+            }
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        Assert.assertFalse(failed.get());
+    }
+
+    @Test
+    public void testLongString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < StringPool.PAGE_SIZE; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        StringPool pool = new StringPool();
+        pool.acquire("foo");
+        int handle = pool.acquire(sb.toString());
+        Assert.assertEquals(pool.get(handle), sb.toString());
+    }
+
+    @Test
+    public void testReleaseAll() {
+        StringPool pool = new StringPool();
+        int h1 = pool.acquire("foo");
+        int h2 = pool.acquire("bar");
+        pool.release(h1);
+        pool.release(h2);
+        Assert.assertEquals(pool.size(), 0);
+        Assert.assertEquals(pool.getByteSize(), 0);
+        Assert.assertEquals(pool.pagesCount, 0);
+    }
+
+    @Test
+    public void testClear() {
+        StringPool pool = new StringPool();
+        pool.acquire("foo");
+        pool.clear();
+        Assert.assertEquals(pool.size(), 0);
+        Assert.assertEquals(pool.find("foo"), StringPool.NULL_HANDLE);
+        Assert.assertEquals(pool.get(pool.acquire("bar")), "bar");
+    }
+
+    @Test
+    public void testDecode() {
+        StringPool pool = new StringPool();
+        String[] strings = new String[] { "foo", "日本", "a\ud83d" };
+        for (String str : strings) {
+            int handle = pool.acquire(str);
+            Assert.assertEquals(StringPool.decode(pool.getPage(handle), pool.getOffset(handle), pool
+                    .getLength(handle), pool.getEncoding(handle)), str);
+        }
+    }
+
+    private void assertRoundTrip(String str, int byteSize) {
+        StringPool pool = new StringPool();
+        int handle = pool.acquire(str);
+        Assert.assertEquals(pool.get(handle), str);
+        Assert.assertEquals(pool.find(str), handle);
+        Assert.assertEquals(pool.getByteSize(), byteSize);
+    }
+}